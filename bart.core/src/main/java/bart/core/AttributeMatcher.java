@@ -10,7 +10,8 @@ import java.util.Objects;
  * <p>
  * An empty first set of attributes matches everything (wildcard semantics).
  * Otherwise, every attribute name present in the first set must appear in the
- * second set with an equal value.
+ * second set with an equal value, or with an {@link AttributePattern} accepting
+ * the value of the first set.
  * </p>
  *
  * @author Lorenzo Bettini
@@ -19,7 +20,8 @@ public class AttributeMatcher {
 
 	/**
 	 * Returns {@code true} if every attribute present in {@code attributes1} also
-	 * appears in {@code attributes2} with the same value.
+	 * appears in {@code attributes2} with the same value, or with a pattern
+	 * accepting the value.
 	 * <p>
 	 * An empty {@code attributes1} always matches (wildcard).
 	 * </p>
@@ -32,8 +34,15 @@ public class AttributeMatcher {
 		if (attributes1.isEmpty()) {
 			return true;
 		}
-		return attributes1.names().stream()
-				.allMatch(n -> Objects.equals(attributes1.name(n), attributes2.name(n)));
+		for (var n : attributes1.names()) {
+			var value1 = attributes1.name(n);
+			var value2 = attributes2.name(n);
+			if (!Objects.equals(value1, value2)
+					&& !(value2 instanceof AttributePattern pattern && pattern.test(value1))) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 }
@@ -0,0 +1,180 @@
+package bart.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A typed pattern that can be used as an attribute value, typically in the
+ * resource of a {@link Rule}, and that is matched natively by the
+ * {@link AttributeMatcher}: a value of the other attributes matches the
+ * pattern if the pattern {@link #test(Object) accepts} it.
+ * <p>
+ * Patterns are also indexed by {@link Policies#freeze() frozen} policies
+ * (see {@link RuleIndex}), so that rules with patterns do not defeat rule
+ * selection as opaque conditions would.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * new Rule(new Attributes()
+ *     .add("resource/type", AttributePattern.startsWith("document/"))
+ *     .add("resource/size", AttributePattern.lessThan(10_000_000))
+ *     .add("resource/format", AttributePattern.oneOf("PDF", "ODT")));
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public sealed interface AttributePattern
+		permits AttributePattern.Range, AttributePattern.OneOf, AttributePattern.Prefix, MultiValue {
+
+	/**
+	 * @param value an attribute value
+	 * @return whether the value matches this pattern
+	 */
+	boolean test(Object value);
+
+	/**
+	 * A numeric range; numbers are compared by value, see
+	 * {@link Values#compareNumbers(Number, Number)}.
+	 *
+	 * @param low the lower bound, or {@code null} if unbounded
+	 * @param lowInclusive whether the lower bound is included
+	 * @param high the upper bound, or {@code null} if unbounded
+	 * @param highInclusive whether the upper bound is included
+	 */
+	record Range(Number low, boolean lowInclusive, Number high, boolean highInclusive) implements AttributePattern {
+
+		@Override
+		public boolean test(Object value) {
+			if (!(value instanceof Number number)) {
+				return false;
+			}
+			if (low != null) {
+				var comparison = Values.compareNumbers(number, low);
+				if (comparison < 0 || comparison == 0 && !lowInclusive) {
+					return false;
+				}
+			}
+			if (high != null) {
+				var comparison = Values.compareNumbers(number, high);
+				if (comparison > 0 || comparison == 0 && !highInclusive) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return (low == null ? "(-inf" : (lowInclusive ? "[" : "(") + low) + ", "
+				+ (high == null ? "+inf)" : high + (highInclusive ? "]" : ")"));
+		}
+	}
+
+	/**
+	 * A set of values, matched with {@link Object#equals(Object)}.
+	 *
+	 * @param values the accepted values
+	 */
+	record OneOf(Set<Object> values) implements AttributePattern {
+
+		/**
+		 * @param values the accepted values
+		 */
+		public OneOf {
+			values = Collections.unmodifiableSet(new LinkedHashSet<>(values));
+		}
+
+		@Override
+		public boolean test(Object value) {
+			return values.contains(value);
+		}
+
+		@Override
+		public String toString() {
+			return values.stream()
+				.map(Object::toString)
+				.collect(Collectors.joining(", ", "{", "}"));
+		}
+	}
+
+	/**
+	 * A string prefix, e.g., for path-like values such as
+	 * {@code "document/pdf"}.
+	 *
+	 * @param prefix the prefix of the accepted strings
+	 */
+	record Prefix(String prefix) implements AttributePattern {
+
+		@Override
+		public boolean test(Object value) {
+			return value instanceof String string && string.startsWith(prefix);
+		}
+
+		@Override
+		public String toString() {
+			return prefix + "*";
+		}
+	}
+
+	/**
+	 * @param low the lower bound (included)
+	 * @param high the upper bound (included)
+	 * @return the range {@code [low, high]}
+	 */
+	static AttributePattern between(Number low, Number high) {
+		return new Range(low, true, high, true);
+	}
+
+	/**
+	 * @param high the upper bound (excluded)
+	 * @return the range of numbers less than {@code high}
+	 */
+	static AttributePattern lessThan(Number high) {
+		return new Range(null, false, high, false);
+	}
+
+	/**
+	 * @param high the upper bound (included)
+	 * @return the range of numbers less than or equal to {@code high}
+	 */
+	static AttributePattern atMost(Number high) {
+		return new Range(null, false, high, true);
+	}
+
+	/**
+	 * @param low the lower bound (excluded)
+	 * @return the range of numbers greater than {@code low}
+	 */
+	static AttributePattern greaterThan(Number low) {
+		return new Range(low, false, null, false);
+	}
+
+	/**
+	 * @param low the lower bound (included)
+	 * @return the range of numbers greater than or equal to {@code low}
+	 */
+	static AttributePattern atLeast(Number low) {
+		return new Range(low, true, null, false);
+	}
+
+	/**
+	 * @param values the accepted values
+	 * @return the set of the given values
+	 */
+	static AttributePattern oneOf(Object... values) {
+		return new OneOf(new LinkedHashSet<>(Arrays.asList(values)));
+	}
+
+	/**
+	 * @param prefix the prefix of the accepted strings
+	 * @return the pattern accepting the strings starting with {@code prefix}
+	 */
+	static AttributePattern startsWith(String prefix) {
+		return new Prefix(prefix);
+	}
+}
@@ -4,9 +4,11 @@
 package bart.core;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -16,6 +18,10 @@ import java.util.stream.Collectors;
  * and values can be any {@link Object}. Order of insertion is preserved.
  * Duplicate keys are rejected at add-time.
  * </p>
+ * <p>
+ * The attributes of the policies built by {@link PoliciesBuilder} are shared
+ * among equal policies and rules, so they are unmodifiable.
+ * </p>
  *
  * <p>Example usage:
  * {@snippet :
@@ -31,6 +37,7 @@ import java.util.stream.Collectors;
 public class Attributes {
 
 	private Map<String, Object> attributeMap = new LinkedHashMap<>();
+	private boolean shared;
 
 	/**
 	 * Adds a new attribute with the given name and value.
@@ -39,8 +46,14 @@ public class Attributes {
 	 * @param attributeValue the attribute value
 	 * @return {@code this} to allow fluent chaining
 	 * @throws IllegalArgumentException if {@code attributeName} is already present
+	 * @throws UnsupportedOperationException if these attributes are shared by
+	 *         the policies built by {@link PoliciesBuilder}
 	 */
 	public Attributes add(String attributeName, Object attributeValue) {
+		if (shared) {
+			throw new UnsupportedOperationException(
+				"the attributes built by a PoliciesBuilder are shared and cannot be modified");
+		}
 		Object previous = attributeMap.put(attributeName, attributeValue);
 		if (previous != null) {
 			throw new IllegalArgumentException(
@@ -49,6 +62,19 @@ public class Attributes {
 		return this;
 	}
 
+	/**
+	 * Adds a new multi-valued attribute with the given name and values, stored
+	 * as a {@link MultiValue}.
+	 *
+	 * @param attributeName the unique attribute name; must not already be present
+	 * @param attributeValues the attribute values
+	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalArgumentException if {@code attributeName} is already present
+	 */
+	public Attributes addValues(String attributeName, Object... attributeValues) {
+		return add(attributeName, MultiValue.of(attributeValues));
+	}
+
 	/**
 	 * Returns the value associated with the given attribute name, or {@code null}
 	 * if no such attribute exists.
@@ -84,7 +110,37 @@ public class Attributes {
 	 * @return an unmodifiable view of the attribute names
 	 */
 	public Collection<String> names() {
-		return attributeMap.keySet();
+		return Collections.unmodifiableCollection(attributeMap.keySet());
+	}
+
+	/**
+	 * Returns a shallow copy of these attributes, which is not affected by
+	 * further additions to this container.
+	 *
+	 * @return the copy
+	 */
+	Attributes copy() {
+		var copy = new Attributes();
+		copy.attributeMap.putAll(attributeMap);
+		return copy;
+	}
+
+	/**
+	 * Returns a copy of these attributes backed by an exactly sized map, whose
+	 * names and values are replaced by their canonical instances; the copy can
+	 * be shared, since it is unmodifiable.
+	 *
+	 * @param canonical returns the canonical instance of a name or a non-null value
+	 * @return the unmodifiable compact copy
+	 */
+	Attributes compact(UnaryOperator<Object> canonical) {
+		var map = LinkedHashMap.<String, Object>newLinkedHashMap(attributeMap.size());
+		attributeMap.forEach((name, value) -> map.put(
+			(String) canonical.apply(name), value == null ? null : canonical.apply(value)));
+		var compact = new Attributes();
+		compact.attributeMap = Collections.unmodifiableMap(map);
+		compact.shared = true;
+		return compact;
 	}
 
 	@Override
@@ -0,0 +1,107 @@
+package bart.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list stored in fixed-size chunks, whose updated copies share
+ * the unchanged chunks with the original list: an update only copies the
+ * chunks it changes and the array of the chunks, which is much smaller than
+ * the list.
+ *
+ * @param <E> the type of the elements
+ * @author Lorenzo Bettini
+ */
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+
+	private static final int SHIFT = 10;
+	private static final int CHUNK_SIZE = 1 << SHIFT;
+	private static final int MASK = CHUNK_SIZE - 1;
+
+	private final Object[][] chunks;
+	private final int size;
+
+	private ChunkedList(Object[][] chunks, int size) {
+		this.chunks = chunks;
+		this.size = size;
+	}
+
+	/**
+	 * @param <E> the type of the elements
+	 * @param elements the elements
+	 * @return a chunked list with the given elements
+	 */
+	static <E> ChunkedList<E> of(List<? extends E> elements) {
+		var size = elements.size();
+		var chunks = new Object[(size + MASK) >>> SHIFT][];
+		for (int c = 0; c < chunks.length; c++) {
+			chunks[c] = new Object[CHUNK_SIZE];
+			var from = c << SHIFT;
+			var to = Math.min(size, from + CHUNK_SIZE);
+			for (int i = from; i < to; i++) {
+				chunks[c][i - from] = elements.get(i);
+			}
+		}
+		return new ChunkedList<>(chunks, size);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(int index) {
+		Objects.checkIndex(index, size);
+		return (E) chunks[index >>> SHIFT][index & MASK];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a copy of this list with the given elements replaced and the
+	 * given elements appended; each changed chunk is copied once.
+	 *
+	 * @param replaced the new elements, by index
+	 * @param added the elements to append
+	 * @return the updated copy of this list
+	 * @throws IndexOutOfBoundsException if a replaced index is out of range
+	 */
+	ChunkedList<E> with(Map<Integer, ? extends E> replaced, List<? extends E> added) {
+		var newSize = size + added.size();
+		var newChunks = Arrays.copyOf(chunks, (newSize + MASK) >>> SHIFT);
+		var copied = new BitSet();
+		for (var entry : replaced.entrySet()) {
+			var index = Objects.checkIndex(entry.getKey(), size);
+			chunkToWrite(newChunks, index >>> SHIFT, copied)[index & MASK] = entry.getValue();
+		}
+		for (int i = 0; i < added.size(); i++) {
+			var index = size + i;
+			chunkToWrite(newChunks, index >>> SHIFT, copied)[index & MASK] = added.get(i);
+		}
+		return new ChunkedList<>(newChunks, newSize);
+	}
+
+	private static Object[] chunkToWrite(Object[][] chunks, int chunk, BitSet copied) {
+		if (!copied.get(chunk)) {
+			copied.set(chunk);
+			chunks[chunk] = chunks[chunk] == null ? new Object[CHUNK_SIZE] : chunks[chunk].clone();
+		}
+		return chunks[chunk];
+	}
+
+	/**
+	 * @param other another chunked list
+	 * @param index an index of both lists
+	 * @return whether the element at the index is stored in the same chunk
+	 *         instance in both lists
+	 */
+	boolean sharesChunk(ChunkedList<?> other, int index) {
+		Objects.checkIndex(index, Math.min(size, other.size));
+		return chunks[index >>> SHIFT] == other.chunks[index >>> SHIFT];
+	}
+}
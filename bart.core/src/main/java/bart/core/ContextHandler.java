@@ -4,7 +4,9 @@
 package bart.core;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 
 /**
@@ -14,7 +16,16 @@ import java.util.function.Supplier;
  * Party indexes are 1-based: the first party is {@code 1}, the second is {@code 2},
  * and so on. Attribute values may be plain objects or lazy {@link java.util.function.Supplier
  * Supplier} instances; in the latter case the supplier is called each time the
- * attribute is read (useful for time-sensitive or computed values).
+ * attribute is read (useful for time-sensitive or computed values). During a
+ * semantic evaluation, attributes are read through a {@link ContextSnapshot},
+ * so a supplier is called at most once per top-level evaluation.
+ * </p>
+ * <p>
+ * The context is changed only through {@link #add(int, String, Object)} and
+ * {@link #remove(int)}, whose changes are notified to the
+ * {@link #addListener(Listener) listeners}, e.g., by
+ * {@link bart.core.semantics.StandingQueries}: the attributes returned by
+ * {@link #ofParty(int)} are read-only.
  * </p>
  *
  * <p>Example:
@@ -29,16 +40,57 @@ import java.util.function.Supplier;
  */
 public class ContextHandler {
 
-	private Map<Integer, Attributes> context = new LinkedHashMap<>();
+	/**
+	 * Notified of the changes of the context attributes.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+		/**
+		 * Called after an attribute of a party has been added, or
+		 * after all the attributes of a party have been removed.
+		 *
+		 * @param partyIndex the 1-based index of the party
+		 * @param attributeName the changed attribute, or {@code null} if all the
+		 *        attributes of the party have been removed
+		 */
+		void changed(int partyIndex, String attributeName);
+	}
 
 	/**
-	 * Returns the {@link Attributes} associated with the given party index,
-	 * creating an empty entry if none exists yet.
+	 * The attributes of the parties without context attributes.
+	 */
+	private static final Attributes NO_ATTRIBUTES = new DynamicAttributes();
+
+	private Map<Integer, DynamicAttributes> context = new LinkedHashMap<>();
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Returns the {@link Attributes} associated with the given party index.
+	 * <p>
+	 * Reading does not change this context handler, so that several threads
+	 * can read it at the same time, e.g., while evaluating conditions, as long
+	 * as no thread changes it meanwhile; the entry of a party is created only
+	 * by {@link #add(int, String, Object)}.
+	 * </p>
+	 * <p>
+	 * The returned attributes are read-only, whether the party has context
+	 * attributes or not: adding to them throws
+	 * {@link UnsupportedOperationException}, since the changes must go
+	 * through {@link #add(int, String, Object)} to be notified to the
+	 * listeners. They are not meant to be kept: call this method again to
+	 * read the attributes after changing the context.
+	 * </p>
 	 *
 	 * @param partyIndex the 1-based index of the party
-	 * @return the attributes for the party (never {@code null})
+	 * @return the read-only attributes for the party (never {@code null}),
+	 *         empty if the party has no context attributes
 	 */
 	public Attributes ofParty(int partyIndex) {
+		var attributes = context.get(partyIndex);
+		return attributes != null ? attributes : NO_ATTRIBUTES;
+	}
+
+	private DynamicAttributes ofPartyForUpdate(int partyIndex) {
 		return context.computeIfAbsent(partyIndex,
 				key -> new DynamicAttributes());
 	}
@@ -52,8 +104,9 @@ public class ContextHandler {
 	 * @return {@code this} to allow fluent chaining
 	 */
 	public ContextHandler add(int partyIndex, String attributeName, Object attributeValue) {
-		ofParty(partyIndex)
-			.add(attributeName, attributeValue);
+		ofPartyForUpdate(partyIndex)
+			.put(attributeName, attributeValue);
+		notifyListeners(partyIndex, attributeName);
 		return this;
 	}
 
@@ -67,12 +120,67 @@ public class ContextHandler {
 	 * @return {@code this} to allow fluent chaining
 	 */
 	public ContextHandler add(int partyIndex, String attributeName, Supplier<?> attributeValue) {
-		ofParty(partyIndex)
-			.add(attributeName, attributeValue);
+		ofPartyForUpdate(partyIndex)
+			.put(attributeName, attributeValue);
+		notifyListeners(partyIndex, attributeName);
+		return this;
+	}
+
+	/**
+	 * Removes all the attributes of the given party, e.g., when the party is
+	 * {@link VersionedPolicies#remove(int) removed}.
+	 *
+	 * @param partyIndex the 1-based index of the party
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public ContextHandler remove(int partyIndex) {
+		context.remove(partyIndex);
+		notifyListeners(partyIndex, null);
+		return this;
+	}
+
+	/**
+	 * Adds a listener notified, in the thread changing the attributes, after
+	 * each change made through this context handler. Listeners can be added
+	 * and removed from any thread, also while being notified.
+	 *
+	 * @param listener the listener to add
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public ContextHandler addListener(Listener listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	/**
+	 * @param listener a listener previously {@link #addListener(Listener) added}
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public ContextHandler removeListener(Listener listener) {
+		listeners.remove(listener);
 		return this;
 	}
 
+	private void notifyListeners(int partyIndex, String attributeName) {
+		for (var listener : listeners) {
+			listener.changed(partyIndex, attributeName);
+		}
+	}
+
+	/**
+	 * Read-only attributes resolving the suppliers when read; only the
+	 * context handler adds to them.
+	 */
 	private static class DynamicAttributes extends Attributes {
+		@Override
+		public Attributes add(String attributeName, Object attributeValue) {
+			throw new UnsupportedOperationException("use ContextHandler.add to add context attributes");
+		}
+
+		private void put(String attributeName, Object attributeValue) {
+			super.add(attributeName, attributeValue);
+		}
+
 		@Override
 		public Object name(String attributeName) {
 			var value = super.name(attributeName);
@@ -0,0 +1,319 @@
+package bart.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A memoizing view of the context-handler and party attributes, used by
+ * {@link NameResolverImplementation} to resolve names consistently during a
+ * single top-level evaluation.
+ * <p>
+ * The first time an attribute is read for a party, its value is looked up in
+ * the {@link ContextHandler} and then in the party attributes of the
+ * corresponding policy, and the outcome (including its absence) is cached.
+ * Subsequent reads of the same (party, name) pair return the cached value: in
+ * particular, a {@link java.util.function.Supplier Supplier} registered in the
+ * context handler is called at most once, so that all the conditions evaluated
+ * with the same snapshot see the same value.
+ * </p>
+ * <p>
+ * If {@link #recordReads() recording}, the snapshot also records the reads,
+ * see {@link #readSet()}.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var snapshot = new ContextSnapshot(contextHandler, policies);
+ * var resolver1 = new NameResolverImplementation(request1, snapshot);
+ * var resolver2 = new NameResolverImplementation(request2, snapshot);
+ * // "time" is computed once, and both resolvers see the same value
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class ContextSnapshot {
+
+	/**
+	 * Marks a name that has been looked up and that is not defined.
+	 */
+	private static final Object UNDEFINED = new Object();
+
+	/**
+	 * Marks a name whose value is a number of the party attributes, stored
+	 * unboxed, see {@link Policies#isPartyNumber(int, int)}.
+	 */
+	private static final Object PARTY_NUMBER = new Object();
+
+	private final ContextHandler contextHandler;
+	private final Policies policies;
+
+	/**
+	 * The cached values, indexed by party index and then by
+	 * {@link NameHandle} slot id; {@code null} entries have not been looked up.
+	 */
+	private Object[][] values = new Object[0][];
+	/**
+	 * The parties whose cached values must be discarded on {@link #clear()}:
+	 * a party is recorded the first time it is read in the current round.
+	 */
+	private int[] touchedParties = new int[8];
+	private int touchedCount = 0;
+	private int[] touchedInRound = new int[0];
+	private int round = 1;
+	/**
+	 * The party selectors resolved in the current round, see
+	 * {@link #firstMatching(Attributes)}.
+	 */
+	private final List<Attributes> selectors = new ArrayList<>();
+	private boolean recording = false;
+	private int[] readParties = new int[0];
+	private String[] readNames = new String[0];
+	private byte[] readSources = new byte[0];
+	private int readCount = 0;
+
+	/**
+	 * Creates an empty snapshot over the given context handler and policies.
+	 *
+	 * @param contextHandler the context handler providing per-party attributes
+	 * @param policies the set of policies (indexed from 1)
+	 */
+	public ContextSnapshot(ContextHandler contextHandler, Policies policies) {
+		this.contextHandler = contextHandler;
+		this.policies = policies;
+	}
+
+	/**
+	 * @param contextHandler a context handler
+	 * @param policies a set of policies
+	 * @return whether this snapshot is over exactly the given context handler
+	 *         and policies
+	 */
+	public boolean isOver(ContextHandler contextHandler, Policies policies) {
+		return this.contextHandler == contextHandler && this.policies == policies;
+	}
+
+	/**
+	 * Returns the value of the given attribute for the given party, looking it
+	 * up first in the context handler and then in the party attributes, and
+	 * caching the outcome.
+	 *
+	 * @param partyIndex the 1-based index of the party
+	 * @param name the attribute name
+	 * @return the value, or {@code null} if the attribute is not defined for
+	 *         the party or the name is {@code null}
+	 * @throws IndexOutOfBoundsException if the party index is out of range
+	 */
+	public Object name(int partyIndex, String name) {
+		if (name == null) {
+			return null;
+		}
+		return name(partyIndex, name, policies.slotOf(name));
+	}
+
+	/**
+	 * Same as {@link #name(int, String)}, but with a pre-resolved handle, so
+	 * that the cache is accessed without hashing the name.
+	 *
+	 * @param partyIndex the 1-based index of the party
+	 * @param handle the attribute handle
+	 * @return the value, or {@code null} if the attribute is not defined for
+	 *         the party
+	 * @throws IndexOutOfBoundsException if the party index is out of range
+	 */
+	public Object name(int partyIndex, NameHandle<?> handle) {
+		var slot = policies.slotOf(handle);
+		var value = lookUp(partyIndex, handle.name(), slot);
+		return value == PARTY_NUMBER ? policies.partyValue(partyIndex, handle.name(), slot) : value;
+	}
+
+	/**
+	 * Same as {@link #name(int, NameHandle)}, but a number of the party
+	 * attributes stored unboxed is not returned: it is read with
+	 * {@link #partyInt(int, NameHandle)}, {@link #partyLong(int, NameHandle)}
+	 * or {@link #partyDouble(int, NameHandle)}.
+	 *
+	 * @return the value, {@code null} if the attribute is not defined, or a
+	 *         marker if it is a number of the party attributes stored unboxed,
+	 *         see {@link #isPartyNumber(Object)}
+	 */
+	Object nameOrPartyNumber(int partyIndex, NameHandle<?> handle) {
+		return lookUp(partyIndex, handle.name(), policies.slotOf(handle));
+	}
+
+	/**
+	 * @param value a value returned by {@link #nameOrPartyNumber(int, NameHandle)}
+	 * @return whether it marks a number of the party attributes stored unboxed
+	 */
+	static boolean isPartyNumber(Object value) {
+		return value == PARTY_NUMBER;
+	}
+
+	/**
+	 * @return the number marked by {@link #nameOrPartyNumber(int, NameHandle)},
+	 *         as by {@link Number#intValue()}
+	 */
+	int partyInt(int partyIndex, NameHandle<?> handle) {
+		return policies.partyInt(partyIndex, policies.slotOf(handle));
+	}
+
+	/**
+	 * @return the number marked by {@link #nameOrPartyNumber(int, NameHandle)},
+	 *         as by {@link Number#longValue()}
+	 */
+	long partyLong(int partyIndex, NameHandle<?> handle) {
+		return policies.partyLong(partyIndex, policies.slotOf(handle));
+	}
+
+	/**
+	 * @return the number marked by {@link #nameOrPartyNumber(int, NameHandle)},
+	 *         as by {@link Number#doubleValue()}
+	 */
+	double partyDouble(int partyIndex, NameHandle<?> handle) {
+		return policies.partyDouble(partyIndex, policies.slotOf(handle));
+	}
+
+	private Object name(int partyIndex, String name, int slot) {
+		var value = lookUp(partyIndex, name, slot);
+		return value == PARTY_NUMBER ? policies.partyValue(partyIndex, name, slot) : value;
+	}
+
+	private Object lookUp(int partyIndex, String name, int slot) {
+		var partyValues = partyValues(Objects.checkIndex(partyIndex - 1, policies.size()) + 1, slot);
+		var value = partyValues[slot];
+		if (value == null) {
+			value = contextHandler.ofParty(partyIndex).name(name);
+			if (value == null) {
+				value = policies.isPartyNumber(partyIndex, slot) ? PARTY_NUMBER
+					: policies.partyValue(partyIndex, name, slot);
+				recordRead(partyIndex, name, ReadSet.Source.PARTY);
+			} else {
+				recordRead(partyIndex, name, ReadSet.Source.CONTEXT);
+			}
+			partyValues[slot] = value == null ? UNDEFINED : value;
+		}
+		return value == UNDEFINED ? null : value;
+	}
+
+	private Object[] partyValues(int partyIndex, int slot) {
+		if (partyIndex >= values.length) {
+			var length = Math.max(partyIndex + 1, values.length * 2);
+			values = Arrays.copyOf(values, length);
+			touchedInRound = Arrays.copyOf(touchedInRound, length);
+		}
+		if (touchedInRound[partyIndex] != round) {
+			touchedInRound[partyIndex] = round;
+			if (touchedCount == touchedParties.length) {
+				touchedParties = Arrays.copyOf(touchedParties, touchedCount * 2);
+			}
+			touchedParties[touchedCount++] = partyIndex;
+		}
+		var partyValues = values[partyIndex];
+		if (partyValues == null || slot >= partyValues.length) {
+			partyValues = partyValues == null ? new Object[Math.max(slot + 1, 8)]
+				: Arrays.copyOf(partyValues, Math.max(slot + 1, partyValues.length * 2));
+			values[partyIndex] = partyValues;
+		}
+		return partyValues;
+	}
+
+	/**
+	 * Returns the index of the first party whose attributes match the given
+	 * ones, see {@link Policies#firstMatching(Attributes)}, recording the
+	 * selector until the next {@link #clear()}.
+	 *
+	 * @param attributes the attributes to match against party attributes
+	 * @return the 1-based index of the first matching party, or {@code 0}
+	 */
+	public int firstMatching(Attributes attributes) {
+		selectors.add(attributes);
+		return policies.firstMatching(attributes);
+	}
+
+	/**
+	 * Returns the value of the given attribute in the party attributes of the
+	 * given party only, see {@link Policies#partyValue(int, String, int)},
+	 * recording the read; the value is not cached.
+	 *
+	 * @param partyIndex the 1-based index of the party
+	 * @param name the attribute name
+	 * @return the value, or {@code null} if the attribute is not defined in
+	 *         the party attributes or the name is {@code null}
+	 */
+	public Object partyValue(int partyIndex, String name) {
+		if (name == null) {
+			return null;
+		}
+		recordRead(partyIndex, name, ReadSet.Source.PARTY);
+		return policies.partyValue(partyIndex, name, policies.slotOf(name));
+	}
+
+	/**
+	 * Records that the given name, resolved for the given party, has been
+	 * found in the resource of the request, if {@link #recordReads()
+	 * recording}.
+	 *
+	 * @param partyIndex the 1-based index of the party, or {@code 0}
+	 * @param name the attribute name
+	 */
+	public void resourceRead(int partyIndex, String name) {
+		recordRead(partyIndex, name, ReadSet.Source.RESOURCE);
+	}
+
+	/**
+	 * Records the reads until the next {@link #clear()}.
+	 */
+	public void recordReads() {
+		recording = true;
+	}
+
+	/**
+	 * @return the distinct reads recorded since the last {@link #clear()}
+	 */
+	public ReadSet readSet() {
+		return ReadSet.of(readParties, readNames, readSources, readCount);
+	}
+
+	private void recordRead(int partyIndex, String name, ReadSet.Source source) {
+		if (!recording) {
+			return;
+		}
+		if (readCount == readParties.length) {
+			var length = Math.max(8, readCount * 2);
+			readParties = Arrays.copyOf(readParties, length);
+			readNames = Arrays.copyOf(readNames, length);
+			readSources = Arrays.copyOf(readSources, length);
+		}
+		readParties[readCount] = partyIndex;
+		readNames[readCount] = name;
+		readSources[readCount] = (byte) source.ordinal();
+		readCount++;
+	}
+
+	/**
+	 * @return the selectors passed to {@link #firstMatching(Attributes)} since
+	 *         the last {@link #clear()}
+	 */
+	public List<Attributes> resolvedSelectors() {
+		return List.copyOf(selectors);
+	}
+
+	/**
+	 * Discards all the cached values, so that the next reads see the current
+	 * state of the context handler.
+	 */
+	public void clear() {
+		// the cleared arrays stay allocated, ready to be reused
+		for (int i = 0; i < touchedCount; i++) {
+			Arrays.fill(values[touchedParties[i]], null);
+		}
+		touchedCount = 0;
+		selectors.clear();
+		Arrays.fill(readNames, 0, readCount, null);
+		readCount = 0;
+		recording = false;
+		round++;
+	}
+}
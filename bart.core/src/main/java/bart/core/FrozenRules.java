@@ -0,0 +1,66 @@
+package bart.core;
+
+import java.util.Objects;
+
+/**
+ * The rules of a policy of {@link Policies#freeze() frozen} policies, with
+ * the structures built for evaluating them: the {@link RuleIndex} of their
+ * resources and their compiled conditions.
+ * <p>
+ * They are returned by {@link Policies#frozenRules(int)}, so that an
+ * evaluation of a policy resolves it once and then goes through its rules
+ * without looking the policy up again, which, for policies backed by a
+ * {@link PolicyProvider}, means going through the loaded parties.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class FrozenRules {
+
+	private final Rules rules;
+	private final ExpressionCode[] conditions;
+	private final RuleIndex ruleIndex;
+
+	/**
+	 * @param rules the rules, which must be frozen
+	 * @param conditions the compiled conditions, indexed by rule index
+	 * @param ruleIndex the index of the resources of the rules
+	 */
+	FrozenRules(Rules rules, ExpressionCode[] conditions, RuleIndex ruleIndex) {
+		this.rules = rules;
+		this.conditions = conditions;
+		this.ruleIndex = ruleIndex;
+	}
+
+	/**
+	 * @return the rules of the policy
+	 */
+	public Rules rules() {
+		return rules;
+	}
+
+	/**
+	 * Returns the indexes of the rules whose resource may match the given
+	 * requested resource, in increasing order, see
+	 * {@link RuleIndex#candidates(Attributes)}.
+	 *
+	 * @param resource the requested resource
+	 * @return the 1-based indexes of the candidate rules, which must not be
+	 *         modified
+	 */
+	public int[] candidates(Attributes resource) {
+		return ruleIndex.candidates(resource);
+	}
+
+	/**
+	 * Returns the condition of the given rule compiled with
+	 * {@link bart.core.expressions.Expressions#compile(ExpressionCode, Attributes)}.
+	 *
+	 * @param ruleIndex the 1-based index of the rule
+	 * @return the compiled condition of the rule
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public ExpressionCode conditionOf(int ruleIndex) {
+		return conditions[Objects.checkIndex(ruleIndex - 1, conditions.length - 1) + 1];
+	}
+}
@@ -0,0 +1,46 @@
+package bart.core;
+
+import java.util.Arrays;
+
+/**
+ * A minimal growable list of primitive {@code int}s.
+ *
+ * @author Lorenzo Bettini
+ */
+final class IntList {
+
+	private int[] elements = new int[8];
+	private int size = 0;
+
+	void add(int element) {
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, size * 2);
+		}
+		elements[size++] = element;
+	}
+
+	void addAll(int[] others) {
+		for (var other : others) {
+			add(other);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the elements in increasing order, without duplicates
+	 */
+	int[] toSortedDistinctArray() {
+		var sorted = Arrays.copyOf(elements, size);
+		Arrays.sort(sorted);
+		var distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+	}
+}
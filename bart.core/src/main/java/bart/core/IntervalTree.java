@@ -0,0 +1,115 @@
+package bart.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A static centered interval tree over closed {@code double} intervals, each
+ * associated with an integer id, answering stabbing queries (which intervals
+ * contain a point) in {@code O(log n + k)}.
+ * <p>
+ * Infinite bounds are allowed. Since bounds are {@code double}s, callers
+ * needing exact answers should widen the intervals and check the reported
+ * ids afterwards.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class IntervalTree {
+
+	record Interval(double low, double high, int id) {
+
+	}
+
+	private static final class Node {
+		private final double center;
+		/** The intervals containing the center, by increasing low bound. */
+		private final Interval[] byLow;
+		/** The intervals containing the center, by decreasing high bound. */
+		private final Interval[] byHigh;
+		private final Node left;
+		private final Node right;
+
+		Node(double center, Interval[] byLow, Interval[] byHigh, Node left, Node right) {
+			this.center = center;
+			this.byLow = byLow;
+			this.byHigh = byHigh;
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+	private final Node root;
+
+	IntervalTree(List<Interval> intervals) {
+		root = build(intervals);
+	}
+
+	private static Node build(List<Interval> intervals) {
+		if (intervals.isEmpty()) {
+			return null;
+		}
+		var endpoints = new double[intervals.size() * 2];
+		for (int i = 0; i < intervals.size(); i++) {
+			endpoints[2 * i] = intervals.get(i).low();
+			endpoints[2 * i + 1] = intervals.get(i).high();
+		}
+		Arrays.sort(endpoints);
+		// an endpoint of some interval, which therefore contains it
+		var center = endpoints[endpoints.length / 2];
+		var leftIntervals = new ArrayList<Interval>();
+		var rightIntervals = new ArrayList<Interval>();
+		var overlapping = new ArrayList<Interval>();
+		for (var interval : intervals) {
+			if (interval.high() < center) {
+				leftIntervals.add(interval);
+			} else if (interval.low() > center) {
+				rightIntervals.add(interval);
+			} else {
+				overlapping.add(interval);
+			}
+		}
+		var byLow = overlapping.toArray(new Interval[0]);
+		Arrays.sort(byLow, Comparator.comparingDouble(Interval::low));
+		var byHigh = overlapping.toArray(new Interval[0]);
+		Arrays.sort(byHigh, Comparator.comparingDouble(Interval::high).reversed());
+		return new Node(center, byLow, byHigh, build(leftIntervals), build(rightIntervals));
+	}
+
+	/**
+	 * Adds to the given list the ids of the intervals containing the point, in
+	 * no particular order.
+	 *
+	 * @param point the point
+	 * @param ids where the ids are added
+	 */
+	void stab(double point, IntList ids) {
+		var node = root;
+		while (node != null) {
+			if (point < node.center) {
+				for (var interval : node.byLow) {
+					if (interval.low() > point) {
+						break;
+					}
+					ids.add(interval.id());
+				}
+				node = node.left;
+			} else if (point > node.center) {
+				for (var interval : node.byHigh) {
+					if (interval.high() < point) {
+						break;
+					}
+					ids.add(interval.id());
+				}
+				node = node.right;
+			} else {
+				for (var interval : node.byLow) {
+					ids.add(interval.id());
+				}
+				return;
+			}
+		}
+	}
+}
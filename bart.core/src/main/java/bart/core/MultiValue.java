@@ -0,0 +1,168 @@
+package bart.core;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A multi-valued attribute value, e.g., the several roles of a party or the
+ * several cities it covers.
+ * <p>
+ * When used in the attributes that are matched against (the party attributes
+ * or the resource of a rule), a multi-value matches a required value that is
+ * one of its members, or a required multi-value whose members are all among
+ * its members. The members are stored in a compact form: their hash codes in
+ * a sorted {@code int} array, so that membership is tested with a binary
+ * search; frozen {@link Policies} also index the members of the party
+ * attributes, see {@link Policies#candidateParties(Attributes)}.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var party = new Attributes()
+ *     .add("name", "Courier")
+ *     .addValues("city", "Lucca", "Pisa");
+ * new AttributeMatcher().match(new Attributes().add("city", "Pisa"), party); // true
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class MultiValue implements AttributePattern {
+
+	/** The members, in insertion order. */
+	private final Object[] members;
+	/** The hash codes of the members, sorted. */
+	private final int[] hashes;
+	/** The members, in the order of {@link #hashes}. */
+	private final Object[] byHash;
+
+	private MultiValue(Object[] members) {
+		this.members = members;
+		var order = new Integer[members.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (i, j) -> Integer.compare(members[i].hashCode(), members[j].hashCode()));
+		hashes = new int[members.length];
+		byHash = new Object[members.length];
+		for (int i = 0; i < order.length; i++) {
+			byHash[i] = members[order[i]];
+			hashes[i] = byHash[i].hashCode();
+		}
+	}
+
+	/**
+	 * Creates a multi-value with the given members; duplicates are ignored.
+	 *
+	 * @param members the members, which must not be {@code null}
+	 * @return the multi-value
+	 * @throws NullPointerException if a member is {@code null}
+	 */
+	public static MultiValue of(Object... members) {
+		var distinct = new LinkedHashSet<>(members.length);
+		for (var member : members) {
+			if (member == null) {
+				throw new NullPointerException("null member");
+			}
+			distinct.add(member);
+		}
+		return new MultiValue(distinct.toArray());
+	}
+
+	/**
+	 * @param value a value
+	 * @return whether the value is one of the members
+	 */
+	public boolean contains(Object value) {
+		if (value == null) {
+			return false;
+		}
+		var hash = value.hashCode();
+		var position = Arrays.binarySearch(hashes, hash);
+		if (position < 0) {
+			return false;
+		}
+		// members with the same hash code are adjacent
+		while (position > 0 && hashes[position - 1] == hash) {
+			position--;
+		}
+		for (; position < hashes.length && hashes[position] == hash; position++) {
+			if (byHash[position].equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param other a multi-value
+	 * @return whether all the members of {@code other} are members of this one
+	 */
+	public boolean containsAll(MultiValue other) {
+		for (var member : other.members) {
+			if (!contains(member)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the members, in insertion order
+	 */
+	public List<Object> members() {
+		return List.of(members);
+	}
+
+	/**
+	 * @return the number of members
+	 */
+	public int size() {
+		return members.length;
+	}
+
+	/**
+	 * Accepts a member, or a multi-value whose members are all members of
+	 * this one.
+	 */
+	@Override
+	public boolean test(Object value) {
+		if (value instanceof MultiValue other) {
+			return containsAll(other);
+		}
+		return contains(value);
+	}
+
+	@Override
+	public int hashCode() {
+		var hash = 0;
+		for (var h : hashes) {
+			hash += h;
+		}
+		return hash;
+	}
+
+	/**
+	 * Multi-values are equal if they have the same members, in any order.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if ((obj == null) || (getClass() != obj.getClass())) {
+			return false;
+		}
+		MultiValue other = (MultiValue) obj;
+		return size() == other.size() && containsAll(other);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.stream(members)
+			.map(Object::toString)
+			.collect(Collectors.joining(", ", "{", "}"));
+	}
+}
@@ -0,0 +1,114 @@
+package bart.core;
+
+import java.util.Objects;
+
+/**
+ * A typed, pre-resolved reference to an attribute name, to be declared once
+ * and then used by conditions instead of a plain string name.
+ * <p>
+ * Each {@link Policies} assigns each distinct attribute name a slot id of its
+ * own, shared by all the handles with that name. When
+ * {@link Policies#freeze() frozen}, policies lay out the party attributes in
+ * arrays indexed by slot id, so that {@link NameResolver#get(NameHandle)}
+ * resolves party attributes with array lookups rather than string hashing,
+ * and without a {@link Class#cast(Object)}, while the primitive variants such
+ * as {@link NameResolver#getInt(NameHandle)} read the numbers of the party
+ * attributes unboxed. A handle remembers its slot id in the policies it has
+ * been resolved with last, so that it is looked up only when switching to
+ * other policies.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * static final NameHandle<Integer> TIME = NameHandle.of("time", Integer.class);
+ * ...
+ * new ExpressionWithDescription(c -> c.getInt(TIME) < 18, "time < 18")
+ * }
+ * </p>
+ *
+ * @param <T> the type of the attribute values
+ * @author Lorenzo Bettini
+ */
+public final class NameHandle<T> {
+
+	/**
+	 * The slot id of the name in some slots.
+	 */
+	private record CachedSlot(NameSlots slots, int slot) {
+	}
+
+	private final String name;
+	private final Class<T> type;
+	/**
+	 * The slot id in the slots the handle has been resolved with last;
+	 * since records only have final fields, racing threads at most look up
+	 * the slot id twice.
+	 */
+	private CachedSlot cachedSlot;
+
+	private NameHandle(String name, Class<T> type) {
+		this.name = name;
+		this.type = type;
+	}
+
+	/**
+	 * Creates a handle for the given attribute name.
+	 *
+	 * @param <T> the type of the attribute values
+	 * @param name the attribute name
+	 * @param type the class of the attribute values
+	 * @return the handle
+	 */
+	public static <T> NameHandle<T> of(String name, Class<T> type) {
+		return new NameHandle<>(name, type);
+	}
+
+	/**
+	 * @return the attribute name
+	 */
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * @return the class of the attribute values
+	 */
+	public Class<T> type() {
+		return type;
+	}
+
+	/**
+	 * @param slots the slot ids of some policies
+	 * @return the slot id of the name in the given slots
+	 */
+	int slotIn(NameSlots slots) {
+		var cached = cachedSlot;
+		if (cached == null || cached.slots() != slots) {
+			cached = new CachedSlot(slots, slots.slotOf(name));
+			cachedSlot = cached;
+		}
+		return cached.slot();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(name, type);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if ((obj == null) || (getClass() != obj.getClass())) {
+			return false;
+		}
+		NameHandle<?> other = (NameHandle<?>) obj;
+		return Objects.equals(name, other.name) && Objects.equals(type, other.type);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
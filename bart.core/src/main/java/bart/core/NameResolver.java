@@ -96,4 +96,94 @@ public interface NameResolver {
 	 * @throws ClassCastException if the value cannot be cast
 	 */
 	<T> T nameFromParty(String name, Attributes attributes, Class<T> clazz) throws UndefinedName;
+
+	/**
+	 * Resolves the attribute named {@code name} only from the static party
+	 * attributes of the {@code from} party's policy, ignoring the request
+	 * resource and the context.
+	 * <p>
+	 * The default implementation delegates to {@link #name(String)};
+	 * implementations with access to the policies should override it.
+	 * </p>
+	 *
+	 * @param name the attribute name
+	 * @return the resolved value
+	 * @throws UndefinedName if {@code name} cannot be found
+	 */
+	default Object staticName(String name) throws UndefinedName {
+		return name(name);
+	}
+
+	/**
+	 * Resolves the attribute of the given handle for the {@code from} party.
+	 * <p>
+	 * The default implementation delegates to {@link #name(String, Class)};
+	 * implementations may resolve the handle more efficiently, see
+	 * {@link NameHandle}.
+	 * </p>
+	 *
+	 * @param <T>    the expected type
+	 * @param handle the attribute handle
+	 * @return the resolved value
+	 * @throws UndefinedName     if the attribute cannot be found
+	 * @throws ClassCastException if the value is not of the handle type
+	 */
+	default <T> T get(NameHandle<T> handle) throws UndefinedName {
+		return name(handle.name(), handle.type());
+	}
+
+	/**
+	 * Resolves the attribute of the given handle for the {@code requester}.
+	 * <p>
+	 * The default implementation delegates to {@link #nameFromRequester(String, Class)}.
+	 * </p>
+	 *
+	 * @param <T>    the expected type
+	 * @param handle the attribute handle
+	 * @return the resolved value
+	 * @throws UndefinedName     if the attribute cannot be found
+	 * @throws ClassCastException if the value is not of the handle type
+	 */
+	default <T> T getFromRequester(NameHandle<T> handle) throws UndefinedName {
+		return nameFromRequester(handle.name(), handle.type());
+	}
+
+	/**
+	 * Resolves the numeric attribute of the given handle for the {@code from}
+	 * party as an {@code int}.
+	 *
+	 * @param handle the attribute handle
+	 * @return the resolved value
+	 * @throws UndefinedName     if the attribute cannot be found
+	 * @throws ClassCastException if the value is not a {@link Number}
+	 */
+	default int getInt(NameHandle<? extends Number> handle) throws UndefinedName {
+		return get(handle).intValue();
+	}
+
+	/**
+	 * Resolves the numeric attribute of the given handle for the {@code from}
+	 * party as a {@code long}.
+	 *
+	 * @param handle the attribute handle
+	 * @return the resolved value
+	 * @throws UndefinedName     if the attribute cannot be found
+	 * @throws ClassCastException if the value is not a {@link Number}
+	 */
+	default long getLong(NameHandle<? extends Number> handle) throws UndefinedName {
+		return get(handle).longValue();
+	}
+
+	/**
+	 * Resolves the numeric attribute of the given handle for the {@code from}
+	 * party as a {@code double}.
+	 *
+	 * @param handle the attribute handle
+	 * @return the resolved value
+	 * @throws UndefinedName     if the attribute cannot be found
+	 * @throws ClassCastException if the value is not a {@link Number}
+	 */
+	default double getDouble(NameHandle<? extends Number> handle) throws UndefinedName {
+		return get(handle).doubleValue();
+	}
 }
@@ -1,8 +1,5 @@
 package bart.core;
 
-import java.util.Objects;
-import java.util.stream.Stream;
-
 import bart.core.semantics.UndefinedName;
 
 /**
@@ -17,26 +14,44 @@ import bart.core.semantics.UndefinedName;
  * </ol>
  * The resolution order and the party/context used depend on the method called.
  * </p>
+ * <p>
+ * Context and party attributes are read through a {@link ContextSnapshot},
+ * which caches them per (party, name): resolvers sharing the same snapshot,
+ * e.g., during a single top-level evaluation, see consistent values and call
+ * lazy context attributes at most once.
+ * </p>
  *
  * @author Lorenzo Bettini
  */
 public final class NameResolverImplementation implements NameResolver {
 
+	private static final int NO_PARTY = 0;
+
 	private Request request;
-	private ContextHandler contextHandler;
-	private Policies policies;
+	private ContextSnapshot snapshot;
 
 	/**
-	 * Constructs a new resolver for the given request, context handler, and policies.
+	 * Constructs a new resolver for the given request, context handler, and policies,
+	 * with its own fresh {@link ContextSnapshot}.
 	 *
 	 * @param request the resource request
 	 * @param contextHandler the context handler providing per-party attributes
 	 * @param policies the set of policies (indexed from 1)
 	 */
 	public NameResolverImplementation(Request request, ContextHandler contextHandler, Policies policies) {
+		this(request, new ContextSnapshot(contextHandler, policies));
+	}
+
+	/**
+	 * Constructs a new resolver for the given request that reads context and
+	 * party attributes through the given (possibly shared) snapshot.
+	 *
+	 * @param request the resource request
+	 * @param snapshot the snapshot of context and party attributes
+	 */
+	public NameResolverImplementation(Request request, ContextSnapshot snapshot) {
 		this.request = request;
-		this.contextHandler = contextHandler;
-		this.policies = policies;
+		this.snapshot = snapshot;
 	}
 
 	/**
@@ -51,8 +66,7 @@ public final class NameResolverImplementation implements NameResolver {
 	 */
 	@Override
 	public Object name(String name) throws UndefinedName {
-		var index = request.from().getIndex();
-		return retrieveName(name, contextHandler.ofParty(index), policies.getByIndex(index).party());
+		return retrieveName(name, request.from().getIndex());
 	}
 
 	/**
@@ -74,6 +88,92 @@ public final class NameResolverImplementation implements NameResolver {
 		return clazz.cast(name(name));
 	}
 
+	/**
+	 * Resolves the value of the given attribute name only from the party attributes
+	 * of the policy of the party specified by {@code request.from()}.
+	 *
+	 * @param name the attribute name to resolve
+	 * @return the resolved attribute value
+	 * @throws UndefinedName if the attribute cannot be found
+	 */
+	@Override
+	public Object staticName(String name) throws UndefinedName {
+		var value = name == null ? null
+			: snapshot.partyValue(request.from().getIndex(), name);
+		if (value == null) {
+			throw new UndefinedName(name);
+		}
+		return value;
+	}
+
+	/**
+	 * Resolves the attribute of the given handle for the party specified by {@code request.from()},
+	 * with the same search order as {@link #name(String)}.
+	 * <p>
+	 * Context and party attributes are looked up by slot id, see {@link NameHandle}.
+	 * The value is not checked with {@link Class#cast(Object)}: a value of the wrong
+	 * type makes the caller fail with a {@link ClassCastException} when using it.
+	 * </p>
+	 *
+	 * @param <T> the type of the attribute values
+	 * @param handle the attribute handle
+	 * @return the resolved attribute value
+	 * @throws UndefinedName if the attribute cannot be found
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(NameHandle<T> handle) throws UndefinedName {
+		return (T) retrieveName(handle, request.from().getIndex());
+	}
+
+	/**
+	 * Same as {@link #get(NameHandle)}, but the numbers of the party
+	 * attributes of frozen policies are read unboxed.
+	 *
+	 * @param handle the attribute handle
+	 * @return the resolved attribute value
+	 * @throws UndefinedName if the attribute cannot be found
+	 */
+	@Override
+	public int getInt(NameHandle<? extends Number> handle) throws UndefinedName {
+		var partyIndex = request.from().getIndex();
+		var value = retrieveName(handle, partyIndex, true);
+		return ContextSnapshot.isPartyNumber(value) ? snapshot.partyInt(partyIndex, handle)
+			: ((Number) value).intValue();
+	}
+
+	/**
+	 * Same as {@link #get(NameHandle)}, but the numbers of the party
+	 * attributes of frozen policies are read unboxed.
+	 *
+	 * @param handle the attribute handle
+	 * @return the resolved attribute value
+	 * @throws UndefinedName if the attribute cannot be found
+	 */
+	@Override
+	public long getLong(NameHandle<? extends Number> handle) throws UndefinedName {
+		var partyIndex = request.from().getIndex();
+		var value = retrieveName(handle, partyIndex, true);
+		return ContextSnapshot.isPartyNumber(value) ? snapshot.partyLong(partyIndex, handle)
+			: ((Number) value).longValue();
+	}
+
+	/**
+	 * Same as {@link #get(NameHandle)}, but the numbers of the party
+	 * attributes of frozen policies are read unboxed.
+	 *
+	 * @param handle the attribute handle
+	 * @return the resolved attribute value
+	 * @throws UndefinedName if the attribute cannot be found
+	 */
+	@Override
+	public double getDouble(NameHandle<? extends Number> handle) throws UndefinedName {
+		var partyIndex = request.from().getIndex();
+		var value = retrieveName(handle, partyIndex, true);
+		return ContextSnapshot.isPartyNumber(value) ? snapshot.partyDouble(partyIndex, handle)
+			: ((Number) value).doubleValue();
+	}
+
 	/**
 	 * Resolves the value of the given attribute name for the party specified by {@code request.requester()}.
 	 * <p>
@@ -86,8 +186,7 @@ public final class NameResolverImplementation implements NameResolver {
 	 */
 	@Override
 	public Object nameFromRequester(String name) throws UndefinedName {
-		var index = request.requester().index();
-		return retrieveName(name, contextHandler.ofParty(index), policies.getByIndex(index).party());
+		return retrieveName(name, request.requester().index());
 	}
 
 	/**
@@ -106,11 +205,28 @@ public final class NameResolverImplementation implements NameResolver {
 		return clazz.cast(nameFromRequester(name));
 	}
 
+	/**
+	 * Resolves the attribute of the given handle for the party specified by {@code request.requester()},
+	 * with the same search order as {@link #nameFromRequester(String)}; see {@link #get(NameHandle)}.
+	 *
+	 * @param <T> the type of the attribute values
+	 * @param handle the attribute handle
+	 * @return the resolved attribute value
+	 * @throws UndefinedName if the attribute cannot be found
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getFromRequester(NameHandle<T> handle) throws UndefinedName {
+		return (T) retrieveName(handle, request.requester().index());
+	}
+
 	/**
 	 * Resolves the value of the given attribute name for the first party whose attributes match the given search attributes.
 	 * <p>
 	 * The search order is: resource attributes, context handler for the first matching party, then party attributes for the first matching party.
 	 * If no party matches, empty context and party attributes are used.
+	 * The first matching party is looked up through {@link Policies#firstMatching(Attributes)},
+	 * which caches it per distinct selector.
 	 * </p>
 	 *
 	 * @param name the attribute name to resolve
@@ -120,18 +236,7 @@ public final class NameResolverImplementation implements NameResolver {
 	 */
 	@Override
 	public Object nameFromParty(String name, Attributes attributes) throws UndefinedName {
-		var attributeMatcher = new AttributeMatcher();
-		var firstMatchingParty = policies.getPolicyData()
-			.filter(d -> attributeMatcher.match(attributes, d.policy().party()))
-			.findFirst();
-		var fromContext = new Attributes();
-		var fromParty = new Attributes();
-		if (firstMatchingParty.isPresent()) {
-			var policyData = firstMatchingParty.get();
-			fromContext = contextHandler.ofParty(policyData.index());
-			fromParty = policyData.policy().party();
-		}
-		return retrieveName(name, fromContext, fromParty);
+		return retrieveName(name, snapshot.firstMatching(attributes));
 	}
 
 	/**
@@ -152,29 +257,57 @@ public final class NameResolverImplementation implements NameResolver {
 	}
 
 	/**
-	 * Helper method to resolve the value of the given attribute name from the provided sources in order:
+	 * Helper method to resolve the value of the given attribute name from the following sources in order:
 	 * <ol>
 	 *   <li>request resource attributes</li>
-	 *   <li>fromContext</li>
-	 *   <li>fromParty</li>
+	 *   <li>context handler attributes for the given party</li>
+	 *   <li>party attributes from the policy of the given party</li>
 	 * </ol>
 	 * Returns the first non-null value found, or throws {@link UndefinedName} if not found.
 	 *
 	 * @param name the attribute name to resolve
-	 * @param fromContext the context handler attributes for the relevant party
-	 * @param fromParty the party attributes from the relevant policy
+	 * @param partyIndex the 1-based index of the relevant party, or {@link #NO_PARTY}
+	 *        if only the resource attributes must be searched
 	 * @return the resolved attribute value
 	 * @throws UndefinedName if the attribute cannot be found in any source
 	 */
-	private Object retrieveName(String name, Attributes fromContext, Attributes fromParty) throws UndefinedName {
-		return Stream.of(
-				request.resource(),
-				fromContext,
-				fromParty)
-			.map(attributes -> attributes.name(name))
-			.filter(Objects::nonNull)
-			.findFirst()
-			.orElseThrow(() -> new UndefinedName(name));
+	private Object retrieveName(String name, int partyIndex) throws UndefinedName {
+		var value = request.resource().name(name);
+		if (value != null) {
+			snapshot.resourceRead(partyIndex, name);
+		} else if (partyIndex != NO_PARTY) {
+			value = snapshot.name(partyIndex, name);
+		}
+		if (value == null) {
+			throw new UndefinedName(name);
+		}
+		return value;
+	}
+
+	/**
+	 * Same as {@link #retrieveName(String, int)}, but with a pre-resolved handle.
+	 */
+	private Object retrieveName(NameHandle<?> handle, int partyIndex) throws UndefinedName {
+		return retrieveName(handle, partyIndex, false);
+	}
+
+	/**
+	 * Same as {@link #retrieveName(NameHandle, int)}, but, if
+	 * {@code numbersUnboxed}, a number of the party attributes stored unboxed
+	 * is returned as a marker, see {@link ContextSnapshot#isPartyNumber(Object)}.
+	 */
+	private Object retrieveName(NameHandle<?> handle, int partyIndex, boolean numbersUnboxed) throws UndefinedName {
+		var resource = request.resource();
+		var value = resource.isEmpty() ? null : resource.name(handle.name());
+		if (value != null) {
+			snapshot.resourceRead(partyIndex, handle.name());
+		} else {
+			value = numbersUnboxed ? snapshot.nameOrPartyNumber(partyIndex, handle) : snapshot.name(partyIndex, handle);
+		}
+		if (value == null) {
+			throw new UndefinedName(handle.name());
+		}
+		return value;
 	}
 
-}
\ No newline at end of file
+}
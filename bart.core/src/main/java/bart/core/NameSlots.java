@@ -0,0 +1,33 @@
+package bart.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The slot ids of the attribute names used with some {@link Policies}, see
+ * {@link NameHandle}: each distinct name is assigned the next slot id the
+ * first time it is seen, so that the arrays indexed by slot id only grow with
+ * the names of the party attributes of those policies and of the conditions
+ * evaluated over them.
+ * <p>
+ * The versions of {@link VersionedPolicies} share the same slot ids, since
+ * they share the frozen parties.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class NameSlots {
+
+	private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+	private final AtomicInteger nextSlot = new AtomicInteger();
+
+	/**
+	 * @param name the attribute name
+	 * @return the slot id of the name, assigning a new one the first time the
+	 *         name is seen
+	 */
+	int slotOf(String name) {
+		return slots.computeIfAbsent(name, n -> nextSlot.getAndIncrement());
+	}
+}
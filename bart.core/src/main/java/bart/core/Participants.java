@@ -1,5 +1,7 @@
 package bart.core;
 
+import java.util.Arrays;
+
 import bart.core.QuantifiedParticipant.Quantifier;
 
 /**
@@ -47,14 +49,48 @@ public class Participants {
 		}
 	};
 
+	/**
+	 * The largest index whose {@link IndexParticipant} is cached.
+	 */
+	private static final int MAX_CACHED_INDEX = 1 << 16;
+
+	/**
+	 * The cached {@link IndexParticipant}s, grown on demand up to
+	 * {@link #MAX_CACHED_INDEX}; racing threads may at worst create equal
+	 * instances, which is harmless since they are records.
+	 */
+	private static volatile IndexParticipant[] indexParticipants = createIndexParticipants(new IndexParticipant[0], 256);
+
+	private static IndexParticipant[] createIndexParticipants(IndexParticipant[] existing, int size) {
+		var participants = Arrays.copyOf(existing, size);
+		for (int i = existing.length; i < size; i++) {
+			participants[i] = new IndexParticipant(i);
+		}
+		return participants;
+	}
+
 	/**
 	 * Returns an {@link IndexParticipant} for the given 1-based party index.
+	 * <p>
+	 * Instances for indexes up to 65536 are cached, so that the semantics engine
+	 * does not allocate a new participant for each generated exchange request.
+	 * </p>
 	 *
 	 * @param index the 1-based index of the party in the policies list
 	 * @return an {@code IndexParticipant} for {@code index}
 	 */
 	public static IndexParticipant index(int index) {
-		return new IndexParticipant(index);
+		var participants = indexParticipants;
+		if (index >= 0 && index < participants.length) {
+			return participants[index];
+		}
+		if (index < 0 || index > MAX_CACHED_INDEX) {
+			return new IndexParticipant(index);
+		}
+		participants = createIndexParticipants(participants,
+			Math.min(Math.max(participants.length * 2, index + 1), MAX_CACHED_INDEX + 1));
+		indexParticipants = participants;
+		return participants[index];
 	}
 
 	/**
@@ -0,0 +1,171 @@
+package bart.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar representation of the party attributes of frozen
+ * {@link Policies}, see {@link Policies#columnar(boolean)}: for each attribute
+ * name, a column with the dictionary code of the value of each party (0 if
+ * the party has no value for that name) and a presence bitmap.
+ * <p>
+ * A selector is matched (with the semantics of the {@link AttributeMatcher})
+ * by scanning the columns of its names, 64 parties at a time, and combining
+ * the resulting words; when a single code is accepted, the scan of a column
+ * is a plain comparison of {@code int}s, which the JIT compiler can
+ * vectorize. Words of parties already excluded by previous columns are
+ * skipped.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class PartyColumns {
+
+	private static final class Column {
+		/** The code of each party, indexed by party index; 0 means no value. */
+		private final int[] codes;
+		/** The bitmap of the parties with a value. */
+		private final long[] presence;
+		/** The distinct values, indexed by code; index 0 is unused. */
+		private final List<Object> dictionary = new ArrayList<>();
+		private final Map<Object, Integer> codeOf = new HashMap<>();
+		/** The codes of the values that are {@link AttributePattern}s. */
+		private int[] patternCodes = new int[0];
+
+		Column(int size) {
+			codes = new int[size + 1];
+			presence = new long[words(size)];
+			dictionary.add(null);
+		}
+
+		void set(int partyIndex, Object value) {
+			var code = codeOf.computeIfAbsent(value, v -> {
+				dictionary.add(v);
+				var newCode = dictionary.size() - 1;
+				if (v instanceof AttributePattern) {
+					patternCodes = Arrays.copyOf(patternCodes, patternCodes.length + 1);
+					patternCodes[patternCodes.length - 1] = newCode;
+				}
+				return newCode;
+			});
+			codes[partyIndex] = code;
+			presence[partyIndex >>> 6] |= 1L << partyIndex;
+		}
+
+		/**
+		 * Restricts the result to the parties whose value matches the
+		 * required one.
+		 */
+		void scan(Object required, long[] result) {
+			if (required == null) {
+				for (int w = 0; w < result.length; w++) {
+					result[w] &= ~presence[w];
+				}
+				return;
+			}
+			var exactCode = codeOf.get(required);
+			var accepted = new IntList();
+			if (exactCode != null) {
+				accepted.add(exactCode);
+			}
+			for (var code : patternCodes) {
+				if (((AttributePattern) dictionary.get(code)).test(required)) {
+					accepted.add(code);
+				}
+			}
+			var acceptedCodes = accepted.toSortedDistinctArray();
+			switch (acceptedCodes.length) {
+			case 0 -> Arrays.fill(result, 0L);
+			case 1 -> scanEqual(acceptedCodes[0], result);
+			default -> scanAccepted(acceptedCodes, result);
+			}
+		}
+
+		private void scanEqual(int code, long[] result) {
+			for (int w = 0; w < result.length; w++) {
+				if (result[w] == 0) {
+					continue;
+				}
+				var base = w << 6;
+				var end = Math.min(64, codes.length - base);
+				long bits = 0;
+				for (int j = 0; j < end; j++) {
+					bits |= (codes[base + j] == code ? 1L : 0L) << j;
+				}
+				result[w] &= bits;
+			}
+		}
+
+		private void scanAccepted(int[] acceptedCodes, long[] result) {
+			var accepted = new boolean[dictionary.size()];
+			for (var code : acceptedCodes) {
+				accepted[code] = true;
+			}
+			for (int w = 0; w < result.length; w++) {
+				if (result[w] == 0) {
+					continue;
+				}
+				var base = w << 6;
+				var end = Math.min(64, codes.length - base);
+				long bits = 0;
+				for (int j = 0; j < end; j++) {
+					bits |= (accepted[codes[base + j]] ? 1L : 0L) << j;
+				}
+				result[w] &= bits;
+			}
+		}
+	}
+
+	private final int size;
+	private final Map<String, Column> columns = new HashMap<>();
+
+	/**
+	 * @param policies the policies, the first one having index 1
+	 */
+	PartyColumns(List<Policy> policies) {
+		size = policies.size();
+		for (int i = 0; i < size; i++) {
+			var party = policies.get(i).party();
+			for (var name : party.names()) {
+				var value = party.name(name);
+				if (value != null) {
+					columns.computeIfAbsent(name, n -> new Column(size)).set(i + 1, value);
+				}
+			}
+		}
+	}
+
+	private static int words(int size) {
+		// party indexes start from 1
+		return (size >>> 6) + 1;
+	}
+
+	/**
+	 * Returns the indexes of the parties matching the given selector, with
+	 * the semantics of {@link AttributeMatcher#match(Attributes, Attributes)}.
+	 *
+	 * @param selector the attributes a party must match
+	 * @return a fresh bitset of party indexes
+	 */
+	BitSet matching(Attributes selector) {
+		var result = new long[words(size)];
+		Arrays.fill(result, -1L);
+		// only the bits of the party indexes, from 1 to size
+		result[0] &= ~1L;
+		result[result.length - 1] &= -1L >>> (63 - (size & 63));
+		for (var name : selector.names()) {
+			var required = selector.name(name);
+			var column = columns.get(name);
+			if (column != null) {
+				column.scan(required, result);
+			} else if (required != null) {
+				return new BitSet();
+			}
+		}
+		return BitSet.valueOf(result);
+	}
+}
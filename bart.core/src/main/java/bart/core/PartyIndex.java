@@ -0,0 +1,127 @@
+package bart.core;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index of the party attributes of frozen {@link Policies}: for
+ * each attribute name and value, the bitset of the indexes of the parties
+ * with that value, or with a {@link MultiValue} having that value as a member.
+ * <p>
+ * Parties whose value is another {@link AttributePattern} cannot be indexed by
+ * value, and are always reported as candidates for that name.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class PartyIndex {
+
+	private final Map<String, Map<Object, BitSet>> byValue = new HashMap<>();
+	private final Map<String, BitSet> patterns = new HashMap<>();
+
+	/**
+	 * @param policies the policies, the first one having index 1
+	 */
+	PartyIndex(List<Policy> policies) {
+		for (int i = 1; i <= policies.size(); i++) {
+			add(policies.get(i - 1).party(), i);
+		}
+	}
+
+	/**
+	 * Indexes only some of the parties.
+	 *
+	 * @param policies the policies, the first one having index 1
+	 * @param parties the indexes of the parties to index
+	 */
+	PartyIndex(List<Policy> policies, BitSet parties) {
+		for (int i = parties.nextSetBit(1); i >= 0; i = parties.nextSetBit(i + 1)) {
+			add(policies.get(i - 1).party(), i);
+		}
+	}
+
+	private void add(Attributes party, int partyIndex) {
+		for (var name : party.names()) {
+			var value = party.name(name);
+			if (value instanceof MultiValue multiValue) {
+				for (var member : multiValue.members()) {
+					add(name, member, partyIndex);
+				}
+			} else if (value instanceof AttributePattern) {
+				patterns.computeIfAbsent(name, n -> new BitSet()).set(partyIndex);
+			} else if (value != null) {
+				add(name, value, partyIndex);
+			}
+		}
+	}
+
+	private void add(String name, Object value, int partyIndex) {
+		byValue.computeIfAbsent(name, n -> new HashMap<>())
+			.computeIfAbsent(value, v -> new BitSet())
+			.set(partyIndex);
+	}
+
+	/**
+	 * Returns the indexes of the parties that may match the given selector;
+	 * any other party certainly does not match. The candidates still have to
+	 * be checked with the {@link AttributeMatcher}.
+	 *
+	 * @param selector the attributes a party must match
+	 * @return a fresh bitset of party indexes, or {@code null} if the index
+	 *         cannot restrict them (e.g., for an empty selector)
+	 */
+	BitSet candidates(Attributes selector) {
+		BitSet result = null;
+		for (var name : selector.names()) {
+			var candidates = candidates(name, selector.name(name));
+			if (candidates == null) {
+				continue;
+			}
+			if (result == null) {
+				result = candidates;
+			} else {
+				result.and(candidates);
+			}
+			if (result.isEmpty()) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private BitSet candidates(String name, Object value) {
+		if (value == null || value instanceof MultiValue multiValue && multiValue.size() == 0) {
+			return null;
+		}
+		var values = byValue.getOrDefault(name, Map.of());
+		var candidates = new BitSet();
+		if (value instanceof MultiValue multiValue) {
+			// the parties having all the members
+			var members = multiValue.members();
+			for (int i = 0; i < members.size(); i++) {
+				var parties = values.get(members.get(i));
+				if (parties == null) {
+					candidates.clear();
+					break;
+				}
+				if (i == 0) {
+					candidates.or(parties);
+				} else {
+					candidates.and(parties);
+				}
+			}
+		} else {
+			var parties = values.get(value);
+			if (parties != null) {
+				candidates.or(parties);
+			}
+		}
+		var patterned = patterns.get(name);
+		if (patterned != null) {
+			candidates.or(patterned);
+		}
+		return candidates;
+	}
+}
@@ -1,11 +1,23 @@
 package bart.core;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import bart.core.expressions.Expressions;
+
 /**
  * An ordered, 1-based indexed collection of {@link Policy} objects.
  * <p>
@@ -14,6 +26,10 @@ import java.util.stream.Stream;
  * the first {@link #add(Policy) add} call creates party 1, the second creates
  * party 2, etc.
  * </p>
+ * <p>
+ * Once fully built, policies can be {@link #freeze() frozen}, which prevents
+ * further additions and prepares faster lookups of party attributes.
+ * </p>
  *
  * <p>Example:
  * {@snippet :
@@ -40,15 +56,186 @@ public class Policies {
 
 	}
 
+	/**
+	 * The number of changed parties of a version up to which the index of
+	 * a previous version is reused, unless the parties are more than 16
+	 * times as many.
+	 */
+	private static final int MAX_CHANGED_PARTIES = 1024;
+
+	/**
+	 * The number of selectors whose first matching party is cached.
+	 */
+	private static final int MAX_FIRST_MATCHES = 1024;
+
 	private List<Policy> collection = new ArrayList<>();
 
+	/**
+	 * The index of the first party matching a given selector, or {@code 0} if
+	 * no party matches, for the most recently used selectors; only used once
+	 * these policies are frozen.
+	 */
+	private final Map<Attributes, Integer> firstMatches = leastRecentlyUsed(MAX_FIRST_MATCHES);
+
+	/**
+	 * Creates an empty collection of policies.
+	 */
+	public Policies() {
+		// policies are appended with add
+	}
+
+	/**
+	 * Creates an exactly sized collection with the given policies.
+	 *
+	 * @param policies the policies, the first one having index 1
+	 * @see PoliciesBuilder
+	 */
+	Policies(List<Policy> policies) {
+		collection = new ArrayList<>(policies);
+	}
+
+	/**
+	 * The kind of an integral number stored unboxed in {@link PartySlots}.
+	 */
+	private static final byte INTEGRAL = 1;
+
+	/**
+	 * The kind of a floating-point number stored unboxed in
+	 * {@link PartySlots}.
+	 */
+	private static final byte FLOATING = 2;
+
+	/**
+	 * The party attributes laid out by {@link NameHandle} slot id.
+	 *
+	 * @param values the values
+	 * @param kinds for each slot, {@link #INTEGRAL} or {@link #FLOATING} if
+	 *        the value is a number of that kind, {@code 0} otherwise;
+	 *        {@code null} if no value is
+	 * @param numbers for each slot, the integral value, or the raw bits of the
+	 *        floating-point one; {@code null} if no value is a number
+	 */
+	private record PartySlots(Object[] values, byte[] kinds, long[] numbers) {
+	}
+
+	/**
+	 * The structures built at freeze time for a party.
+	 *
+	 * @param slots the party attributes laid out by {@link NameHandle} slot id
+	 * @param rules the rules of the policy, with their index and compiled
+	 *        conditions
+	 */
+	private record FrozenParty(PartySlots slots, FrozenRules rules) {
+	}
+
+	/**
+	 * The slot ids of the attribute names, shared by all the versions.
+	 */
+	private NameSlots nameSlots = new NameSlots();
+
+	/**
+	 * The frozen parties, indexed by party index; {@code null} until frozen.
+	 * An element is {@code null} until first used in lazily frozen policies;
+	 * since records only have final fields, racing threads at most build the
+	 * same structures twice.
+	 */
+	private FrozenParty[] frozenParties;
+
+	/**
+	 * The provider of the policies; {@code null} unless created with
+	 * {@link #of(PolicyProvider, int)}.
+	 */
+	private PolicyProvider provider;
+
+	/**
+	 * A policy loaded from the {@link #provider}, with its frozen structures.
+	 *
+	 * @param policy the policy
+	 * @param frozen the frozen structures
+	 */
+	private record LoadedParty(Policy policy, FrozenParty frozen) {
+	}
+
+	/**
+	 * The most recently used loaded parties, by party index; guarded by
+	 * itself.
+	 */
+	private Map<Integer, LoadedParty> loadedParties;
+
+	/**
+	 * The most recently read party attributes of the {@link #provider}, by
+	 * party index, so that they are not decoded on each read, e.g., while
+	 * selecting parties; guarded by itself.
+	 */
+	private Map<Integer, Attributes> providedParties;
+
+	/**
+	 * The frozen parties of a version, see {@link VersionedPolicies}, indexed
+	 * by party index minus one; {@code null} for other policies.
+	 */
+	private ChunkedList<FrozenParty> versionedParties;
+
+	/**
+	 * The index of the party attributes of a version: the index built for a
+	 * previous version, which is still valid for the parties that have not
+	 * changed since then.
+	 *
+	 * @param base the index built for the previous version
+	 * @param changed the indexes of the parties changed since then
+	 */
+	private record VersionIndex(Function<Attributes, BitSet> base, BitSet changed) {
+	}
+
+	/**
+	 * The index of the party attributes of a version; {@code null} for other
+	 * policies.
+	 */
+	private VersionIndex versionIndex;
+
+	/**
+	 * The policy in place of a removed party of a version.
+	 */
+	private static final Policy REMOVED = new Policy(new Attributes(), new Rules());
+
+	/**
+	 * The frozen structures of {@link #REMOVED}, shared by all the removed
+	 * parties, so that each of them only takes a reference in the versions.
+	 */
+	private static final FrozenParty REMOVED_PARTY;
+
+	static {
+		REMOVED.rules().freeze();
+		REMOVED_PARTY = new FrozenParty(new PartySlots(new Object[0], null, null),
+			new FrozenRules(REMOVED.rules(), new ExpressionCode[1], new RuleIndex(REMOVED.rules())));
+	}
+
+	/**
+	 * The indexes of the removed parties of a version; {@code null} if none.
+	 */
+	private BitSet removedParties;
+
+	/**
+	 * The index of the party attributes, either a {@link PartyIndex} or
+	 * {@link PartyColumns}; {@code null} until frozen.
+	 */
+	private Function<Attributes, BitSet> partyCandidates;
+
+	/**
+	 * Whether the party attributes are stored in columns when frozen.
+	 */
+	private boolean columnar;
+
 	/**
 	 * Appends a policy to the collection, assigning it the next available index.
 	 *
 	 * @param policy the policy to add
 	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalStateException if these policies are {@link #freeze() frozen}
 	 */
 	public Policies add(Policy policy) {
+		if (isFrozen()) {
+			throw new IllegalStateException("policies are frozen");
+		}
 		collection.add(policy);
 		return this;
 	}
@@ -75,6 +262,633 @@ public class Policies {
 		return collection.get(i - 1);
 	}
 
+	/**
+	 * Returns the party attributes of the policy at the given 1-based index;
+	 * unlike {@code getByIndex(i).party()}, it does not load the rules of
+	 * policies backed by a {@link PolicyProvider}.
+	 *
+	 * @param i the 1-based index
+	 * @return the party attributes of the policy at that index
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public Attributes party(int i) {
+		if (provider != null) {
+			return providedParty(i);
+		}
+		return getByIndex(i).party();
+	}
+
+	/**
+	 * Freezes these policies: no policy, nor rule of a policy, can be added
+	 * afterwards, the attributes of each party are laid out in an array
+	 * indexed by {@link NameHandle} slot id, so that handles are resolved with
+	 * array lookups, the rule conditions are compiled, see
+	 * {@link #conditionOf(int, int)}, and the rule resources and the party
+	 * attributes are indexed, see {@link #candidateRules(int, Attributes)} and
+	 * {@link #candidateParties(Attributes)}. Freezing frozen policies has no
+	 * effect.
+	 *
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Policies freeze() {
+		return freeze(false);
+	}
+
+	/**
+	 * Implements {@link #freeze()}; policies sharing the same {@link Rules}
+	 * instance share its {@link RuleIndex}.
+	 *
+	 * @param parallel whether to build the per-party structures in parallel
+	 * @return {@code this} to allow fluent chaining
+	 */
+	Policies freeze(boolean parallel) {
+		if (isFrozen()) {
+			return this;
+		}
+		var size = collection.size();
+		var distinctRules = new IdentityHashMap<Rules, RuleIndex>();
+		for (var policy : collection) {
+			distinctRules.put(policy.rules(), null);
+		}
+		var rulesToIndex = new ArrayList<>(distinctRules.keySet());
+		var builtIndexes = new RuleIndex[rulesToIndex.size()];
+		range(rulesToIndex.size(), parallel)
+			.forEach(i -> builtIndexes[i] = new RuleIndex(rulesToIndex.get(i)));
+		for (int i = 0; i < builtIndexes.length; i++) {
+			distinctRules.put(rulesToIndex.get(i), builtIndexes[i]);
+		}
+		var frozen = new FrozenParty[size + 1];
+		range(size, parallel).forEach(i -> {
+			var policy = collection.get(i);
+			frozen[i + 1] = frozenParty(policy, distinctRules.get(policy.rules()));
+		});
+		if (columnar) {
+			partyCandidates = new PartyColumns(collection)::matching;
+		} else {
+			partyCandidates = new PartyIndex(collection)::candidates;
+		}
+		frozenParties = frozen;
+		return this;
+	}
+
+	/**
+	 * Creates frozen policies whose per-party structures are built the first
+	 * time a party is used, so that opening them takes constant time, e.g.,
+	 * when the policies are themselves decoded on demand.
+	 *
+	 * @param policies the policies, the first one having index 1, which are
+	 *        used without copying them
+	 * @param partyCandidates computes the result of
+	 *        {@link #candidateParties(Attributes)}
+	 * @return the frozen policies
+	 * @see PolicySnapshot
+	 */
+	static Policies lazilyFrozen(List<Policy> policies, Function<Attributes, BitSet> partyCandidates) {
+		var lazy = new Policies();
+		lazy.collection = policies;
+		lazy.frozenParties = new FrozenParty[policies.size() + 1];
+		lazy.partyCandidates = partyCandidates;
+		return lazy;
+	}
+
+	/**
+	 * Creates frozen policies backed by the given provider: the parties are
+	 * selected through the party attributes and the index of the provider,
+	 * see {@link #party(int)} and {@link #candidateParties(Attributes)},
+	 * while the rules of a party are loaded, and its structures are frozen,
+	 * only when the party is evaluated, e.g., with {@link #getByIndex(int)}.
+	 * At most {@code maxLoadedParties} loaded parties are kept, evicting the
+	 * least recently used ones, so that a large number of parties can be
+	 * served with a small working set; the same bound applies to the party
+	 * attributes read from the provider, which are kept separately, so that
+	 * selecting among many parties does not evict the loaded rules.
+	 *
+	 * @param provider the provider of the policies
+	 * @param maxLoadedParties the maximum number of loaded parties to keep
+	 * @return the frozen policies
+	 * @throws IllegalArgumentException if {@code maxLoadedParties} is less than 1
+	 */
+	public static Policies of(PolicyProvider provider, int maxLoadedParties) {
+		if (maxLoadedParties < 1) {
+			throw new IllegalArgumentException("maxLoadedParties must be at least 1: " + maxLoadedParties);
+		}
+		var provided = new Policies();
+		provided.provider = provider;
+		provided.loadedParties = leastRecentlyUsed(maxLoadedParties);
+		provided.providedParties = leastRecentlyUsed(maxLoadedParties);
+		provided.collection = new AbstractList<>() {
+			@Override
+			public Policy get(int index) {
+				return provided.loadedParty(index + 1).policy();
+			}
+
+			@Override
+			public int size() {
+				return provider.size();
+			}
+		};
+		provided.partyCandidates = provider::candidateParties;
+		return provided;
+	}
+
+	/**
+	 * Creates the first version of the given policies, frozen and stored in
+	 * chunks, so that the next versions share the unchanged ones.
+	 *
+	 * @param initial the policies, which are not modified
+	 * @return the first version
+	 * @see VersionedPolicies
+	 */
+	static Policies firstVersion(Policies initial) {
+		var frozen = new Policies(initial.collection).columnar(initial.columnar).freeze(true);
+		var version = new Policies();
+		version.columnar = initial.columnar;
+		version.nameSlots = frozen.nameSlots;
+		version.collection = ChunkedList.of(frozen.collection);
+		version.versionedParties = ChunkedList.of(
+			Arrays.asList(frozen.frozenParties).subList(1, frozen.frozenParties.length));
+		version.versionIndex = new VersionIndex(frozen.partyCandidates, new BitSet());
+		version.partyCandidates = frozen.partyCandidates;
+		return version;
+	}
+
+	/**
+	 * Creates the next version of this version, which is not modified: only
+	 * the changed parties are frozen, while the other ones, and the chunks
+	 * storing them, are shared. The party attributes are indexed again only
+	 * once many parties have changed; until then, the index of a previous
+	 * version is combined with an index of the changed parties only.
+	 * <p>
+	 * Removed parties keep their index, so that the indexes of the other
+	 * parties do not change, but they are never selected, see
+	 * {@link #isRemoved(int)}. They are never compacted, not even when the
+	 * party attributes are indexed again: each one keeps an entry, sharing
+	 * the same empty policy and frozen structures, and it is still visited
+	 * when scanning all the parties.
+	 * </p>
+	 *
+	 * @param replaced the replacing policies, by 1-based index
+	 * @param added the policies to append
+	 * @param removed the 1-based indexes of the parties to remove
+	 * @return the next version
+	 * @throws IllegalStateException if these policies are not a version
+	 * @throws IndexOutOfBoundsException if a replaced or removed index is out
+	 *         of range
+	 * @throws IllegalArgumentException if a party to replace or to remove has
+	 *         already been removed, is removed more than once, or is both
+	 *         replaced and removed
+	 */
+	Policies nextVersion(Map<Integer, Policy> replaced, List<Policy> added, Collection<Integer> removed) {
+		if (versionIndex == null) {
+			throw new IllegalStateException("not a version");
+		}
+		var size = collection.size();
+		var changed = (BitSet) versionIndex.changed().clone();
+		var removedInNext = removedParties == null ? new BitSet() : (BitSet) removedParties.clone();
+		var replacements = new HashMap<>(replaced);
+		for (var index : removed) {
+			var previous = replacements.put(index, REMOVED);
+			if (previous == REMOVED) {
+				throw new IllegalArgumentException("party " + index + " is removed more than once");
+			}
+			if (previous != null) {
+				throw new IllegalArgumentException("party " + index + " is both replaced and removed");
+			}
+		}
+		var replacedPolicies = new HashMap<Integer, Policy>();
+		var replacedParties = new HashMap<Integer, FrozenParty>();
+		replacements.forEach((index, policy) -> {
+			Objects.checkIndex(index - 1, size);
+			if (removedInNext.get(index)) {
+				throw new IllegalArgumentException("party " + index + " has been removed");
+			}
+			replacedPolicies.put(index - 1, policy);
+			replacedParties.put(index - 1,
+				policy == REMOVED ? REMOVED_PARTY : frozenParty(policy, new RuleIndex(policy.rules())));
+			changed.set(index);
+		});
+		var addedParties = new ArrayList<FrozenParty>(added.size());
+		for (var policy : added) {
+			addedParties.add(frozenParty(policy, new RuleIndex(policy.rules())));
+		}
+		changed.set(size + 1, size + 1 + added.size());
+		removed.forEach(removedInNext::set);
+		var next = new Policies();
+		next.columnar = columnar;
+		next.nameSlots = nameSlots;
+		next.removedParties = removedInNext.isEmpty() ? null : removedInNext;
+		next.collection = ((ChunkedList<Policy>) collection).with(replacedPolicies, added);
+		next.versionedParties = versionedParties.with(replacedParties, addedParties);
+		if (changed.cardinality() > Math.max(MAX_CHANGED_PARTIES, next.collection.size() / 16)) {
+			Function<Attributes, BitSet> base = columnar
+				? new PartyColumns(next.collection)::matching
+				: new PartyIndex(next.collection)::candidates;
+			next.versionIndex = new VersionIndex(base, new BitSet());
+			next.partyCandidates = base;
+		} else {
+			next.versionIndex = new VersionIndex(versionIndex.base(), changed);
+			next.partyCandidates = withChanges(versionIndex.base(), changed,
+				new PartyIndex(next.collection, changed));
+		}
+		return next;
+	}
+
+	private static Function<Attributes, BitSet> withChanges(Function<Attributes, BitSet> base,
+			BitSet changed, PartyIndex changes) {
+		return selector -> {
+			var candidates = base.apply(selector);
+			if (candidates == null) {
+				return null;
+			}
+			candidates.andNot(changed);
+			var changedCandidates = changes.candidates(selector);
+			candidates.or(changedCandidates == null ? changed : changedCandidates);
+			return candidates;
+		};
+	}
+
+	private static <K, V> Map<K, V> leastRecentlyUsed(int maxSize) {
+		return new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	private Attributes providedParty(int partyIndex) {
+		Objects.checkIndex(partyIndex - 1, provider.size());
+		synchronized (providedParties) {
+			var party = providedParties.get(partyIndex);
+			if (party != null) {
+				return party;
+			}
+		}
+		// decoded without holding the lock, at worst twice
+		var party = provider.party(partyIndex);
+		synchronized (providedParties) {
+			providedParties.put(partyIndex, party);
+		}
+		return party;
+	}
+
+	private LoadedParty loadedParty(int partyIndex) {
+		Objects.checkIndex(partyIndex - 1, provider.size());
+		synchronized (loadedParties) {
+			var loaded = loadedParties.get(partyIndex);
+			if (loaded != null) {
+				return loaded;
+			}
+		}
+		// loaded without holding the lock, at worst twice
+		var policy = new Policy(providedParty(partyIndex), provider.rules(partyIndex));
+		var loaded = new LoadedParty(policy, frozenParty(policy, new RuleIndex(policy.rules())));
+		synchronized (loadedParties) {
+			loadedParties.put(partyIndex, loaded);
+		}
+		return loaded;
+	}
+
+	private FrozenParty frozenParty(int partyIndex) {
+		if (provider != null) {
+			return loadedParty(partyIndex).frozen();
+		}
+		if (versionedParties != null) {
+			return versionedParties.get(partyIndex - 1);
+		}
+		var i = Objects.checkIndex(partyIndex - 1, collection.size()) + 1;
+		var frozen = frozenParties[i];
+		if (frozen == null) {
+			var policy = collection.get(i - 1);
+			frozen = frozenParty(policy, new RuleIndex(policy.rules()));
+			frozenParties[i] = frozen;
+		}
+		return frozen;
+	}
+
+	private FrozenParty frozenParty(Policy policy, RuleIndex ruleIndex) {
+		// the index and the compiled conditions must stay in sync with the rules
+		policy.rules().freeze();
+		return new FrozenParty(partySlots(policy.party()),
+			new FrozenRules(policy.rules(), compiledConditions(policy), ruleIndex));
+	}
+
+	private static IntStream range(int size, boolean parallel) {
+		var range = IntStream.range(0, size);
+		return parallel ? range.parallel() : range;
+	}
+
+	private PartySlots partySlots(Attributes party) {
+		var length = 0;
+		var hasNumbers = false;
+		for (var name : party.names()) {
+			length = Math.max(length, nameSlots.slotOf(name) + 1);
+			hasNumbers |= numberKind(party.name(name)) != 0;
+		}
+		var values = new Object[length];
+		var kinds = hasNumbers ? new byte[length] : null;
+		var numbers = hasNumbers ? new long[length] : null;
+		for (var name : party.names()) {
+			var slot = nameSlots.slotOf(name);
+			var value = party.name(name);
+			values[slot] = value;
+			var kind = numberKind(value);
+			if (kind != 0) {
+				kinds[slot] = kind;
+				numbers[slot] = kind == INTEGRAL ? ((Number) value).longValue()
+					: Double.doubleToRawLongBits(((Number) value).doubleValue());
+			}
+		}
+		return new PartySlots(values, kinds, numbers);
+	}
+
+	private static byte numberKind(Object value) {
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			return INTEGRAL;
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return FLOATING;
+		}
+		return 0;
+	}
+
+	private static ExpressionCode[] compiledConditions(Policy policy) {
+		var rules = policy.rules();
+		var compiled = new ExpressionCode[rules.size() + 1];
+		for (int j = 1; j <= rules.size(); j++) {
+			compiled[j] = Expressions.compile(rules.getByIndex(j).getCondition(), policy.party());
+		}
+		return compiled;
+	}
+
+	/**
+	 * Chooses how the party attributes are indexed when these policies are
+	 * {@link #freeze() frozen}: by default, with an inverted index from values
+	 * to parties; when columnar, with one dictionary-coded column per
+	 * attribute name, which is scanned to match a selector. The columnar
+	 * representation is more compact and resolves selectors exactly, which
+	 * pays off for very large numbers of parties.
+	 *
+	 * @param columnar whether to store the party attributes in columns
+	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalStateException if these policies are frozen
+	 */
+	public Policies columnar(boolean columnar) {
+		if (isFrozen()) {
+			throw new IllegalStateException("policies are frozen");
+		}
+		this.columnar = columnar;
+		return this;
+	}
+
+	/**
+	 * Returns the condition to evaluate for the given rule: once frozen, the
+	 * condition compiled with {@link Expressions#compile(ExpressionCode, Attributes)},
+	 * otherwise the condition of the rule as it is.
+	 *
+	 * @param policyIndex the 1-based index of the policy
+	 * @param ruleIndex the 1-based index of the rule within the policy
+	 * @return the condition of the rule
+	 * @throws IndexOutOfBoundsException if an index is out of range
+	 */
+	public ExpressionCode conditionOf(int policyIndex, int ruleIndex) {
+		if (!isFrozen()) {
+			return getByIndex(policyIndex).rules().getByIndex(ruleIndex).getCondition();
+		}
+		return frozenParty(policyIndex).rules().conditionOf(ruleIndex);
+	}
+
+	/**
+	 * Returns the indexes of the rules of the given policy whose resource may
+	 * match the given requested resource, in increasing order, see
+	 * {@link RuleIndex#candidates(Attributes)}.
+	 *
+	 * @param policyIndex the 1-based index of the policy
+	 * @param resource the requested resource
+	 * @return the 1-based indexes of the candidate rules, which must not be
+	 *         modified, or {@code null} if all the rules are candidates (in
+	 *         particular, when these policies are not frozen)
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public int[] candidateRules(int policyIndex, Attributes resource) {
+		if (!isFrozen()) {
+			return null;
+		}
+		return frozenParty(policyIndex).rules().candidates(resource);
+	}
+
+	/**
+	 * Returns the rules of the given policy with the structures built for
+	 * evaluating them, to be resolved once per evaluation of the policy
+	 * instead of calling {@link #candidateRules(int, Attributes)} and
+	 * {@link #conditionOf(int, int)} for each rule.
+	 *
+	 * @param policyIndex the 1-based index of the policy
+	 * @return the frozen rules of the policy, or {@code null} if these
+	 *         policies are not frozen
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public FrozenRules frozenRules(int policyIndex) {
+		if (!isFrozen()) {
+			return null;
+		}
+		return frozenParty(policyIndex).rules();
+	}
+
+	/**
+	 * Returns the indexes of the parties that may match the given selector
+	 * (see {@link AttributeMatcher}), computed with bitset operations over an
+	 * inverted index of the party attributes; any other party certainly does
+	 * not match, while the candidates still have to be checked with the
+	 * matcher. With {@link #columnar(boolean) columnar} party attributes, the
+	 * columns are scanned and the candidates are exactly the matching parties.
+	 *
+	 * @param selector the attributes a party must match
+	 * @return a fresh bitset of 1-based party indexes, or {@code null} if all
+	 *         the parties are candidates (in particular, when these policies
+	 *         are not frozen)
+	 */
+	public BitSet candidateParties(Attributes selector) {
+		if (partyCandidates == null) {
+			return null;
+		}
+		var candidates = partyCandidates.apply(selector);
+		if (candidates != null && removedParties != null) {
+			candidates.andNot(removedParties);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns whether the given party has been removed from a version of
+	 * policies, see {@link VersionedPolicies#remove(int)}: a removed party is
+	 * never {@link #candidateParties(Attributes) selected} nor
+	 * {@link #firstMatching(Attributes) matched}, and it has no rules.
+	 *
+	 * @param partyIndex the 1-based index of the party
+	 * @return whether the party has been removed
+	 */
+	public boolean isRemoved(int partyIndex) {
+		return removedParties != null && removedParties.get(partyIndex);
+	}
+
+	/**
+	 * @return whether these policies have been {@link #freeze() frozen}
+	 */
+	public boolean isFrozen() {
+		return frozenParties != null || provider != null || versionedParties != null;
+	}
+
+	/**
+	 * Returns the value of the given attribute in the party attributes of the
+	 * given party, with an array lookup if these policies are frozen.
+	 *
+	 * @param partyIndex the 1-based index of the party
+	 * @param name the attribute name
+	 * @param slot the {@link NameHandle} slot id of the attribute name
+	 * @return the value, or {@code null} if not present
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	Object partyValue(int partyIndex, String name, int slot) {
+		if (!isFrozen() || provider != null) {
+			return party(partyIndex).name(name);
+		}
+		var values = frozenParty(partyIndex).slots().values();
+		return slot < values.length ? values[slot] : null;
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of the party
+	 * @param slot the {@link NameHandle} slot id of the attribute name
+	 * @return whether the value of the attribute in the party attributes of
+	 *         the given party is a number stored unboxed, which can be read
+	 *         with {@link #partyInt(int, int)}, {@link #partyLong(int, int)}
+	 *         and {@link #partyDouble(int, int)}
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	boolean isPartyNumber(int partyIndex, int slot) {
+		if (!isFrozen() || provider != null) {
+			return false;
+		}
+		var kinds = frozenParty(partyIndex).slots().kinds();
+		return kinds != null && slot < kinds.length && kinds[slot] != 0;
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of the party
+	 * @param slot the slot id of an {@link #isPartyNumber(int, int)
+	 *        unboxed} number
+	 * @return the number as by {@link Number#intValue()}
+	 */
+	int partyInt(int partyIndex, int slot) {
+		var slots = frozenParty(partyIndex).slots();
+		var number = slots.numbers()[slot];
+		return slots.kinds()[slot] == INTEGRAL ? (int) number : (int) Double.longBitsToDouble(number);
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of the party
+	 * @param slot the slot id of an {@link #isPartyNumber(int, int)
+	 *        unboxed} number
+	 * @return the number as by {@link Number#longValue()}
+	 */
+	long partyLong(int partyIndex, int slot) {
+		var slots = frozenParty(partyIndex).slots();
+		var number = slots.numbers()[slot];
+		return slots.kinds()[slot] == INTEGRAL ? number : (long) Double.longBitsToDouble(number);
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of the party
+	 * @param slot the slot id of an {@link #isPartyNumber(int, int)
+	 *        unboxed} number
+	 * @return the number as by {@link Number#doubleValue()}
+	 */
+	double partyDouble(int partyIndex, int slot) {
+		var slots = frozenParty(partyIndex).slots();
+		var number = slots.numbers()[slot];
+		return slots.kinds()[slot] == INTEGRAL ? number : Double.longBitsToDouble(number);
+	}
+
+	/**
+	 * @param name the attribute name
+	 * @return the {@link NameHandle} slot id of the name in these policies
+	 */
+	int slotOf(String name) {
+		return nameSlots.slotOf(name);
+	}
+
+	/**
+	 * @param handle the attribute handle
+	 * @return the slot id of the name of the handle in these policies
+	 */
+	int slotOf(NameHandle<?> handle) {
+		return handle.slotIn(nameSlots);
+	}
+
+	/**
+	 * Returns the index of the first party whose attributes match the given
+	 * selector (see {@link AttributeMatcher}), or {@code 0} if no party matches.
+	 * <p>
+	 * Once these policies are {@link #freeze() frozen}, the outcome is cached
+	 * for the most recently used selectors, so repeated lookups with equal
+	 * selectors, e.g., from conditions using
+	 * {@link NameResolver#nameFromParty(String, Attributes)}, do not scan the
+	 * policies again; before that, the parties are scanned at each lookup,
+	 * using no memory.
+	 * </p>
+	 *
+	 * @param selector the attributes a party must match
+	 * @return the 1-based index of the first matching party, or {@code 0}
+	 */
+	public int firstMatching(Attributes selector) {
+		if (!isFrozen()) {
+			return scanFirstMatching(selector);
+		}
+		synchronized (firstMatches) {
+			var index = firstMatches.get(selector);
+			if (index != null) {
+				return index;
+			}
+		}
+		// scanned without holding the lock, at worst twice
+		var index = scanFirstMatching(selector);
+		synchronized (firstMatches) {
+			firstMatches.put(selector.copy(), index);
+		}
+		return index;
+	}
+
+	private int scanFirstMatching(Attributes selector) {
+		var attributeMatcher = new AttributeMatcher();
+		var candidates = candidateParties(selector);
+		if (candidates != null) {
+			for (int i = candidates.nextSetBit(1); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				if (attributeMatcher.match(selector, party(i))) {
+					return i;
+				}
+			}
+			return 0;
+		}
+		for (int i = 0; i < collection.size(); i++) {
+			if (!isRemoved(i + 1) && attributeMatcher.match(selector, party(i + 1))) {
+				return i + 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of policies, which is also the highest valid index.
+	 *
+	 * @return the number of policies
+	 */
+	public int size() {
+		return collection.size();
+	}
+
 	/**
 	 * Returns a human-readable description of all policies, one per line,
 	 * formatted as {@code <index> = <policy>}.
@@ -0,0 +1,167 @@
+package bart.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk-loads {@link Policies} for fast startup with large numbers of parties.
+ * <p>
+ * The built policies are {@link Policies#freeze() frozen}, with their
+ * per-party structures and rule indexes built in parallel. They are also
+ * compacted: the attributes are stored in exactly sized maps, equal
+ * attribute names and values share the same instance (except for
+ * {@link MultiValue}s, which are equal in any order), and so do the
+ * attributes with the same names and values in the same order; rules with
+ * the same resource, condition and exchange instances, as well as
+ * {@link Rules} with the same rules, are shared too, so that their
+ * {@link RuleIndex} is built once. As for frozen policies, the attributes
+ * must not be modified afterwards.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var policies = new PoliciesBuilder(200_000)
+ *     .addAll(loadedPolicies)
+ *     .columnar(true)
+ *     .build();
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class PoliciesBuilder {
+
+	private final List<Policy> policies;
+
+	private boolean columnar;
+
+	/**
+	 * Creates a builder for an unknown number of policies.
+	 */
+	public PoliciesBuilder() {
+		this(10);
+	}
+
+	/**
+	 * @param expectedSize the expected number of policies
+	 */
+	public PoliciesBuilder(int expectedSize) {
+		policies = new ArrayList<>(expectedSize);
+	}
+
+	/**
+	 * Appends a policy, assigning it the next available index.
+	 *
+	 * @param policy the policy to add
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public PoliciesBuilder add(Policy policy) {
+		policies.add(policy);
+		return this;
+	}
+
+	/**
+	 * Appends the given policies, in their iteration order.
+	 *
+	 * @param policiesToAdd the policies to add
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public PoliciesBuilder addAll(Collection<Policy> policiesToAdd) {
+		policies.addAll(policiesToAdd);
+		return this;
+	}
+
+	/**
+	 * @param columnar whether the built policies store the party attributes
+	 *        in columns, see {@link Policies#columnar(boolean)}
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public PoliciesBuilder columnar(boolean columnar) {
+		this.columnar = columnar;
+		return this;
+	}
+
+	/**
+	 * Builds compact frozen policies with the added policies; the builder can
+	 * still be used afterwards.
+	 *
+	 * @return the frozen policies
+	 */
+	public Policies build() {
+		var canonicalizer = new Canonicalizer();
+		var compact = new ArrayList<Policy>(policies.size());
+		for (var policy : policies) {
+			compact.add(new Policy(
+				canonicalizer.attributes(policy.party()),
+				canonicalizer.rules(policy.rules())));
+		}
+		return new Policies(compact)
+			.columnar(columnar)
+			.freeze(true);
+	}
+
+	/**
+	 * The canonical instances of the values seen while building.
+	 */
+	private static final class Canonicalizer {
+		private final Map<Object, Object> values = new HashMap<>();
+		private final Map<List<Object>, Attributes> attributes = new HashMap<>();
+		private final Map<Rule, Rule> rulesByIdentity = new IdentityHashMap<>();
+		private final Map<Rules, Rules> rulesCollectionsByIdentity = new IdentityHashMap<>();
+		private final Map<List<Rule>, Rules> rulesCollections = new HashMap<>();
+
+		/**
+		 * Multi-values equal in any order are not shared, since they are
+		 * described in their order.
+		 */
+		private record MultiValueKey(List<Object> members) {
+		}
+
+		Object value(Object value) {
+			if (value instanceof MultiValue) {
+				return value;
+			}
+			return values.computeIfAbsent(value, v -> v);
+		}
+
+		private Object key(Object value) {
+			if (value instanceof MultiValue multiValue) {
+				return new MultiValueKey(multiValue.members());
+			}
+			return value(value);
+		}
+
+		Attributes attributes(Attributes original) {
+			// unlike Attributes.equals, the key also depends on the order
+			var key = new Object[original.names().size() * 2];
+			var i = 0;
+			for (var name : original.names()) {
+				key[i++] = value(name);
+				var attributeValue = original.name(name);
+				key[i++] = attributeValue == null ? null : key(attributeValue);
+			}
+			return attributes.computeIfAbsent(Arrays.asList(key), k -> original.compact(this::value));
+		}
+
+		Rule rule(Rule original) {
+			return rulesByIdentity.computeIfAbsent(original, r -> new Rule(
+				attributes(r.getResource()), r.getCondition(), r.getExchange()));
+		}
+
+		Rules rules(Rules original) {
+			return rulesCollectionsByIdentity.computeIfAbsent(original, r -> {
+				var canonicalRules = new ArrayList<Rule>(r.size());
+				for (int i = 1; i <= r.size(); i++) {
+					canonicalRules.add(rule(r.getByIndex(i)));
+				}
+				// rules have identity equality
+				return rulesCollections.computeIfAbsent(canonicalRules, Rules::new);
+			});
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package bart.core;
+
+import java.util.BitSet;
+
+/**
+ * Supplies the policies of the parties on demand, e.g., from a file or a
+ * database, for {@link Policies#of(PolicyProvider, int)}: the party
+ * attributes are queried to select the parties, while the rules of a party
+ * are loaded only when the party is evaluated.
+ * <p>
+ * Parties are numbered starting from {@code 1}, as in {@link Policies}, and
+ * their attributes and rules must not change.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ * @see PolicySnapshot#provider(java.nio.file.Path)
+ */
+public interface PolicyProvider {
+
+	/**
+	 * @return the number of parties, which is also the highest valid index
+	 */
+	int size();
+
+	/**
+	 * @param partyIndex the 1-based index of the party
+	 * @return the party attributes
+	 */
+	Attributes party(int partyIndex);
+
+	/**
+	 * Loads the rules of the given party.
+	 *
+	 * @param partyIndex the 1-based index of the party
+	 * @return the rules of the policy of the party
+	 */
+	Rules rules(int partyIndex);
+
+	/**
+	 * Returns the indexes of the parties that may match the given selector,
+	 * with the same contract as {@link Policies#candidateParties(Attributes)};
+	 * by default, all the parties are candidates.
+	 *
+	 * @param selector the attributes a party must match
+	 * @return a fresh bitset of 1-based party indexes, or {@code null} if all
+	 *         the parties are candidates
+	 */
+	default BitSet candidateParties(Attributes selector) {
+		return null;
+	}
+}
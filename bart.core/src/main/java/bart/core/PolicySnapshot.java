@@ -0,0 +1,957 @@
+package bart.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import bart.core.expressions.And;
+import bart.core.expressions.AttributeReference;
+import bart.core.expressions.BooleanConstant;
+import bart.core.expressions.Comparison;
+import bart.core.expressions.Constant;
+import bart.core.expressions.Expression;
+import bart.core.expressions.Not;
+import bart.core.expressions.Operand;
+import bart.core.expressions.Or;
+
+/**
+ * A binary snapshot of {@link Policies}, written once and then opened by
+ * mapping the file in memory, so that opening takes the same time whatever
+ * the number of parties.
+ * <p>
+ * The snapshot stores each distinct attribute name and value once, in a
+ * table of values referenced by their int code; the policies are records of
+ * codes located through an offset table, and the party attributes are
+ * indexed by prebuilt hash tables from the attribute values to the indexes
+ * of the parties, with the same semantics as the index of
+ * {@link Policies#freeze() frozen} policies, see
+ * {@link Policies#candidateParties(Attributes)}. The opened policies are
+ * frozen and read the mapped file directly: selecting parties only reads
+ * the hash tables, while the values and the policies are decoded, once, the
+ * first time they are used, so that the heap only holds the parties that are
+ * actually involved in evaluations.
+ * </p>
+ * <p>
+ * Conditions can be stored if they are built with the condition expression
+ * language or if they are {@link ExpressionWithDescription}s, whose
+ * description is stored as a reference to a condition to be registered with
+ * {@link #condition(String, ExpressionCode)} before opening the snapshot;
+ * attribute values can be strings, {@code int}s, {@code long}s,
+ * {@code double}s, booleans, {@code null} and {@link AttributePattern}s of
+ * these values. Snapshots are limited to 2GB.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * PolicySnapshot.write(policies, Path.of("policies.snapshot"));
+ * // at startup
+ * var snapshot = new PolicySnapshot()
+ *     .condition("in working hours", context -> isWorkingHour())
+ *     .open(Path.of("policies.snapshot"));
+ * var semantics = new Semantics(snapshot);
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class PolicySnapshot {
+
+	private static final int MAGIC = 0x42415254; // "BART"
+	private static final int VERSION = 1;
+
+	/**
+	 * Magic, version, number of parties and the offsets of the sections of
+	 * values, descriptions, policies and party index.
+	 */
+	private static final int HEADER_SIZE = 7 * Integer.BYTES;
+
+	private static final byte STRING = 0;
+	private static final byte INT = 1;
+	private static final byte LONG = 2;
+	private static final byte DOUBLE = 3;
+	private static final byte FALSE = 4;
+	private static final byte TRUE = 5;
+	private static final byte MULTI_VALUE = 6;
+	private static final byte ONE_OF = 7;
+	private static final byte PREFIX = 8;
+	private static final byte RANGE = 9;
+
+	private static final byte NO_CONDITION = 0;
+	private static final byte DESCRIBED = 1;
+	private static final byte COMPARISON = 2;
+	private static final byte AND = 3;
+	private static final byte OR = 4;
+	private static final byte NOT = 5;
+	private static final byte BOOLEAN = 6;
+
+	/**
+	 * Followed by {@code 1 +} the ordinal of the scope of attribute references.
+	 */
+	private static final byte CONSTANT = 0;
+
+	private static final byte NO_EXCHANGE = 0;
+	private static final byte SINGLE_EXCHANGE = 1;
+	private static final byte AND_EXCHANGE = 2;
+	private static final byte OR_EXCHANGE = 3;
+
+	private static final byte ME = 0;
+	private static final byte REQUESTER = 1;
+	private static final byte INDEX = 2;
+	private static final byte ANY = 3;
+	private static final byte ALL = 4;
+
+	/**
+	 * The code of the {@code null} value.
+	 */
+	private static final int NULL = -1;
+
+	private final Map<String, ExpressionCode> conditions = new HashMap<>();
+
+	/**
+	 * Registers a condition referred to as {@code described "description"} by
+	 * the stored rules.
+	 *
+	 * @param description the description of the condition
+	 * @param condition the condition
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public PolicySnapshot condition(String description, ExpressionCode condition) {
+		conditions.put(description, condition);
+		return this;
+	}
+
+	/**
+	 * Writes a snapshot of the given policies, which need not be frozen.
+	 *
+	 * @param policies the policies
+	 * @param file the snapshot file, created or overwritten
+	 * @throws IOException if writing fails
+	 * @throws IllegalArgumentException if a condition or a value cannot be stored
+	 */
+	public static void write(Policies policies, Path file) throws IOException {
+		var writer = new Writer();
+		for (int i = 1; i <= policies.size(); i++) {
+			writer.policy(policies.getByIndex(i), i);
+		}
+		writer.writeTo(file, policies.size());
+	}
+
+	/**
+	 * Opens a snapshot by mapping it in memory; the file can be modified or
+	 * deleted only after the returned policies are no longer used.
+	 *
+	 * @param file the snapshot file
+	 * @return the frozen policies read from the snapshot
+	 * @throws IOException if reading fails, if the file is not a snapshot, or
+	 *         if it refers to a condition that is not registered
+	 */
+	public Policies open(Path file) throws IOException {
+		var mapped = map(file);
+		return Policies.lazilyFrozen(new MappedPolicies(mapped), mapped::candidateParties);
+	}
+
+	/**
+	 * Opens a snapshot, as {@link #open(Path)}, as a {@link PolicyProvider},
+	 * which decodes the party attributes and the rules each time they are
+	 * requested, so that, with {@link Policies#of(PolicyProvider, int)}, only
+	 * the parties being evaluated are kept in memory.
+	 *
+	 * @param file the snapshot file
+	 * @return the provider of the policies of the snapshot
+	 * @throws IOException if reading fails, if the file is not a snapshot, or
+	 *         if it refers to a condition that is not registered
+	 */
+	public PolicyProvider provider(Path file) throws IOException {
+		return map(file);
+	}
+
+	private Mapped map(Path file) throws IOException {
+		ByteBuffer buffer;
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("snapshot too large: " + file);
+			}
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("not a policy snapshot: " + file);
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("unsupported snapshot version " + buffer.getInt(4) + ": " + file);
+		}
+		return new Mapped(buffer, Map.copyOf(conditions));
+	}
+
+	/**
+	 * A growable big-endian byte buffer.
+	 */
+	private static final class Output {
+		private ByteBuffer bytes = ByteBuffer.allocate(1024);
+
+		private ByteBuffer room(int length) {
+			if (bytes.remaining() < length) {
+				var larger = ByteBuffer.allocate(Math.max(bytes.capacity() * 2, bytes.position() + length));
+				larger.put(bytes.flip());
+				bytes = larger;
+			}
+			return bytes;
+		}
+
+		int size() {
+			return bytes.position();
+		}
+
+		void writeByte(byte value) {
+			room(1).put(value);
+		}
+
+		void writeInt(int value) {
+			room(Integer.BYTES).putInt(value);
+		}
+
+		void writeLong(long value) {
+			room(Long.BYTES).putLong(value);
+		}
+
+		void writeDouble(double value) {
+			room(Double.BYTES).putDouble(value);
+		}
+
+		void writeBytes(byte[] value) {
+			room(value.length).put(value);
+		}
+
+		int intAt(int position) {
+			return bytes.getInt(position);
+		}
+
+		void setInt(int position, int value) {
+			bytes.putInt(position, value);
+		}
+
+		ByteBuffer content() {
+			return bytes.duplicate().flip();
+		}
+	}
+
+	/**
+	 * The key of a value in the table of values: multi-values and sets of
+	 * values equal in any order are different values, since they are
+	 * described in their order.
+	 */
+	private record OrderedKey(Class<?> type, List<Object> members) {
+	}
+
+	private static final class Writer {
+		private final Map<Object, Integer> codes = new HashMap<>();
+		private final Output values = new Output();
+		private final List<Integer> valueOffsets = new ArrayList<>();
+		private final Set<Integer> descriptions = new LinkedHashSet<>();
+		private final Output policies = new Output();
+		private final List<Integer> policyOffsets = new ArrayList<>();
+		private final Map<String, Map<Object, IntList>> byValue = new LinkedHashMap<>();
+		private final Map<String, IntList> patterns = new LinkedHashMap<>();
+
+		int code(Object value) {
+			if (value == null) {
+				return NULL;
+			}
+			var key = switch (value) {
+			case MultiValue multiValue -> new OrderedKey(MultiValue.class, multiValue.members());
+			case AttributePattern.OneOf oneOf -> new OrderedKey(AttributePattern.OneOf.class, List.copyOf(oneOf.values()));
+			default -> value;
+			};
+			var code = codes.get(key);
+			if (code == null) {
+				code = newCode(value);
+				codes.put(key, code);
+			}
+			return code;
+		}
+
+		private int newCode(Object value) {
+			switch (value) {
+			case String string -> {
+				var bytes = string.getBytes(StandardCharsets.UTF_8);
+				startValue(STRING);
+				values.writeInt(bytes.length);
+				values.writeBytes(bytes);
+			}
+			case Integer integer -> {
+				startValue(INT);
+				values.writeInt(integer);
+			}
+			case Long longValue -> {
+				startValue(LONG);
+				values.writeLong(longValue);
+			}
+			case Double doubleValue -> {
+				startValue(DOUBLE);
+				values.writeDouble(doubleValue);
+			}
+			case Boolean booleanValue -> startValue(booleanValue ? TRUE : FALSE);
+			case MultiValue multiValue -> members(MULTI_VALUE, multiValue.members());
+			case AttributePattern.OneOf oneOf -> members(ONE_OF, oneOf.values());
+			case AttributePattern.Prefix prefix -> {
+				var prefixCode = code(prefix.prefix());
+				startValue(PREFIX);
+				values.writeInt(prefixCode);
+			}
+			case AttributePattern.Range range -> {
+				var low = code(range.low());
+				var high = code(range.high());
+				startValue(RANGE);
+				values.writeInt(low);
+				values.writeByte((byte) (range.lowInclusive() ? 1 : 0));
+				values.writeInt(high);
+				values.writeByte((byte) (range.highInclusive() ? 1 : 0));
+			}
+			default -> throw new IllegalArgumentException(
+				"cannot store value '" + value + "' of " + value.getClass());
+			}
+			return valueOffsets.size() - 1;
+		}
+
+		private void startValue(byte tag) {
+			valueOffsets.add(values.size());
+			values.writeByte(tag);
+		}
+
+		private void members(byte tag, Iterable<Object> members) {
+			// members are stored before the value referring to them
+			var memberCodes = new ArrayList<Integer>();
+			for (var member : members) {
+				memberCodes.add(code(member));
+			}
+			startValue(tag);
+			values.writeInt(memberCodes.size());
+			memberCodes.forEach(values::writeInt);
+		}
+
+		void policy(Policy policy, int partyIndex) {
+			policyOffsets.add(policies.size());
+			attributes(policy.party());
+			var rules = policy.rules();
+			policies.writeInt(rules.size());
+			for (int i = 1; i <= rules.size(); i++) {
+				rule(rules.getByIndex(i));
+			}
+			index(policy.party(), partyIndex);
+		}
+
+		private void index(Attributes party, int partyIndex) {
+			for (var name : party.names()) {
+				var value = party.name(name);
+				if (value instanceof MultiValue multiValue) {
+					for (var member : multiValue.members()) {
+						byValue.computeIfAbsent(name, n -> new LinkedHashMap<>())
+							.computeIfAbsent(member, m -> new IntList()).add(partyIndex);
+					}
+				} else if (value instanceof AttributePattern) {
+					patterns.computeIfAbsent(name, n -> new IntList()).add(partyIndex);
+				} else if (value != null) {
+					byValue.computeIfAbsent(name, n -> new LinkedHashMap<>())
+						.computeIfAbsent(value, v -> new IntList()).add(partyIndex);
+				}
+			}
+		}
+
+		private void attributes(Attributes attributes) {
+			policies.writeInt(attributes.names().size());
+			for (var name : attributes.names()) {
+				policies.writeInt(code(name));
+				policies.writeInt(code(attributes.name(name)));
+			}
+		}
+
+		private void rule(Rule rule) {
+			attributes(rule.getResource());
+			if (rule.hasTrueCondition()) {
+				policies.writeByte(NO_CONDITION);
+			} else if (rule.getCondition() instanceof Expression expression) {
+				expression(expression);
+			} else if (rule.getCondition() instanceof ExpressionWithDescription described) {
+				var description = code(described.toString());
+				descriptions.add(description);
+				policies.writeByte(DESCRIBED);
+				policies.writeInt(description);
+			} else {
+				throw new IllegalArgumentException("cannot store condition '" + rule.getCondition() + "'");
+			}
+			if (rule.hasExchange()) {
+				exchange(rule.getExchange());
+			} else {
+				policies.writeByte(NO_EXCHANGE);
+			}
+		}
+
+		private void expression(Expression expression) {
+			switch (expression) {
+			case Comparison comparison -> {
+				policies.writeByte(COMPARISON);
+				policies.writeByte((byte) comparison.operator().ordinal());
+				operand(comparison.left());
+				operand(comparison.right());
+			}
+			case And and -> connective(AND, and.operands());
+			case Or or -> connective(OR, or.operands());
+			case Not not -> {
+				policies.writeByte(NOT);
+				expression(not.operand());
+			}
+			case BooleanConstant constant -> {
+				policies.writeByte(BOOLEAN);
+				policies.writeByte((byte) (constant.value() ? 1 : 0));
+			}
+			}
+		}
+
+		private void connective(byte tag, List<Expression> operands) {
+			policies.writeByte(tag);
+			policies.writeInt(operands.size());
+			operands.forEach(this::expression);
+		}
+
+		private void operand(Operand operand) {
+			switch (operand) {
+			case Constant constant -> {
+				policies.writeByte(CONSTANT);
+				policies.writeInt(code(constant.value()));
+			}
+			case AttributeReference reference -> {
+				policies.writeByte((byte) (1 + reference.scope().ordinal()));
+				policies.writeInt(code(reference.handle().name()));
+				if (reference.scope() == AttributeReference.Scope.PARTY) {
+					attributes(reference.selector());
+				}
+			}
+			}
+		}
+
+		private void exchange(Exchange exchange) {
+			switch (exchange) {
+			case SingleExchange single -> {
+				policies.writeByte(SINGLE_EXCHANGE);
+				participant(single.to());
+				attributes(single.resource());
+				participant(single.from());
+			}
+			case AndExchange and -> composite(AND_EXCHANGE, and.left(), and.right());
+			case OrExchange or -> composite(OR_EXCHANGE, or.left(), or.right());
+			}
+		}
+
+		private void composite(byte tag, Exchange left, Exchange right) {
+			policies.writeByte(tag);
+			exchange(left);
+			exchange(right);
+		}
+
+		private void participant(Participant participant) {
+			switch (participant) {
+			case MeParticipant me -> policies.writeByte(ME);
+			case RequesterParticipant requester -> policies.writeByte(REQUESTER);
+			case IndexParticipant index -> {
+				policies.writeByte(INDEX);
+				policies.writeInt(index.index());
+			}
+			case QuantifiedParticipant quantified -> {
+				policies.writeByte(quantified.isAll() ? ALL : ANY);
+				attributes(quantified.getAttributes());
+			}
+			default -> throw new IllegalArgumentException("cannot store participant '" + participant + "'");
+			}
+		}
+
+		/**
+		 * The party index: a hash table from names to name entries, each with
+		 * the offset of the parties with a pattern for that name and a hash
+		 * table from values to value entries, each with the parties having
+		 * that value; offsets are relative to the start of the section, so
+		 * that {@code 0} marks an empty slot.
+		 */
+		private Output partyIndex() {
+			var index = new Output();
+			var names = new LinkedHashSet<>(byValue.keySet());
+			names.addAll(patterns.keySet());
+			var nameTable = table(index, names.size());
+			for (var name : names) {
+				var nameEntry = index.size();
+				index.writeInt(code(name));
+				index.writeInt(0);
+				var nameValues = byValue.getOrDefault(name, Map.of());
+				var valueTable = table(index, nameValues.size());
+				for (var entry : nameValues.entrySet()) {
+					var valueEntry = index.size();
+					index.writeInt(code(entry.getKey()));
+					parties(index, entry.getValue());
+					put(index, valueTable, entry.getKey(), valueEntry);
+				}
+				var patterned = patterns.get(name);
+				if (patterned != null) {
+					index.setInt(nameEntry + Integer.BYTES, index.size());
+					parties(index, patterned);
+				}
+				put(index, nameTable, name, nameEntry);
+			}
+			return index;
+		}
+
+		private static int table(Output index, int entries) {
+			var position = index.size();
+			var size = Integer.highestOneBit(entries * 2 + 1) << 1;
+			index.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				index.writeInt(0);
+			}
+			return position;
+		}
+
+		private static void put(Output index, int table, Object key, int entry) {
+			var mask = index.intAt(table) - 1;
+			var slot = hash(key) & mask;
+			while (index.intAt(slotPosition(table, slot)) != 0) {
+				slot = (slot + 1) & mask;
+			}
+			index.setInt(slotPosition(table, slot), entry);
+		}
+
+		private static void parties(Output index, IntList parties) {
+			var sorted = parties.toSortedDistinctArray();
+			index.writeInt(sorted.length);
+			for (var party : sorted) {
+				index.writeInt(party);
+			}
+		}
+
+		void writeTo(Path file, int size) throws IOException {
+			var valueSection = new Output();
+			valueSection.writeInt(valueOffsets.size());
+			var valueTableSize = Integer.BYTES * (1 + valueOffsets.size());
+			valueOffsets.forEach(offset -> valueSection.writeInt(valueTableSize + offset));
+			var descriptionSection = new Output();
+			descriptionSection.writeInt(descriptions.size());
+			descriptions.forEach(descriptionSection::writeInt);
+			var policySection = new Output();
+			var policyTableSize = Integer.BYTES * policyOffsets.size();
+			policyOffsets.forEach(offset -> policySection.writeInt(policyTableSize + offset));
+			// built last, since it may add names to the values
+			var indexSection = partyIndex();
+			var sections = List.of(
+				valueSection.content(), values.content(),
+				descriptionSection.content(),
+				policySection.content(), policies.content(),
+				indexSection.content());
+			var header = ByteBuffer.allocate(HEADER_SIZE)
+				.putInt(MAGIC)
+				.putInt(VERSION)
+				.putInt(size);
+			long offset = HEADER_SIZE;
+			for (int i = 0; i < sections.size(); i++) {
+				if (i != 1 && i != 4) {
+					// a table and its entries are a single section
+					header.putInt(Math.toIntExact(offset));
+				}
+				offset += sections.get(i).remaining();
+			}
+			if (offset > Integer.MAX_VALUE) {
+				throw new IOException("snapshot too large: " + file);
+			}
+			try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				write(channel, header.flip());
+				for (var section : sections) {
+					write(channel, section);
+				}
+			}
+		}
+
+		private static void write(FileChannel channel, ByteBuffer bytes) throws IOException {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		}
+	}
+
+	private static int hash(Object key) {
+		// the hash codes of strings, numbers and booleans are specified,
+		// so they are the same when writing and when reading
+		var hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	private static int slotPosition(int table, int slot) {
+		return table + Integer.BYTES * (1 + slot);
+	}
+
+	/**
+	 * A mapped snapshot; the decoded values and policies are cached, and
+	 * since they only have final fields, racing threads at most decode them
+	 * twice.
+	 */
+	private static final class Mapped implements PolicyProvider {
+		private final ByteBuffer buffer;
+		private final int size;
+		private final int valueSection;
+		private final int policySection;
+		private final int indexSection;
+		private final Object[] values;
+		private final Map<String, ExpressionCode> conditions;
+
+		Mapped(ByteBuffer buffer, Map<String, ExpressionCode> conditions) throws IOException {
+			this.buffer = buffer;
+			this.conditions = conditions;
+			size = buffer.getInt(8);
+			valueSection = buffer.getInt(12);
+			var descriptionSection = buffer.getInt(16);
+			policySection = buffer.getInt(20);
+			indexSection = buffer.getInt(24);
+			values = new Object[buffer.getInt(valueSection)];
+			var descriptions = buffer.getInt(descriptionSection);
+			for (int i = 0; i < descriptions; i++) {
+				var description = (String) value(buffer.getInt(descriptionSection + Integer.BYTES * (1 + i)));
+				if (!conditions.containsKey(description)) {
+					throw new IOException("unknown condition \"" + description + "\"");
+				}
+			}
+		}
+
+		Object value(int code) {
+			if (code == NULL) {
+				return null;
+			}
+			var value = values[code];
+			if (value == null) {
+				value = decodeValue(valueSection + buffer.getInt(valueSection + Integer.BYTES * (1 + code)));
+				values[code] = value;
+			}
+			return value;
+		}
+
+		private Object decodeValue(int position) {
+			var tag = buffer.get(position);
+			var data = position + 1;
+			return switch (tag) {
+			case STRING -> {
+				var bytes = new byte[buffer.getInt(data)];
+				buffer.get(data + Integer.BYTES, bytes);
+				yield new String(bytes, StandardCharsets.UTF_8);
+			}
+			case INT -> buffer.getInt(data);
+			case LONG -> buffer.getLong(data);
+			case DOUBLE -> buffer.getDouble(data);
+			case FALSE -> false;
+			case TRUE -> true;
+			case MULTI_VALUE -> MultiValue.of(members(data));
+			case ONE_OF -> AttributePattern.oneOf(members(data));
+			case PREFIX -> AttributePattern.startsWith((String) value(buffer.getInt(data)));
+			case RANGE -> new AttributePattern.Range(
+				(Number) value(buffer.getInt(data)), buffer.get(data + 4) != 0,
+				(Number) value(buffer.getInt(data + 5)), buffer.get(data + 9) != 0);
+			default -> throw new IllegalStateException("invalid value tag " + tag + " at " + position);
+			};
+		}
+
+		private Object[] members(int position) {
+			var members = new Object[buffer.getInt(position)];
+			for (int i = 0; i < members.length; i++) {
+				members[i] = value(buffer.getInt(position + Integer.BYTES * (1 + i)));
+			}
+			return members;
+		}
+
+		/**
+		 * @param index the 0-based index of the policy
+		 * @return the decoder of the policy record
+		 */
+		private Decoder decoder(int index) {
+			var position = buffer.getInt(policySection + Integer.BYTES * Objects.checkIndex(index, size));
+			return new Decoder(policySection + position);
+		}
+
+		Policy policy(int index) {
+			var decoder = decoder(index);
+			var party = decoder.attributes();
+			return new Policy(party, decoder.rules());
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Attributes party(int partyIndex) {
+			return decoder(partyIndex - 1).attributes();
+		}
+
+		@Override
+		public Rules rules(int partyIndex) {
+			var decoder = decoder(partyIndex - 1);
+			decoder.skipAttributes();
+			return decoder.rules();
+		}
+
+		/**
+		 * Implements {@link Policies#candidateParties(Attributes)} as the
+		 * {@link PartyIndex} does.
+		 */
+		@Override
+		public BitSet candidateParties(Attributes selector) {
+			BitSet result = null;
+			for (var name : selector.names()) {
+				var candidates = candidates(name, selector.name(name));
+				if (candidates == null) {
+					continue;
+				}
+				if (result == null) {
+					result = candidates;
+				} else {
+					result.and(candidates);
+				}
+				if (result.isEmpty()) {
+					break;
+				}
+			}
+			return result;
+		}
+
+		private BitSet candidates(String name, Object value) {
+			if (value == null || value instanceof MultiValue multiValue && multiValue.size() == 0) {
+				return null;
+			}
+			var candidates = new BitSet();
+			var nameEntry = lookup(0, name);
+			if (nameEntry == 0) {
+				return candidates;
+			}
+			var valueTable = nameEntry + 2 * Integer.BYTES;
+			if (value instanceof MultiValue multiValue) {
+				// the parties having all the members
+				var members = multiValue.members();
+				for (int i = 0; i < members.size(); i++) {
+					var valueEntry = lookup(valueTable, members.get(i));
+					if (valueEntry == 0) {
+						candidates.clear();
+						break;
+					}
+					var parties = parties(valueEntry + Integer.BYTES);
+					if (i == 0) {
+						candidates.or(parties);
+					} else {
+						candidates.and(parties);
+					}
+				}
+			} else {
+				var valueEntry = lookup(valueTable, value);
+				if (valueEntry != 0) {
+					candidates.or(parties(valueEntry + Integer.BYTES));
+				}
+			}
+			var patterned = buffer.getInt(indexSection + nameEntry + Integer.BYTES);
+			if (patterned != 0) {
+				candidates.or(parties(patterned));
+			}
+			return candidates;
+		}
+
+		/**
+		 * @param table the offset of a hash table in the index section
+		 * @param key the key to look up
+		 * @return the offset of the entry whose first int is the code of the
+		 *         key, or {@code 0} if not found
+		 */
+		private int lookup(int table, Object key) {
+			var mask = buffer.getInt(indexSection + table) - 1;
+			for (var slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+				var entry = buffer.getInt(indexSection + slotPosition(table, slot));
+				if (entry == 0 || key.equals(value(buffer.getInt(indexSection + entry)))) {
+					return entry;
+				}
+			}
+		}
+
+		private BitSet parties(int list) {
+			var parties = new BitSet();
+			var count = buffer.getInt(indexSection + list);
+			for (int i = 0; i < count; i++) {
+				parties.set(buffer.getInt(indexSection + list + Integer.BYTES * (1 + i)));
+			}
+			return parties;
+		}
+
+		/**
+		 * Decodes a policy record.
+		 */
+		private final class Decoder {
+			private int position;
+
+			Decoder(int position) {
+				this.position = position;
+			}
+
+			private byte nextByte() {
+				return buffer.get(position++);
+			}
+
+			private int nextInt() {
+				var value = buffer.getInt(position);
+				position += Integer.BYTES;
+				return value;
+			}
+
+			Rules rules() {
+				var rules = new Rules();
+				var count = nextInt();
+				for (int i = 0; i < count; i++) {
+					rules.add(rule());
+				}
+				return rules;
+			}
+
+			void skipAttributes() {
+				position += Integer.BYTES * (1 + 2 * buffer.getInt(position));
+			}
+
+			Attributes attributes() {
+				var attributes = new Attributes();
+				var count = nextInt();
+				for (int i = 0; i < count; i++) {
+					var name = (String) value(nextInt());
+					attributes.add(name, value(nextInt()));
+				}
+				return attributes;
+			}
+
+			private Rule rule() {
+				var resource = attributes();
+				ExpressionCode condition;
+				var tag = nextByte();
+				if (tag == NO_CONDITION) {
+					condition = null;
+				} else if (tag == DESCRIBED) {
+					var description = (String) value(nextInt());
+					condition = new ExpressionWithDescription(conditions.get(description), description);
+				} else {
+					condition = expression(tag);
+				}
+				var exchange = exchange();
+				if (condition == null) {
+					return exchange == null ? new Rule(resource) : new Rule(resource, exchange);
+				}
+				return new Rule(resource, condition, exchange);
+			}
+
+			private Expression expression(byte tag) {
+				return switch (tag) {
+				case COMPARISON -> {
+					var operator = Comparison.Operator.values()[nextByte()];
+					var left = operand();
+					yield new Comparison(left, operator, operand());
+				}
+				case AND -> new And(operands());
+				case OR -> new Or(operands());
+				case NOT -> new Not(expression(nextByte()));
+				case BOOLEAN -> BooleanConstant.of(nextByte() != 0);
+				default -> throw new IllegalStateException("invalid condition tag " + tag + " at " + (position - 1));
+				};
+			}
+
+			private List<Expression> operands() {
+				var operands = new Expression[nextInt()];
+				for (int i = 0; i < operands.length; i++) {
+					operands[i] = expression(nextByte());
+				}
+				return List.of(operands);
+			}
+
+			private Operand operand() {
+				var tag = nextByte();
+				if (tag == CONSTANT) {
+					return new Constant(value(nextInt()));
+				}
+				var scope = AttributeReference.Scope.values()[tag - 1];
+				var name = (String) value(nextInt());
+				var selector = scope == AttributeReference.Scope.PARTY ? attributes() : null;
+				return new AttributeReference(scope, NameHandle.of(name, Object.class), selector);
+			}
+
+			private Exchange exchange() {
+				var tag = nextByte();
+				return switch (tag) {
+				case NO_EXCHANGE -> null;
+				case SINGLE_EXCHANGE -> {
+					var to = (ExchangeToParticipant) participant();
+					var resource = attributes();
+					yield new SingleExchange(to, resource, (ExchangeFromParticipant) participant());
+				}
+				case AND_EXCHANGE -> {
+					var left = exchange();
+					yield new AndExchange(left, exchange());
+				}
+				case OR_EXCHANGE -> {
+					var left = exchange();
+					yield new OrExchange(left, exchange());
+				}
+				default -> throw new IllegalStateException("invalid exchange tag " + tag + " at " + (position - 1));
+				};
+			}
+
+			private Participant participant() {
+				var tag = nextByte();
+				return switch (tag) {
+				case ME -> Participants.me();
+				case REQUESTER -> Participants.requester();
+				case INDEX -> Participants.index(nextInt());
+				case ANY -> Participants.any(attributes());
+				case ALL -> Participants.all(attributes());
+				default -> throw new IllegalStateException("invalid participant tag " + tag + " at " + (position - 1));
+				};
+			}
+		}
+	}
+
+	/**
+	 * The policies of a mapped snapshot, decoded the first time they are
+	 * retrieved.
+	 */
+	private static final class MappedPolicies extends AbstractList<Policy> implements RandomAccess {
+		private final Mapped mapped;
+		private final Policy[] policies;
+
+		MappedPolicies(Mapped mapped) {
+			this.mapped = mapped;
+			policies = new Policy[mapped.size];
+		}
+
+		@Override
+		public Policy get(int index) {
+			var policy = policies[Objects.checkIndex(index, policies.length)];
+			if (policy == null) {
+				policy = mapped.policy(index);
+				policies[index] = policy;
+			}
+			return policy;
+		}
+
+		@Override
+		public int size() {
+			return policies.length;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package bart.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A character trie of string prefixes, each associated with integer ids,
+ * answering which prefixes a string starts with in {@code O(length)}.
+ *
+ * @author Lorenzo Bettini
+ */
+final class PrefixTrie {
+
+	private static final class Node {
+		private final Map<Character, Node> children = new HashMap<>();
+		private int[] ids = new int[0];
+	}
+
+	private final Node root = new Node();
+
+	void add(String prefix, int id) {
+		var node = root;
+		for (int i = 0; i < prefix.length(); i++) {
+			node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+		}
+		node.ids = Arrays.copyOf(node.ids, node.ids.length + 1);
+		node.ids[node.ids.length - 1] = id;
+	}
+
+	/**
+	 * Adds to the given list the ids of all the prefixes of the string, in no
+	 * particular order.
+	 *
+	 * @param string the string
+	 * @param ids where the ids are added
+	 */
+	void prefixesOf(String string, IntList ids) {
+		var node = root;
+		var i = 0;
+		while (node != null) {
+			ids.addAll(node.ids);
+			if (i == string.length()) {
+				return;
+			}
+			node = node.children.get(string.charAt(i++));
+		}
+	}
+}
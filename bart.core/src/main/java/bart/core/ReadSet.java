@@ -0,0 +1,181 @@
+package bart.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * The attributes read by the conditions evaluated for a {@link Result}, see
+ * {@link Result#getReadSet()}: each read is recorded once, with the index of
+ * the party, the attribute name and the source the value was looked up in.
+ * <p>
+ * A name is looked up first in the resource of the request, then in the
+ * {@link ContextHandler} and finally in the party attributes of the policy
+ * of the party: a read whose source is {@link Source#PARTY} may thus depend
+ * also on the context attributes, which did not define the name, and the
+ * name may be undefined everywhere. Since the resource of a request never
+ * changes, the result depends on a context attribute only if the name has
+ * been looked up in the context, see {@link #dependsOnContext(int, String)}.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var result = semantics.recordingReads(true).evaluate(request);
+ * contextHandler.add(2, "busy", true);
+ * if (result.getReadSet().dependsOnContext(2, "busy")) {
+ *     result = semantics.evaluate(request);
+ * }
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class ReadSet {
+
+	/**
+	 * The source a value was looked up in.
+	 */
+	public enum Source {
+		/**
+		 * The resource attributes of the request.
+		 */
+		RESOURCE,
+		/**
+		 * The {@link ContextHandler} attributes of the party.
+		 */
+		CONTEXT,
+		/**
+		 * The party attributes of the policy of the party, after the name was
+		 * not found in the context attributes, unless it was resolved with
+		 * {@link NameResolver#staticName(String)}.
+		 */
+		PARTY
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of the party the name was resolved
+	 *        for, or {@code 0} if the name was resolved only in the resource
+	 * @param name the attribute name
+	 * @param source the source the value was looked up in
+	 */
+	public record Read(int partyIndex, String name, Source source) {
+	}
+
+	/**
+	 * The read set of an evaluation that did not read any attribute.
+	 */
+	public static final ReadSet EMPTY = new ReadSet(new int[0], new String[0], new byte[0]);
+
+	private static final Source[] SOURCES = Source.values();
+
+	private final int[] parties;
+	private final String[] names;
+	private final byte[] sources;
+
+	private ReadSet(int[] parties, String[] names, byte[] sources) {
+		this.parties = parties;
+		this.names = names;
+		this.sources = sources;
+	}
+
+	/**
+	 * @param parties the party indexes of the reads
+	 * @param names the attribute names of the reads
+	 * @param sources the ordinals of the sources of the reads
+	 * @param count the number of reads, possibly repeated
+	 * @return the read set of the distinct reads, in order
+	 */
+	static ReadSet of(int[] parties, String[] names, byte[] sources, int count) {
+		if (count == 0) {
+			return EMPTY;
+		}
+		var distinct = new HashSet<Read>();
+		var keptParties = new int[count];
+		var keptNames = new String[count];
+		var keptSources = new byte[count];
+		var kept = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct.add(new Read(parties[i], names[i], SOURCES[sources[i]]))) {
+				keptParties[kept] = parties[i];
+				keptNames[kept] = names[i];
+				keptSources[kept] = sources[i];
+				kept++;
+			}
+		}
+		return new ReadSet(Arrays.copyOf(keptParties, kept), Arrays.copyOf(keptNames, kept),
+			Arrays.copyOf(keptSources, kept));
+	}
+
+	/**
+	 * @return the number of distinct reads
+	 */
+	public int size() {
+		return parties.length;
+	}
+
+	/**
+	 * @return the distinct reads, in the order they happened
+	 */
+	public List<Read> reads() {
+		return new AbstractList<>() {
+			@Override
+			public Read get(int index) {
+				return new Read(parties[index], names[index], SOURCES[sources[index]]);
+			}
+
+			@Override
+			public int size() {
+				return parties.length;
+			}
+		};
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of a party
+	 * @param name an attribute name
+	 * @return whether the name has been looked up in the context attributes
+	 *         of the party, so that changing them may change the result
+	 */
+	public boolean dependsOnContext(int partyIndex, String name) {
+		for (int i = 0; i < parties.length; i++) {
+			if (parties[i] == partyIndex && sources[i] != Source.RESOURCE.ordinal() && names[i].equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of a party
+	 * @return whether any name has been looked up in the context attributes
+	 *         of the party
+	 */
+	public boolean dependsOnContext(int partyIndex) {
+		for (int i = 0; i < parties.length; i++) {
+			if (parties[i] == partyIndex && sources[i] != Source.RESOURCE.ordinal()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of a party
+	 * @return whether any name has been looked up in the party attributes of
+	 *         the party
+	 */
+	public boolean dependsOnParty(int partyIndex) {
+		for (int i = 0; i < parties.length; i++) {
+			if (parties[i] == partyIndex && sources[i] == Source.PARTY.ordinal()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return reads().toString();
+	}
+}
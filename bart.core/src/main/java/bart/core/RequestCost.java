@@ -0,0 +1,31 @@
+package bart.core;
+
+/**
+ * The cost of a request of an exchange chain, for finding the cheapest chain
+ * satisfying a request, see
+ * {@link bart.core.semantics.Semantics#cheapest(Request, RequestCost)}: the
+ * cost of a chain is the sum of the costs of its requests.
+ * <p>
+ * Costs must not be negative, so that the cost of part of a chain is a lower
+ * bound of the cost of the whole chain.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+@FunctionalInterface
+public interface RequestCost {
+
+	/**
+	 * Every request costs 1, so that the cheapest chain is the one with the
+	 * fewest requests.
+	 */
+	RequestCost COUNT = request -> 1;
+
+	/**
+	 * Returns the cost of the given request.
+	 *
+	 * @param request a request of an exchange chain
+	 * @return the cost of the request, at least 0
+	 */
+	double cost(Request request);
+}
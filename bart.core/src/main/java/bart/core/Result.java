@@ -17,6 +17,7 @@ public class Result {
 
 	private boolean permitted = false;
 	private Collection<Request> requests = new ArrayList<>();
+	private ReadSet readSet;
 
 	/**
 	 * Creates a new result with the given permission flag and an empty request list.
@@ -55,6 +56,28 @@ public class Result {
 		return requests;
 	}
 
+	/**
+	 * Returns the attributes read by the conditions evaluated for this result,
+	 * if recorded, see
+	 * {@link bart.core.semantics.Semantics#recordingReads(boolean)}.
+	 *
+	 * @return the read set, or {@code null} if the reads were not recorded
+	 */
+	public ReadSet getReadSet() {
+		return readSet;
+	}
+
+	/**
+	 * Sets the attributes read by the conditions evaluated for this result.
+	 *
+	 * @param readSet the read set
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Result readSet(ReadSet readSet) {
+		this.readSet = readSet;
+		return this;
+	}
+
 	/**
 	 * Adds a single request to the satisfied requests of this result.
 	 *
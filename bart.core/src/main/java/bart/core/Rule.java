@@ -42,6 +42,7 @@ public class Rule {
 	private final Attributes resource;
 	private final ExpressionCode condition;
 	private final Exchange exchange;
+	private final boolean trueCondition;
 
 	/**
 	 * Creates a rule that matches any resource, has a {@code true} condition,
@@ -94,6 +95,7 @@ public class Rule {
 		this.resource = resource;
 		this.condition = condition;
 		this.exchange = exchange;
+		this.trueCondition = condition == TRUE;
 	}
 
 	/**
@@ -126,6 +128,29 @@ public class Rule {
 		return exchange;
 	}
 
+	/**
+	 * Returns {@code true} if the condition of this rule is the constant
+	 * {@code true} condition used by the constructors that take no condition.
+	 * <p>
+	 * This is determined once, when the rule is created, so that the semantics
+	 * engine can grant such rules without evaluating their condition.
+	 * </p>
+	 *
+	 * @return {@code true} if the condition always holds
+	 */
+	public boolean hasTrueCondition() {
+		return trueCondition;
+	}
+
+	/**
+	 * Returns {@code true} if this rule requires an exchange in return.
+	 *
+	 * @return {@code true} if {@link #getExchange()} is not {@code null}
+	 */
+	public boolean hasExchange() {
+		return exchange != null;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder stringBuilder = new StringBuilder();
@@ -0,0 +1,175 @@
+package bart.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the resources of the rules of a policy, built when
+ * {@link Policies} are {@link Policies#freeze() frozen}, to select the rules
+ * whose resource may match a requested resource without testing all of them.
+ * <p>
+ * For each attribute name, the rules are indexed by value: plain values and
+ * the members of {@link AttributePattern.OneOf} and {@link MultiValue} in a hash map,
+ * {@link AttributePattern.Prefix} patterns in a prefix trie and
+ * {@link AttributePattern.Range} patterns in an interval tree. Since the
+ * {@link AttributeMatcher} requires every requested attribute to be matched,
+ * the candidates for a requested resource are the ones of its most selective
+ * attribute.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class RuleIndex {
+
+	private static final int[] NONE = new int[0];
+
+	private static final class NameIndex {
+		private final Map<Object, IntList> building = new HashMap<>();
+		private final Map<Object, int[]> exact = new HashMap<>();
+		private PrefixTrie prefixes;
+		private List<IntervalTree.Interval> intervals;
+		private IntervalTree ranges;
+
+		void add(Object value, int ruleIndex) {
+			switch (value) {
+			case AttributePattern.Prefix prefix -> {
+				if (prefixes == null) {
+					prefixes = new PrefixTrie();
+				}
+				prefixes.add(prefix.prefix(), ruleIndex);
+			}
+			case AttributePattern.Range range -> {
+				if (intervals == null) {
+					intervals = new ArrayList<>();
+				}
+				// widened, since bounds are approximated with doubles
+				intervals.add(new IntervalTree.Interval(
+					range.low() == null ? Double.NEGATIVE_INFINITY : Math.nextDown(range.low().doubleValue()),
+					range.high() == null ? Double.POSITIVE_INFINITY : Math.nextUp(range.high().doubleValue()),
+					ruleIndex));
+			}
+			case AttributePattern.OneOf oneOf -> {
+				for (var member : oneOf.values()) {
+					addExact(member, ruleIndex);
+				}
+			}
+			case MultiValue multiValue -> {
+				for (var member : multiValue.members()) {
+					addExact(member, ruleIndex);
+				}
+			}
+			default -> addExact(value, ruleIndex);
+			}
+		}
+
+		private void addExact(Object value, int ruleIndex) {
+			building.computeIfAbsent(value, v -> new IntList()).add(ruleIndex);
+		}
+
+		void build() {
+			building.forEach((value, ruleIndexes) -> exact.put(value, ruleIndexes.toSortedDistinctArray()));
+			building.clear();
+			if (intervals != null) {
+				ranges = new IntervalTree(intervals);
+				intervals = null;
+			}
+		}
+
+		/**
+		 * @return the candidates, or {@code null} if they cannot be restricted
+		 */
+		int[] candidates(Object value) {
+			if (value instanceof MultiValue multiValue) {
+				return multiValueCandidates(multiValue);
+			}
+			var exactCandidates = exact.getOrDefault(value, NONE);
+			var prefixCandidates = prefixes != null && value instanceof String;
+			var rangeCandidates = ranges != null && value instanceof Number;
+			if (!prefixCandidates && !rangeCandidates) {
+				return exactCandidates;
+			}
+			var candidates = new IntList();
+			candidates.addAll(exactCandidates);
+			if (prefixCandidates) {
+				prefixes.prefixesOf((String) value, candidates);
+			}
+			if (rangeCandidates) {
+				ranges.stab(((Number) value).doubleValue(), candidates);
+			}
+			return candidates.toSortedDistinctArray();
+		}
+
+		private int[] multiValueCandidates(MultiValue multiValue) {
+			if (multiValue.size() == 0) {
+				// accepted by any multi-value
+				return null;
+			}
+			// a multi-value (possibly equal) accepting it contains its first member
+			var candidates = new IntList();
+			candidates.addAll(exact.getOrDefault(multiValue.members().get(0), NONE));
+			candidates.addAll(exact.getOrDefault(multiValue, NONE));
+			return candidates.toSortedDistinctArray();
+		}
+	}
+
+	private final Map<String, NameIndex> names = new HashMap<>();
+
+	/**
+	 * Builds the index of the given rules.
+	 *
+	 * @param rules the rules of a policy
+	 */
+	public RuleIndex(Rules rules) {
+		for (int ruleIndex = 1; ruleIndex <= rules.size(); ruleIndex++) {
+			var resource = rules.getByIndex(ruleIndex).getResource();
+			for (var name : resource.names()) {
+				var value = resource.name(name);
+				if (value != null) {
+					names.computeIfAbsent(name, n -> new NameIndex()).add(value, ruleIndex);
+				}
+			}
+		}
+		names.values().forEach(NameIndex::build);
+	}
+
+	/**
+	 * Returns the indexes of the rules whose resource may match the given
+	 * requested resource, in increasing order; any other rule certainly does
+	 * not match. The candidates still have to be checked with the
+	 * {@link AttributeMatcher}.
+	 *
+	 * @param resource the requested resource
+	 * @return the 1-based indexes of the candidate rules, which must not be
+	 *         modified, or {@code null} if the index cannot restrict them
+	 *         (e.g., for an empty resource, which matches every rule)
+	 */
+	public int[] candidates(Attributes resource) {
+		if (resource.isEmpty()) {
+			return null;
+		}
+		int[] best = null;
+		for (var name : resource.names()) {
+			var value = resource.name(name);
+			if (value == null) {
+				return null;
+			}
+			var nameIndex = names.get(name);
+			if (nameIndex == null) {
+				return NONE;
+			}
+			var candidates = nameIndex.candidates(value);
+			if (candidates == null) {
+				continue;
+			}
+			if (best == null || candidates.length < best.length) {
+				best = candidates;
+			}
+			if (best.length == 0) {
+				break;
+			}
+		}
+		return best;
+	}
+}
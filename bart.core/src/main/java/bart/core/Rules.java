@@ -12,6 +12,10 @@ import java.util.stream.Stream;
  * During semantic evaluation rules are tested in order; the first matching
  * rule wins.
  * </p>
+ * <p>
+ * Once the {@link Policies} using them are {@link Policies#freeze() frozen},
+ * rules can no longer be added, since the frozen structures index them.
+ * </p>
  *
  * @author Lorenzo Bettini
  */
@@ -29,17 +33,47 @@ public class Rules {
 
 	private List<Rule> collection = new ArrayList<>();
 
+	private boolean frozen;
+
+	/**
+	 * Creates an empty collection of rules.
+	 */
+	public Rules() {
+		// rules are appended with add
+	}
+
+	/**
+	 * Creates an exactly sized collection with the given rules.
+	 *
+	 * @param rules the rules, in order
+	 */
+	Rules(List<Rule> rules) {
+		collection = new ArrayList<>(rules);
+	}
+
 	/**
 	 * Appends a rule to the collection.
 	 *
 	 * @param rule the rule to add
 	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalStateException if these rules are frozen
 	 */
 	public Rules add(Rule rule) {
+		if (frozen) {
+			throw new IllegalStateException("rules are frozen");
+		}
 		collection.add(rule);
 		return this;
 	}
 
+	/**
+	 * Prevents further additions, once the structures of frozen
+	 * {@link Policies} index these rules.
+	 */
+	void freeze() {
+		frozen = true;
+	}
+
 	/**
 	 * Returns a stream of {@link RuleData} records pairing each rule with its
 	 * 1-based index.
@@ -51,6 +85,26 @@ public class Rules {
 			.mapToObj(i -> new RuleData(i + 1, collection.get(i)));
 	}
 
+	/**
+	 * Returns the number of rules, which is also the highest valid index.
+	 *
+	 * @return the number of rules
+	 */
+	public int size() {
+		return collection.size();
+	}
+
+	/**
+	 * Returns the rule at the given 1-based index.
+	 *
+	 * @param i the 1-based index
+	 * @return the rule at that index
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public Rule getByIndex(int i) {
+		return collection.get(i - 1);
+	}
+
 	@Override
 	public String toString() {
 		return collection.toString();
@@ -0,0 +1,34 @@
+package bart.core;
+
+/**
+ * Utilities to compare attribute values.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class Values {
+
+	private Values() {
+	}
+
+	/**
+	 * Compares two numbers by value, whatever their boxed type: integral values
+	 * ({@link Integer}, {@link Long}, {@link Short}, {@link Byte}) as
+	 * {@code long}s, and the others as {@code double}s.
+	 *
+	 * @param n1 the first number
+	 * @param n2 the second number
+	 * @return a negative integer, zero, or a positive integer as {@code n1} is
+	 *         less than, equal to, or greater than {@code n2}
+	 */
+	public static int compareNumbers(Number n1, Number n2) {
+		if (isIntegral(n1) && isIntegral(n2)) {
+			return Long.compare(n1.longValue(), n2.longValue());
+		}
+		return Double.compare(n1.doubleValue(), n2.doubleValue());
+	}
+
+	private static boolean isIntegral(Number number) {
+		return number instanceof Integer || number instanceof Long
+			|| number instanceof Short || number instanceof Byte;
+	}
+}
@@ -0,0 +1,206 @@
+package bart.core;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A sequence of immutable versions of {@link Policies}, so that policies can
+ * be changed while requests are being evaluated.
+ * <p>
+ * Each version is {@link Policies#freeze() frozen} and never changes: a
+ * change publishes a new version atomically, and an evaluation that started
+ * with a previous version keeps using it, see
+ * {@link bart.core.semantics.Semantics#Semantics(VersionedPolicies)}. A new
+ * version shares the unchanged policies, and their frozen structures, with
+ * the previous one, so that publishing it costs in proportion to the
+ * changed parties; the parties changed since the party attributes were last
+ * indexed are indexed separately, and all the parties are indexed again once
+ * there are many of them. Versions may thus report some changed parties as
+ * {@link Policies#candidateParties(Attributes) candidates} even with
+ * {@link Policies#columnar(boolean) columnar} party attributes.
+ * </p>
+ * <p>
+ * Parties can be added, replaced and {@link #remove(int) removed}: since
+ * removed parties keep their index, which is never reused, the index of a
+ * party identifies it in all the versions, e.g., in a {@link ContextHandler}
+ * (see {@link ContextHandler#remove(int)}), and the parties selected by
+ * quantified participants are still evaluated in index order. Removed parties
+ * are never compacted: each one still takes an index, visited when scanning
+ * all the parties, so that policies with many removals are better copied,
+ * renumbering the remaining parties, into new {@code VersionedPolicies}.
+ * </p>
+ * <p>
+ * Changes are published one at a time, while versions can be read by any
+ * number of threads without locking; {@link #addListener(Listener) listeners}
+ * are notified of each published version.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var versions = new VersionedPolicies(policies);
+ * var semantics = new Semantics(versions);
+ * // while semantics is evaluating requests
+ * versions.replace(2, new Policy(bobAttributes, newBobRules));
+ * versions.add(new Policy(carolAttributes, carolRules));
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class VersionedPolicies {
+
+	/**
+	 * @param number the number of the version, starting from 1
+	 * @param policies the policies of the version
+	 */
+	private record Version(long number, Policies policies) {
+	}
+
+	/**
+	 * Notified of the published versions.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+		/**
+		 * Called, in the publishing thread, after a version has been
+		 * published and before the next one is.
+		 *
+		 * @param previous the previous version
+		 * @param next the published version
+		 * @param changedParties the 1-based indexes of the added, replaced and
+		 *        removed parties
+		 */
+		void published(Policies previous, Policies next, BitSet changedParties);
+	}
+
+	private volatile Version current;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Creates the first version with the given policies.
+	 *
+	 * @param initial the initial policies, which are not modified; the party
+	 *        attributes are stored in columns if
+	 *        {@link Policies#columnar(boolean) chosen} for them
+	 */
+	public VersionedPolicies(Policies initial) {
+		current = new Version(1, Policies.firstVersion(initial));
+	}
+
+	/**
+	 * @return the latest published version
+	 */
+	public Policies current() {
+		return current.policies();
+	}
+
+	/**
+	 * @return the number of the latest published version, starting from 1
+	 */
+	public long version() {
+		return current.number();
+	}
+
+	/**
+	 * Publishes a new version with the given changes.
+	 *
+	 * @param replaced the replacing policies, by 1-based party index
+	 * @param added the policies to append, in order
+	 * @return the published version
+	 * @throws IndexOutOfBoundsException if a replaced index is out of range,
+	 *         in which case no version is published
+	 */
+	public Policies publish(Map<Integer, Policy> replaced, Collection<Policy> added) {
+		return publish(replaced, added, List.of());
+	}
+
+	/**
+	 * Publishes a new version with the given changes; the removed parties
+	 * keep their index, so that the indexes of the parties never change and
+	 * are never reused, see {@link Policies#isRemoved(int)}.
+	 *
+	 * @param replaced the replacing policies, by 1-based party index
+	 * @param added the policies to append, in order
+	 * @param removed the 1-based indexes of the parties to remove
+	 * @return the published version
+	 * @throws IndexOutOfBoundsException if a replaced or removed index is out
+	 *         of range, in which case no version is published
+	 * @throws IllegalArgumentException if a party to replace or to remove has
+	 *         already been removed, is removed more than once, or is both
+	 *         replaced and removed, in which case no version is published
+	 */
+	public synchronized Policies publish(Map<Integer, Policy> replaced, Collection<Policy> added,
+			Collection<Integer> removed) {
+		var previous = current.policies();
+		var next = previous.nextVersion(replaced, List.copyOf(added), removed);
+		current = new Version(current.number() + 1, next);
+		if (!listeners.isEmpty()) {
+			var changedParties = new BitSet();
+			replaced.keySet().forEach(changedParties::set);
+			removed.forEach(changedParties::set);
+			changedParties.set(previous.size() + 1, next.size() + 1);
+			for (var listener : listeners) {
+				listener.published(previous, next, changedParties);
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Publishes a new version with the given policy appended.
+	 *
+	 * @param policy the policy to add
+	 * @return the published version
+	 */
+	public Policies add(Policy policy) {
+		return publish(Map.of(), List.of(policy));
+	}
+
+	/**
+	 * Publishes a new version with the policy at the given index replaced.
+	 *
+	 * @param index the 1-based index of the party
+	 * @param policy the replacing policy
+	 * @return the published version
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 * @throws IllegalArgumentException if the party has been removed
+	 */
+	public Policies replace(int index, Policy policy) {
+		return publish(Map.of(index, policy), List.of());
+	}
+
+	/**
+	 * Publishes a new version with the party at the given index removed.
+	 *
+	 * @param index the 1-based index of the party
+	 * @return the published version
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 * @throws IllegalArgumentException if the party has already been removed
+	 */
+	public Policies remove(int index) {
+		return publish(Map.of(), List.of(), List.of(index));
+	}
+
+	/**
+	 * Adds a listener notified of each version published afterwards.
+	 *
+	 * @param listener the listener to add
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public VersionedPolicies addListener(Listener listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	/**
+	 * @param listener a listener previously {@link #addListener(Listener) added}
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public VersionedPolicies removeListener(Listener listener) {
+		listeners.remove(listener);
+		return this;
+	}
+}
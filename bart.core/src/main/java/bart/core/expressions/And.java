@@ -0,0 +1,64 @@
+package bart.core.expressions;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import bart.core.Attributes;
+import bart.core.NameResolver;
+
+/**
+ * The conjunction of {@link Expression}s, evaluated from left to right with
+ * short-circuit.
+ *
+ * @param operands the conjuncts
+ * @author Lorenzo Bettini
+ */
+public record And(List<Expression> operands) implements Expression {
+
+	/**
+	 * @param operands the conjuncts
+	 */
+	public And {
+		operands = List.copyOf(operands);
+	}
+
+	@Override
+	public boolean evaluate(NameResolver nameResolver) {
+		for (var operand : operands) {
+			if (!operand.evaluate(nameResolver)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int cost() {
+		return Connectives.cost(operands);
+	}
+
+	/**
+	 * Folds the conjuncts, drops the {@code true} ones, flattens nested
+	 * conjunctions and orders the remaining conjuncts by increasing cost;
+	 * folds to {@code false} as soon as a conjunct does.
+	 */
+	@Override
+	public Expression fold(Attributes owner) {
+		var folded = Connectives.fold(operands, owner, And.class, true);
+		if (folded == null) {
+			return BooleanConstant.FALSE;
+		}
+		return switch (folded.size()) {
+		case 0 -> BooleanConstant.TRUE;
+		case 1 -> folded.get(0);
+		default -> new And(folded);
+		};
+	}
+
+	@Override
+	public String toString() {
+		return operands.stream()
+			.map(Object::toString)
+			.collect(Collectors.joining(" and ", "(", ")"));
+	}
+}
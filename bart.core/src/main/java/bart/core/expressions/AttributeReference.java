@@ -0,0 +1,77 @@
+package bart.core.expressions;
+
+import bart.core.Attributes;
+import bart.core.NameHandle;
+import bart.core.NameResolver;
+import bart.core.semantics.UndefinedName;
+
+/**
+ * An {@link Operand} whose value is an attribute resolved through the
+ * {@link NameResolver}, in the given {@link Scope}.
+ *
+ * @param scope where the attribute is resolved
+ * @param handle the handle of the attribute name
+ * @param selector the attributes selecting the party, for {@link Scope#PARTY};
+ *        {@code null} otherwise
+ * @author Lorenzo Bettini
+ */
+public record AttributeReference(Scope scope, NameHandle<Object> handle, Attributes selector) implements Operand {
+
+	/**
+	 * Where an attribute is resolved.
+	 */
+	public enum Scope {
+		/**
+		 * The static party attributes of the policy owning the condition (that
+		 * is, the {@code from} party), see {@link NameResolver#staticName(String)};
+		 * folded into a constant at freeze time.
+		 */
+		OWNER(1),
+		/** As with {@link NameResolver#get(NameHandle)}. */
+		FROM(2),
+		/** As with {@link NameResolver#getFromRequester(NameHandle)}. */
+		REQUESTER(2),
+		/** As with {@link NameResolver#nameFromParty(String, Attributes)}. */
+		PARTY(4);
+
+		private final int cost;
+
+		Scope(int cost) {
+			this.cost = cost;
+		}
+	}
+
+	@Override
+	public Object value(NameResolver nameResolver) throws UndefinedName {
+		return switch (scope) {
+		case OWNER -> nameResolver.staticName(handle.name());
+		case FROM -> nameResolver.get(handle);
+		case REQUESTER -> nameResolver.getFromRequester(handle);
+		case PARTY -> nameResolver.nameFromParty(handle.name(), selector);
+		};
+	}
+
+	@Override
+	public int cost() {
+		return scope.cost;
+	}
+
+	@Override
+	public Operand fold(Attributes owner) {
+		if (scope != Scope.OWNER) {
+			return this;
+		}
+		var value = owner.name(handle.name());
+		return value == null ? Constant.UNDEFINED : new Constant(value);
+	}
+
+	@Override
+	public String toString() {
+		return switch (scope) {
+		case OWNER -> "owner." + handle.name();
+		case FROM -> handle.name();
+		case REQUESTER -> "requester." + handle.name();
+		case PARTY -> "party" + selector + "." + handle.name();
+		};
+	}
+}
@@ -0,0 +1,48 @@
+package bart.core.expressions;
+
+import bart.core.Attributes;
+import bart.core.NameResolver;
+
+/**
+ * A constant {@link Expression}, typically the result of
+ * {@link Expression#fold(Attributes) folding}.
+ *
+ * @param value the constant truth value
+ * @author Lorenzo Bettini
+ */
+public record BooleanConstant(boolean value) implements Expression {
+
+	/** The constant {@code true} expression. */
+	public static final BooleanConstant TRUE = new BooleanConstant(true);
+
+	/** The constant {@code false} expression. */
+	public static final BooleanConstant FALSE = new BooleanConstant(false);
+
+	/**
+	 * @param value a truth value
+	 * @return {@link #TRUE} or {@link #FALSE}
+	 */
+	public static BooleanConstant of(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	@Override
+	public boolean evaluate(NameResolver nameResolver) {
+		return value;
+	}
+
+	@Override
+	public int cost() {
+		return 0;
+	}
+
+	@Override
+	public Expression fold(Attributes owner) {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return Boolean.toString(value);
+	}
+}
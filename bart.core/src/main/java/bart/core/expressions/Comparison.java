@@ -0,0 +1,122 @@
+package bart.core.expressions;
+
+import bart.core.Attributes;
+import bart.core.MultiValue;
+import bart.core.NameResolver;
+import bart.core.Values;
+import bart.core.semantics.UndefinedName;
+
+/**
+ * Compares the values of two {@link Operand}s.
+ * <p>
+ * Numbers are compared by value, whatever their boxed type: integral values
+ * as {@code long}s and the others as {@code double}s, without boxing. Other
+ * values are equal if {@link Object#equals(Object) equal}, and ordered if
+ * they are {@link Comparable} instances of the same class; the ordering
+ * operators are {@code false} on values that are not ordered. A
+ * {@link MultiValue} is equal to each of its members, so that, e.g.,
+ * {@code from("city").isEqualTo("Lucca")} tests the membership. If an operand
+ * is undefined, the comparison is {@code false}, whatever the operator.
+ * </p>
+ *
+ * @param left the left operand
+ * @param operator the comparison operator
+ * @param right the right operand
+ * @author Lorenzo Bettini
+ */
+public record Comparison(Operand left, Operator operator, Operand right) implements Expression {
+
+	/**
+	 * The comparison operators.
+	 */
+	public enum Operator {
+		EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+		private final String symbol;
+
+		Operator(String symbol) {
+			this.symbol = symbol;
+		}
+
+		/**
+		 * @param value1 the left value
+		 * @param value2 the right value
+		 * @return whether the values are in this relation
+		 */
+		public boolean test(Object value1, Object value2) {
+			return switch (this) {
+			case EQ -> same(value1, value2);
+			case NE -> !same(value1, value2);
+			case LT -> ordered(value1, value2) && compare(value1, value2) < 0;
+			case LE -> ordered(value1, value2) && compare(value1, value2) <= 0;
+			case GT -> ordered(value1, value2) && compare(value1, value2) > 0;
+			case GE -> ordered(value1, value2) && compare(value1, value2) >= 0;
+			};
+		}
+
+		@Override
+		public String toString() {
+			return symbol;
+		}
+	}
+
+	@Override
+	public boolean evaluate(NameResolver nameResolver) {
+		try {
+			return operator.test(left.value(nameResolver), right.value(nameResolver));
+		} catch (UndefinedName e) {
+			return false;
+		}
+	}
+
+	@Override
+	public int cost() {
+		return left.cost() + right.cost();
+	}
+
+	@Override
+	public Expression fold(Attributes owner) {
+		var foldedLeft = left.fold(owner);
+		var foldedRight = right.fold(owner);
+		if (foldedLeft instanceof Constant c1 && foldedRight instanceof Constant c2) {
+			return BooleanConstant.of(
+				!c1.isUndefined() && !c2.isUndefined() && operator.test(c1.value(), c2.value()));
+		}
+		if (foldedLeft instanceof Constant c && c.isUndefined()
+				|| foldedRight instanceof Constant c2 && c2.isUndefined()) {
+			return BooleanConstant.FALSE;
+		}
+		return new Comparison(foldedLeft, operator, foldedRight);
+	}
+
+	@Override
+	public String toString() {
+		return left + " " + operator + " " + right;
+	}
+
+	private static boolean same(Object value1, Object value2) {
+		if (value1 instanceof Number n1 && value2 instanceof Number n2) {
+			return Values.compareNumbers(n1, n2) == 0;
+		}
+		if (value1 instanceof MultiValue m1 && !(value2 instanceof MultiValue)) {
+			return m1.contains(value2);
+		}
+		if (value2 instanceof MultiValue m2 && !(value1 instanceof MultiValue)) {
+			return m2.contains(value1);
+		}
+		return value1.equals(value2);
+	}
+
+	private static boolean ordered(Object value1, Object value2) {
+		return value1 instanceof Number && value2 instanceof Number
+			|| value1 instanceof Comparable<?> && value1.getClass() == value2.getClass();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compare(Object value1, Object value2) {
+		if (value1 instanceof Number n1 && value2 instanceof Number n2) {
+			return Values.compareNumbers(n1, n2);
+		}
+		return ((Comparable) value1).compareTo(value2);
+	}
+}
@@ -0,0 +1,56 @@
+package bart.core.expressions;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import bart.core.Attributes;
+
+/**
+ * Folding shared by {@link And} and {@link Or}.
+ *
+ * @author Lorenzo Bettini
+ */
+final class Connectives {
+
+	private Connectives() {
+	}
+
+	static int cost(List<Expression> operands) {
+		var cost = 0;
+		for (var operand : operands) {
+			cost += operand.cost();
+		}
+		return cost;
+	}
+
+	/**
+	 * Folds the operands of a connective, dropping the ones that fold to its
+	 * neutral element and flattening the nested connectives of the same kind;
+	 * the result is ordered by increasing cost (keeping the original order
+	 * among operands with the same cost).
+	 *
+	 * @return the folded operands, or {@code null} if an operand folds to the
+	 *         absorbing element of the connective
+	 */
+	static List<Expression> fold(List<Expression> operands, Attributes owner,
+			Class<? extends Expression> kind, boolean neutral) {
+		var folded = new ArrayList<Expression>();
+		for (var operand : operands) {
+			var foldedOperand = operand.fold(owner);
+			if (foldedOperand instanceof BooleanConstant constant) {
+				if (constant.value() != neutral) {
+					return null;
+				}
+			} else if (foldedOperand instanceof And and && kind == And.class) {
+				folded.addAll(and.operands());
+			} else if (foldedOperand instanceof Or or && kind == Or.class) {
+				folded.addAll(or.operands());
+			} else {
+				folded.add(foldedOperand);
+			}
+		}
+		folded.sort(Comparator.comparingInt(Expression::cost));
+		return folded;
+	}
+}
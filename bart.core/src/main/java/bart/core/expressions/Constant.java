@@ -0,0 +1,53 @@
+package bart.core.expressions;
+
+import bart.core.Attributes;
+import bart.core.NameResolver;
+import bart.core.semantics.UndefinedName;
+
+/**
+ * A constant {@link Operand}; a {@code null} value stands for an attribute
+ * found to be undefined while {@link Expression#fold(Attributes) folding}.
+ *
+ * @param value the constant value, or {@code null} if undefined
+ * @author Lorenzo Bettini
+ */
+public record Constant(Object value) implements Operand {
+
+	/**
+	 * The value of an undefined attribute.
+	 */
+	public static final Constant UNDEFINED = new Constant(null);
+
+	@Override
+	public Object value(NameResolver nameResolver) throws UndefinedName {
+		if (value == null) {
+			throw new UndefinedName(toString());
+		}
+		return value;
+	}
+
+	/**
+	 * @return whether this constant stands for an undefined attribute
+	 */
+	public boolean isUndefined() {
+		return value == null;
+	}
+
+	@Override
+	public int cost() {
+		return 0;
+	}
+
+	@Override
+	public Operand fold(Attributes owner) {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		if (value == null) {
+			return "undefined";
+		}
+		return value instanceof String ? "'" + value + "'" : value.toString();
+	}
+}
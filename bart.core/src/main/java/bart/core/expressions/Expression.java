@@ -0,0 +1,52 @@
+package bart.core.expressions;
+
+import bart.core.Attributes;
+import bart.core.ExpressionCode;
+import bart.core.NameResolver;
+
+/**
+ * A condition whose structure is visible to the engine, as opposed to an
+ * opaque {@link ExpressionCode} lambda: comparisons between {@link Operand}s
+ * combined with {@link And}, {@link Or} and {@link Not}.
+ * <p>
+ * Expressions are built with the factory methods of {@link Expressions}.
+ * Evaluation never fails because of undefined names: a {@link Comparison}
+ * involving an undefined attribute is simply {@code false}. As a consequence,
+ * every expression is a pure boolean function of the attribute values, and
+ * the operands of connectives can be evaluated in any order, which is what
+ * {@link #fold(Attributes)} relies on.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public sealed interface Expression extends ExpressionCode
+		permits Comparison, And, Or, Not, BooleanConstant {
+
+	/**
+	 * Evaluates this expression; undefined names make the enclosing
+	 * comparisons {@code false} instead of failing.
+	 *
+	 * @param nameResolver provides attribute values for the current evaluation context
+	 * @return {@code true} if the condition is satisfied
+	 */
+	@Override
+	boolean evaluate(NameResolver nameResolver);
+
+	/**
+	 * @return an estimate of the cost of evaluating this expression, used to
+	 *         evaluate cheaper operands of connectives first
+	 */
+	int cost();
+
+	/**
+	 * Returns an equivalent expression for the rules of a policy whose party
+	 * has the given attributes: references to {@link Expressions#owner(String)
+	 * owner} attributes are replaced with their values, constant parts are
+	 * folded, and the operands of connectives are ordered by increasing
+	 * {@link #cost()}.
+	 *
+	 * @param owner the party attributes of the policy owning the condition
+	 * @return the folded expression
+	 */
+	Expression fold(Attributes owner);
+}
@@ -0,0 +1,132 @@
+package bart.core.expressions;
+
+import java.util.List;
+
+import bart.core.Attributes;
+import bart.core.ExpressionCode;
+import bart.core.NameHandle;
+
+/**
+ * Factory methods to build {@link Expression}s, meant to be statically
+ * imported.
+ * <p>
+ * Unlike opaque lambdas, such expressions are compiled when the
+ * {@link bart.core.Policies Policies} are {@link bart.core.Policies#freeze()
+ * frozen}: references to {@link #owner(String) owner} attributes are
+ * replaced with their values, constant parts are folded and cheaper operands
+ * of connectives are evaluated first (see {@link #compile(ExpressionCode, Attributes)}).
+ * Opaque {@link ExpressionCode} lambdas remain supported and are left as they
+ * are.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * new Rule(
+ *     new Attributes().add("resource/type", "printer"),
+ *     and(from("time").lessThan(18),
+ *         owner("role").isEqualTo("Provider"),
+ *         not(requester("city").isEqualTo("Roma"))));
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class Expressions {
+
+	private Expressions() {
+	}
+
+	/**
+	 * @param name an attribute name
+	 * @return the attribute resolved for the {@code from} party
+	 * @see bart.core.NameResolver#name(String)
+	 */
+	public static Operand from(String name) {
+		return reference(AttributeReference.Scope.FROM, name, null);
+	}
+
+	/**
+	 * @param name an attribute name
+	 * @return the attribute resolved for the requester
+	 * @see bart.core.NameResolver#nameFromRequester(String)
+	 */
+	public static Operand requester(String name) {
+		return reference(AttributeReference.Scope.REQUESTER, name, null);
+	}
+
+	/**
+	 * @param selector the attributes selecting the party
+	 * @param name an attribute name
+	 * @return the attribute resolved for the first party matching the selector
+	 * @see bart.core.NameResolver#nameFromParty(String, Attributes)
+	 */
+	public static Operand party(Attributes selector, String name) {
+		return reference(AttributeReference.Scope.PARTY, name, selector);
+	}
+
+	/**
+	 * @param name an attribute name
+	 * @return the static party attribute of the policy owning the condition,
+	 *         which is folded into a constant at freeze time
+	 * @see bart.core.NameResolver#staticName(String)
+	 */
+	public static Operand owner(String name) {
+		return reference(AttributeReference.Scope.OWNER, name, null);
+	}
+
+	/**
+	 * @param value a constant value
+	 * @return the constant operand
+	 */
+	public static Operand value(Object value) {
+		return new Constant(value);
+	}
+
+	/**
+	 * @param operands the conjuncts
+	 * @return their conjunction
+	 */
+	public static Expression and(Expression... operands) {
+		return new And(List.of(operands));
+	}
+
+	/**
+	 * @param operands the disjuncts
+	 * @return their disjunction
+	 */
+	public static Expression or(Expression... operands) {
+		return new Or(List.of(operands));
+	}
+
+	/**
+	 * @param operand an expression
+	 * @return its negation
+	 */
+	public static Expression not(Expression operand) {
+		return new Not(operand);
+	}
+
+	/**
+	 * Compiles a rule condition for the policy whose party has the given
+	 * attributes: an {@link Expression} is {@link Expression#fold(Attributes)
+	 * folded}, while any other {@link ExpressionCode} is returned as it is.
+	 *
+	 * @param condition the rule condition
+	 * @param owner the party attributes of the policy owning the rule
+	 * @return the compiled condition
+	 */
+	public static ExpressionCode compile(ExpressionCode condition, Attributes owner) {
+		if (condition instanceof Expression expression) {
+			return expression.fold(owner);
+		}
+		return condition;
+	}
+
+	static Operand operand(Object value) {
+		return value instanceof Operand operand ? operand : new Constant(value);
+	}
+
+	private static Operand reference(AttributeReference.Scope scope, String name, Attributes selector) {
+		return new AttributeReference(scope, NameHandle.of(name, Object.class), selector);
+	}
+}
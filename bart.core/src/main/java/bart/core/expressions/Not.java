@@ -0,0 +1,44 @@
+package bart.core.expressions;
+
+import bart.core.Attributes;
+import bart.core.NameResolver;
+
+/**
+ * The negation of an {@link Expression}.
+ * <p>
+ * Note that, since a comparison involving an undefined attribute is
+ * {@code false}, its negation is {@code true}.
+ * </p>
+ *
+ * @param operand the negated expression
+ * @author Lorenzo Bettini
+ */
+public record Not(Expression operand) implements Expression {
+
+	@Override
+	public boolean evaluate(NameResolver nameResolver) {
+		return !operand.evaluate(nameResolver);
+	}
+
+	@Override
+	public int cost() {
+		return operand.cost();
+	}
+
+	@Override
+	public Expression fold(Attributes owner) {
+		var folded = operand.fold(owner);
+		if (folded instanceof BooleanConstant constant) {
+			return BooleanConstant.of(!constant.value());
+		}
+		if (folded instanceof Not not) {
+			return not.operand();
+		}
+		return new Not(folded);
+	}
+
+	@Override
+	public String toString() {
+		return "not " + operand;
+	}
+}
@@ -0,0 +1,89 @@
+package bart.core.expressions;
+
+import bart.core.Attributes;
+import bart.core.NameResolver;
+import bart.core.expressions.Comparison.Operator;
+import bart.core.semantics.UndefinedName;
+
+/**
+ * A side of a {@link Comparison}: either a {@link Constant} or an
+ * {@link AttributeReference}.
+ * <p>
+ * Operands provide fluent methods to build comparisons; non-operand arguments
+ * are wrapped into constants:
+ * {@snippet :
+ * Expression e = from("time").lessThan(18);
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public sealed interface Operand permits Constant, AttributeReference {
+
+	/**
+	 * @param nameResolver provides attribute values for the current evaluation context
+	 * @return the value of this operand
+	 * @throws UndefinedName if the value is not defined
+	 */
+	Object value(NameResolver nameResolver) throws UndefinedName;
+
+	/**
+	 * @return an estimate of the cost of computing the value
+	 */
+	int cost();
+
+	/**
+	 * @param owner the party attributes of the policy owning the condition
+	 * @return this operand, or a constant if its value only depends on the owner
+	 * @see Expression#fold(Attributes)
+	 */
+	Operand fold(Attributes owner);
+
+	/**
+	 * @param other an operand or a constant value
+	 * @return the comparison {@code this = other}
+	 */
+	default Comparison isEqualTo(Object other) {
+		return new Comparison(this, Operator.EQ, Expressions.operand(other));
+	}
+
+	/**
+	 * @param other an operand or a constant value
+	 * @return the comparison {@code this != other}
+	 */
+	default Comparison isNotEqualTo(Object other) {
+		return new Comparison(this, Operator.NE, Expressions.operand(other));
+	}
+
+	/**
+	 * @param other an operand or a constant value
+	 * @return the comparison {@code this < other}
+	 */
+	default Comparison lessThan(Object other) {
+		return new Comparison(this, Operator.LT, Expressions.operand(other));
+	}
+
+	/**
+	 * @param other an operand or a constant value
+	 * @return the comparison {@code this <= other}
+	 */
+	default Comparison lessThanOrEqualTo(Object other) {
+		return new Comparison(this, Operator.LE, Expressions.operand(other));
+	}
+
+	/**
+	 * @param other an operand or a constant value
+	 * @return the comparison {@code this > other}
+	 */
+	default Comparison greaterThan(Object other) {
+		return new Comparison(this, Operator.GT, Expressions.operand(other));
+	}
+
+	/**
+	 * @param other an operand or a constant value
+	 * @return the comparison {@code this >= other}
+	 */
+	default Comparison greaterThanOrEqualTo(Object other) {
+		return new Comparison(this, Operator.GE, Expressions.operand(other));
+	}
+}
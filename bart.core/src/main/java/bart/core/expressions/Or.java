@@ -0,0 +1,64 @@
+package bart.core.expressions;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import bart.core.Attributes;
+import bart.core.NameResolver;
+
+/**
+ * The disjunction of {@link Expression}s, evaluated from left to right with
+ * short-circuit.
+ *
+ * @param operands the disjuncts
+ * @author Lorenzo Bettini
+ */
+public record Or(List<Expression> operands) implements Expression {
+
+	/**
+	 * @param operands the disjuncts
+	 */
+	public Or {
+		operands = List.copyOf(operands);
+	}
+
+	@Override
+	public boolean evaluate(NameResolver nameResolver) {
+		for (var operand : operands) {
+			if (operand.evaluate(nameResolver)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int cost() {
+		return Connectives.cost(operands);
+	}
+
+	/**
+	 * Folds the disjuncts, drops the {@code false} ones, flattens nested
+	 * disjunctions and orders the remaining disjuncts by increasing cost;
+	 * folds to {@code true} as soon as a disjunct does.
+	 */
+	@Override
+	public Expression fold(Attributes owner) {
+		var folded = Connectives.fold(operands, owner, Or.class, false);
+		if (folded == null) {
+			return BooleanConstant.TRUE;
+		}
+		return switch (folded.size()) {
+		case 0 -> BooleanConstant.FALSE;
+		case 1 -> folded.get(0);
+		default -> new Or(folded);
+		};
+	}
+
+	@Override
+	public String toString() {
+		return operands.stream()
+			.map(Object::toString)
+			.collect(Collectors.joining(" or ", "(", ")"));
+	}
+}
@@ -0,0 +1,35 @@
+package bart.core.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown by the {@link PolicyParser} when the text of the policies is not
+ * well formed.
+ *
+ * @author Lorenzo Bettini
+ */
+public class PolicyFormatException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int lineNumber;
+
+	/**
+	 * Constructs a new {@code PolicyFormatException} for the given position.
+	 *
+	 * @param lineNumber the 1-based number of the offending line
+	 * @param column the 1-based column of the offending token
+	 * @param message the description of the problem
+	 */
+	public PolicyFormatException(int lineNumber, int column, String message) {
+		super("line " + lineNumber + ", column " + column + ": " + message);
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * @return the 1-based number of the offending line
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+}
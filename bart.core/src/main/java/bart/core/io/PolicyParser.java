@@ -0,0 +1,583 @@
+package bart.core.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import bart.core.AndExchange;
+import bart.core.AttributePattern;
+import bart.core.Attributes;
+import bart.core.Exchange;
+import bart.core.ExchangeFromParticipant;
+import bart.core.ExchangeToParticipant;
+import bart.core.ExpressionCode;
+import bart.core.ExpressionWithDescription;
+import bart.core.MultiValue;
+import bart.core.OrExchange;
+import bart.core.Participants;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.QuantifiedParticipant;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+import bart.core.expressions.BooleanConstant;
+import bart.core.expressions.Comparison;
+import bart.core.expressions.Expression;
+import bart.core.expressions.Expressions;
+import bart.core.expressions.Operand;
+import bart.core.io.Tokenizer.Kind;
+
+/**
+ * Parses policies written in the Bart policy text format, one line per policy
+ * header and per rule; empty lines and comments (from {@code #} to the end of
+ * the line) are ignored.
+ *
+ * <p>Example:
+ * {@snippet lang="text" :
+ * # a courier
+ * policy [service: "delivery", company: "FastAndFurious", city: {"Lucca", "Prato"}]
+ * rule [type: "addrInfo", city: "Prato"] requires or(exchange(me, [type: "addrInfo", city: "Pistoia"], requester), exchange(me, [type: "addrInfo", city: "Lucca"], requester))
+ * rule [type: "stats", size: [1, 100)] when requester.level >= 3 and not from.busy = true
+ * rule [type: "map"] when described "in working hours"
+ * }
+ * </p>
+ * <p>
+ * A {@code policy} line, with the party attributes, starts a new policy, and
+ * each following {@code rule} line, with the resource attributes, adds a rule
+ * to it. A rule can have a condition after {@code when}, either written with
+ * the condition expression language (see {@link Expressions}; attributes are
+ * referred to as {@code from.name}, {@code requester.name}, {@code owner.name}
+ * and {@code party[selector].name}) or referring to a condition
+ * {@link #condition(String, ExpressionCode) registered} with a description,
+ * and an exchange after {@code requires}, built with {@code exchange(to,
+ * [resource], from)}, {@code and(e1, e2)} and {@code or(e1, e2)}; participants
+ * are {@code me}, {@code requester}, party indexes and {@code any[selector]}
+ * or {@code all[selector]}.
+ * </p>
+ * <p>
+ * Attribute values are strings (in double or single quotes), numbers
+ * ({@code int}, {@code long} with an {@code L} suffix, or {@code double}),
+ * {@code true}, {@code false}, {@code null}, multi-values {@code {v1, v2}},
+ * ranges in interval notation such as {@code [1, 3)} or {@code (-inf, 10]},
+ * {@code oneOf(v1, v2)} and {@code startsWith("prefix")}. Names that are not
+ * made of letters, digits, {@code _}, {@code /} and {@code -} are quoted.
+ * </p>
+ * <p>
+ * Policies are parsed as a stream: each policy is passed on as soon as it is
+ * complete, so that memory is bounded by the size of a policy (or, when
+ * parsing in {@link #parallelism(int) parallel}, of a bounded number of
+ * batches of policies), and policies are always passed on in their order in
+ * the text. {@link PolicyWriter} writes policies in this format.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class PolicyParser {
+
+	private static final int BATCH_SIZE = 256;
+
+	private final Map<String, ExpressionCode> conditions = new HashMap<>();
+
+	private int parallelism = 1;
+
+	/**
+	 * A non-empty line, with its 1-based number.
+	 */
+	private record Line(int number, String text) {
+	}
+
+	/**
+	 * A policy header line with its rule lines.
+	 */
+	private record Section(List<Line> lines) {
+	}
+
+	/**
+	 * Registers a condition that rules can refer to with
+	 * {@code when described "description"}, e.g., a condition that cannot be
+	 * expressed with the condition expression language.
+	 *
+	 * @param description the description of the condition
+	 * @param condition the condition
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public PolicyParser condition(String description, ExpressionCode condition) {
+		conditions.put(description, condition);
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads parsing independent batches of policies; with
+	 * the default {@code 1}, policies are parsed in the calling thread.
+	 *
+	 * @param parallelism the number of parsing threads
+	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalArgumentException if {@code parallelism} is less than 1
+	 */
+	public PolicyParser parallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Parses the given text into new policies.
+	 *
+	 * @param reader the text
+	 * @return the parsed policies, not frozen
+	 * @throws IOException if the text cannot be read or is not well formed
+	 *         (see {@link PolicyFormatException})
+	 */
+	public Policies parse(Reader reader) throws IOException {
+		var policies = new Policies();
+		parse(reader, policies::add);
+		return policies;
+	}
+
+	/**
+	 * Parses the given text, passing on each policy, in order, as soon as it
+	 * is available; for instance, to bulk-load large texts:
+	 *
+	 * {@snippet :
+	 * var builder = new PoliciesBuilder();
+	 * new PolicyParser().parallelism(4).parse(reader, builder::add);
+	 * var policies = builder.build();
+	 * }
+	 *
+	 * @param reader the text
+	 * @param consumer receives the policies, in the calling thread
+	 * @throws IOException if the text cannot be read or is not well formed
+	 *         (see {@link PolicyFormatException})
+	 */
+	public void parse(Reader reader, Consumer<Policy> consumer) throws IOException {
+		var bufferedReader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+		if (parallelism == 1) {
+			readSections(bufferedReader, section -> consumer.accept(parseSection(section)));
+			return;
+		}
+		var executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			var thread = new Thread(runnable, "bart-policy-parser");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			parseInParallel(bufferedReader, consumer, executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void parseInParallel(BufferedReader reader, Consumer<Policy> consumer, ExecutorService executor)
+			throws IOException {
+		var pending = new ArrayDeque<Future<List<Policy>>>();
+		var batch = new ArrayList<Section>(BATCH_SIZE);
+		readSections(reader, section -> {
+			batch.add(section);
+			if (batch.size() == BATCH_SIZE) {
+				submit(executor, List.copyOf(batch), pending);
+				batch.clear();
+				// bounds the batches in memory
+				while (pending.size() > 2 * parallelism) {
+					await(pending.poll()).forEach(consumer);
+				}
+			}
+		});
+		submit(executor, batch, pending);
+		while (!pending.isEmpty()) {
+			await(pending.poll()).forEach(consumer);
+		}
+	}
+
+	private void submit(ExecutorService executor, List<Section> sections, ArrayDeque<Future<List<Policy>>> pending) {
+		pending.add(executor.submit(() -> {
+			var policies = new ArrayList<Policy>(sections.size());
+			for (var section : sections) {
+				policies.add(parseSection(section));
+			}
+			return policies;
+		}));
+	}
+
+	private static List<Policy> await(Future<List<Policy>> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while parsing policies", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	@FunctionalInterface
+	private interface SectionConsumer {
+		void accept(Section section) throws IOException;
+	}
+
+	private static void readSections(BufferedReader reader, SectionConsumer consumer) throws IOException {
+		List<Line> lines = null;
+		var lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			var trimmed = line.strip();
+			if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+				continue;
+			}
+			// lines before the first policy header make a section that fails
+			if (lines == null || isPolicyHeader(trimmed)) {
+				if (lines != null) {
+					consumer.accept(new Section(lines));
+				}
+				lines = new ArrayList<>();
+			}
+			lines.add(new Line(lineNumber, line));
+		}
+		if (lines != null) {
+			consumer.accept(new Section(lines));
+		}
+	}
+
+	private static boolean isPolicyHeader(String line) {
+		return line.startsWith("policy")
+			&& (line.length() == 6 || !Tokenizer.isIdentifierPart(line.charAt(6)));
+	}
+
+	private Policy parseSection(Section section) throws PolicyFormatException {
+		var lines = section.lines();
+		var header = lines.get(0);
+		var tokenizer = new Tokenizer(header.text(), header.number());
+		tokenizer.expectKeyword("policy");
+		var party = attributes(tokenizer);
+		tokenizer.expectEnd();
+		var rules = new Rules();
+		for (int i = 1; i < lines.size(); i++) {
+			var line = lines.get(i);
+			rules.add(rule(new Tokenizer(line.text(), line.number())));
+		}
+		return new Policy(party, rules);
+	}
+
+	private Rule rule(Tokenizer tokenizer) throws PolicyFormatException {
+		tokenizer.expectKeyword("rule");
+		var resource = attributes(tokenizer);
+		ExpressionCode condition = null;
+		if (tokenizer.acceptKeyword("when")) {
+			condition = condition(tokenizer);
+		}
+		Exchange exchange = null;
+		if (tokenizer.acceptKeyword("requires")) {
+			exchange = exchange(tokenizer);
+		}
+		tokenizer.expectEnd();
+		if (condition == null) {
+			return exchange == null ? new Rule(resource) : new Rule(resource, exchange);
+		}
+		return new Rule(resource, condition, exchange);
+	}
+
+	private Attributes attributes(Tokenizer tokenizer) throws PolicyFormatException {
+		var attributes = new Attributes();
+		tokenizer.expectSymbol("[");
+		if (tokenizer.acceptSymbol("]")) {
+			return attributes;
+		}
+		do {
+			var nameToken = tokenizer.peek();
+			var name = name(tokenizer);
+			tokenizer.expectSymbol(":");
+			var value = value(tokenizer);
+			try {
+				attributes.add(name, value);
+			} catch (IllegalArgumentException e) {
+				throw tokenizer.error(nameToken, "duplicate name '" + name + "'");
+			}
+		} while (tokenizer.acceptSymbol(","));
+		tokenizer.expectSymbol("]");
+		return attributes;
+	}
+
+	private static String name(Tokenizer tokenizer) throws PolicyFormatException {
+		var token = tokenizer.peek();
+		if (token.kind() == Kind.IDENTIFIER) {
+			return tokenizer.next().text();
+		}
+		if (token.kind() == Kind.STRING) {
+			return (String) tokenizer.next().value();
+		}
+		throw tokenizer.unexpected("a name");
+	}
+
+	private Object value(Tokenizer tokenizer) throws PolicyFormatException {
+		var token = tokenizer.peek();
+		switch (token.kind()) {
+		case STRING, NUMBER:
+			return tokenizer.next().value();
+		case IDENTIFIER:
+			return keywordValue(tokenizer);
+		case SYMBOL:
+			if (token.text().equals("{")) {
+				return multiValue(tokenizer);
+			}
+			if (token.text().equals("[") || token.text().equals("(")) {
+				return range(tokenizer);
+			}
+			break;
+		default:
+			break;
+		}
+		throw tokenizer.unexpected("a value");
+	}
+
+	private Object keywordValue(Tokenizer tokenizer) throws PolicyFormatException {
+		var token = tokenizer.next();
+		switch (token.text()) {
+		case "true":
+			return true;
+		case "false":
+			return false;
+		case "null":
+			return null;
+		case "startsWith":
+			tokenizer.expectSymbol("(");
+			var prefix = tokenizer.peek();
+			if (prefix.kind() != Kind.STRING) {
+				throw tokenizer.unexpected("a string");
+			}
+			tokenizer.next();
+			tokenizer.expectSymbol(")");
+			return AttributePattern.startsWith((String) prefix.value());
+		case "oneOf":
+			tokenizer.expectSymbol("(");
+			var values = new ArrayList<Object>();
+			if (!tokenizer.acceptSymbol(")")) {
+				do {
+					values.add(value(tokenizer));
+				} while (tokenizer.acceptSymbol(","));
+				tokenizer.expectSymbol(")");
+			}
+			return AttributePattern.oneOf(values.toArray());
+		default:
+			throw tokenizer.error(token, "expected a value but found " + token);
+		}
+	}
+
+	private Object multiValue(Tokenizer tokenizer) throws PolicyFormatException {
+		var open = tokenizer.next();
+		var members = new ArrayList<Object>();
+		if (!tokenizer.acceptSymbol("}")) {
+			do {
+				members.add(value(tokenizer));
+			} while (tokenizer.acceptSymbol(","));
+			tokenizer.expectSymbol("}");
+		}
+		if (members.contains(null)) {
+			throw tokenizer.error(open, "null member");
+		}
+		return MultiValue.of(members.toArray());
+	}
+
+	private Object range(Tokenizer tokenizer) throws PolicyFormatException {
+		var lowInclusive = tokenizer.next().text().equals("[");
+		Number low = null;
+		if (!tokenizer.acceptSymbol("-inf")) {
+			low = number(tokenizer);
+		}
+		tokenizer.expectSymbol(",");
+		Number high = null;
+		if (!tokenizer.acceptSymbol("+inf")) {
+			high = number(tokenizer);
+		}
+		boolean highInclusive;
+		if (tokenizer.acceptSymbol("]")) {
+			highInclusive = true;
+		} else {
+			tokenizer.expectSymbol(")");
+			highInclusive = false;
+		}
+		return new AttributePattern.Range(low, low != null && lowInclusive, high, high != null && highInclusive);
+	}
+
+	private static Number number(Tokenizer tokenizer) throws PolicyFormatException {
+		if (tokenizer.peek().kind() != Kind.NUMBER) {
+			throw tokenizer.unexpected("a number");
+		}
+		return (Number) tokenizer.next().value();
+	}
+
+	private ExpressionCode condition(Tokenizer tokenizer) throws PolicyFormatException {
+		if (tokenizer.acceptKeyword("described")) {
+			var description = tokenizer.peek();
+			if (description.kind() != Kind.STRING) {
+				throw tokenizer.unexpected("a description");
+			}
+			tokenizer.next();
+			var condition = conditions.get(description.value());
+			if (condition == null) {
+				throw tokenizer.error(description, "unknown condition " + description.text());
+			}
+			return new ExpressionWithDescription(condition, (String) description.value());
+		}
+		return or(tokenizer);
+	}
+
+	private Expression or(Tokenizer tokenizer) throws PolicyFormatException {
+		var first = and(tokenizer);
+		if (!tokenizer.peek().is(Kind.IDENTIFIER, "or")) {
+			return first;
+		}
+		var operands = new ArrayList<Expression>();
+		operands.add(first);
+		while (tokenizer.acceptKeyword("or")) {
+			operands.add(and(tokenizer));
+		}
+		return Expressions.or(operands.toArray(Expression[]::new));
+	}
+
+	private Expression and(Tokenizer tokenizer) throws PolicyFormatException {
+		var first = not(tokenizer);
+		if (!tokenizer.peek().is(Kind.IDENTIFIER, "and")) {
+			return first;
+		}
+		var operands = new ArrayList<Expression>();
+		operands.add(first);
+		while (tokenizer.acceptKeyword("and")) {
+			operands.add(not(tokenizer));
+		}
+		return Expressions.and(operands.toArray(Expression[]::new));
+	}
+
+	private Expression not(Tokenizer tokenizer) throws PolicyFormatException {
+		if (tokenizer.acceptKeyword("not")) {
+			return Expressions.not(not(tokenizer));
+		}
+		if (tokenizer.acceptSymbol("(")) {
+			var expression = or(tokenizer);
+			tokenizer.expectSymbol(")");
+			return expression;
+		}
+		var token = tokenizer.peek();
+		if ((token.is(Kind.IDENTIFIER, "true") || token.is(Kind.IDENTIFIER, "false"))
+				&& operator(tokenizer.peekSecond()) == null) {
+			tokenizer.next();
+			return BooleanConstant.of(token.text().equals("true"));
+		}
+		var left = operand(tokenizer);
+		var operator = operator(tokenizer.peek());
+		if (operator == null) {
+			throw tokenizer.unexpected("a comparison operator");
+		}
+		tokenizer.next();
+		return new Comparison(left, operator, operand(tokenizer));
+	}
+
+	private static Comparison.Operator operator(Tokenizer.Token token) {
+		if (token.kind() == Kind.SYMBOL) {
+			for (var operator : Comparison.Operator.values()) {
+				if (operator.toString().equals(token.text())) {
+					return operator;
+				}
+			}
+		}
+		return null;
+	}
+
+	private Operand operand(Tokenizer tokenizer) throws PolicyFormatException {
+		var token = tokenizer.peek();
+		if (token.kind() == Kind.IDENTIFIER && tokenizer.peekSecond().is(Kind.SYMBOL, ".")) {
+			tokenizer.next();
+			tokenizer.next();
+			var name = name(tokenizer);
+			return switch (token.text()) {
+			case "from" -> Expressions.from(name);
+			case "requester" -> Expressions.requester(name);
+			case "owner" -> Expressions.owner(name);
+			default -> throw tokenizer.error(token, "expected from, requester, owner or party but found " + token);
+			};
+		}
+		if (token.is(Kind.IDENTIFIER, "party")) {
+			tokenizer.next();
+			var selector = attributes(tokenizer);
+			tokenizer.expectSymbol(".");
+			return Expressions.party(selector, name(tokenizer));
+		}
+		return Expressions.value(value(tokenizer));
+	}
+
+	private Exchange exchange(Tokenizer tokenizer) throws PolicyFormatException {
+		var token = tokenizer.next();
+		if (token.kind() == Kind.IDENTIFIER) {
+			switch (token.text()) {
+			case "exchange": {
+				tokenizer.expectSymbol("(");
+				var to = to(tokenizer);
+				tokenizer.expectSymbol(",");
+				var resource = attributes(tokenizer);
+				tokenizer.expectSymbol(",");
+				var from = from(tokenizer);
+				tokenizer.expectSymbol(")");
+				return new SingleExchange(to, resource, from);
+			}
+			case "and", "or": {
+				tokenizer.expectSymbol("(");
+				var left = exchange(tokenizer);
+				tokenizer.expectSymbol(",");
+				var right = exchange(tokenizer);
+				tokenizer.expectSymbol(")");
+				return token.text().equals("and") ? new AndExchange(left, right) : new OrExchange(left, right);
+			}
+			default:
+				break;
+			}
+		}
+		throw tokenizer.error(token, "expected exchange, and or or but found " + token);
+	}
+
+	private ExchangeToParticipant to(Tokenizer tokenizer) throws PolicyFormatException {
+		var token = tokenizer.peek();
+		if (tokenizer.acceptKeyword("me")) {
+			return Participants.me();
+		}
+		if (token.kind() == Kind.NUMBER && token.value() instanceof Integer index && index > 0) {
+			tokenizer.next();
+			return Participants.index(index);
+		}
+		if (token.is(Kind.IDENTIFIER, "any") || token.is(Kind.IDENTIFIER, "all")) {
+			return quantified(tokenizer);
+		}
+		throw tokenizer.unexpected("me, a party index, any or all");
+	}
+
+	private ExchangeFromParticipant from(Tokenizer tokenizer) throws PolicyFormatException {
+		var token = tokenizer.peek();
+		if (tokenizer.acceptKeyword("requester")) {
+			return Participants.requester();
+		}
+		if (token.is(Kind.IDENTIFIER, "any") || token.is(Kind.IDENTIFIER, "all")) {
+			return quantified(tokenizer);
+		}
+		throw tokenizer.unexpected("requester, any or all");
+	}
+
+	private QuantifiedParticipant quantified(Tokenizer tokenizer) throws PolicyFormatException {
+		var all = tokenizer.next().text().equals("all");
+		var selector = attributes(tokenizer);
+		return all ? Participants.all(selector) : Participants.any(selector);
+	}
+}
@@ -0,0 +1,288 @@
+package bart.core.io;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import bart.core.AndExchange;
+import bart.core.AttributePattern;
+import bart.core.Attributes;
+import bart.core.Exchange;
+import bart.core.ExpressionCode;
+import bart.core.ExpressionWithDescription;
+import bart.core.IndexParticipant;
+import bart.core.MeParticipant;
+import bart.core.MultiValue;
+import bart.core.OrExchange;
+import bart.core.Participant;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.QuantifiedParticipant;
+import bart.core.RequesterParticipant;
+import bart.core.Rule;
+import bart.core.SingleExchange;
+import bart.core.expressions.And;
+import bart.core.expressions.AttributeReference;
+import bart.core.expressions.BooleanConstant;
+import bart.core.expressions.Comparison;
+import bart.core.expressions.Constant;
+import bart.core.expressions.Expression;
+import bart.core.expressions.Not;
+import bart.core.expressions.Operand;
+import bart.core.expressions.Or;
+
+/**
+ * Writes policies in the Bart policy text format, which is read by the
+ * {@link PolicyParser}.
+ * <p>
+ * Conditions can be written if they are built with the condition expression
+ * language or if they are {@link ExpressionWithDescription}s, whose
+ * description is written as a reference to a condition to be registered in
+ * the parser; attribute values can be strings, {@code int}s, {@code long}s,
+ * finite {@code double}s, booleans, {@code null} and {@link AttributePattern}s
+ * of these values.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class PolicyWriter {
+
+	private static final Pattern IDENTIFIER = Pattern.compile("[\\p{L}_][\\p{L}\\p{Nd}_/-]*");
+
+	private PolicyWriter() {
+		// Only static methods
+	}
+
+	/**
+	 * Writes the given policies, in order.
+	 *
+	 * @param policies the policies
+	 * @param out where to write
+	 * @throws IOException if writing fails
+	 * @throws IllegalArgumentException if a condition or a value cannot be written
+	 */
+	public static void write(Policies policies, Appendable out) throws IOException {
+		for (int i = 1; i <= policies.size(); i++) {
+			write(policies.getByIndex(i), out);
+		}
+	}
+
+	/**
+	 * Writes the given policy: its header line and a line for each rule.
+	 *
+	 * @param policy the policy
+	 * @param out where to write
+	 * @throws IOException if writing fails
+	 * @throws IllegalArgumentException if a condition or a value cannot be written
+	 */
+	public static void write(Policy policy, Appendable out) throws IOException {
+		var text = new StringBuilder();
+		text.append("policy ");
+		attributes(policy.party(), text);
+		text.append('\n');
+		var rules = policy.rules();
+		for (int i = 1; i <= rules.size(); i++) {
+			rule(rules.getByIndex(i), text);
+			text.append('\n');
+		}
+		out.append(text);
+	}
+
+	private static void rule(Rule rule, StringBuilder text) {
+		text.append("rule ");
+		attributes(rule.getResource(), text);
+		if (!rule.hasTrueCondition()) {
+			text.append(" when ");
+			condition(rule.getCondition(), text);
+		}
+		if (rule.hasExchange()) {
+			text.append(" requires ");
+			exchange(rule.getExchange(), text);
+		}
+	}
+
+	private static void attributes(Attributes attributes, StringBuilder text) {
+		text.append('[');
+		var first = true;
+		for (var name : attributes.names()) {
+			if (!first) {
+				text.append(", ");
+			}
+			first = false;
+			name(name, text);
+			text.append(": ");
+			value(attributes.name(name), text);
+		}
+		text.append(']');
+	}
+
+	private static void name(String name, StringBuilder text) {
+		if (IDENTIFIER.matcher(name).matches()) {
+			text.append(name);
+		} else {
+			string(name, text);
+		}
+	}
+
+	private static void string(String string, StringBuilder text) {
+		text.append('"');
+		for (int i = 0; i < string.length(); i++) {
+			var c = string.charAt(i);
+			switch (c) {
+			case '"' -> text.append("\\\"");
+			case '\\' -> text.append("\\\\");
+			case '\n' -> text.append("\\n");
+			case '\r' -> text.append("\\r");
+			case '\t' -> text.append("\\t");
+			default -> text.append(c);
+			}
+		}
+		text.append('"');
+	}
+
+	private static void value(Object value, StringBuilder text) {
+		switch (value) {
+		case null -> text.append("null");
+		case String string -> string(string, text);
+		case Integer integer -> text.append(integer);
+		case Long longValue -> text.append(longValue).append('L');
+		case Double doubleValue when Double.isFinite(doubleValue) -> text.append(doubleValue);
+		case Boolean booleanValue -> text.append(booleanValue);
+		case MultiValue multiValue -> values("{", multiValue.members(), "}", text);
+		case AttributePattern.OneOf oneOf -> values("oneOf(", oneOf.values(), ")", text);
+		case AttributePattern.Prefix prefix -> {
+			text.append("startsWith(");
+			string(prefix.prefix(), text);
+			text.append(')');
+		}
+		case AttributePattern.Range range -> {
+			if (range.low() == null) {
+				text.append("(-inf");
+			} else {
+				text.append(range.lowInclusive() ? '[' : '(');
+				value(range.low(), text);
+			}
+			text.append(", ");
+			if (range.high() == null) {
+				text.append("+inf)");
+			} else {
+				value(range.high(), text);
+				text.append(range.highInclusive() ? ']' : ')');
+			}
+		}
+		default -> throw new IllegalArgumentException(
+			"cannot write value '" + value + "' of " + value.getClass());
+		}
+	}
+
+	private static void values(String open, Iterable<Object> values, String close, StringBuilder text) {
+		text.append(open);
+		var first = true;
+		for (var value : values) {
+			if (!first) {
+				text.append(", ");
+			}
+			first = false;
+			value(value, text);
+		}
+		text.append(close);
+	}
+
+	private static void condition(ExpressionCode condition, StringBuilder text) {
+		if (condition instanceof Expression expression) {
+			expression(expression, text);
+		} else if (condition instanceof ExpressionWithDescription described) {
+			text.append("described ");
+			string(described.toString(), text);
+		} else {
+			throw new IllegalArgumentException("cannot write condition '" + condition + "'");
+		}
+	}
+
+	private static void expression(Expression expression, StringBuilder text) {
+		switch (expression) {
+		case Comparison comparison -> {
+			operand(comparison.left(), text);
+			text.append(' ').append(comparison.operator()).append(' ');
+			operand(comparison.right(), text);
+		}
+		case And and when and.operands().isEmpty() -> text.append("true");
+		case And and -> connective(and.operands(), " and ", text);
+		case Or or when or.operands().isEmpty() -> text.append("false");
+		case Or or -> connective(or.operands(), " or ", text);
+		case Not not -> {
+			text.append("not ");
+			expression(not.operand(), text);
+		}
+		case BooleanConstant constant -> text.append(constant.value());
+		}
+	}
+
+	private static void connective(Iterable<Expression> operands, String separator, StringBuilder text) {
+		text.append('(');
+		var first = true;
+		for (var operand : operands) {
+			if (!first) {
+				text.append(separator);
+			}
+			first = false;
+			expression(operand, text);
+		}
+		text.append(')');
+	}
+
+	private static void operand(Operand operand, StringBuilder text) {
+		switch (operand) {
+		case Constant constant -> value(constant.value(), text);
+		case AttributeReference reference -> {
+			switch (reference.scope()) {
+			case FROM -> text.append("from.");
+			case REQUESTER -> text.append("requester.");
+			case OWNER -> text.append("owner.");
+			case PARTY -> {
+				text.append("party");
+				attributes(reference.selector(), text);
+				text.append('.');
+			}
+			}
+			name(reference.handle().name(), text);
+		}
+		}
+	}
+
+	private static void exchange(Exchange exchange, StringBuilder text) {
+		switch (exchange) {
+		case SingleExchange single -> {
+			text.append("exchange(");
+			participant(single.to(), text);
+			text.append(", ");
+			attributes(single.resource(), text);
+			text.append(", ");
+			participant(single.from(), text);
+			text.append(')');
+		}
+		case AndExchange and -> composite("and(", and.left(), and.right(), text);
+		case OrExchange or -> composite("or(", or.left(), or.right(), text);
+		}
+	}
+
+	private static void composite(String open, Exchange left, Exchange right, StringBuilder text) {
+		text.append(open);
+		exchange(left, text);
+		text.append(", ");
+		exchange(right, text);
+		text.append(')');
+	}
+
+	private static void participant(Participant participant, StringBuilder text) {
+		switch (participant) {
+		case MeParticipant me -> text.append("me");
+		case RequesterParticipant requester -> text.append("requester");
+		case IndexParticipant index -> text.append(index.index());
+		case QuantifiedParticipant quantified -> {
+			text.append(quantified.isAll() ? "all" : "any");
+			attributes(quantified.getAttributes(), text);
+		}
+		default -> throw new IllegalArgumentException("cannot write participant '" + participant + "'");
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package bart.core.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a line of the policy text format into tokens.
+ *
+ * @author Lorenzo Bettini
+ */
+final class Tokenizer {
+
+	enum Kind {
+		IDENTIFIER, STRING, NUMBER, SYMBOL, END
+	}
+
+	/**
+	 * @param kind the kind of the token
+	 * @param text the identifier, the symbol, or the source text of a string or a number
+	 * @param value the value of a string or a number; {@code null} otherwise
+	 * @param column the 1-based column of the token
+	 */
+	record Token(Kind kind, String text, Object value, int column) {
+
+		boolean is(Kind expectedKind, String expectedText) {
+			return kind == expectedKind && text.equals(expectedText);
+		}
+
+		@Override
+		public String toString() {
+			return kind == Kind.END ? "end of line" : "'" + text + "'";
+		}
+	}
+
+	private static final String[] SYMBOLS = {
+		"!=", "<=", ">=", "-inf", "+inf", "[", "]", "(", ")", "{", "}", ",", ":", ".", "=", "<", ">"
+	};
+
+	private final String line;
+	private final int lineNumber;
+	private final List<Token> tokens = new ArrayList<>();
+	private int position;
+
+	/**
+	 * @param line the line to tokenize
+	 * @param lineNumber the 1-based number of the line, for error messages
+	 * @throws PolicyFormatException if the line contains invalid tokens
+	 */
+	Tokenizer(String line, int lineNumber) throws PolicyFormatException {
+		this.line = line;
+		this.lineNumber = lineNumber;
+		tokenize();
+	}
+
+	private void tokenize() throws PolicyFormatException {
+		var i = 0;
+		var length = line.length();
+		while (i < length) {
+			var c = line.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '#') {
+				break;
+			} else if (c == '"' || c == '\'') {
+				i = string(i, c);
+			} else if (Character.isDigit(c)
+					|| (c == '-' || c == '+') && i + 1 < length && Character.isDigit(line.charAt(i + 1))) {
+				i = number(i);
+			} else if (Character.isLetter(c) || c == '_') {
+				var start = i;
+				while (i < length && isIdentifierPart(line.charAt(i))) {
+					i++;
+				}
+				tokens.add(new Token(Kind.IDENTIFIER, line.substring(start, i), null, start + 1));
+			} else {
+				i = symbol(i);
+			}
+		}
+		tokens.add(new Token(Kind.END, "", null, length + 1));
+	}
+
+	/**
+	 * @param c a character
+	 * @return whether the character can be part of an unquoted name
+	 */
+	static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '/' || c == '-';
+	}
+
+	private int string(int start, char quote) throws PolicyFormatException {
+		var value = new StringBuilder();
+		var i = start + 1;
+		while (i < line.length()) {
+			var c = line.charAt(i++);
+			if (c == quote) {
+				tokens.add(new Token(Kind.STRING, line.substring(start, i), value.toString(), start + 1));
+				return i;
+			}
+			if (c == '\\' && i < line.length()) {
+				c = line.charAt(i++);
+				switch (c) {
+				case 'n' -> value.append('\n');
+				case 't' -> value.append('\t');
+				case 'r' -> value.append('\r');
+				case '\\', '"', '\'' -> value.append(c);
+				default -> throw error(i - 1, "invalid escape '\\" + c + "'");
+				}
+			} else {
+				value.append(c);
+			}
+		}
+		throw error(start + 1, "unterminated string");
+	}
+
+	private int number(int start) throws PolicyFormatException {
+		var i = start + 1;
+		var decimal = false;
+		while (i < line.length()) {
+			var c = line.charAt(i);
+			if (Character.isDigit(c)) {
+				i++;
+			} else if (c == '.' && i + 1 < line.length() && Character.isDigit(line.charAt(i + 1))) {
+				decimal = true;
+				i++;
+			} else if ((c == 'e' || c == 'E') && i + 1 < line.length()) {
+				decimal = true;
+				i++;
+				if (line.charAt(i) == '-' || line.charAt(i) == '+') {
+					i++;
+				}
+			} else {
+				break;
+			}
+		}
+		var text = line.substring(start, i);
+		var isLong = !decimal && i < line.length() && line.charAt(i) == 'L';
+		try {
+			Object value;
+			if (decimal) {
+				value = Double.parseDouble(text);
+			} else if (isLong) {
+				value = Long.parseLong(text);
+				i++;
+			} else {
+				var longValue = Long.parseLong(text);
+				if (longValue == (int) longValue) {
+					value = (int) longValue;
+				} else {
+					value = longValue;
+				}
+			}
+			tokens.add(new Token(Kind.NUMBER, line.substring(start, i), value, start + 1));
+			return i;
+		} catch (NumberFormatException e) {
+			throw error(start + 1, "invalid number '" + text + "'");
+		}
+	}
+
+	private int symbol(int start) throws PolicyFormatException {
+		for (var symbol : SYMBOLS) {
+			if (line.startsWith(symbol, start)) {
+				tokens.add(new Token(Kind.SYMBOL, symbol, null, start + 1));
+				return start + symbol.length();
+			}
+		}
+		throw error(start + 1, "unexpected character '" + line.charAt(start) + "'");
+	}
+
+	/**
+	 * @return the next token, without consuming it
+	 */
+	Token peek() {
+		return tokens.get(position);
+	}
+
+	/**
+	 * @return the token after the next one, without consuming them
+	 */
+	Token peekSecond() {
+		return tokens.get(Math.min(position + 1, tokens.size() - 1));
+	}
+
+	/**
+	 * @return the next token, which is consumed
+	 */
+	Token next() {
+		var token = tokens.get(position);
+		if (token.kind() != Kind.END) {
+			position++;
+		}
+		return token;
+	}
+
+	/**
+	 * Consumes the next token if it is the given symbol.
+	 *
+	 * @param symbol the symbol
+	 * @return whether the symbol was consumed
+	 */
+	boolean acceptSymbol(String symbol) {
+		if (peek().is(Kind.SYMBOL, symbol)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Consumes the next token if it is the given keyword.
+	 *
+	 * @param keyword the keyword
+	 * @return whether the keyword was consumed
+	 */
+	boolean acceptKeyword(String keyword) {
+		if (peek().is(Kind.IDENTIFIER, keyword)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Consumes the given symbol.
+	 *
+	 * @param symbol the expected symbol
+	 * @throws PolicyFormatException if the next token is not the symbol
+	 */
+	void expectSymbol(String symbol) throws PolicyFormatException {
+		if (!acceptSymbol(symbol)) {
+			throw unexpected("'" + symbol + "'");
+		}
+	}
+
+	/**
+	 * Consumes the given keyword.
+	 *
+	 * @param keyword the expected keyword
+	 * @throws PolicyFormatException if the next token is not the keyword
+	 */
+	void expectKeyword(String keyword) throws PolicyFormatException {
+		if (!acceptKeyword(keyword)) {
+			throw unexpected("'" + keyword + "'");
+		}
+	}
+
+	/**
+	 * @throws PolicyFormatException if there are more tokens
+	 */
+	void expectEnd() throws PolicyFormatException {
+		if (peek().kind() != Kind.END) {
+			throw unexpected("end of line");
+		}
+	}
+
+	/**
+	 * @param expected what was expected instead of the next token
+	 * @return the exception reporting the next token as unexpected
+	 */
+	PolicyFormatException unexpected(String expected) {
+		var token = peek();
+		return error(token.column(), "expected " + expected + " but found " + token);
+	}
+
+	/**
+	 * @param token the offending token
+	 * @param message the description of the problem
+	 * @return the exception reporting the problem at the token
+	 */
+	PolicyFormatException error(Token token, String message) {
+		return error(token.column(), message);
+	}
+
+	private PolicyFormatException error(int column, String message) {
+		return new PolicyFormatException(lineNumber, column, message);
+	}
+}
@@ -0,0 +1,137 @@
+package bart.core.semantics;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import bart.core.AttributeMatcher;
+import bart.core.Attributes;
+import bart.core.Policies;
+import bart.core.Request;
+
+/**
+ * Which requester can obtain which resource from which party, for all the
+ * parties of some {@link Policies} and a set of resources, as computed by
+ * {@link FixpointSemantics#accessMatrix()}.
+ * <p>
+ * For each resource and requester, the permitted providers are stored in a
+ * bit set, allocated only when there are some, so that
+ * {@link #isPermitted(int, Attributes, int)} takes constant time.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class AccessMatrix {
+
+	private final Policies policies;
+	private final AttributeMatcher matcher;
+	private final List<Attributes> resources;
+	private final Map<Attributes, Integer> resourceIds;
+	/**
+	 * For each resource and requester, the bit {@code provider} is set if the
+	 * requester can obtain the resource from the provider; {@code null} when
+	 * no provider is set.
+	 */
+	private final BitSet[][] permitted;
+	private final int parties;
+
+	AccessMatrix(Policies policies, AttributeMatcher matcher, List<Attributes> resources,
+			Map<Attributes, Integer> resourceIds, BitSet[][] permitted) {
+		this.policies = policies;
+		this.matcher = matcher;
+		this.resources = resources;
+		this.resourceIds = resourceIds;
+		this.permitted = permitted;
+		this.parties = policies.size();
+	}
+
+	/**
+	 * @return the number of parties, which are indexed from 1
+	 */
+	public int parties() {
+		return parties;
+	}
+
+	/**
+	 * @return the resources of the matrix, in no particular order
+	 */
+	public List<Attributes> resources() {
+		return resources;
+	}
+
+	/**
+	 * @param requester the 1-based index of the requester
+	 * @param resource one of the {@link #resources()}
+	 * @param provider the 1-based index of the provider
+	 * @return whether the requester can obtain the resource from the provider
+	 * @throws IllegalArgumentException if the resource is not in the matrix
+	 * @throws IndexOutOfBoundsException if a party index is out of range
+	 */
+	public boolean isPermitted(int requester, Attributes resource, int provider) {
+		return isPermitted(requester, resourceId(resource), provider);
+	}
+
+	/**
+	 * Same as {@link Semantics#evaluate(Request)}, for a request whose
+	 * resource is in the matrix: a request from {@code any} or {@code all}
+	 * the parties matching some attributes takes time proportional to the
+	 * number of parties.
+	 *
+	 * @param request the request
+	 * @return whether the request is permitted
+	 * @throws IllegalArgumentException if the resource is not in the matrix
+	 */
+	public boolean isPermitted(Request request) {
+		var resourceId = resourceId(request.resource());
+		var requester = request.requester().getIndex();
+		var from = request.from();
+		if (from.getIndex() > 0) {
+			return isPermitted(requester, resourceId, from.getIndex());
+		}
+		var all = from.isAll();
+		var matched = false;
+		for (int provider = 1; provider <= parties; provider++) {
+			if (provider != requester && !policies.isRemoved(provider)
+					&& matcher.match(from.getAttributes(), policies.party(provider))) {
+				matched = true;
+				if (isPermitted(requester, resourceId, provider) != all) {
+					return !all;
+				}
+			}
+		}
+		return matched && all;
+	}
+
+	/**
+	 * @return the number of permitted (requester, resource, provider) triples
+	 */
+	public long count() {
+		var count = 0L;
+		for (var byRequester : permitted) {
+			if (byRequester != null) {
+				for (var providers : byRequester) {
+					if (providers != null) {
+						count += providers.cardinality();
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private int resourceId(Attributes resource) {
+		var resourceId = resourceIds.get(resource);
+		if (resourceId == null) {
+			throw new IllegalArgumentException("resource not in the matrix: " + resource);
+		}
+		return resourceId;
+	}
+
+	private boolean isPermitted(int requester, int resourceId, int provider) {
+		Objects.checkIndex(requester - 1, parties);
+		Objects.checkIndex(provider - 1, parties);
+		var byRequester = permitted[resourceId];
+		return byRequester != null && byRequester[requester] != null && byRequester[requester].get(provider);
+	}
+}
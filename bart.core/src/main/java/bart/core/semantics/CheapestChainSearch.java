@@ -0,0 +1,152 @@
+package bart.core.semantics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import bart.core.Request;
+import bart.core.RequestCost;
+import bart.core.semantics.Derivations.Goal;
+
+/**
+ * Finds the exchange chain of minimum cost satisfying a request, with a
+ * best-first search over the partial chains of the {@link Derivations}.
+ * <p>
+ * A partial chain has the requests chosen so far and the goals still to
+ * satisfy; it is expanded by choosing an alternative of its first goal. The
+ * partial chains are expanded in increasing order of their cost plus a lower
+ * bound of the cost of their goals: since a goal from a party index adds its
+ * own request to any chain, its cost is such a bound, while a goal from a
+ * quantified participant is bounded by 0. Since the bound never exceeds the
+ * actual cost, the first complete chain is the cheapest one, and the partial
+ * chains whose bound exceeds its cost are never expanded. Partial chains with
+ * the same bound are ordered by the positions of the alternatives chosen
+ * along their derivation, compared lexicographically: this is the order in
+ * which {@link Derivations#chains(Goal)} returns them, so that, among chains
+ * of the same cost, the one found first by {@link Semantics} is preferred.
+ * </p>
+ * <p>
+ * A goal none of whose alternatives can be expanded, because it has none or
+ * because each of them has a goal known to fail, is recorded as
+ * {@link Derivations#unsatisfiable(Goal) unsatisfiable} in the derivations,
+ * so that the partial chains still pending it are discarded, without
+ * expanding it again, and are not generated at all afterwards.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class CheapestChainSearch {
+
+	private record Requests(Request request, Requests previous) {
+	}
+
+	/**
+	 * The goals still to satisfy, with the sum of their lower bounds.
+	 */
+	private record Goals(Goal goal, Goals next, double bound) {
+	}
+
+	/**
+	 * @param choices the position of the alternative chosen by each
+	 *        expansion, in order
+	 */
+	private record PartialChain(Requests requests, Goals goals, double cost, int[] choices) {
+
+		double bound() {
+			return goals == null ? cost : cost + goals.bound();
+		}
+	}
+
+	private final Derivations derivations;
+	private final RequestCost requestCost;
+	private final PriorityQueue<PartialChain> frontier = new PriorityQueue<>(
+		Comparator.comparingDouble(PartialChain::bound).thenComparing(PartialChain::choices, Arrays::compare));
+
+	/**
+	 * @param derivations the ways of satisfying the requests
+	 * @param requestCost the cost of each request of a chain
+	 */
+	CheapestChainSearch(Derivations derivations, RequestCost requestCost) {
+		this.derivations = derivations;
+		this.requestCost = requestCost;
+	}
+
+	/**
+	 * @param request the request to satisfy
+	 * @return the requests of the cheapest chain, or {@code null} if the
+	 *         request is denied
+	 * @throws IllegalArgumentException if the cost of a request is negative
+	 */
+	List<Request> search(Request request) {
+		frontier.add(new PartialChain(null, push(new Goal(request, null), null), 0, new int[0]));
+		while (!frontier.isEmpty()) {
+			var partialChain = frontier.poll();
+			if (partialChain.goals() == null) {
+				return toList(partialChain.requests());
+			}
+			if (hasKnownUnsatisfiable(partialChain.goals())) {
+				continue;
+			}
+			var goals = partialChain.goals();
+			var alternatives = derivations.alternatives(goals.goal());
+			var expanded = false;
+			for (int position = 0; alternatives.hasNext(); position++) {
+				var alternative = alternatives.next();
+				if (alternative.goals().stream().anyMatch(derivations::isKnownUnsatisfiable)) {
+					continue;
+				}
+				expanded = true;
+				var requests = partialChain.requests();
+				var cost = partialChain.cost();
+				for (var chosen : alternative.requests()) {
+					requests = new Requests(chosen, requests);
+					cost += cost(chosen);
+				}
+				var remaining = goals.next();
+				for (int i = alternative.goals().size() - 1; i >= 0; i--) {
+					remaining = push(alternative.goals().get(i), remaining);
+				}
+				var choices = Arrays.copyOf(partialChain.choices(), partialChain.choices().length + 1);
+				choices[choices.length - 1] = position;
+				frontier.add(new PartialChain(requests, remaining, cost, choices));
+			}
+			if (!expanded) {
+				derivations.unsatisfiable(goals.goal());
+			}
+		}
+		return null;
+	}
+
+	private boolean hasKnownUnsatisfiable(Goals goals) {
+		for (var node = goals; node != null; node = node.next()) {
+			if (derivations.isKnownUnsatisfiable(node.goal())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Goals push(Goal goal, Goals goals) {
+		// only a goal from a party index surely adds its request
+		var bound = goal.request().from().getIndex() > 0 ? cost(goal.request()) : 0;
+		return new Goals(goal, goals, goals == null ? bound : bound + goals.bound());
+	}
+
+	private double cost(Request request) {
+		var cost = requestCost.cost(request);
+		if (!(cost >= 0)) {
+			throw new IllegalArgumentException("cost must not be negative: " + cost + " for " + request);
+		}
+		return cost;
+	}
+
+	private static List<Request> toList(Requests requests) {
+		var list = new ArrayList<Request>();
+		for (var node = requests; node != null; node = node.previous()) {
+			list.add(node.request());
+		}
+		return list.reversed();
+	}
+}
@@ -0,0 +1,83 @@
+package bart.core.semantics;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import bart.core.AttributeMatcher;
+import bart.core.Attributes;
+import bart.core.ContextSnapshot;
+import bart.core.ReadSet;
+
+/**
+ * What the result of an evaluation depends on, recorded by
+ * {@link Semantics#evaluate(bart.core.Request, Dependencies)}: the parties whose rules
+ * have been evaluated, the {@link ReadSet} of the conditions, and the
+ * attributes used to select parties.
+ * <p>
+ * The result can change only if a context attribute that has been looked up
+ * changes, if the policy of an evaluated party, or of a party whose party
+ * attributes have been looked up, changes, or if a party that matches one of
+ * the selectors, before or after the change, changes.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class Dependencies {
+
+	private final BitSet evaluatedParties = new BitSet();
+	private ReadSet readSet = ReadSet.EMPTY;
+	private final List<Attributes> selectors = new ArrayList<>();
+
+	void evaluated(int partyIndex) {
+		evaluatedParties.set(partyIndex);
+	}
+
+	void selected(Attributes selector) {
+		selectors.add(selector);
+	}
+
+	/**
+	 * @param readSet the reads of the conditions
+	 * @param snapshot the snapshot the conditions read through, or
+	 *        {@code null} if no condition has been evaluated
+	 */
+	void read(ReadSet readSet, ContextSnapshot snapshot) {
+		this.readSet = readSet;
+		if (snapshot != null) {
+			selectors.addAll(snapshot.resolvedSelectors());
+		}
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of a party
+	 * @param name the changed attribute, or {@code null} if all the context
+	 *        attributes of the party changed
+	 * @return whether the result may change when the context attribute of
+	 *         the party changes
+	 */
+	boolean dependsOnContextOf(int partyIndex, String name) {
+		return name == null ? readSet.dependsOnContext(partyIndex) : readSet.dependsOnContext(partyIndex, name);
+	}
+
+	/**
+	 * @param partyIndex the 1-based index of a party
+	 * @param before the party attributes before the change, or {@code null}
+	 *        if the party has been added
+	 * @param after the party attributes after the change
+	 * @param matcher the matcher used to select parties
+	 * @return whether the result may change when the policy of the party
+	 *         changes
+	 */
+	boolean dependsOnPolicyOf(int partyIndex, Attributes before, Attributes after, AttributeMatcher matcher) {
+		if (evaluatedParties.get(partyIndex) || readSet.dependsOnParty(partyIndex)) {
+			return true;
+		}
+		for (var selector : selectors) {
+			if ((before != null && matcher.match(selector, before)) || matcher.match(selector, after)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,438 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import bart.core.AndExchange;
+import bart.core.AttributeMatcher;
+import bart.core.Attributes;
+import bart.core.ContextSnapshot;
+import bart.core.Exchange;
+import bart.core.ExpressionCode;
+import bart.core.NameResolverImplementation;
+import bart.core.OrExchange;
+import bart.core.Policies;
+import bart.core.Request;
+import bart.core.RequestComply;
+import bart.core.SingleExchange;
+
+/**
+ * The ways of satisfying requests according to the rules of {@link Semantics},
+ * expanded lazily: a {@link Goal} (a request to satisfy) has
+ * {@link #alternatives(Goal) alternatives}, each made of the requests it
+ * adds to the exchange chain and of the goals that must be satisfied as well.
+ * <p>
+ * Rules, parties and exchange branches are tried in the same order as
+ * {@link Semantics}; a generated request complying with a request along its
+ * {@link Path} is satisfied without further goals. Since every generated goal
+ * extends its path with a new request, the alternatives form a finite tree.
+ * </p>
+ * <p>
+ * Whether a goal {@link #isSatisfiable(Goal) can be satisfied}, and the
+ * outcome of each rule condition, are memoized for the lifetime of the
+ * derivations, so that the conjunctions of goals fail
+ * as soon as one of them is known to fail, instead of backtracking over all
+ * the ways of satisfying the others.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class Derivations {
+
+	/**
+	 * The requests whose exchanges are being satisfied, from the innermost
+	 * one; {@code null} is the empty path.
+	 */
+	record Path(Request request, Path parent) {
+	}
+
+	/**
+	 * A request to satisfy, with the requests whose exchanges generated it.
+	 */
+	record Goal(Request request, Path path) {
+	}
+
+	/**
+	 * A way of satisfying a goal: it adds the given requests to the exchange
+	 * chain, provided all the given goals are satisfied.
+	 */
+	record Alternative(List<Request> requests, List<Goal> goals) {
+
+		static final Alternative SATISFIED = new Alternative(List.of(), List.of());
+
+		Alternative and(Alternative other) {
+			return new Alternative(concat(requests, other.requests), concat(goals, other.goals));
+		}
+
+		private static <T> List<T> concat(List<T> first, List<T> second) {
+			if (first.isEmpty()) {
+				return second;
+			}
+			if (second.isEmpty()) {
+				return first;
+			}
+			var all = new ArrayList<T>(first.size() + second.size());
+			all.addAll(first);
+			all.addAll(second);
+			return all;
+		}
+	}
+
+	private final Policies policies;
+	private final AttributeMatcher matcher;
+	private final RequestComply requestComply;
+	private final ContextSnapshot snapshot;
+	private final Dependencies dependencies;
+	private final Map<Goal, Boolean> satisfiable = new HashMap<>();
+	private final Map<Condition, Boolean> conditions = new HashMap<>();
+
+	/**
+	 * The condition of a rule of the policy the request is from.
+	 */
+	private record Condition(int ruleIndex, Request request) {
+	}
+
+	/**
+	 * @param policies the policies, which must not change while expanding
+	 * @param matcher the matcher of resources and parties
+	 * @param requestComply whether a generated request is satisfied by one
+	 *        along its path
+	 * @param snapshot the snapshot all the conditions read through
+	 * @param dependencies where to record the expanded parties and the
+	 *        selectors, if not {@code null}
+	 */
+	Derivations(Policies policies, AttributeMatcher matcher, RequestComply requestComply,
+			ContextSnapshot snapshot, Dependencies dependencies) {
+		this.policies = policies;
+		this.matcher = matcher;
+		this.requestComply = requestComply;
+		this.snapshot = snapshot;
+		this.dependencies = dependencies;
+	}
+
+	/**
+	 * @param goal the goal
+	 * @return the alternatives of the goal, computed on demand
+	 */
+	Iterator<Alternative> alternatives(Goal goal) {
+		var request = goal.request();
+		var from = request.from();
+		if (from.getIndex() > 0) {
+			return ruleAlternatives(from.getIndex(), goal);
+		}
+		var candidates = matchingParties(from.getAttributes(), request.requester().getIndex());
+		if (candidates.length == 0) {
+			return Collections.emptyIterator();
+		}
+		if (from.isAll()) {
+			var goals = new ArrayList<Goal>(candidates.length);
+			for (var candidate : candidates) {
+				goals.add(new Goal(request.withFrom(candidate), goal.path()));
+			}
+			return List.of(new Alternative(List.of(), goals)).iterator();
+		}
+		return map(candidates.length, i -> new Alternative(List.of(),
+			List.of(new Goal(request.withFrom(candidates[i]), goal.path()))));
+	}
+
+	/**
+	 * @param goal the goal
+	 * @return whether the goal has at least one exchange chain, computed once
+	 *         per goal
+	 */
+	boolean isSatisfiable(Goal goal) {
+		var known = satisfiable.get(goal);
+		if (known != null) {
+			return known;
+		}
+		var result = false;
+		for (var alternatives = alternatives(goal); !result && alternatives.hasNext();) {
+			result = isSatisfiable(alternatives.next());
+		}
+		satisfiable.put(goal, result);
+		return result;
+	}
+
+	/**
+	 * @param alternative the alternative
+	 * @return whether all the goals of the alternative can be satisfied
+	 */
+	boolean isSatisfiable(Alternative alternative) {
+		for (var goal : alternative.goals()) {
+			if (!isSatisfiable(goal)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param goal the goal
+	 * @return {@code true} if the goal has already been found to have no
+	 *         exchange chain, without expanding it
+	 */
+	boolean isKnownUnsatisfiable(Goal goal) {
+		return Boolean.FALSE.equals(satisfiable.get(goal));
+	}
+
+	/**
+	 * Records that the goal has no exchange chain, for instance because it
+	 * has no alternative.
+	 *
+	 * @param goal the goal
+	 */
+	void unsatisfiable(Goal goal) {
+		satisfiable.put(goal, false);
+	}
+
+	/**
+	 * @param goal the goal
+	 * @return the exchange chains satisfying the goal, computed on demand by
+	 *         backtracking, in the order {@link Semantics} tries them; the
+	 *         same chain may be returned more than once
+	 */
+	Iterator<List<Request>> chains(Goal goal) {
+		return flatMap(alternatives(goal), alternative -> chains(alternative, 0));
+	}
+
+	private Iterator<List<Request>> chains(Alternative alternative, int first) {
+		if (first == 0 && !isSatisfiable(alternative)) {
+			// don't backtrack over the chains of the first goals when one of
+			// the next ones has none
+			return Collections.emptyIterator();
+		}
+		if (first == alternative.goals().size()) {
+			return List.of(alternative.requests()).iterator();
+		}
+		// the chains of the remaining goals are computed again for each
+		// chain of the first one, so that nothing is kept but the current ones
+		return flatMap(chains(alternative.goals().get(first)),
+			chain -> chains(new Alternative(Alternative.concat(alternative.requests(), chain),
+				alternative.goals()), first + 1));
+	}
+
+	private Iterator<Alternative> ruleAlternatives(int policyIndex, Goal goal) {
+		var request = goal.request();
+		if (dependencies != null) {
+			dependencies.evaluated(policyIndex);
+		}
+		// resolved once, instead of looking the policy up for each rule
+		var frozenRules = policies.frozenRules(policyIndex);
+		var rules = frozenRules != null ? frozenRules.rules() : policies.getByIndex(policyIndex).rules();
+		var path = new Path(request, goal.path());
+		var requests = List.of(request);
+		return flatMap(map(rules.size(), i -> i + 1), ruleIndex -> {
+			var rule = rules.getByIndex(ruleIndex);
+			if (!matcher.match(request.resource(), rule.getResource())
+					|| !(rule.hasTrueCondition() || holds(ruleIndex,
+						frozenRules != null ? frozenRules.conditionOf(ruleIndex) : rule.getCondition(), request))) {
+				return Collections.emptyIterator();
+			}
+			return map(exchangeAlternatives(policyIndex, rule.getExchange(), request, path),
+				alternative -> new Alternative(requests, List.of()).and(alternative));
+		});
+	}
+
+	/**
+	 * Conditions are evaluated once per request, since they all read through
+	 * the same snapshot.
+	 */
+	private boolean holds(int ruleIndex, ExpressionCode condition, Request request) {
+		return conditions.computeIfAbsent(new Condition(ruleIndex, request),
+			key -> evaluate(condition, request));
+	}
+
+	private boolean evaluate(ExpressionCode condition, Request request) {
+		try {
+			return condition.evaluate(new NameResolverImplementation(request, snapshot));
+		} catch (Exception e) {
+			// as in Semantics, a failing condition denies
+			return false;
+		}
+	}
+
+	private Iterator<Alternative> exchangeAlternatives(int policyIndex, Exchange exchange, Request request,
+			Path path) {
+		return switch (exchange) {
+		case OrExchange(var left, var right) -> flatMap(List.of(left, right).iterator(),
+			branch -> exchangeAlternatives(policyIndex, branch, request, path));
+		case AndExchange(var left, var right) -> flatMap(exchangeAlternatives(policyIndex, left, request, path),
+			leftAlternative -> map(exchangeAlternatives(policyIndex, right, request, path), leftAlternative::and));
+		case SingleExchange single -> exchangeAlternatives(policyIndex, single, request, path);
+		case null -> List.of(Alternative.SATISFIED).iterator();
+		};
+	}
+
+	private Iterator<Alternative> exchangeAlternatives(int policyIndex, SingleExchange exchange, Request request,
+			Path path) {
+		var fromIndexes = exchange.from().isRequester() ? new int[] { request.requester().getIndex() }
+			: matchingParties(exchange.from().getAttributes(), 0);
+		var toIndexes = exchange.to().isMe() ? new int[] { policyIndex }
+			: matchingParties(exchange.to().getAttributes(), 0);
+		if (toIndexes.length == 0) {
+			// there's no one to satisfy
+			return List.of(Alternative.SATISFIED).iterator();
+		}
+		// for each from index, the alternatives for the to indexes
+		var perFrom = new ArrayList<List<Alternative>>(fromIndexes.length);
+		var atLeastOneRequest = false;
+		for (var fromIndex : fromIndexes) {
+			var alternatives = new ArrayList<Alternative>();
+			var all = Alternative.SATISFIED;
+			for (var toIndex : toIndexes) {
+				if (toIndex != fromIndex) {
+					atLeastOneRequest = true;
+					var alternative = exchangeRequest(exchange, toIndex, fromIndex, path);
+					if (exchange.to().isAll()) {
+						all = all.and(alternative);
+					} else {
+						alternatives.add(alternative);
+					}
+				}
+			}
+			if (exchange.to().isAll()) {
+				alternatives.add(all);
+			}
+			perFrom.add(alternatives);
+		}
+		if (!exchange.from().isAll()) {
+			return flatMap(perFrom.iterator(), List::iterator);
+		}
+		if (!atLeastOneRequest) {
+			return Collections.emptyIterator();
+		}
+		// a from party without satisfiable alternatives makes every
+		// conjunction fail
+		for (var alternatives : perFrom) {
+			alternatives.removeIf(alternative -> !isSatisfiable(alternative));
+			if (alternatives.isEmpty()) {
+				return Collections.emptyIterator();
+			}
+		}
+		return product(perFrom);
+	}
+
+	private Alternative exchangeRequest(SingleExchange exchange, int toIndex, int fromIndex, Path path) {
+		var exchangeRequest = new Request(index(toIndex), exchange.resource(), index(fromIndex));
+		for (var existing = path; existing != null; existing = existing.parent()) {
+			if (requestComply.test(exchangeRequest, existing.request())) {
+				return Alternative.SATISFIED;
+			}
+		}
+		return new Alternative(List.of(), List.of(new Goal(exchangeRequest, path)));
+	}
+
+	private int[] matchingParties(Attributes attributes, int excludedIndex) {
+		if (dependencies != null) {
+			dependencies.selected(attributes);
+		}
+		var size = policies.size();
+		var matching = new int[size];
+		var count = 0;
+		for (int i = 1; i <= size; i++) {
+			if (i != excludedIndex && !policies.isRemoved(i) && matcher.match(attributes, policies.party(i))) {
+				matching[count++] = i;
+			}
+		}
+		return Arrays.copyOf(matching, count);
+	}
+
+	/**
+	 * @return the conjunctions of one alternative from each list, in
+	 *         lexicographic order
+	 */
+	private static Iterator<Alternative> product(List<List<Alternative>> lists) {
+		return new Iterator<>() {
+			private final int[] positions = new int[lists.size()];
+			private boolean hasNext = lists.stream().noneMatch(List::isEmpty);
+
+			@Override
+			public boolean hasNext() {
+				return hasNext;
+			}
+
+			@Override
+			public Alternative next() {
+				if (!hasNext) {
+					throw new NoSuchElementException();
+				}
+				var alternative = Alternative.SATISFIED;
+				for (int i = 0; i < positions.length; i++) {
+					alternative = alternative.and(lists.get(i).get(positions[i]));
+				}
+				// advance the last position, carrying over
+				var i = positions.length - 1;
+				while (i >= 0 && ++positions[i] == lists.get(i).size()) {
+					positions[i--] = 0;
+				}
+				hasNext = i >= 0;
+				return alternative;
+			}
+		};
+	}
+
+	private static <T> Iterator<T> map(int size, IntFunction<T> element) {
+		return new Iterator<>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public T next() {
+				if (next == size) {
+					throw new NoSuchElementException();
+				}
+				return element.apply(next++);
+			}
+		};
+	}
+
+	private static <T, R> Iterator<R> map(Iterator<T> iterator, Function<T, R> mapper) {
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public R next() {
+				return mapper.apply(iterator.next());
+			}
+		};
+	}
+
+	private static <T, R> Iterator<R> flatMap(Iterator<T> iterator, Function<T, Iterator<R>> mapper) {
+		return new Iterator<>() {
+			private Iterator<R> current = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && iterator.hasNext()) {
+					current = mapper.apply(iterator.next());
+				}
+				return current.hasNext();
+			}
+
+			@Override
+			public R next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return current.next();
+			}
+		};
+	}
+}
@@ -0,0 +1,162 @@
+package bart.core.semantics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import bart.core.Attributes;
+import bart.core.ContextHandler;
+import bart.core.ContextSnapshot;
+import bart.core.Policies;
+import bart.core.Request;
+
+/**
+ * Per-thread scratch structures reused across evaluations, so that the steady
+ * state of {@link Semantics} does not allocate index lists, request sets and
+ * request buffers over and over.
+ * <p>
+ * Party indexes are pushed on a LIFO arena: a caller takes a {@link #mark()},
+ * pushes the indexes it computes, reads them back by position and finally
+ * {@link #release(int) releases} them; nested (recursive) computations push
+ * and release their own indexes on top of the caller's ones.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+final class EvaluationScratch {
+
+	/**
+	 * The requests collected along the current evaluation path.
+	 */
+	final Set<Request> requests = new LinkedHashSet<>();
+
+	/**
+	 * The policies pinned by the current top-level evaluation.
+	 */
+	Policies policies;
+
+	/**
+	 * Records what the current top-level evaluation depends on, if not
+	 * {@code null}.
+	 */
+	Dependencies dependencies;
+
+	/**
+	 * Whether the current top-level evaluation records the reads of the
+	 * conditions.
+	 */
+	boolean recordingReads;
+
+	/**
+	 * The parties matching the attributes of the quantified participants,
+	 * shared by the requests of a batch, or {@code null} outside batches.
+	 */
+	Map<Attributes, int[]> selections;
+
+	/**
+	 * The depth of the request being evaluated, see {@link SearchSpace}.
+	 */
+	int depth;
+
+	/**
+	 * The maximum depth of the requests to evaluate in the current
+	 * depth-first search.
+	 */
+	int maxDepth = Integer.MAX_VALUE;
+
+	/**
+	 * Whether a request has been denied, or an alternative discarded,
+	 * because of the maximum depth.
+	 */
+	boolean cutOff;
+
+	private ContextSnapshot contextSnapshot;
+	private int[] indexes = new int[32];
+	private int top = 0;
+	private final Deque<ArrayList<Request>> requestBuffers = new ArrayDeque<>();
+	private boolean inUse = false;
+
+	/**
+	 * Marks this scratch as used by a top-level evaluation.
+	 *
+	 * @return {@code false} if it is already in use (re-entrant evaluation on the
+	 *         same thread), in which case the caller must use a fresh instance
+	 */
+	boolean acquire() {
+		if (inUse) {
+			return false;
+		}
+		inUse = true;
+		return true;
+	}
+
+	void releaseAll() {
+		requests.clear();
+		if (contextSnapshot != null) {
+			contextSnapshot.clear();
+		}
+		top = 0;
+		policies = null;
+		dependencies = null;
+		recordingReads = false;
+		selections = null;
+		depth = 0;
+		maxDepth = Integer.MAX_VALUE;
+		cutOff = false;
+		inUse = false;
+	}
+
+	/**
+	 * Returns the snapshot of context and party attributes shared by all the
+	 * conditions of the current top-level evaluation; it is cleared by
+	 * {@link #releaseAll()} and reused by the next evaluation over the same
+	 * context handler and policies.
+	 */
+	ContextSnapshot contextSnapshot(ContextHandler contextHandler, Policies policies) {
+		if (contextSnapshot == null || !contextSnapshot.isOver(contextHandler, policies)) {
+			contextSnapshot = new ContextSnapshot(contextHandler, policies);
+		}
+		return contextSnapshot;
+	}
+
+	/**
+	 * @return the snapshot used by the current top-level evaluation, if any
+	 *         condition has been evaluated, or a cleared one
+	 */
+	ContextSnapshot usedContextSnapshot() {
+		return contextSnapshot;
+	}
+
+	int mark() {
+		return top;
+	}
+
+	void push(int index) {
+		if (top == indexes.length) {
+			indexes = Arrays.copyOf(indexes, top * 2);
+		}
+		indexes[top++] = index;
+	}
+
+	int get(int position) {
+		return indexes[position];
+	}
+
+	void release(int mark) {
+		top = mark;
+	}
+
+	ArrayList<Request> borrowRequestBuffer() {
+		var buffer = requestBuffers.poll();
+		return buffer != null ? buffer : new ArrayList<>();
+	}
+
+	void returnRequestBuffer(ArrayList<Request> buffer) {
+		buffer.clear();
+		requestBuffers.push(buffer);
+	}
+}
@@ -0,0 +1,535 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import bart.core.AndExchange;
+import bart.core.AttributeMatcher;
+import bart.core.Attributes;
+import bart.core.ContextHandler;
+import bart.core.ContextSnapshot;
+import bart.core.Exchange;
+import bart.core.NameResolverImplementation;
+import bart.core.OrExchange;
+import bart.core.Policies;
+import bart.core.Request;
+import bart.core.SingleExchange;
+
+/**
+ * Computes, bottom-up, which requester can obtain which resource from which
+ * party, for all the parties of some {@link Policies}, see
+ * {@link #accessMatrix()}.
+ * <p>
+ * The top-down {@link Semantics} considers an exchange request satisfied when
+ * it complies with a request being evaluated along the current derivation,
+ * so that cyclic exchanges succeed: the permitted requests are the greatest
+ * fixpoint of the rules. This engine computes it starting from all the
+ * (requester, resource, provider) triples allowed by the resource and the
+ * condition of some rule of the provider, and removes, round after round,
+ * the triples none of whose rules has its exchange satisfied by the
+ * remaining ones, until nothing changes. In each round only the triples whose
+ * exchanges may request one of the triples removed in the previous round are
+ * checked again (the semi-naive evaluation): an index from each resource to
+ * the rules whose exchanges mention it selects them, restricted to the
+ * removed requester or provider when the exchange only involves the
+ * requester or the provider. The parties can be checked in
+ * {@link #parallelism(int) parallel}.
+ * </p>
+ * <p>
+ * The triples are stored, for each resource, as a set of providers for each
+ * requester, allocated only when the requester has permitted triples: the
+ * memory is proportional to the number of parties for each resource with
+ * permitted triples, plus one bit for each party up to the highest permitted
+ * provider of each such requester, which is one bit per triple when all the
+ * triples are permitted.
+ * </p>
+ * <p>
+ * The resources are those of the rules and of their exchanges, and the
+ * {@link #resource(Attributes) additional} ones. The conditions are evaluated
+ * once per triple, against the given {@link ContextHandler}; since each
+ * thread reads through its own {@link ContextSnapshot}, lazy context
+ * attributes should not depend on when they are read. A generated request is
+ * satisfied only by the triple with the same resource, while
+ * {@link Semantics} with the {@link bart.core.DefaultRequestComply default}
+ * compliance also accepts a request whose resource matches the one of a
+ * request along the derivation: the results are the same when no resource of
+ * an exchange matches a different resource of the policies.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var matrix = new FixpointSemantics(policies)
+ *     .contextHandler(contextHandler)
+ *     .parallelism(4)
+ *     .accessMatrix();
+ * matrix.isPermitted(1, new Attributes().add("type", "addrInfo"), 3);
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class FixpointSemantics {
+
+	private final Policies policies;
+	private final AttributeMatcher matcher = new AttributeMatcher();
+	private final List<Attributes> additionalResources = new ArrayList<>();
+	private ContextHandler contextHandler = new ContextHandler();
+	private int parallelism = 1;
+
+	/**
+	 * @param policies the policies of the parties
+	 */
+	public FixpointSemantics(Policies policies) {
+		this.policies = policies;
+	}
+
+	/**
+	 * @param contextHandler the context handler the conditions are evaluated
+	 *        against
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public FixpointSemantics contextHandler(ContextHandler contextHandler) {
+		this.contextHandler = contextHandler;
+		return this;
+	}
+
+	/**
+	 * Adds a resource to the matrix, besides the ones of the rules and of
+	 * their exchanges.
+	 *
+	 * @param resource the resource
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public FixpointSemantics resource(Attributes resource) {
+		additionalResources.add(resource);
+		return this;
+	}
+
+	/**
+	 * @param parallelism the number of threads checking the parties
+	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalArgumentException if {@code parallelism} is less than 1
+	 */
+	public FixpointSemantics parallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Computes the access matrix of the current policies.
+	 *
+	 * @return the access matrix
+	 */
+	public AccessMatrix accessMatrix() {
+		return new Computation().run();
+	}
+
+	/**
+	 * The state of a single computation of the fixpoint.
+	 */
+	private final class Computation {
+
+		/**
+		 * A rule whose exchange mentions a resource, see {@link #dependents}.
+		 *
+		 * @param provider the party of the rule
+		 * @param rule the 1-based index of the rule
+		 * @param fromRequester whether the resource is only requested from the
+		 *        requester, so that removing the triple of a provider only
+		 *        affects the triples that party requests
+		 * @param toMe whether the resource is only requested for the provider,
+		 *        so that removing the triple of a requester only affects the
+		 *        rule when that party is its provider
+		 */
+		private record Dependent(int provider, int rule, boolean fromRequester, boolean toMe) {
+		}
+
+		/**
+		 * The triples allowed by the resource and the condition of a rule: for
+		 * each resource id, in increasing order, the set of requesters.
+		 */
+		private record Allowed(int[] resources, BitSet[] requesters) {
+
+			BitSet requesters(int resource) {
+				var i = Arrays.binarySearch(resources, resource);
+				return i < 0 ? null : requesters[i];
+			}
+		}
+
+		/**
+		 * A set of (requester, resource, provider) triples: for each resource
+		 * id and requester, the set of providers, allocated on demand.
+		 */
+		private final class Triples {
+
+			private final BitSet[][] providers = new BitSet[resourceIds.size()][];
+			/**
+			 * The (resource, requester) pairs with a set of providers, so that
+			 * the triples are iterated without scanning all the pairs.
+			 */
+			private final List<int[]> pairs = new ArrayList<>();
+
+			void add(int resource, int requester, int provider) {
+				var byRequester = providers[resource];
+				if (byRequester == null) {
+					byRequester = new BitSet[parties + 1];
+					providers[resource] = byRequester;
+				}
+				if (byRequester[requester] == null) {
+					byRequester[requester] = new BitSet();
+					pairs.add(new int[] { resource, requester });
+				}
+				byRequester[requester].set(provider);
+			}
+
+			boolean contains(int resource, int requester, int provider) {
+				var byRequester = providers[resource];
+				return byRequester != null && byRequester[requester] != null
+					&& byRequester[requester].get(provider);
+			}
+
+			void remove(int resource, int requester, int provider) {
+				providers[resource][requester].clear(provider);
+			}
+		}
+
+		private final int parties = policies.size();
+		private final Map<Attributes, Integer> resourceIds = new LinkedHashMap<>();
+		private final Map<Attributes, int[]> selections = new HashMap<>();
+		/**
+		 * For each resource id, the rules whose exchange mentions it.
+		 */
+		private final List<List<Dependent>> dependents = new ArrayList<>();
+		/**
+		 * For each party and rule (1-based), the triples it allows.
+		 */
+		private final Allowed[][] allowed = new Allowed[parties + 1][];
+		private Triples permitted;
+		/**
+		 * The threads checking the parties, created on first use.
+		 */
+		private ExecutorService pool;
+
+		AccessMatrix run() {
+			try {
+				return compute();
+			} finally {
+				if (pool != null) {
+					pool.shutdown();
+				}
+			}
+		}
+
+		private AccessMatrix compute() {
+			collectResourcesAndSelections();
+			forProviders(this::allow);
+			permitted = new Triples();
+			var toCheck = new Triples();
+			for (int provider = 1; provider <= parties; provider++) {
+				for (int rule = 1; rule < allowed[provider].length; rule++) {
+					var hasExchange = exchangeOf(provider, rule) != null;
+					var ruleTriples = allowed[provider][rule];
+					for (int i = 0; i < ruleTriples.resources().length; i++) {
+						var resource = ruleTriples.resources()[i];
+						var requesters = ruleTriples.requesters()[i];
+						for (int requester = requesters.nextSetBit(0); requester >= 0;
+								requester = requesters.nextSetBit(requester + 1)) {
+							permitted.add(resource, requester, provider);
+							if (hasExchange) {
+								toCheck.add(resource, requester, provider);
+							}
+						}
+					}
+				}
+			}
+			while (!toCheck.pairs.isEmpty()) {
+				toCheck = dependentsOf(removeUnsatisfied(toCheck));
+			}
+			return new AccessMatrix(policies, matcher, List.copyOf(resourceIds.keySet()),
+				Map.copyOf(resourceIds), permitted.providers);
+		}
+
+		private void collectResourcesAndSelections() {
+			for (int provider = 1; provider <= parties; provider++) {
+				if (policies.isRemoved(provider)) {
+					allowed[provider] = new Allowed[1];
+					continue;
+				}
+				var rules = policies.getByIndex(provider).rules();
+				allowed[provider] = new Allowed[rules.size() + 1];
+				for (int rule = 1; rule <= rules.size(); rule++) {
+					resourceId(rules.getByIndex(rule).getResource());
+					var mentioned = new LinkedHashMap<Integer, boolean[]>();
+					collect(rules.getByIndex(rule).getExchange(), mentioned);
+					for (var entry : mentioned.entrySet()) {
+						dependents.get(entry.getKey()).add(
+							new Dependent(provider, rule, entry.getValue()[0], entry.getValue()[1]));
+					}
+				}
+			}
+			additionalResources.forEach(this::resourceId);
+		}
+
+		/**
+		 * Collects the resources mentioned by the exchange, each with whether
+		 * it is only requested from the requester and only for the provider.
+		 */
+		private void collect(Exchange exchange, Map<Integer, boolean[]> mentioned) {
+			switch (exchange) {
+			case OrExchange(var left, var right) -> {
+				collect(left, mentioned);
+				collect(right, mentioned);
+			}
+			case AndExchange(var left, var right) -> {
+				collect(left, mentioned);
+				collect(right, mentioned);
+			}
+			case SingleExchange single -> {
+				var kinds = mentioned.computeIfAbsent(resourceId(single.resource()), r -> new boolean[] { true, true });
+				kinds[0] &= single.from().isRequester();
+				kinds[1] &= single.to().isMe();
+				if (!single.from().isRequester()) {
+					select(single.from().getAttributes());
+				}
+				if (!single.to().isMe()) {
+					select(single.to().getAttributes());
+				}
+			}
+			case null -> {
+				// no exchange
+			}
+			}
+		}
+
+		private int resourceId(Attributes resource) {
+			return resourceIds.computeIfAbsent(resource, r -> {
+				dependents.add(new ArrayList<>());
+				return resourceIds.size();
+			});
+		}
+
+		private void select(Attributes attributes) {
+			selections.computeIfAbsent(attributes, a -> {
+				var matching = new ArrayList<Integer>();
+				for (int i = 1; i <= parties; i++) {
+					if (!policies.isRemoved(i) && matcher.match(a, policies.party(i))) {
+						matching.add(i);
+					}
+				}
+				return matching.stream().mapToInt(Integer::intValue).toArray();
+			});
+		}
+
+		private Exchange exchangeOf(int provider, int rule) {
+			return policies.getByIndex(provider).rules().getByIndex(rule).getExchange();
+		}
+
+		/**
+		 * Computes the triples allowed by the resource and the condition of
+		 * each rule of the given providers.
+		 */
+		private void allow(int from, int to) {
+			var snapshot = new ContextSnapshot(contextHandler, policies);
+			var resources = List.copyOf(resourceIds.keySet());
+			for (int provider = from; provider < to; provider++) {
+				for (int rule = 1; rule < allowed[provider].length; rule++) {
+					allowed[provider][rule] = allowed(provider, rule, resources, snapshot);
+				}
+			}
+		}
+
+		private Allowed allowed(int provider, int rule, List<Attributes> resources, ContextSnapshot snapshot) {
+			var ids = new int[resources.size()];
+			var requesters = new BitSet[resources.size()];
+			var count = 0;
+			var theRule = policies.getByIndex(provider).rules().getByIndex(rule);
+			for (int r = 0; r < resources.size(); r++) {
+				var resource = resources.get(r);
+				if (!matcher.match(resource, theRule.getResource())) {
+					continue;
+				}
+				var bits = new BitSet();
+				for (int requester = 1; requester <= parties; requester++) {
+					if (requester != provider && (theRule.hasTrueCondition()
+							|| holds(provider, rule, new Request(index(requester), resource, index(provider)), snapshot))) {
+						bits.set(requester);
+					}
+				}
+				if (!bits.isEmpty()) {
+					ids[count] = r;
+					requesters[count++] = bits;
+				}
+			}
+			return new Allowed(Arrays.copyOf(ids, count), Arrays.copyOf(requesters, count));
+		}
+
+		private boolean holds(int provider, int rule, Request request, ContextSnapshot snapshot) {
+			try {
+				return policies.conditionOf(provider, rule).evaluate(new NameResolverImplementation(request, snapshot));
+			} catch (Exception e) {
+				// as in Semantics, a failing condition denies
+				return false;
+			}
+		}
+
+		/**
+		 * Removes the triples to check that are no longer satisfied.
+		 *
+		 * @return the removed triples, as (resource, requester, provider)
+		 */
+		private List<int[]> removeUnsatisfied(Triples toCheck) {
+			var removed = new ArrayList<int[]>();
+			forProviders((from, to) -> {
+				var unsatisfied = new ArrayList<int[]>();
+				for (var pair : toCheck.pairs) {
+					var resource = pair[0];
+					var requester = pair[1];
+					var providers = toCheck.providers[resource][requester];
+					for (int provider = providers.nextSetBit(from); provider >= 0 && provider < to;
+							provider = providers.nextSetBit(provider + 1)) {
+						if (!isSatisfied(provider, requester, resource)) {
+							unsatisfied.add(new int[] { resource, requester, provider });
+						}
+					}
+				}
+				synchronized (removed) {
+					removed.addAll(unsatisfied);
+				}
+			});
+			for (var triple : removed) {
+				permitted.remove(triple[0], triple[1], triple[2]);
+			}
+			return removed;
+		}
+
+		/**
+		 * @return the permitted triples whose exchanges may have been satisfied
+		 *         by the given removed triples (the semi-naive evaluation)
+		 */
+		private Triples dependentsOf(List<int[]> removed) {
+			var toCheck = new Triples();
+			var wholeRules = new HashSet<Dependent>();
+			for (var triple : removed) {
+				// the request of the resource from the provider by the requester
+				var requester = triple[1];
+				var provider = triple[2];
+				for (var dependent : dependents.get(triple[0])) {
+					if (dependent.toMe() && dependent.provider() != requester) {
+						continue;
+					}
+					if (dependent.fromRequester()) {
+						schedule(dependent, provider, toCheck);
+					} else if (wholeRules.add(dependent)) {
+						schedule(dependent, 0, toCheck);
+					}
+				}
+			}
+			return toCheck;
+		}
+
+		/**
+		 * Adds the permitted triples allowed by the rule of the dependent to
+		 * the ones to check, only those of the given requester, if positive.
+		 */
+		private void schedule(Dependent dependent, int onlyRequester, Triples toCheck) {
+			var provider = dependent.provider();
+			var ruleTriples = allowed[provider][dependent.rule()];
+			for (int i = 0; i < ruleTriples.resources().length; i++) {
+				var resource = ruleTriples.resources()[i];
+				var requesters = ruleTriples.requesters()[i];
+				var requester = onlyRequester > 0 ? onlyRequester : requesters.nextSetBit(0);
+				while (requester >= 0) {
+					if (requesters.get(requester) && permitted.contains(resource, requester, provider)) {
+						toCheck.add(resource, requester, provider);
+					}
+					requester = onlyRequester > 0 ? -1 : requesters.nextSetBit(requester + 1);
+				}
+			}
+		}
+
+		private boolean isSatisfied(int provider, int requester, int resource) {
+			var rules = allowed[provider];
+			for (int rule = 1; rule < rules.length; rule++) {
+				var requesters = rules[rule].requesters(resource);
+				if (requesters != null && requesters.get(requester)
+						&& isSatisfied(exchangeOf(provider, rule), requester, provider)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Same as the exchange evaluation of {@link Semantics}, where a
+		 * generated request is satisfied if its triple is still permitted.
+		 */
+		private boolean isSatisfied(Exchange exchange, int requester, int provider) {
+			return switch (exchange) {
+			case OrExchange(var left, var right) ->
+				isSatisfied(left, requester, provider) || isSatisfied(right, requester, provider);
+			case AndExchange(var left, var right) ->
+				isSatisfied(left, requester, provider) && isSatisfied(right, requester, provider);
+			case SingleExchange single -> isSatisfied(single, requester, provider);
+			case null -> true;
+			};
+		}
+
+		private boolean isSatisfied(SingleExchange exchange, int requester, int provider) {
+			var fromIndexes = exchange.from().isRequester() ? new int[] { requester }
+				: selections.get(exchange.from().getAttributes());
+			var toIndexes = exchange.to().isMe() ? new int[] { provider }
+				: selections.get(exchange.to().getAttributes());
+			if (toIndexes.length == 0) {
+				return true;
+			}
+			if (fromIndexes.length == 0) {
+				return false;
+			}
+			var resource = resourceIds.get(exchange.resource());
+			var fromAll = exchange.from().isAll();
+			var toAll = exchange.to().isAll();
+			var atLeastOneRequest = false;
+			var satisfied = fromAll;
+			for (int i = 0; i < fromIndexes.length && satisfied == fromAll; i++) {
+				var fromIndex = fromIndexes[i];
+				var innerSatisfied = toAll;
+				for (int j = 0; j < toIndexes.length && innerSatisfied == toAll; j++) {
+					var toIndex = toIndexes[j];
+					if (toIndex != fromIndex) {
+						atLeastOneRequest = true;
+						// the request of the resource from fromIndex by toIndex
+						innerSatisfied = permitted.contains(resource, toIndex, fromIndex);
+					}
+				}
+				satisfied = innerSatisfied;
+			}
+			return satisfied && (atLeastOneRequest || !fromAll);
+		}
+
+		private void forProviders(ParallelTasks.RangeTask task) {
+			// the tasks work on the 1-based provider indexes
+			ParallelTasks.RangeTask providers = (from, to) -> task.run(from + 1, to + 1);
+			if (parallelism == 1 || parties < 2) {
+				providers.run(0, parties);
+			} else {
+				if (pool == null) {
+					// shared by the rounds of the computation
+					pool = ParallelTasks.newPool("bart-fixpoint", Math.min(parallelism, parties));
+				}
+				ParallelTasks.runInRanges(pool, Math.min(parallelism, parties), parties, providers);
+			}
+		}
+	}
+}
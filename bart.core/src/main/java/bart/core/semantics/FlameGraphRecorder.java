@@ -0,0 +1,268 @@
+package bart.core.semantics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A trace sink that records the nested frames of semantic evaluation
+ * (request &rarr; policy &rarr; rule &rarr; exchange &rarr; sub-request...) so
+ * that they can be exported to standard flame-graph viewers.
+ * <p>
+ * Two export formats are supported:
+ * <ul>
+ *   <li>the collapsed-stack ("folded") format, see {@link #toFolded(Weight)},
+ *       understood by {@code flamegraph.pl}, speedscope and similar tools</li>
+ *   <li>the Chrome trace-event JSON format, see {@link #toChromeTraceJson()},
+ *       understood by {@code chrome://tracing} and Perfetto</li>
+ * </ul>
+ * Like the {@link RuleProfiler}, a recorder accumulates frames across all the
+ * evaluations performed by the {@link Semantics} it is attached to, until
+ * {@link #reset()} is called.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var recorder = new FlameGraphRecorder();
+ * var semantics = new Semantics(policies).flameGraphRecorder(recorder);
+ * semantics.evaluate(request);
+ * Files.writeString(Path.of("bart.folded"), recorder.toFolded(Weight.STEPS));
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public class FlameGraphRecorder {
+
+	/**
+	 * How each frame is weighted in the collapsed-stack export.
+	 */
+	public enum Weight {
+		/** The self wall time of the frame, in nanoseconds. */
+		WALL_TIME,
+		/** The number of times the frame has been entered. */
+		STEPS
+	}
+
+	/**
+	 * A distinct folded stack: the stacks form a tree, so that each frame only
+	 * refers to the node of its stack, and the weights of the frames are
+	 * merged into it when the frames exit.
+	 */
+	private static class Stack {
+		private final String name;
+		private final Stack parent;
+		private final Map<String, Stack> children = new HashMap<>();
+		private long steps;
+		private long selfNanos;
+
+		Stack(String name, Stack parent) {
+			this.name = name;
+			this.parent = parent;
+		}
+
+		void appendTo(StringBuilder builder) {
+			if (parent != null) {
+				parent.appendTo(builder);
+				builder.append(';');
+			}
+			builder.append(name);
+		}
+	}
+
+	private static class Frame {
+		private final Stack stack;
+		private final Frame parent;
+		private final int depth;
+		private final long start;
+		private long end;
+		private long childrenNanos;
+
+		Frame(Stack stack, Frame parent, long start) {
+			this.stack = stack;
+			this.parent = parent;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+			this.start = start;
+		}
+
+		long duration() {
+			return end - start;
+		}
+	}
+
+	/**
+	 * The default maximum number of frames kept for the Chrome trace-event
+	 * export, see {@link #maxEvents(int)}.
+	 */
+	public static final int DEFAULT_MAX_EVENTS = 100_000;
+
+	private final LongSupplier clock;
+	private int maxEvents = DEFAULT_MAX_EVENTS;
+	private Map<String, Stack> roots = new HashMap<>();
+	private List<Stack> stacks = new ArrayList<>();
+	private List<Frame> events = new ArrayList<>();
+	private long droppedEvents;
+	private Frame current;
+
+	/**
+	 * Creates a recorder that measures wall time with {@link System#nanoTime()}.
+	 */
+	public FlameGraphRecorder() {
+		this(System::nanoTime);
+	}
+
+	/**
+	 * Creates a recorder that measures wall time with the given clock.
+	 *
+	 * @param clock a supplier of the current time in nanoseconds
+	 */
+	public FlameGraphRecorder(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Configures the maximum number of frames kept for
+	 * {@link #toChromeTraceJson()}: the frames entered after that are still
+	 * aggregated in {@link #toFolded(Weight)}, but are not exported as
+	 * trace events, see {@link #droppedEvents()}; {@link #DEFAULT_MAX_EVENTS}
+	 * by default.
+	 *
+	 * @param maxEvents the maximum number of trace events, where {@code 0}
+	 *        disables the trace events altogether
+	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalArgumentException if {@code maxEvents} is negative
+	 */
+	public FlameGraphRecorder maxEvents(int maxEvents) {
+		if (maxEvents < 0) {
+			throw new IllegalArgumentException("max events must not be negative: " + maxEvents);
+		}
+		this.maxEvents = maxEvents;
+		return this;
+	}
+
+	/**
+	 * @return the number of frames that have not been kept as trace events
+	 *         because of {@link #maxEvents(int)}
+	 */
+	public long droppedEvents() {
+		return droppedEvents;
+	}
+
+	void enter(String name) {
+		var frameName = name.replace(';', ',');
+		var siblings = current == null ? roots : current.stack.children;
+		var parentStack = current == null ? null : current.stack;
+		var stack = siblings.computeIfAbsent(frameName, n -> {
+			var newStack = new Stack(n, parentStack);
+			stacks.add(newStack);
+			return newStack;
+		});
+		current = new Frame(stack, current, clock.getAsLong());
+		if (events.size() < maxEvents) {
+			events.add(current);
+		} else {
+			droppedEvents++;
+		}
+	}
+
+	void exit() {
+		current.end = clock.getAsLong();
+		var duration = current.duration();
+		current.stack.steps++;
+		current.stack.selfNanos += duration - current.childrenNanos;
+		if (current.parent != null) {
+			current.parent.childrenNanos += duration;
+		}
+		current = current.parent;
+	}
+
+	/**
+	 * Returns the recorded frames in the collapsed-stack ("folded") format: one
+	 * line per distinct stack, with the frame names separated by {@code ;},
+	 * followed by a space and the aggregated weight of the stack.
+	 * <p>
+	 * The weights are merged per stack as the frames exit, so the memory used
+	 * only grows with the number of distinct stacks, not with the number of
+	 * recorded frames.
+	 * </p>
+	 *
+	 * @param weight how frames are weighted
+	 * @return the folded stacks, in order of first occurrence
+	 */
+	public String toFolded(Weight weight) {
+		var builder = new StringBuilder();
+		for (var stack : stacks) {
+			if (stack.steps == 0) {
+				// none of its frames has exited yet
+				continue;
+			}
+			stack.appendTo(builder);
+			builder.append(String.format(" %d%n",
+				weight == Weight.STEPS ? stack.steps : stack.selfNanos));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the recorded frames as Chrome trace-event JSON, using complete
+	 * ({@code "ph":"X"}) events with timestamps and durations in microseconds
+	 * relative to the first recorded frame.
+	 * <p>
+	 * Only the first {@link #maxEvents(int)} frames are exported.
+	 * </p>
+	 *
+	 * @return the JSON document
+	 */
+	public String toChromeTraceJson() {
+		var origin = events.isEmpty() ? 0 : events.get(0).start;
+		var builder = new StringBuilder("{\"traceEvents\":[");
+		var first = true;
+		for (var frame : events) {
+			if (!first) {
+				builder.append(",");
+			}
+			first = false;
+			builder.append(String.format(
+				"%n{\"name\":\"%s\",\"ph\":\"X\",\"ts\":%s,\"dur\":%s,\"pid\":1,\"tid\":1,\"args\":{\"depth\":%d}}",
+				escape(frame.stack.name), micros(frame.start - origin), micros(frame.duration()), frame.depth));
+		}
+		builder.append(String.format("%n]}%n"));
+		return builder.toString();
+	}
+
+	private static String micros(long nanos) {
+		return String.format("%d.%03d", nanos / 1000, nanos % 1000);
+	}
+
+	private static String escape(String string) {
+		var builder = new StringBuilder();
+		for (var c : string.toCharArray()) {
+			switch (c) {
+			case '"' -> builder.append("\\\"");
+			case '\\' -> builder.append("\\\\");
+			case '\n' -> builder.append("\\n");
+			default -> {
+				if (c < 0x20) {
+					builder.append(String.format("\\u%04x", (int) c));
+				} else {
+					builder.append(c);
+				}
+			}
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Discards all the recorded frames.
+	 */
+	public void reset() {
+		roots = new HashMap<>();
+		stacks = new ArrayList<>();
+		events = new ArrayList<>();
+		droppedEvents = 0;
+		current = null;
+	}
+}
@@ -0,0 +1,118 @@
+package bart.core.semantics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on an {@link Executor}, by default a {@link #newPool(String, int)
+ * pool} of daemon threads meant to be reused across runs.
+ *
+ * @author Lorenzo Bettini
+ */
+final class ParallelTasks {
+
+	private ParallelTasks() {
+		// only static methods
+	}
+
+	/**
+	 * Creates a pool of the given number of daemon threads, created on demand
+	 * and terminated after being idle for a while, so that a pool that is not
+	 * shut down keeps no thread alive.
+	 *
+	 * @param threadName the name of the threads
+	 * @param threads the number of threads
+	 * @return the pool, to be shut down by the caller
+	 */
+	static ExecutorService newPool(String threadName, int threads) {
+		var pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+			runnable -> {
+				var thread = new Thread(runnable, threadName);
+				thread.setDaemon(true);
+				return thread;
+			});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Runs the given tasks on the given executor and waits for all of them to
+	 * complete.
+	 *
+	 * @param executor the executor
+	 * @param tasks the tasks
+	 * @throws RuntimeException the exception thrown by a task, if any
+	 * @throws IllegalStateException if interrupted while waiting
+	 */
+	static void run(Executor executor, List<Runnable> tasks) {
+		var pending = new ArrayList<FutureTask<?>>(tasks.size());
+		try {
+			for (var task : tasks) {
+				var future = new FutureTask<>(task, null);
+				pending.add(future);
+				executor.execute(future);
+			}
+			for (var future : pending) {
+				await(future);
+			}
+		} finally {
+			// the executor is shared, so only the tasks of this run are cancelled
+			for (var future : pending) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Splits [0, size) into ranges, several per thread to balance tasks of
+	 * different costs, and runs the given task on each range.
+	 *
+	 * @param executor the executor
+	 * @param threads the number of threads
+	 * @param size the size of the range to split
+	 * @param task the task, called with the start (inclusive) and the end
+	 *        (exclusive) of a range
+	 */
+	static void runInRanges(Executor executor, int threads, int size, RangeTask task) {
+		var rangeSize = Math.max(1, size / (4 * threads));
+		var tasks = new ArrayList<Runnable>();
+		for (int from = 0; from < size; from += rangeSize) {
+			var start = from;
+			var end = Math.min(size, from + rangeSize);
+			tasks.add(() -> task.run(start, end));
+		}
+		run(executor, tasks);
+	}
+
+	/**
+	 * A task over a range of indexes.
+	 */
+	@FunctionalInterface
+	interface RangeTask {
+		void run(int from, int to);
+	}
+
+	private static void await(FutureTask<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for parallel tasks", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
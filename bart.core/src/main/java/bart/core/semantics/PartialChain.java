@@ -0,0 +1,121 @@
+package bart.core.semantics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bart.core.Request;
+import bart.core.semantics.Derivations.Alternative;
+import bart.core.semantics.Derivations.Goal;
+
+/**
+ * A chain of requests being built by a {@link SearchStrategy}: the requests
+ * chosen so far, and the goals (the requests still to satisfy) they need; it
+ * is {@link #isComplete() complete} when there are no goals left. See
+ * {@link SearchSpace#expand(PartialChain)}.
+ *
+ * @author Lorenzo Bettini
+ */
+public final class PartialChain {
+
+	private record Requests(Request request, Requests previous) {
+	}
+
+	private record Goals(Goal goal, int depth, Goals next) {
+	}
+
+	private final Derivations derivations;
+	private final Requests requests;
+	private final Goals goals;
+	private final int size;
+	private final int depth;
+
+	private PartialChain(Derivations derivations, Requests requests, Goals goals, int size, int depth) {
+		this.derivations = derivations;
+		this.requests = requests;
+		this.goals = goals;
+		this.size = size;
+		this.depth = depth;
+	}
+
+	/**
+	 * @return the partial chain with no requests and the given request as
+	 *         its only goal, of depth 0
+	 */
+	static PartialChain start(Derivations derivations, Request request) {
+		return new PartialChain(derivations, null, new Goals(new Goal(request, null), 0, null), 0, 0);
+	}
+
+	/**
+	 * @return whether all the requests of the chain are satisfied
+	 */
+	public boolean isComplete() {
+		return goals == null;
+	}
+
+	/**
+	 * @return the requests chosen so far, in order
+	 */
+	public List<Request> requests() {
+		var list = new ArrayList<Request>(size);
+		for (var node = requests; node != null; node = node.previous()) {
+			list.add(node.request());
+		}
+		return list.reversed();
+	}
+
+	/**
+	 * @return the number of requests chosen so far
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the maximum depth of the requests chosen so far
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	Derivations derivations() {
+		return derivations;
+	}
+
+	Goal nextGoal() {
+		return goals.goal();
+	}
+
+	int nextGoalDepth() {
+		return goals.depth();
+	}
+
+	/**
+	 * @return whether one of the goals still to satisfy is already known to
+	 *         fail, see {@link Derivations#isKnownUnsatisfiable(Goal)}
+	 */
+	boolean hasKnownUnsatisfiableGoal() {
+		for (var node = goals; node != null; node = node.next()) {
+			if (derivations.isKnownUnsatisfiable(node.goal())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return this partial chain where the next goal is replaced by the given
+	 *         alternative, whose goals have the given depth
+	 */
+	PartialChain with(Alternative alternative, int goalsDepth) {
+		var chosen = requests;
+		for (var request : alternative.requests()) {
+			chosen = new Requests(request, chosen);
+		}
+		var remaining = goals.next();
+		for (int i = alternative.goals().size() - 1; i >= 0; i--) {
+			remaining = new Goals(alternative.goals().get(i), goalsDepth, remaining);
+		}
+		return new PartialChain(derivations, chosen, remaining, size + alternative.requests().size(),
+			alternative.requests().isEmpty() ? depth : Math.max(depth, goals.depth()));
+	}
+}
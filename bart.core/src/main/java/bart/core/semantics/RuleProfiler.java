@@ -0,0 +1,202 @@
+package bart.core.semantics;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An opt-in profiler that accumulates, for each rule identified by its
+ * (policy index, rule index) pair, how often it was tested and what it cost
+ * during semantic evaluation.
+ * <p>
+ * Unlike the {@link Trace}, which is reset at each top-level evaluation, the
+ * statistics of a profiler accumulate across all the evaluations performed by
+ * the {@link Semantics} it is attached to, until {@link #reset()} is called.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var profiler = new RuleProfiler();
+ * var semantics = new Semantics(policies).ruleProfiler(profiler);
+ * semantics.evaluate(request1);
+ * semantics.evaluate(request2);
+ * System.out.print(profiler.report()); // hottest rules first
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public class RuleProfiler {
+
+	/**
+	 * The statistics accumulated for a single rule.
+	 */
+	public static class RuleStatistics {
+
+		private final int policyIndex;
+		private final int ruleIndex;
+		private long resourceTests;
+		private long matches;
+		private long conditionEvaluations;
+		private long conditionNanos;
+		private long exchangeExpansions;
+		private long permits;
+
+		RuleStatistics(int policyIndex, int ruleIndex) {
+			this.policyIndex = policyIndex;
+			this.ruleIndex = ruleIndex;
+		}
+
+		/**
+		 * @return the 1-based index of the policy the rule belongs to
+		 */
+		public int getPolicyIndex() {
+			return policyIndex;
+		}
+
+		/**
+		 * @return the 1-based index of the rule within its policy
+		 */
+		public int getRuleIndex() {
+			return ruleIndex;
+		}
+
+		/**
+		 * @return how many times the resource pattern of the rule was tested
+		 */
+		public long getResourceTests() {
+			return resourceTests;
+		}
+
+		/**
+		 * @return how many times the resource pattern of the rule matched
+		 */
+		public long getMatches() {
+			return matches;
+		}
+
+		/**
+		 * @return how many times the condition of the rule was evaluated
+		 */
+		public long getConditionEvaluations() {
+			return conditionEvaluations;
+		}
+
+		/**
+		 * @return the cumulative time, in nanoseconds, spent evaluating the
+		 *         condition of the rule
+		 */
+		public long getConditionNanos() {
+			return conditionNanos;
+		}
+
+		/**
+		 * @return how many times the exchange of the rule was expanded
+		 */
+		public long getExchangeExpansions() {
+			return exchangeExpansions;
+		}
+
+		/**
+		 * @return how many times the rule permitted the request
+		 */
+		public long getPermits() {
+			return permits;
+		}
+	}
+
+	private record RuleKey(int policyIndex, int ruleIndex) {
+
+	}
+
+	/**
+	 * Orders the hottest rules first: by cumulative condition time, then by
+	 * number of resource tests, then by position.
+	 */
+	private static final Comparator<RuleStatistics> HOTTEST_FIRST =
+		Comparator.comparingLong(RuleStatistics::getConditionNanos).reversed()
+			.thenComparing(Comparator.comparingLong(RuleStatistics::getResourceTests).reversed())
+			.thenComparingInt(RuleStatistics::getPolicyIndex)
+			.thenComparingInt(RuleStatistics::getRuleIndex);
+
+	private Map<RuleKey, RuleStatistics> statistics = new LinkedHashMap<>();
+
+	private RuleStatistics of(int policyIndex, int ruleIndex) {
+		return statistics.computeIfAbsent(new RuleKey(policyIndex, ruleIndex),
+			key -> new RuleStatistics(policyIndex, ruleIndex));
+	}
+
+	void resourceTested(int policyIndex, int ruleIndex, boolean matched) {
+		var ruleStatistics = of(policyIndex, ruleIndex);
+		ruleStatistics.resourceTests++;
+		if (matched) {
+			ruleStatistics.matches++;
+		}
+	}
+
+	void conditionEvaluated(int policyIndex, int ruleIndex, long nanos) {
+		var ruleStatistics = of(policyIndex, ruleIndex);
+		ruleStatistics.conditionEvaluations++;
+		ruleStatistics.conditionNanos += nanos;
+	}
+
+	void exchangeExpanded(int policyIndex, int ruleIndex) {
+		of(policyIndex, ruleIndex).exchangeExpansions++;
+	}
+
+	void permitted(int policyIndex, int ruleIndex) {
+		of(policyIndex, ruleIndex).permits++;
+	}
+
+	/**
+	 * Returns the statistics of the given rule, or {@code null} if the rule
+	 * has never been tested since the last {@link #reset()}.
+	 *
+	 * @param policyIndex the 1-based index of the policy
+	 * @param ruleIndex the 1-based index of the rule within the policy
+	 * @return the statistics of the rule, or {@code null}
+	 */
+	public RuleStatistics getStatistics(int policyIndex, int ruleIndex) {
+		return statistics.get(new RuleKey(policyIndex, ruleIndex));
+	}
+
+	/**
+	 * Returns the statistics of all the rules tested so far, hottest first:
+	 * by cumulative condition time, then by number of resource tests, then by
+	 * (policy index, rule index).
+	 *
+	 * @return the sorted statistics
+	 */
+	public List<RuleStatistics> getStatistics() {
+		return statistics.values().stream()
+			.sorted(HOTTEST_FIRST)
+			.toList();
+	}
+
+	/**
+	 * Returns a human-readable table with one line per tested rule, hottest
+	 * first (see {@link #getStatistics()}).
+	 *
+	 * @return the report
+	 */
+	public String report() {
+		var builder = new StringBuilder();
+		builder.append(String.format("%-12s %10s %10s %10s %14s %10s %10s%n",
+			"rule", "tests", "matches", "conditions", "condition (ms)", "exchanges", "permits"));
+		for (var s : getStatistics()) {
+			builder.append(String.format("%-12s %10d %10d %10d %14.3f %10d %10d%n",
+				String.format("%d.%d", s.policyIndex, s.ruleIndex),
+				s.resourceTests, s.matches, s.conditionEvaluations,
+				s.conditionNanos / 1_000_000.0, s.exchangeExpansions, s.permits));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Discards all the accumulated statistics.
+	 */
+	public void reset() {
+		statistics = new LinkedHashMap<>();
+	}
+}
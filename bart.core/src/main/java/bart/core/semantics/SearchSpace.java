@@ -0,0 +1,86 @@
+package bart.core.semantics;
+
+import java.util.List;
+
+import bart.core.Request;
+import bart.core.Result;
+
+/**
+ * The ways of satisfying a request that a {@link SearchStrategy} explores,
+ * within the {@link #maxDepth() maximum depth} configured in
+ * {@link Semantics}: a request has depth 0 and the requests generated by the
+ * exchange of a request of depth {@code d} have depth {@code d + 1}.
+ * <p>
+ * A search can be delegated to the depth-first engine of {@link Semantics},
+ * see {@link #depthFirst(Request, int)}, which also records the
+ * {@link Trace}; otherwise, a strategy {@link #start(Request) starts} from
+ * a partial chain and {@link #expand(PartialChain) expands} the partial
+ * chains until it finds a complete one.
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public interface SearchSpace {
+
+	/**
+	 * @return the maximum depth of the requests to evaluate, see
+	 *         {@link Semantics#maxDepth(int)}
+	 */
+	int maxDepth();
+
+	/**
+	 * Evaluates the given request depth-first, as with the default
+	 * {@link SearchStrategy#DEPTH_FIRST}, denying the requests deeper than
+	 * the given maximum depth, or than the {@link #maxDepth() maximum depth}
+	 * of the space, if lower. Each search adds its lines to the
+	 * {@link Trace}, after the ones of the previous searches of the same
+	 * evaluation, see {@link #trace(String)}.
+	 *
+	 * @param request the request to satisfy
+	 * @param maxDepth the maximum depth of the requests to evaluate
+	 * @return the result of the evaluation
+	 * @throws IllegalArgumentException if {@code maxDepth} is negative
+	 */
+	Result depthFirst(Request request, int maxDepth);
+
+	/**
+	 * @param request the request to satisfy
+	 * @return the partial chain with no requests, whose only goal is the given
+	 *         request
+	 */
+	PartialChain start(Request request);
+
+	/**
+	 * Expands the given partial chain, which must not be complete, with each
+	 * alternative of its next goal whose requests are within the maximum
+	 * depth.
+	 * <p>
+	 * A goal found to fail (having no alternative, whatever the maximum
+	 * depth) is remembered for the rest of the search: the partial chains
+	 * still pending it expand to none, and the alternatives needing it are
+	 * not returned.
+	 * </p>
+	 *
+	 * @param partialChain the partial chain to expand
+	 * @return the expanded partial chains, in the order {@link Semantics}
+	 *         tries the alternatives
+	 * @throws IllegalArgumentException if the partial chain is complete
+	 */
+	List<PartialChain> expand(PartialChain partialChain);
+
+	/**
+	 * @return whether, since the last call of {@link #depthFirst(Request, int)}
+	 *         or {@link #start(Request)}, a request has been denied, or an
+	 *         alternative discarded, because of the maximum depth, so that a
+	 *         deeper search might find more chains
+	 */
+	boolean isCutOff();
+
+	/**
+	 * Adds the given line to the {@link Trace}, if tracing is enabled, e.g.,
+	 * to separate the searches of a strategy.
+	 *
+	 * @param line the line to add
+	 */
+	void trace(String line);
+}
@@ -0,0 +1,50 @@
+package bart.core.semantics;
+
+import java.util.ArrayDeque;
+
+import bart.core.Request;
+import bart.core.Result;
+
+/**
+ * The implementations of the {@link SearchStrategy} constants.
+ *
+ * @author Lorenzo Bettini
+ */
+final class SearchStrategies {
+
+	private SearchStrategies() {
+		// only static methods
+	}
+
+	static Result depthFirst(Request request, SearchSpace space) {
+		return space.depthFirst(request, space.maxDepth());
+	}
+
+	static Result breadthFirst(Request request, SearchSpace space) {
+		var frontier = new ArrayDeque<PartialChain>();
+		frontier.add(space.start(request));
+		while (!frontier.isEmpty()) {
+			// a complete chain is returned as soon as it is generated
+			for (var expanded : space.expand(frontier.poll())) {
+				if (expanded.isComplete()) {
+					return Result.permitted().addAll(expanded.requests());
+				}
+				frontier.add(expanded);
+			}
+		}
+		return new Result(false);
+	}
+
+	static Result iterativeDeepening(Request request, SearchSpace space) {
+		var result = depthFirstRound(request, space, 0);
+		for (int depth = 1; !result.isPermitted() && space.isCutOff() && depth <= space.maxDepth(); depth++) {
+			result = depthFirstRound(request, space, depth);
+		}
+		return result;
+	}
+
+	private static Result depthFirstRound(Request request, SearchSpace space, int maxDepth) {
+		space.trace("iterative deepening: maximum depth " + maxDepth);
+		return space.depthFirst(request, maxDepth);
+	}
+}
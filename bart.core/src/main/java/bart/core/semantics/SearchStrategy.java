@@ -0,0 +1,70 @@
+package bart.core.semantics;
+
+import bart.core.Request;
+import bart.core.Result;
+
+/**
+ * How {@link Semantics} searches for an exchange chain satisfying a request,
+ * see {@link Semantics#searchStrategy(SearchStrategy)}.
+ * <p>
+ * A strategy explores the {@link SearchSpace} of the request, either with
+ * depth-first searches, possibly limited in depth, or by expanding
+ * {@link PartialChain partial chains} in the order it prefers. Besides the
+ * provided strategies, custom ones can be implemented, e.g., expanding first
+ * the partial chains with the fewest requests.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * semantics
+ *     .searchStrategy(SearchStrategy.ITERATIVE_DEEPENING)
+ *     .maxDepth(10);
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+@FunctionalInterface
+public interface SearchStrategy {
+
+	/**
+	 * Tries the rules, the parties and the exchange branches in order,
+	 * satisfying all the requests an alternative generates before trying the
+	 * next one; this is the default strategy.
+	 */
+	SearchStrategy DEPTH_FIRST = SearchStrategies::depthFirst;
+
+	/**
+	 * Expands the partial chains in the order they are generated, so that the
+	 * chains needing fewer expansions are found first; it keeps all the
+	 * partial chains of a level in memory.
+	 * <p>
+	 * Mind that the number of partial chains, and thus the memory used, is
+	 * exponential in the width of quantified exchanges: an exchange from
+	 * {@code all} of <i>n</i> parties to {@code any} of <i>m</i> parties
+	 * alone has <i>m<sup>n</sup></i> alternatives. Combine it with
+	 * {@link Semantics#maxDepth(int)} or prefer {@link #ITERATIVE_DEEPENING},
+	 * whose memory is linear in the depth, for such policies.
+	 * </p>
+	 */
+	SearchStrategy BREADTH_FIRST = SearchStrategies::breadthFirst;
+
+	/**
+	 * Repeats depth-first searches with maximum depths 0, 1, 2 and so on, up
+	 * to the maximum depth of the search space, until a chain is found or no
+	 * request was cut off: it finds a chain of minimum depth in the memory of
+	 * a depth-first search. The trace has the lines of all the searches, each
+	 * one preceded by the line {@code iterative deepening: maximum depth N}.
+	 */
+	SearchStrategy ITERATIVE_DEEPENING = SearchStrategies::iterativeDeepening;
+
+	/**
+	 * Searches for an exchange chain satisfying the given request.
+	 *
+	 * @param request the request to satisfy
+	 * @param space the search space of the request
+	 * @return a permitted result with the chain of the satisfied requests,
+	 *         or a denied result
+	 */
+	Result search(Request request, SearchSpace space);
+}
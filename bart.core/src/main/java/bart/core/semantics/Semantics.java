@@ -3,13 +3,19 @@ package bart.core.semantics;
 import static bart.core.Participants.index;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.function.BiPredicate;
-import java.util.function.Predicate;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import bart.core.AndExchange;
 import bart.core.AttributeMatcher;
@@ -17,21 +23,27 @@ import bart.core.Attributes;
 import bart.core.NameResolverImplementation;
 import bart.core.CompositeExchange;
 import bart.core.ContextHandler;
+import bart.core.ContextSnapshot;
 import bart.core.DefaultRequestComply;
 import bart.core.Exchange;
+import bart.core.ExpressionCode;
+import bart.core.FrozenRules;
 import bart.core.IndexParticipant;
 import bart.core.OrExchange;
 import bart.core.Participant;
 import bart.core.Policies;
-import bart.core.Policies.PolicyData;
-import bart.core.Policy;
+import bart.core.PolicyProvider;
+import bart.core.ReadSet;
 import bart.core.Request;
 import bart.core.RequestComply;
+import bart.core.RequestCost;
 import bart.core.RequestFromParticipant;
 import bart.core.Result;
 import bart.core.Rule;
 import bart.core.Rules;
 import bart.core.SingleExchange;
+import bart.core.VersionedPolicies;
+import bart.core.expressions.BooleanConstant;
 
 /**
  * The core evaluation engine of the Bart framework.
@@ -85,11 +97,26 @@ import bart.core.SingleExchange;
  */
 public class Semantics {
 
-	private Policies policies;
+	private final Supplier<Policies> policies;
+	private final VersionedPolicies versions;
 	private AttributeMatcher matcher = new AttributeMatcher();
 	private Trace trace = new Trace();
 	private ContextHandler contextHandler = EMPTY_CONTEXT_HANDLER;
 	private RequestComply requestComply = new DefaultRequestComply(matcher);
+	private RuleProfiler ruleProfiler;
+	private FlameGraphRecorder flameGraphRecorder;
+	private boolean tracing = true;
+	private boolean recordingReads = false;
+	private int parallelism = 1;
+	private Executor executor;
+	/**
+	 * The threads of {@link #parallelism}, created on first use unless an
+	 * {@link #executor} is given; guarded by this.
+	 */
+	private ExecutorService pool;
+	private SearchStrategy searchStrategy = SearchStrategy.DEPTH_FIRST;
+	private int maxDepth = Integer.MAX_VALUE;
+	private final ThreadLocal<EvaluationScratch> scratch = ThreadLocal.withInitial(EvaluationScratch::new);
 
 	private static final ContextHandler EMPTY_CONTEXT_HANDLER = new ContextHandler();
 	private static final Result DENIED = new Result(false);
@@ -100,7 +127,33 @@ public class Semantics {
 	 * @param policies the set of participant policies to evaluate against
 	 */
 	public Semantics(Policies policies) {
-		this.policies = policies;
+		this.policies = () -> policies;
+		this.versions = null;
+	}
+
+	/**
+	 * Creates a new {@code Semantics} instance for the latest versions of the
+	 * given policies: each call of {@link #evaluate(Request)} uses the version
+	 * that is current when it starts, even if new versions are published
+	 * meanwhile.
+	 *
+	 * @param versions the versions of the participant policies
+	 */
+	public Semantics(VersionedPolicies versions) {
+		this.policies = versions::current;
+		this.versions = versions;
+	}
+
+	/**
+	 * Creates a new {@code Semantics} instance for the policies of the given
+	 * provider, see {@link Policies#of(PolicyProvider, int)}.
+	 *
+	 * @param provider the provider of the participant policies
+	 * @param maxLoadedParties the maximum number of parties whose rules are
+	 *        kept loaded
+	 */
+	public Semantics(PolicyProvider provider, int maxLoadedParties) {
+		this(Policies.of(provider, maxLoadedParties));
 	}
 
 	/**
@@ -128,6 +181,175 @@ public class Semantics {
 		return this;
 	}
 
+	/**
+	 * Attaches a {@link RuleProfiler} that accumulates per-rule statistics
+	 * during all subsequent evaluations; profiling is disabled by default.
+	 *
+	 * @param ruleProfiler the profiler to use, or {@code null} to disable profiling
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Semantics ruleProfiler(RuleProfiler ruleProfiler) {
+		this.ruleProfiler = ruleProfiler;
+		return this;
+	}
+
+	/**
+	 * Attaches a {@link FlameGraphRecorder} that records the nested evaluation
+	 * frames of all subsequent evaluations; recording is disabled by default.
+	 *
+	 * @param flameGraphRecorder the recorder to use, or {@code null} to disable recording
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Semantics flameGraphRecorder(FlameGraphRecorder flameGraphRecorder) {
+		this.flameGraphRecorder = flameGraphRecorder;
+		return this;
+	}
+
+	/**
+	 * Enables or disables the recording of the {@link Trace}; tracing is
+	 * enabled by default.
+	 * <p>
+	 * Building the trace dominates the cost (and the allocation rate) of
+	 * evaluation, so it should be disabled when the detailed evaluation log is
+	 * not needed. When tracing is disabled, and neither a {@link RuleProfiler}
+	 * nor a {@link FlameGraphRecorder} is attached, a {@code Semantics} instance
+	 * can also be shared among threads, since all the other per-evaluation
+	 * structures are kept per thread and reading the {@link ContextHandler}
+	 * does not change it; the conditions (and the lazy context attributes)
+	 * must then be thread-safe, and the context must not be changed while
+	 * evaluating.
+	 * </p>
+	 *
+	 * @param tracing whether to record the trace
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Semantics tracing(boolean tracing) {
+		this.tracing = tracing;
+		return this;
+	}
+
+	/**
+	 * Configures whether each {@link Result} returned by
+	 * {@link #evaluate(Request)} carries the attributes read by the evaluated
+	 * conditions, see {@link Result#getReadSet()}; disabled by default.
+	 * <p>
+	 * The read set tells which context attribute changes may change the
+	 * result, so that caches and subscribers invalidate only the affected
+	 * results, see also {@link StandingQueries}.
+	 * </p>
+	 *
+	 * @param recordingReads whether to record the reads
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Semantics recordingReads(boolean recordingReads) {
+		this.recordingReads = recordingReads;
+		return this;
+	}
+
+	/**
+	 * Configures the number of threads used by {@link #evaluateAll(List)};
+	 * {@code 1} (the default) evaluates the requests in the calling thread.
+	 * <p>
+	 * Requests are evaluated in parallel only while tracing is disabled, and
+	 * neither a {@link RuleProfiler} nor a {@link FlameGraphRecorder} is
+	 * attached; the conditions must then be thread-safe.
+	 * </p>
+	 * <p>
+	 * Unless an {@link #executor(Executor) executor} is given, the threads
+	 * are daemon threads owned by this semantics: they are created by the
+	 * first parallel evaluation, reused by the next ones, terminated after
+	 * being idle for a while, and shut down by {@link #close()}.
+	 * </p>
+	 *
+	 * @param parallelism the number of evaluating threads
+	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalArgumentException if {@code parallelism} is less than 1
+	 */
+	public Semantics parallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+		}
+		synchronized (this) {
+			if (parallelism != this.parallelism) {
+				// the pool of the previous number of threads
+				close();
+			}
+			this.parallelism = parallelism;
+		}
+		return this;
+	}
+
+	/**
+	 * Configures the executor running the parallel evaluations of
+	 * {@link #evaluateAll(List)}, instead of the threads owned by this
+	 * semantics; the requests are still split into tasks according to the
+	 * {@link #parallelism(int) parallelism}, which must be greater than 1 for
+	 * the executor to be used. The executor is not shut down by
+	 * {@link #close()}.
+	 *
+	 * @param executor the executor, or {@code null} to use the threads owned
+	 *        by this semantics
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Semantics executor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Shuts down the threads owned by this semantics for the
+	 * {@link #parallelism(int) parallel} evaluations, if any; they are
+	 * created again by the next parallel evaluation, so this semantics can
+	 * still be used.
+	 */
+	public synchronized void close() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Configures how {@link #evaluate(Request)} and {@link #evaluateAll(List)}
+	 * search for an exchange chain; {@link SearchStrategy#DEPTH_FIRST} (the
+	 * default) is the recursive evaluation described above.
+	 * <p>
+	 * A strategy expanding {@link PartialChain partial chains}, such as
+	 * {@link SearchStrategy#BREADTH_FIRST}, neither records the trace nor
+	 * uses the {@link RuleProfiler} and the {@link FlameGraphRecorder}.
+	 * </p>
+	 *
+	 * @param searchStrategy the search strategy
+	 * @return {@code this} to allow fluent chaining
+	 */
+	public Semantics searchStrategy(SearchStrategy searchStrategy) {
+		this.searchStrategy = searchStrategy;
+		return this;
+	}
+
+	/**
+	 * Configures the maximum depth of the requests evaluated by the
+	 * {@link #searchStrategy(SearchStrategy) search strategy}: the requests
+	 * generated by the exchanges of the requests of the maximum depth are
+	 * denied (see {@link SearchSpace}); unlimited by default.
+	 *
+	 * @param maxDepth the maximum depth, where {@code 0} evaluates only the
+	 *        requests that need no exchange
+	 * @return {@code this} to allow fluent chaining
+	 * @throws IllegalArgumentException if {@code maxDepth} is negative
+	 */
+	public Semantics maxDepth(int maxDepth) {
+		checkMaxDepth(maxDepth);
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	private static void checkMaxDepth(int maxDepth) {
+		if (maxDepth < 0) {
+			throw new IllegalArgumentException("max depth must not be negative: " + maxDepth);
+		}
+	}
+
 	/**
 	 * Evaluates the given request against the configured policies and returns the
 	 * result.
@@ -135,47 +357,393 @@ public class Semantics {
 	 * The trace is reset before each top-level call. Use {@link #getTrace()} after
 	 * this method returns to inspect the detailed evaluation log.
 	 * </p>
+	 * <p>
+	 * All the conditions evaluated during a top-level call read context and
+	 * party attributes through the same {@link bart.core.ContextSnapshot}: each
+	 * (party, name) pair is resolved at most once per call, so lazy context
+	 * attributes are computed once and all conditions see the same value.
+	 * </p>
 	 *
 	 * @param request the resource request to evaluate
 	 * @return a {@link Result} indicating whether the request is permitted and
 	 *         the chain of satisfied sub-requests
 	 */
 	public Result evaluate(Request request) {
-		trace.reset();
-		return evaluate(request, new LinkedHashSet<>());
+		return evaluate(request, (Dependencies) null);
+	}
+
+	/**
+	 * Same as {@link #evaluate(Request)}, recording in the given dependencies,
+	 * if not {@code null}, the parties and the attributes the result depends
+	 * on.
+	 */
+	Result evaluate(Request request, Dependencies dependencies) {
+		if (tracing) {
+			trace.reset();
+		}
+		var evaluationScratch = scratch.get();
+		if (!evaluationScratch.acquire()) {
+			// re-entrant evaluation, e.g., from within a condition
+			evaluationScratch = new EvaluationScratch();
+			evaluationScratch.acquire();
+		}
+		evaluationScratch.policies = policies.get();
+		evaluationScratch.dependencies = dependencies;
+		evaluationScratch.recordingReads = recordingReads || dependencies != null;
+		try {
+			var result = search(request, evaluationScratch);
+			return evaluationScratch.recordingReads ? withReadSet(result, evaluationScratch) : result;
+		} finally {
+			evaluationScratch.releaseAll();
+		}
+	}
+
+	/**
+	 * Evaluates the given requests with the same version of the policies and
+	 * returns their results, in the same order.
+	 * <p>
+	 * The work shared by the requests is done once per batch: equal requests
+	 * are evaluated once, and the parties matching the attributes of a
+	 * quantified participant are selected once (when tracing is disabled).
+	 * All the conditions read context and party attributes through the same
+	 * {@link bart.core.ContextSnapshot}, unless the reads are
+	 * {@link #recordingReads(boolean) recorded}, so they see the same values;
+	 * when evaluating in {@link #parallelism(int) parallel}, each thread has
+	 * its own snapshot.
+	 * </p>
+	 * <p>
+	 * The trace, if enabled, records the evaluation of the whole batch.
+	 * </p>
+	 *
+	 * @param requests the requests to evaluate
+	 * @return the results of the requests, in order; equal requests have
+	 *         distinct but equal results
+	 */
+	public List<Result> evaluateAll(List<Request> requests) {
+		if (tracing) {
+			trace.reset();
+		}
+		var pinned = policies.get();
+		var positions = new HashMap<Request, Integer>();
+		var distinct = new ArrayList<Request>();
+		var indexes = new int[requests.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = positions.computeIfAbsent(requests.get(i), request -> {
+				distinct.add(request);
+				return distinct.size() - 1;
+			});
+		}
+		var results = new Result[distinct.size()];
+		if (parallelism > 1 && distinct.size() > 1
+				&& !tracing && ruleProfiler == null && flameGraphRecorder == null) {
+			evaluateInParallel(distinct, pinned, results);
+		} else {
+			evaluateBatch(distinct, 0, distinct.size(), pinned, results);
+		}
+		var all = new ArrayList<Result>(indexes.length);
+		var returned = new BitSet();
+		for (var index : indexes) {
+			var result = results[index];
+			// results can be modified, so they are not shared
+			all.add(returned.get(index) ? copyOf(result) : result);
+			returned.set(index);
+		}
+		return all;
+	}
+
+	/**
+	 * Returns, on demand, the ways of satisfying the given request: each
+	 * permitted {@link Result} carries a distinct chain of satisfied requests,
+	 * that is, one that differs, as a set, from the ones already returned.
+	 * <p>
+	 * The chains are found by backtracking over the rules, the parties and the
+	 * exchange branches in the same order as {@link #evaluate(Request)}, which
+	 * stops at the first one; the search is resumed each time a further chain
+	 * is requested, so that the first {@code k} ones cost about {@code k}
+	 * evaluations. A denied request has no chains.
+	 * </p>
+	 * <p>
+	 * All the chains are computed with the version of the policies current
+	 * when this method is called, and all the conditions read context and
+	 * party attributes through the same {@link bart.core.ContextSnapshot};
+	 * the trace, the {@link RuleProfiler} and the {@link FlameGraphRecorder}
+	 * are not used.
+	 * </p>
+	 *
+	 * {@snippet :
+	 * semantics.enumerate(request)
+	 *     .limit(3)
+	 *     .forEach(result -> System.out.println(result.getRequests()));
+	 * }
+	 *
+	 * @param request the resource request
+	 * @return the lazy stream of the permitted results, one per distinct chain
+	 */
+	public Stream<Result> enumerate(Request request) {
+		var chains = derivations().chains(new Derivations.Goal(request, null));
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chains, Spliterator.ORDERED), false)
+			.map(LinkedHashSet::new)
+			.distinct()
+			.map(chain -> Result.permitted().addAll(chain));
+	}
+
+	/**
+	 * Same as {@link #cheapest(Request, RequestCost)} with
+	 * {@link RequestCost#COUNT}: the result has the chain with the fewest
+	 * requests.
+	 *
+	 * @param request the resource request
+	 * @return the permitted result with the cheapest chain, or a denied one
+	 */
+	public Result cheapest(Request request) {
+		return cheapest(request, RequestCost.COUNT);
+	}
+
+	/**
+	 * Evaluates the given request, returning, if permitted, the chain of
+	 * requests with the minimum cost, that is, the sum of the costs of its
+	 * requests, among all the ways of satisfying it (see
+	 * {@link #enumerate(Request)}).
+	 * <p>
+	 * The chains are searched best-first: a partial chain is extended only
+	 * while its cost, plus a lower bound of the cost of the requests it still
+	 * needs, is the lowest, so that the search stops at the first complete
+	 * chain and the costlier alternatives are never expanded. Among chains of
+	 * the same cost, the first one returned by {@link #enumerate(Request)} is
+	 * preferred, which is the one {@link #evaluate(Request)} finds, if it is
+	 * among them. The policies, the snapshot and the tools used are the same
+	 * as for {@link #enumerate(Request)}.
+	 * </p>
+	 *
+	 * @param request the resource request
+	 * @param requestCost the cost of each request of a chain
+	 * @return the permitted result with the cheapest chain, or a denied one
+	 * @throws IllegalArgumentException if the cost of a request is negative
+	 */
+	public Result cheapest(Request request, RequestCost requestCost) {
+		var chain = new CheapestChainSearch(derivations(), requestCost).search(request);
+		return chain == null ? new Result(false) : Result.permitted().addAll(chain);
+	}
+
+	/**
+	 * @return the derivations over the current version of the policies,
+	 *         whose conditions read through their own snapshot
+	 */
+	private Derivations derivations() {
+		var pinned = policies.get();
+		return new Derivations(pinned, matcher, requestComply, new ContextSnapshot(contextHandler, pinned), null);
+	}
+
+	private void evaluateInParallel(List<Request> requests, Policies pinned, Result[] results) {
+		var threads = Math.min(parallelism, requests.size());
+		ParallelTasks.runInRanges(executor != null ? executor : pool(), threads, requests.size(),
+			(from, to) -> evaluateBatch(requests, from, to, pinned, results));
+	}
+
+	private synchronized Executor pool() {
+		if (pool == null) {
+			pool = ParallelTasks.newPool("bart-semantics", parallelism);
+		}
+		return pool;
+	}
+
+	/**
+	 * Evaluates the requests in [from, to) in the calling thread, sharing the
+	 * selected parties and the context snapshot among them.
+	 */
+	private void evaluateBatch(List<Request> requests, int from, int to, Policies pinned, Result[] results) {
+		var batchScratch = scratch.get();
+		if (!batchScratch.acquire()) {
+			// re-entrant evaluation, e.g., from within a condition
+			batchScratch = new EvaluationScratch();
+			batchScratch.acquire();
+		}
+		batchScratch.policies = pinned;
+		batchScratch.selections = new HashMap<>();
+		try {
+			for (int i = from; i < to; i++) {
+				batchScratch.recordingReads = recordingReads;
+				var result = search(requests.get(i), batchScratch);
+				if (recordingReads) {
+					result = withReadSet(result, batchScratch);
+					// each result has its own reads
+					if (batchScratch.usedContextSnapshot() != null) {
+						batchScratch.usedContextSnapshot().clear();
+					}
+				}
+				results[i] = result;
+			}
+		} finally {
+			batchScratch.releaseAll();
+		}
+	}
+
+	private static Result copyOf(Result result) {
+		return new Result(result.isPermitted())
+			.addAll(result.getRequests())
+			.readSet(result.getReadSet());
+	}
+
+	private Result withReadSet(Result result, EvaluationScratch scratch) {
+		var snapshot = scratch.usedContextSnapshot();
+		var readSet = snapshot == null ? ReadSet.EMPTY : snapshot.readSet();
+		if (scratch.dependencies != null) {
+			scratch.dependencies.read(readSet, snapshot);
+		}
+		// the denied result is shared
+		return (result == DENIED ? new Result(false) : result).readSet(readSet);
 	}
 
-	private Result evaluate(Request request, Set<Request> requests) {
-		trace.addAndThenIndent(String.format("evaluating %s", request));
+	private Result search(Request request, EvaluationScratch scratch) {
+		// not cached in the scratch: the per-thread scratch would keep this
+		// Semantics reachable through the inner Space
+		return searchStrategy.search(request, new Space(scratch));
+	}
+
+	/**
+	 * The search space of a top-level evaluation using a scratch.
+	 */
+	private final class Space implements SearchSpace {
+
+		private final EvaluationScratch scratch;
+
+		Space(EvaluationScratch scratch) {
+			this.scratch = scratch;
+		}
+
+		@Override
+		public int maxDepth() {
+			return maxDepth;
+		}
+
+		@Override
+		public Result depthFirst(Request request, int maxDepth) {
+			checkMaxDepth(maxDepth);
+			var previous = scratch.maxDepth;
+			scratch.maxDepth = Math.min(maxDepth, Semantics.this.maxDepth);
+			scratch.cutOff = false;
+			try {
+				return evaluate(request, scratch);
+			} finally {
+				scratch.maxDepth = previous;
+			}
+		}
+
+		@Override
+		public PartialChain start(Request request) {
+			var snapshot = scratch.contextSnapshot(contextHandler, scratch.policies);
+			if (scratch.recordingReads) {
+				snapshot.recordReads();
+			}
+			scratch.cutOff = false;
+			return PartialChain.start(
+				new Derivations(scratch.policies, matcher, requestComply, snapshot, scratch.dependencies),
+				request);
+		}
+
+		@Override
+		public List<PartialChain> expand(PartialChain partialChain) {
+			if (partialChain.isComplete()) {
+				throw new IllegalArgumentException("the partial chain is complete: " + partialChain.requests());
+			}
+			var expanded = new ArrayList<PartialChain>();
+			if (partialChain.hasKnownUnsatisfiableGoal()) {
+				return expanded;
+			}
+			var goal = partialChain.nextGoal();
+			var depth = partialChain.nextGoalDepth();
+			// the goals of a request from a party index are its exchange requests
+			var goalsDepth = goal.request().from().getIndex() > 0 ? depth + 1 : depth;
+			var derivations = partialChain.derivations();
+			var alternatives = derivations.alternatives(goal);
+			var cutOff = false;
+			while (alternatives.hasNext()) {
+				var alternative = alternatives.next();
+				if (alternative.goals().stream().anyMatch(derivations::isKnownUnsatisfiable)) {
+					continue;
+				}
+				if (goalsDepth > maxDepth && !alternative.goals().isEmpty()) {
+					cutOff = true;
+				} else {
+					expanded.add(partialChain.with(alternative, goalsDepth));
+				}
+			}
+			if (cutOff) {
+				scratch.cutOff = true;
+			} else if (expanded.isEmpty()) {
+				// the goal fails whatever the depth: the partial chains still
+				// pending it are discarded without expanding it again
+				derivations.unsatisfiable(goal);
+			}
+			return expanded;
+		}
+
+		@Override
+		public boolean isCutOff() {
+			return scratch.cutOff;
+		}
+
+		@Override
+		public void trace(String line) {
+			if (tracing) {
+				trace.add(line);
+			}
+		}
+	}
+
+	private Result evaluate(Request request, EvaluationScratch scratch) {
+		if (flameGraphRecorder == null) {
+			return evaluateRequest(request, scratch);
+		}
+		flameGraphRecorder.enter(String.format("request %s from %s %s",
+			request.requester(), request.from(), request.resource()));
+		try {
+			return evaluateRequest(request, scratch);
+		} finally {
+			flameGraphRecorder.exit();
+		}
+	}
+
+	private Result evaluateRequest(Request request, EvaluationScratch scratch) {
+		if (tracing) {
+			trace.addAndThenIndent(String.format("evaluating %s", request));
+		}
 		var from = request.from();
 		var index = from.getIndex();
 		var result = DENIED;
 		if (index > 0) {
-			result = evaluate(index, policies.getByIndex(index), request, requests);
+			result = evaluatePolicy(index, request, scratch);
 		} else {
-			trace.addAndThenIndent("finding matching policies");
-			var policiesToEvaluate = policiesToEvaluate(request.requester(), from);
-			trace.removeIndent();
-			if (!policiesToEvaluate.isEmpty()) {
-				var successfullRequests = new ArrayList<Request>();
-				Predicate<PolicyData> evaluatePredicate =
-					d -> collectingRequests(
-						evaluate(d.index(), d.policy(), request.withFrom(d.index()), requests),
+			if (tracing) {
+				trace.addAndThenIndent("finding matching policies");
+			}
+			var mark = scratch.mark();
+			policiesToEvaluate(request.requester(), from, scratch);
+			if (tracing) {
+				trace.removeIndent();
+			}
+			var end = scratch.mark();
+			if (end > mark) {
+				var successfullRequests = scratch.borrowRequestBuffer();
+				var all = from.isAll();
+				// allMatch: stop at the first denied; anyMatch: stop at the first permitted
+				var permitted = all;
+				for (int i = mark; i < end && permitted == all; i++) {
+					var policyIndex = scratch.get(i);
+					permitted = collectingRequests(
+						evaluatePolicy(policyIndex, request.withFrom(policyIndex), scratch),
 						successfullRequests);
-				var permitted = false;
-				if (from.isAll()) {
-					permitted = policiesToEvaluate.stream()
-						.allMatch(evaluatePredicate);
-				} else {
-					permitted = policiesToEvaluate.stream()
-						.anyMatch(evaluatePredicate);
 				}
 				if (permitted) {
 					result = Result.permitted().addAll(successfullRequests);
 				}
+				scratch.returnRequestBuffer(successfullRequests);
 			}
+			scratch.release(mark);
+		}
+		if (tracing) {
+			trace.removeIndentAndThenAdd(String.format("result: %s", result.isPermitted()));
 		}
-		trace.removeIndentAndThenAdd(String.format("result: %s", result.isPermitted()));
 		return result;
 	}
 
@@ -187,89 +755,275 @@ public class Semantics {
 		return permitted;
 	}
 
-	private Collection<PolicyData> policiesToEvaluate(Participant requester,
-			Participant from) {
-		return policies.getPolicyData()
-			.filter(d -> d.index() != requester.getIndex())
-			.filter(d -> {
-				var attributes1 = from.getAttributes();
-				var attributes2 = d.policy().party();
-				return tryMatch("policy " + d.index(), "from", attributes1, attributes2);
-			})
-			.toList();
+	/**
+	 * Pushes on the scratch index arena the indexes of the policies that the
+	 * given {@code from} participant maps to, excluding the requester.
+	 */
+	private void policiesToEvaluate(Participant requester,
+			Participant from, EvaluationScratch scratch) {
+		var requesterIndex = requester.getIndex();
+		var attributes1 = from.getAttributes();
+		if (scratch.dependencies != null) {
+			scratch.dependencies.selected(attributes1);
+		}
+		if (scratch.selections != null && !tracing) {
+			pushSelection(attributes1, requesterIndex, scratch);
+			return;
+		}
+		pushMatchingParties(attributes1, requesterIndex, scratch);
+	}
+
+	/**
+	 * Pushes on the scratch index arena the indexes of the parties matching
+	 * the given attributes, except the given one.
+	 */
+	private void pushMatchingParties(Attributes attributes1, int excludedIndex, EvaluationScratch scratch) {
+		// the trace reports every party, so the party index is used only without tracing
+		var candidates = tracing ? null : scratch.policies.candidateParties(attributes1);
+		if (candidates != null) {
+			for (int i = candidates.nextSetBit(1); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				if (i != excludedIndex
+						&& matcher.match(attributes1, scratch.policies.party(i))) {
+					scratch.push(i);
+				}
+			}
+			return;
+		}
+		var size = scratch.policies.size();
+		for (int i = 1; i <= size; i++) {
+			if (i != excludedIndex && !scratch.policies.isRemoved(i)
+					&& tryMatch(i, "from", attributes1, scratch.policies.party(i))) {
+				scratch.push(i);
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link #pushMatchingParties(Attributes, int, EvaluationScratch)},
+	 * but the matching parties are selected once per batch, see
+	 * {@link #evaluateAll(List)}.
+	 */
+	private void pushSelection(Attributes attributes, int excludedIndex, EvaluationScratch scratch) {
+		var selection = scratch.selections.get(attributes);
+		if (selection == null) {
+			var mark = scratch.mark();
+			pushMatchingParties(attributes, 0, scratch);
+			selection = new int[scratch.mark() - mark];
+			for (int i = 0; i < selection.length; i++) {
+				selection[i] = scratch.get(mark + i);
+			}
+			scratch.release(mark);
+			scratch.selections.put(attributes, selection);
+		}
+		for (var index : selection) {
+			if (index != excludedIndex) {
+				scratch.push(index);
+			}
+		}
+	}
+
+	private boolean tryMatch(int policyIndex, String description, Attributes attributes1, Attributes attributes2) {
+		boolean matchResult = matcher.match(attributes1, attributes2);
+		if (tracing) {
+			trace.add(String.format("policy %d: %s match(%s, %s) -> %s",
+				policyIndex, description, attributes1, attributes2, matchResult));
+		}
+		return matchResult;
 	}
 
-	private boolean tryMatch(String prefix, String description, Attributes attributes1, Attributes attributes2) {
+	private boolean tryMatch(int policyIndex, int ruleIndex, String description, Attributes attributes1, Attributes attributes2) {
 		boolean matchResult = matcher.match(attributes1, attributes2);
-		trace.add(String.format("%s: %s match(%s, %s) -> %s",
-			prefix, description, attributes1, attributes2, matchResult));
+		if (tracing) {
+			trace.add(String.format("%s: %s match(%s, %s) -> %s",
+				traceForRule(policyIndex, ruleIndex), description, attributes1, attributes2, matchResult));
+		}
 		return matchResult;
 	}
 
-	private Result evaluate(int policyIndex, Policy policy, Request request, Set<Request> requests) {
-		return evaluate(policyIndex, policy.rules(), request, requests);
+	private Result evaluatePolicy(int policyIndex, Request request, EvaluationScratch scratch) {
+		if (scratch.dependencies != null) {
+			scratch.dependencies.evaluated(policyIndex);
+		}
+		// resolved once, instead of looking the policy up for each rule
+		var frozenRules = scratch.policies.frozenRules(policyIndex);
+		var rules = frozenRules != null ? frozenRules.rules() : scratch.policies.getByIndex(policyIndex).rules();
+		if (flameGraphRecorder == null) {
+			return evaluate(policyIndex, rules, frozenRules, request, scratch);
+		}
+		flameGraphRecorder.enter("policy " + policyIndex);
+		try {
+			return evaluate(policyIndex, rules, frozenRules, request, scratch);
+		} finally {
+			flameGraphRecorder.exit();
+		}
+	}
+
+	private Result evaluate(int policyIndex, Rules rules, FrozenRules frozenRules, Request request,
+			EvaluationScratch scratch) {
+		// the trace reports every rule, so the rule index is used only without tracing
+		var candidates = tracing || frozenRules == null ? null : frozenRules.candidates(request.resource());
+		if (candidates != null) {
+			for (var ruleIndex : candidates) {
+				var result = evaluate(policyIndex, ruleIndex, rules.getByIndex(ruleIndex), frozenRules, request, scratch);
+				if (result.isPermitted()) {
+					return result;
+				}
+			}
+			return DENIED;
+		}
+		var size = rules.size();
+		for (int ruleIndex = 1; ruleIndex <= size; ruleIndex++) {
+			var result = evaluate(policyIndex, ruleIndex, rules.getByIndex(ruleIndex), frozenRules, request, scratch);
+			if (result.isPermitted()) {
+				return result;
+			}
+		}
+		return DENIED;
 	}
 
-	private Result evaluate(int policyIndex, Rules rules, Request request, Set<Request> requests) {
-		return rules.getRuleData()
-			.map(r -> evaluate(policyIndex, r.index(), r.rule(), request, requests))
-			.filter(Result::isPermitted)
-			.findFirst()
-			.orElse(DENIED);
+	private Result evaluate(int policyIndex, int ruleIndex, Rule rule, FrozenRules frozenRules, Request request,
+			EvaluationScratch scratch) {
+		if (flameGraphRecorder == null) {
+			return evaluateRule(policyIndex, ruleIndex, rule, frozenRules, request, scratch);
+		}
+		flameGraphRecorder.enter(traceForRule(policyIndex, ruleIndex));
+		try {
+			return evaluateRule(policyIndex, ruleIndex, rule, frozenRules, request, scratch);
+		} finally {
+			flameGraphRecorder.exit();
+		}
 	}
 
-	private Result evaluate(int policyIndex, int ruleIndex, Rule rule, Request request, Set<Request> requests) {
-		trace.addAndThenIndent(String.format("policy %d: evaluating %s",
-				policyIndex, request));
+	private Result evaluateRule(int policyIndex, int ruleIndex, Rule rule, FrozenRules frozenRules, Request request,
+			EvaluationScratch scratch) {
+		if (tracing) {
+			trace.addAndThenIndent(String.format("policy %d: evaluating %s",
+					policyIndex, request));
+		}
 		try {
-			boolean outcome = tryMatch(traceForRule(policyIndex, ruleIndex), "resource", request.resource(), rule.getResource());
+			boolean outcome = tryMatch(policyIndex, ruleIndex, "resource", request.resource(), rule.getResource());
+			if (ruleProfiler != null) {
+				ruleProfiler.resourceTested(policyIndex, ruleIndex, outcome);
+			}
 			if (!outcome) {
 				return DENIED;
 			}
-			outcome = rule.getCondition().evaluate(
-				new NameResolverImplementation(request, contextHandler, policies));
-			trace.add(String.format("%s: condition %s -> %s", traceForRule(policyIndex, ruleIndex), rule.getCondition(), outcome));
+			// a constant true condition needs neither a name resolver nor a call
+			outcome = rule.hasTrueCondition()
+				|| evaluateCondition(policyIndex, ruleIndex, conditionOf(rule, ruleIndex, frozenRules), request, scratch);
+			if (tracing) {
+				trace.add(String.format("%s: condition %s -> %s", traceForRule(policyIndex, ruleIndex), rule.getCondition(), outcome));
+			}
 			if (!outcome) {
 				return DENIED;
 			}
-			var result = evaluateExchange(policyIndex, ruleIndex, rule.getExchange(), request, requests);
+			if (!rule.hasExchange()) {
+				return permitted(policyIndex, ruleIndex, request, Collections.emptyList());
+			}
+			if (ruleProfiler != null) {
+				ruleProfiler.exchangeExpanded(policyIndex, ruleIndex);
+			}
+			var result = evaluateExchange(policyIndex, ruleIndex, rule.getExchange(), request, scratch);
 			if (result.isPermitted()) {
-				return Result.permitted()
-						.add(request)
-						.addAll(result.getRequests());
+				return permitted(policyIndex, ruleIndex, request, result.getRequests());
 			}
 			return result;
 		} catch (Exception e) {
-			trace.add(String.format("%s: condition %s -> %s", traceForRule(policyIndex, ruleIndex), rule.getCondition(), e.getMessage()));
+			if (tracing) {
+				trace.add(String.format("%s: condition %s -> %s", traceForRule(policyIndex, ruleIndex), rule.getCondition(), e.getMessage()));
+			}
 			return DENIED;
 		} finally {
-			trace.removeIndent();
+			if (tracing) {
+				trace.removeIndent();
+			}
+		}
+	}
+
+	private Result permitted(int policyIndex, int ruleIndex, Request request, Collection<Request> exchangeRequests) {
+		if (ruleProfiler != null) {
+			ruleProfiler.permitted(policyIndex, ruleIndex);
+		}
+		return Result.permitted()
+				.add(request)
+				.addAll(exchangeRequests);
+	}
+
+	/**
+	 * @return the compiled condition of the rule, if the policies are frozen,
+	 *         otherwise the condition of the rule as it is, as
+	 *         {@link Policies#conditionOf(int, int)}
+	 */
+	private static ExpressionCode conditionOf(Rule rule, int ruleIndex, FrozenRules frozenRules) {
+		return frozenRules != null ? frozenRules.conditionOf(ruleIndex) : rule.getCondition();
+	}
+
+	private boolean evaluateCondition(int policyIndex, int ruleIndex, ExpressionCode condition, Request request,
+			EvaluationScratch scratch) throws Exception {
+		if (condition instanceof BooleanConstant constant) {
+			// folded at freeze time: no name resolver is needed
+			return constant.value();
+		}
+		var snapshot = scratch.contextSnapshot(contextHandler, scratch.policies);
+		if (scratch.recordingReads) {
+			snapshot.recordReads();
+		}
+		var nameResolver = new NameResolverImplementation(request, snapshot);
+		if (ruleProfiler == null) {
+			return condition.evaluate(nameResolver);
+		}
+		var start = System.nanoTime();
+		try {
+			return condition.evaluate(nameResolver);
+		} finally {
+			ruleProfiler.conditionEvaluated(policyIndex, ruleIndex, System.nanoTime() - start);
+		}
+	}
+
+	private Result evaluateExchange(int policyIndex, int ruleIndex, Exchange exchange, Request request, EvaluationScratch scratch) {
+		if (flameGraphRecorder == null || exchange == null) {
+			return expandExchange(policyIndex, ruleIndex, exchange, request, scratch);
+		}
+		flameGraphRecorder.enter(switch (exchange) {
+			case OrExchange e -> "OR";
+			case AndExchange e -> "AND";
+			case SingleExchange e -> "exchange " + e.resource();
+		});
+		try {
+			return expandExchange(policyIndex, ruleIndex, exchange, request, scratch);
+		} finally {
+			flameGraphRecorder.exit();
 		}
 	}
 
-	private Result evaluateExchange(int policyIndex, int ruleIndex, Exchange exchange, Request request, Set<Request> requests) {
+	private Result expandExchange(int policyIndex, int ruleIndex, Exchange exchange, Request request, EvaluationScratch scratch) {
 		Result result;
+		var requests = scratch.requests;
 		requests.add(request);
 
 		var isComposite = exchange instanceof CompositeExchange;
 
-		if (isComposite) {
+		if (isComposite && tracing) {
 			trace.addAndThenIndent(String.format("%s: evaluating %s", traceForRule(policyIndex, ruleIndex), exchange));
 		}
 
 		switch (exchange) {
 		case OrExchange(var left, var right) -> {
-			result = evaluateExchange(policyIndex, ruleIndex, left, request, requests);
+			result = evaluateExchange(policyIndex, ruleIndex, left, request, scratch);
 			if (!result.isPermitted()) {
-				trace.addInPreviousIndent(String.format("%s: OR", traceForRule(policyIndex, ruleIndex)));
-				result = evaluateExchange(policyIndex, ruleIndex, right, request, requests);
+				if (tracing) {
+					trace.addInPreviousIndent(String.format("%s: OR", traceForRule(policyIndex, ruleIndex)));
+				}
+				result = evaluateExchange(policyIndex, ruleIndex, right, request, scratch);
 			}
 		}
 		case AndExchange(var left, var right) -> {
-			result = evaluateExchange(policyIndex, ruleIndex, left, request, requests);
+			result = evaluateExchange(policyIndex, ruleIndex, left, request, scratch);
 			if (result.isPermitted()) {
-				trace.addInPreviousIndent(String.format("%s: AND", traceForRule(policyIndex, ruleIndex)));
-				var result1 = evaluateExchange(policyIndex, ruleIndex, right, request, requests);
+				if (tracing) {
+					trace.addInPreviousIndent(String.format("%s: AND", traceForRule(policyIndex, ruleIndex)));
+				}
+				var result1 = evaluateExchange(policyIndex, ruleIndex, right, request, scratch);
 				if (result1.isPermitted()) {
 					result.addAll(result1.getRequests());
 				} else {
@@ -277,11 +1031,11 @@ public class Semantics {
 				}
 			}
 		}
-		case SingleExchange singleExchange -> result = evaluate(policyIndex, ruleIndex, singleExchange, request, requests);
+		case SingleExchange singleExchange -> result = evaluate(policyIndex, ruleIndex, singleExchange, request, scratch);
 		case null -> result = Result.permitted();
 		}
 
-		if (isComposite) {
+		if (isComposite && tracing) {
 			trace.removeIndentAndThenAdd(String.format("%s: END Exchange -> %s",
 					traceForRule(policyIndex, ruleIndex), result.isPermitted()));
 		}
@@ -291,101 +1045,114 @@ public class Semantics {
 		return result;
 	}
 
-	private Result evaluate(int policyIndex, int ruleIndex, SingleExchange exchange, Request request, Set<Request> requests) {
-		trace.add(String.format("%s: evaluating %s", traceForRule(policyIndex, ruleIndex), exchange));
+	private Result evaluate(int policyIndex, int ruleIndex, SingleExchange exchange, Request request, EvaluationScratch scratch) {
+		if (tracing) {
+			trace.add(String.format("%s: evaluating %s", traceForRule(policyIndex, ruleIndex), exchange));
+		}
 
 		var exchangeFrom = exchange.from();
 		var exchangeTo = exchange.to();
 
-		Collection<Integer> fromIndexes;
-		Collection<Integer> toIndexes;
+		// the from indexes are followed by the to indexes on the scratch arena
+		var fromMark = scratch.mark();
 
 		if (exchangeFrom.isRequester()) {
-			fromIndexes = Collections.singleton(request.requester().getIndex());
+			scratch.push(request.requester().getIndex());
 		} else {
-			fromIndexes = computeIndexes(exchangeFrom.getAttributes());
+			pushMatchingIndexes(exchangeFrom.getAttributes(), scratch);
 		}
 
+		var toMark = scratch.mark();
+
 		if (exchangeTo.isMe()) {
-			toIndexes = Collections.singleton(policyIndex);
+			scratch.push(policyIndex);
 		} else {
-			toIndexes = computeIndexes(exchangeTo.getAttributes());
+			pushMatchingIndexes(exchangeTo.getAttributes(), scratch);
 		}
 
-		if (toIndexes.isEmpty()) {
-			trace.add(String.format("%s: satisfied: no one to exchange", traceForRule(policyIndex, ruleIndex)));
-			return Result.permitted(); // there's no one to satisfy
-		}
-		// this check would be implied by the later
-		// atLeastOneRequest.hasBeenGenerated for from: all
-		// but this way we can give a more informative message
-		if (fromIndexes.isEmpty()) {
-			trace.add(String.format("%s: not satisfied: no one from exchange", traceForRule(policyIndex, ruleIndex)));
-			return DENIED; // no one can satisfy
-		}
+		var toEnd = scratch.mark();
 
-		BiPredicate<Integer, Integer> differentIndexes = (i1, i2) -> !i1.equals(i2);
+		try {
+			if (toEnd == toMark) {
+				if (tracing) {
+					trace.add(String.format("%s: satisfied: no one to exchange", traceForRule(policyIndex, ruleIndex)));
+				}
+				return Result.permitted(); // there's no one to satisfy
+			}
+			// this check would be implied by the later
+			// atLeastOneRequest check for from: all
+			// but this way we can give a more informative message
+			if (toMark == fromMark) {
+				if (tracing) {
+					trace.add(String.format("%s: not satisfied: no one from exchange", traceForRule(policyIndex, ruleIndex)));
+				}
+				return DENIED; // no one can satisfy
+			}
+			return evaluate(policyIndex, ruleIndex, exchange, fromMark, toMark, toEnd, scratch);
+		} finally {
+			scratch.release(fromMark);
+		}
+	}
 
-		Predicate<Integer> innerOperation;
+	/**
+	 * Generates and evaluates the exchange requests for the from indexes in
+	 * [fromMark, toMark) and the to indexes in [toMark, toEnd) of the scratch
+	 * arena, according to the quantifiers of the exchange participants.
+	 */
+	private Result evaluate(int policyIndex, int ruleIndex, SingleExchange exchange,
+			int fromMark, int toMark, int toEnd, EvaluationScratch scratch) {
+		var fromAll = exchange.from().isAll();
+		var toAll = exchange.to().isAll();
 
 		// to keep track of the fact that at least one inner
-		// "loop" is executed; that's required for the semantics of allMatch
-		// see below
-		var atLeastOneRequest = new Object() {
-			boolean hasBeenGenerated = false;
-		};
-
-		var successfullRequests = new ArrayList<Request>();
-		BiPredicate<Integer, Integer> innerPredicate = (fromIndex, toIndex) -> {
-			// record that at least one inner loop has been executed
-			// useful for the external allMatch case
-			// see below
-			atLeastOneRequest.hasBeenGenerated = true;
-			return collectingRequests(
-				evaluateExchangeRequest(policyIndex, ruleIndex, exchange, index(toIndex), index(fromIndex), requests),
-				successfullRequests);
-		};
-
-		if (exchangeTo.isAll()) {
-			innerOperation = fromIndex ->
-				toIndexes.stream()
-					.filter(toIndex -> differentIndexes.test(toIndex, fromIndex))
-					.allMatch(toIndex -> innerPredicate.test(fromIndex, toIndex));
-		} else {
-			innerOperation = fromIndex ->
-				toIndexes.stream()
-					.filter(toIndex -> differentIndexes.test(toIndex, fromIndex))
-					.anyMatch(toIndex -> innerPredicate.test(fromIndex, toIndex));
-		}
+		// loop iteration generated a request; that's required for the
+		// semantics of "all", which is vacuously true otherwise
+		var atLeastOneRequest = false;
 
-		var permitted = false;
+		var successfullRequests = scratch.borrowRequestBuffer();
+
+		// "all": stop at the first denied; "any": stop at the first permitted
+		var permitted = fromAll;
+		for (int i = fromMark; i < toMark && permitted == fromAll; i++) {
+			var fromIndex = scratch.get(i);
+			var innerPermitted = toAll;
+			for (int j = toMark; j < toEnd && innerPermitted == toAll; j++) {
+				var toIndex = scratch.get(j);
+				if (toIndex != fromIndex) {
+					atLeastOneRequest = true;
+					innerPermitted = collectingRequests(
+						evaluateExchangeRequest(policyIndex, ruleIndex, exchange, index(toIndex), index(fromIndex), scratch),
+						successfullRequests);
+				}
+			}
+			permitted = innerPermitted;
+		}
 
-		if (exchangeFrom.isAll()) {
-			permitted = fromIndexes.stream()
-				.allMatch(innerOperation);
-			// this additional check is required because allMatch returns
-			// true if the stream was empty
-			if (!atLeastOneRequest.hasBeenGenerated) {
+		if (fromAll && !atLeastOneRequest) {
+			if (tracing) {
 				trace.add(String.format("%s: not satisfied: no request could be generated", traceForRule(policyIndex, ruleIndex)));
-				permitted = false;
 			}
-		} else {
-			permitted = fromIndexes.stream()
-				.anyMatch(innerOperation);
+			permitted = false;
 		}
 
-		return permitted ? Result.permitted().addAll(successfullRequests) : DENIED;
+		var result = permitted ? Result.permitted().addAll(successfullRequests) : DENIED;
+		scratch.returnRequestBuffer(successfullRequests);
+		return result;
 	}
 
-	private List<Integer> computeIndexes(Attributes attributesToMatch) {
-		return policies.getPolicyData()
-				.filter(d -> {
-					var attributes1 = attributesToMatch;
-					var attributes2 = d.policy().party();
-					return tryMatch("policy " + d.index(), "from", attributes1, attributes2);
-				})
-				.map(PolicyData::index)
-				.toList();
+	/**
+	 * Pushes on the scratch index arena the indexes of all the policies whose
+	 * party attributes match the given attributes.
+	 */
+	private void pushMatchingIndexes(Attributes attributesToMatch, EvaluationScratch scratch) {
+		if (scratch.dependencies != null) {
+			scratch.dependencies.selected(attributesToMatch);
+		}
+		if (scratch.selections != null && !tracing) {
+			pushSelection(attributesToMatch, 0, scratch);
+			return;
+		}
+		pushMatchingParties(attributesToMatch, 0, scratch);
 	}
 
 	private Result evaluateExchangeRequest(int policyIndex,
@@ -393,17 +1160,33 @@ public class Semantics {
 			SingleExchange exchange,
 			IndexParticipant exchangeRequestRequester,
 			RequestFromParticipant exchangeRequestFrom,
-			Set<Request> requests) {
+			EvaluationScratch scratch) {
 		var exchangeRequest = new Request(
 			exchangeRequestRequester,
 			exchange.resource(),
 			exchangeRequestFrom);
-		if (requests.stream()
-				.anyMatch(existingRequest -> requestComply.test(exchangeRequest, existingRequest))) {
-			trace.add(String.format("%s: compliant request found %s", traceForRule(policyIndex, ruleIndex), exchangeRequest));
-			return Result.permitted();
+		for (var existingRequest : scratch.requests) {
+			if (requestComply.test(exchangeRequest, existingRequest)) {
+				if (tracing) {
+					trace.add(String.format("%s: compliant request found %s", traceForRule(policyIndex, ruleIndex), exchangeRequest));
+				}
+				return Result.permitted();
+			}
+		}
+		if (scratch.depth == scratch.maxDepth) {
+			if (tracing) {
+				trace.add(String.format("%s: not evaluated: maximum depth %d reached %s",
+					traceForRule(policyIndex, ruleIndex), scratch.maxDepth, exchangeRequest));
+			}
+			scratch.cutOff = true;
+			return DENIED;
+		}
+		scratch.depth++;
+		try {
+			return evaluate(exchangeRequest, scratch);
+		} finally {
+			scratch.depth--;
 		}
-		return evaluate(exchangeRequest, requests);
 	}
 
 	private String traceForRule(int policyIndex, int ruleIndex) {
@@ -413,10 +1196,26 @@ public class Semantics {
 	/**
 	 * Returns the {@link Trace} that records the step-by-step evaluation log of
 	 * the most recent {@link #evaluate(Request)} call.
+	 * <p>
+	 * The trace is left untouched by evaluations performed while tracing is
+	 * disabled, see {@link #tracing(boolean)}.
+	 * </p>
 	 *
 	 * @return the evaluation trace; never {@code null}
 	 */
 	public Trace getTrace() {
 		return trace;
 	}
+
+	ContextHandler getContextHandler() {
+		return contextHandler;
+	}
+
+	/**
+	 * @return the versions of the policies, or {@code null} if these
+	 *         semantics are not over {@link VersionedPolicies}
+	 */
+	VersionedPolicies getVersions() {
+		return versions;
+	}
 }
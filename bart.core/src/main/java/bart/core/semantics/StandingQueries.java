@@ -0,0 +1,183 @@
+package bart.core.semantics;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import bart.core.AttributeMatcher;
+import bart.core.ContextHandler;
+import bart.core.Policies;
+import bart.core.Request;
+import bart.core.Result;
+import bart.core.VersionedPolicies;
+
+/**
+ * Requests whose results are kept up to date while the context attributes
+ * and the policies change, notifying when their decisions flip.
+ * <p>
+ * Each evaluation records the parties whose rules it evaluated, the
+ * attributes its conditions read, see {@link Result#getReadSet()}, and the
+ * attributes it used to select parties; a change of the {@link ContextHandler} of the
+ * semantics, made through {@link ContextHandler#add(int, String, Object)} or
+ * {@link ContextHandler#remove(int)}, or a new version of the
+ * {@link VersionedPolicies} of the semantics, re-evaluates only the queries
+ * whose results may depend on it. Changes of policies that are not
+ * {@link VersionedPolicies} are not tracked.
+ * </p>
+ * <p>
+ * The queries are re-evaluated, and the callbacks are called, in the thread
+ * making the change; callbacks can register and cancel queries.
+ * </p>
+ *
+ * <p>Example:
+ * {@snippet :
+ * var semantics = new Semantics(versions).contextHandler(contextHandler);
+ * var queries = new StandingQueries(semantics);
+ * var query = queries.register(request,
+ *     q -> System.out.println(q.request() + " -> " + q.result().isPermitted()));
+ * contextHandler.add(2, "busy", true); // prints only if the decision flips
+ * }
+ * </p>
+ *
+ * @author Lorenzo Bettini
+ */
+public final class StandingQueries {
+
+	/**
+	 * A registered request and its latest result.
+	 */
+	public final class StandingQuery {
+
+		private final Request request;
+		private final Consumer<StandingQuery> onFlip;
+		private volatile Result result;
+		private Dependencies dependencies;
+
+		private StandingQuery(Request request, Consumer<StandingQuery> onFlip) {
+			this.request = request;
+			this.onFlip = onFlip;
+		}
+
+		/**
+		 * @return the registered request
+		 */
+		public Request request() {
+			return request;
+		}
+
+		/**
+		 * @return the result of the latest evaluation of the request
+		 */
+		public Result result() {
+			return result;
+		}
+
+		/**
+		 * Stops keeping the result of this query up to date.
+		 */
+		public void cancel() {
+			synchronized (StandingQueries.this) {
+				queries.remove(this);
+			}
+		}
+
+		private boolean evaluate() {
+			var previous = result;
+			dependencies = new Dependencies();
+			result = semantics.evaluate(request, dependencies);
+			return previous != null && previous.isPermitted() != result.isPermitted();
+		}
+	}
+
+	private final Semantics semantics;
+	private final ContextHandler contextHandler;
+	private final VersionedPolicies versions;
+	private final AttributeMatcher matcher = new AttributeMatcher();
+	private final List<StandingQuery> queries = new ArrayList<>();
+	private final ContextHandler.Listener contextListener = this::contextChanged;
+	private final VersionedPolicies.Listener versionListener = this::published;
+
+	/**
+	 * Creates standing queries over the given semantics, listening to the
+	 * changes of its current context handler and, if it is over
+	 * {@link VersionedPolicies}, of its policies.
+	 *
+	 * @param semantics the semantics evaluating the requests
+	 */
+	public StandingQueries(Semantics semantics) {
+		this.semantics = semantics;
+		this.contextHandler = semantics.getContextHandler();
+		this.versions = semantics.getVersions();
+		contextHandler.addListener(contextListener);
+		if (versions != null) {
+			versions.addListener(versionListener);
+		}
+	}
+
+	/**
+	 * Evaluates the given request and keeps its result up to date.
+	 *
+	 * @param request the request
+	 * @param onFlip called when a re-evaluation changes whether the request
+	 *        is permitted
+	 * @return the registered query, with the result of the request
+	 */
+	public synchronized StandingQuery register(Request request, Consumer<StandingQuery> onFlip) {
+		var query = new StandingQuery(request, onFlip);
+		query.evaluate();
+		queries.add(query);
+		return query;
+	}
+
+	/**
+	 * @return the number of registered queries
+	 */
+	public synchronized int size() {
+		return queries.size();
+	}
+
+	/**
+	 * Stops listening to the changes; the results of the queries are no
+	 * longer updated.
+	 */
+	public synchronized void close() {
+		contextHandler.removeListener(contextListener);
+		if (versions != null) {
+			versions.removeListener(versionListener);
+		}
+		queries.clear();
+	}
+
+	private synchronized void contextChanged(int partyIndex, String attributeName) {
+		reevaluate(query -> query.dependencies.dependsOnContextOf(partyIndex, attributeName));
+	}
+
+	private synchronized void published(Policies previous, Policies next, BitSet changedParties) {
+		reevaluate(query -> {
+			for (int i = changedParties.nextSetBit(1); i >= 0; i = changedParties.nextSetBit(i + 1)) {
+				var before = i <= previous.size() ? previous.party(i) : null;
+				if (query.dependencies.dependsOnPolicyOf(i, before, next.party(i), matcher)) {
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+
+	private void reevaluate(Predicate<StandingQuery> affected) {
+		var flipped = new ArrayList<StandingQuery>();
+		for (var query : queries) {
+			if (affected.test(query) && query.evaluate()) {
+				flipped.add(query);
+			}
+		}
+		for (var query : flipped) {
+			// a previous callback may have cancelled the query
+			if (queries.contains(query)) {
+				query.onFlip.accept(query);
+			}
+		}
+	}
+}
@@ -37,4 +37,48 @@ class AttributeMatcherTest {
 		assertFalse(attributeMatcher.match(attributes3, attributes2));
 	}
 
+
+	@Test
+	void shouldMatchPatterns() {
+		var rule = new Attributes()
+			.add("resource/type", AttributePattern.startsWith("document/"))
+			.add("resource/size", AttributePattern.lessThan(10))
+			.add("resource/format", AttributePattern.oneOf("PDF", "ODT"));
+		assertTrue(attributeMatcher.match(
+			new Attributes().add("resource/type", "document/report"), rule));
+		assertTrue(attributeMatcher.match(
+			new Attributes()
+				.add("resource/size", 9L)
+				.add("resource/format", "ODT"), rule));
+		assertFalse(attributeMatcher.match(
+			new Attributes().add("resource/type", "image/png"), rule));
+		assertFalse(attributeMatcher.match(
+			new Attributes()
+				.add("resource/size", 10)
+				.add("resource/format", "ODT"), rule));
+		// a pattern is also equal to itself
+		assertTrue(attributeMatcher.match(
+			new Attributes().add("resource/size", AttributePattern.lessThan(10)), rule));
+		// patterns are only recognized in the second attributes
+		assertFalse(attributeMatcher.match(rule,
+			new Attributes().add("resource/type", "document/report")));
+	}
+
+	@Test
+	void shouldMatchMembersOfMultiValues() {
+		var party = new Attributes()
+			.add("name", "Courier")
+			.addValues("city", "Lucca", "Pisa");
+		assertTrue(attributeMatcher.match(new Attributes().add("city", "Pisa"), party));
+		assertTrue(attributeMatcher.match(new Attributes()
+			.add("name", "Courier")
+			.add("city", "Lucca"), party));
+		assertTrue(attributeMatcher.match(new Attributes().addValues("city", "Pisa", "Lucca"), party));
+		assertTrue(attributeMatcher.match(new Attributes().addValues("city"), party));
+		assertFalse(attributeMatcher.match(new Attributes().add("city", "Siena"), party));
+		assertFalse(attributeMatcher.match(new Attributes().addValues("city", "Pisa", "Siena"), party));
+		// multi-values are only recognized in the second attributes
+		assertFalse(attributeMatcher.match(party,
+			new Attributes().add("name", "Courier").add("city", "Lucca")));
+	}
 }
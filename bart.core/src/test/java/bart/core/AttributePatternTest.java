@@ -0,0 +1,72 @@
+package bart.core;
+
+import static bart.core.AttributePattern.atLeast;
+import static bart.core.AttributePattern.atMost;
+import static bart.core.AttributePattern.between;
+import static bart.core.AttributePattern.greaterThan;
+import static bart.core.AttributePattern.lessThan;
+import static bart.core.AttributePattern.oneOf;
+import static bart.core.AttributePattern.startsWith;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AttributePatternTest {
+
+	@Test
+	void shouldTestRanges() {
+		assertAll(
+			() -> assertTrue(between(1, 3).test(1)),
+			() -> assertTrue(between(1, 3).test(3L)),
+			() -> assertTrue(between(1, 3).test(2.5)),
+			() -> assertFalse(between(1, 3).test(0)),
+			() -> assertFalse(between(1, 3).test(3.5)),
+			() -> assertTrue(lessThan(3).test(2)),
+			() -> assertFalse(lessThan(3).test(3)),
+			() -> assertTrue(atMost(3).test(3)),
+			() -> assertFalse(atMost(3).test(4)),
+			() -> assertTrue(greaterThan(3).test(4)),
+			() -> assertFalse(greaterThan(3).test(3)),
+			() -> assertTrue(atLeast(3).test(3)),
+			() -> assertFalse(atLeast(3).test(2)),
+			() -> assertTrue(atLeast(Long.MAX_VALUE).test(Long.MAX_VALUE)),
+			() -> assertFalse(atLeast(Long.MAX_VALUE).test(Long.MAX_VALUE - 1)),
+			() -> assertFalse(between(1, 3).test("2")),
+			() -> assertFalse(between(1, 3).test(null))
+		);
+	}
+
+	@Test
+	void shouldTestSetsAndPrefixes() {
+		assertAll(
+			() -> assertTrue(oneOf("PDF", "ODT").test("PDF")),
+			() -> assertFalse(oneOf("PDF", "ODT").test("DOC")),
+			() -> assertFalse(oneOf(1, 2).test(1L)),
+			() -> assertTrue(startsWith("doc/").test("doc/report")),
+			() -> assertTrue(startsWith("doc/").test("doc/")),
+			() -> assertFalse(startsWith("doc/").test("image/png")),
+			() -> assertFalse(startsWith("1").test(12))
+		);
+	}
+
+	@Test
+	void shouldDescribePatterns() {
+		assertEquals("[1, 3]", between(1, 3).toString());
+		assertEquals("(-inf, 3)", lessThan(3).toString());
+		assertEquals("(-inf, 3]", atMost(3).toString());
+		assertEquals("(3, +inf)", greaterThan(3).toString());
+		assertEquals("[3, +inf)", atLeast(3).toString());
+		assertEquals("{PDF, ODT}", oneOf("PDF", "ODT").toString());
+		assertEquals("doc/*", startsWith("doc/").toString());
+	}
+
+	@Test
+	void shouldBeValues() {
+		assertEquals(between(1, 3), between(1, 3));
+		assertEquals(oneOf("PDF", "ODT"), oneOf("ODT", "PDF"));
+		assertEquals(startsWith("doc/"), startsWith("doc/"));
+	}
+}
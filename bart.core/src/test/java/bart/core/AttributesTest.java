@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,4 +50,33 @@ class AttributesTest {
 		assertThat(attributes.names())
 			.containsExactlyInAnyOrder("aName", "aName1");
 	}
+
+	@Test
+	void copyShouldNotBeAffectedByFurtherAdditions() {
+		attributes.add("aName", "aValue");
+		var copy = attributes.copy();
+		attributes.add("aName1", "aValue1");
+		assertEquals("aValue", copy.name("aName"));
+		assertNull(copy.name("aName1"));
+		assertEquals(new Attributes().add("aName", "aValue"), copy);
+	}
+
+	@Test
+	void shouldAddMultiValuedAttributes() {
+		attributes.addValues("city", "Lucca", "Pisa", "Lucca");
+		assertEquals(MultiValue.of("Lucca", "Pisa"), attributes.name("city"));
+		assertEquals("[(city : {Lucca, Pisa})]", attributes.toString());
+		assertThatThrownBy(() -> attributes.addValues("city", "Siena"))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void compactShouldKeepTheOrderAndUseTheCanonicalValues() {
+		var canonical = "Lucca";
+		attributes.add("city", new String(canonical)).add("name", null);
+		var compact = attributes.compact(value -> value.equals(canonical) ? canonical : value);
+		assertEquals(attributes, compact);
+		assertEquals(attributes.toString(), compact.toString());
+		assertSame(canonical, compact.name("city"));
+	}
 }
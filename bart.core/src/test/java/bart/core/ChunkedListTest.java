@@ -0,0 +1,52 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class ChunkedListTest {
+
+	private final List<Integer> elements = IntStream.range(0, 3000).boxed().toList();
+
+	@Test
+	void shouldStoreTheElementsInOrder() {
+		var list = ChunkedList.of(elements);
+		assertEquals(elements, list);
+		assertThat(ChunkedList.of(List.of())).isEmpty();
+		assertThatThrownBy(() -> list.get(3000))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	void shouldShareTheUnchangedChunks() {
+		var list = ChunkedList.of(elements);
+		var updated = list.with(Map.of(5, -5, 2999, -2999), List.of(3000, 3001));
+		assertEquals(elements, list);
+		assertEquals(3002, updated.size());
+		assertEquals(-5, updated.get(5));
+		assertEquals(6, updated.get(6));
+		assertEquals(-2999, updated.get(2999));
+		assertEquals(3001, updated.get(3001));
+		assertFalse(updated.sharesChunk(list, 5));
+		assertTrue(updated.sharesChunk(list, 1500));
+		assertFalse(updated.sharesChunk(list, 2999));
+	}
+
+	@Test
+	void shouldAppendNewChunks() {
+		var list = ChunkedList.of(elements.subList(0, 1024));
+		var updated = list.with(Map.of(), List.of(1024));
+		assertEquals(elements.subList(0, 1025), updated);
+		assertTrue(updated.sharesChunk(list, 0));
+		assertThatThrownBy(() -> list.with(Map.of(1024, 0), List.of()))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+}
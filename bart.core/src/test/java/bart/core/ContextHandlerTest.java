@@ -1,8 +1,10 @@
 package bart.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +34,13 @@ class ContextHandlerTest {
 		var attributes = contextHandler.ofParty(1);
 		assertThat(attributes)
 			.isNotNull();
+		assertThat(attributes.isEmpty()).isTrue();
+		assertThatThrownBy(() -> attributes.add("anAttribute", "aValue"))
+			.isInstanceOf(UnsupportedOperationException.class);
+		// reading does not create the entry
+		contextHandler.add(1, "anAttribute", "aValue");
+		assertThat(attributes.isEmpty()).isTrue();
+		assertEquals("aValue", contextHandler.ofParty(1).name("anAttribute"));
 	}
 
 	@Test
@@ -42,6 +51,13 @@ class ContextHandlerTest {
 		var attributes = contextHandler.ofParty(1);
 		assertEquals("aValue2", attributes.name("anAttribute2"));
 		assertEquals("aValue1", attributes.name("anAttribute1"));
+		// the attributes are changed only through the context handler
+		assertThatThrownBy(() -> attributes.add("anAttribute3", "aValue3"))
+			.isInstanceOf(UnsupportedOperationException.class)
+			.hasMessage("use ContextHandler.add to add context attributes");
+		assertThatThrownBy(() -> attributes.addValues("anAttribute3", "aValue3"))
+			.isInstanceOf(UnsupportedOperationException.class);
+		assertThat(attributes.name("anAttribute3")).isNull();
 	}
 
 	@Test
@@ -53,4 +69,55 @@ class ContextHandlerTest {
 		assertEquals(1, attributes.name("dynamic"));
 		assertEquals(2, attributes.name("dynamic"));
 	}
+
+	@Test
+	void testRemove() {
+		contextHandler
+			.add(1, "anAttribute", "aValue1")
+			.add(2, "anAttribute", "aValue2");
+		assertThat(contextHandler.remove(1)).isSameAs(contextHandler);
+		assertThat(contextHandler.ofParty(1).isEmpty()).isTrue();
+		assertEquals("aValue2", contextHandler.ofParty(2).name("anAttribute"));
+	}
+
+	@Test
+	void testListeners() {
+		var changes = new ArrayList<String>();
+		ContextHandler.Listener listener = (partyIndex, attributeName) -> changes.add(partyIndex + " " + attributeName);
+		contextHandler
+			.addListener(listener)
+			.add(1, "anAttribute", "aValue")
+			.add(2, "dynamic", () -> "aValue")
+			.remove(1)
+			.removeListener(listener)
+			.add(3, "anAttribute", "aValue");
+		assertThat(changes).containsExactly("1 anAttribute", "2 dynamic", "1 null");
+	}
+
+	@Test
+	void testListenersAddedAndRemovedConcurrently() throws InterruptedException {
+		var notified = new AtomicInteger();
+		// a listener removing itself while being notified
+		contextHandler.addListener(new ContextHandler.Listener() {
+			@Override
+			public void changed(int partyIndex, String attributeName) {
+				notified.incrementAndGet();
+				contextHandler.removeListener(this);
+			}
+		});
+		var registering = Thread.ofPlatform().start(() -> {
+			for (int i = 0; i < 1000; i++) {
+				ContextHandler.Listener listener = (partyIndex, attributeName) -> notified.incrementAndGet();
+				contextHandler.addListener(listener).removeListener(listener);
+			}
+		});
+		for (int i = 0; i < 1000; i++) {
+			contextHandler.add(1, "anAttribute" + i, i);
+		}
+		registering.join();
+		assertThat(notified.get()).isGreaterThanOrEqualTo(1);
+		notified.set(0);
+		contextHandler.add(2, "anAttribute", "aValue");
+		assertEquals(0, notified.get());
+	}
 }
@@ -0,0 +1,154 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ContextSnapshotTest {
+
+	private ContextHandler contextHandler;
+	private Policies policies;
+	private ContextSnapshot snapshot;
+
+	@BeforeEach
+	void init() {
+		contextHandler = new ContextHandler();
+		policies = new Policies()
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Alice")
+					.add("role", "Admin"),
+				new Rules()))
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Bob"),
+				new Rules()));
+		snapshot = new ContextSnapshot(contextHandler, policies);
+	}
+
+	@Test
+	void shouldPreferContextOverPartyAttributes() {
+		contextHandler.add(1, "role", "Guest");
+		assertEquals("Guest", snapshot.name(1, "role"));
+		assertEquals("Alice", snapshot.name(1, "name"));
+		assertEquals("Bob", snapshot.name(2, "name"));
+	}
+
+	@Test
+	void shouldReturnNullForUndefinedNames() {
+		assertNull(snapshot.name(1, "undefined"));
+		assertNull(snapshot.name(2, "role"));
+	}
+
+	@Test
+	void shouldCallSuppliersOnceUntilCleared() {
+		var counter = new AtomicInteger();
+		contextHandler.add(1, "dynamic", counter::incrementAndGet);
+		assertEquals(1, snapshot.name(1, "dynamic"));
+		assertEquals(1, snapshot.name(1, "dynamic"));
+		assertEquals(1, counter.get());
+		snapshot.clear();
+		assertEquals(2, snapshot.name(1, "dynamic"));
+	}
+
+	@Test
+	void shouldCacheValuesPerParty() {
+		var counter = new AtomicInteger();
+		contextHandler
+			.add(1, "dynamic", counter::incrementAndGet)
+			.add(2, "dynamic", counter::incrementAndGet);
+		assertEquals(1, snapshot.name(1, "dynamic"));
+		assertEquals(2, snapshot.name(2, "dynamic"));
+		assertEquals(1, snapshot.name(1, "dynamic"));
+		assertEquals(2, snapshot.name(2, "dynamic"));
+	}
+
+	@Test
+	void shouldCacheUndefinedNames() {
+		assertNull(snapshot.name(1, "late"));
+		// added after the first read: not seen until the snapshot is cleared
+		contextHandler.add(1, "late", "value");
+		assertNull(snapshot.name(1, "late"));
+		snapshot.clear();
+		assertEquals("value", snapshot.name(1, "late"));
+	}
+
+	@Test
+	void shouldTellWhetherItIsOverTheGivenSources() {
+		assertTrue(snapshot.isOver(contextHandler, policies));
+		assertFalse(snapshot.isOver(new ContextHandler(), policies));
+		assertFalse(snapshot.isOver(contextHandler, new Policies()));
+	}
+
+	@Test
+	void shouldShareTheCacheBetweenNamesAndHandles() {
+		var counter = new AtomicInteger();
+		contextHandler.add(2, "dynamic", counter::incrementAndGet);
+		var handle = NameHandle.of("dynamic", Integer.class);
+		assertEquals(1, snapshot.name(2, "dynamic"));
+		assertEquals(1, snapshot.name(2, handle));
+		assertEquals("Bob", snapshot.name(2, NameHandle.of("name", String.class)));
+		policies.freeze();
+		assertEquals("Alice", snapshot.name(1, NameHandle.of("name", String.class)));
+		assertEquals(1, counter.get());
+	}
+
+	@Test
+	void shouldClearAllThePartiesReadSinceTheLastClear() {
+		var counter = new AtomicInteger();
+		contextHandler
+			.add(1, "dynamic", counter::incrementAndGet)
+			.add(2, "dynamic", counter::incrementAndGet);
+		for (int round = 0; round < 3; round++) {
+			snapshot.name(1, "dynamic");
+			snapshot.name(2, "dynamic");
+			snapshot.clear();
+		}
+		assertEquals(6, counter.get());
+		assertEquals(7, snapshot.name(2, "dynamic"));
+	}
+
+	@Test
+	void shouldRecordTheReadsOnlyWhenAsked() {
+		contextHandler.add(1, "role", "Guest");
+		snapshot.name(1, "role");
+		assertEquals(ReadSet.EMPTY, snapshot.readSet());
+		snapshot.clear();
+		snapshot.recordReads();
+		snapshot.name(1, "role");
+		snapshot.name(1, "role");
+		snapshot.name(2, "role");
+		snapshot.partyValue(1, "name");
+		snapshot.resourceRead(2, "type");
+		assertEquals(List.of(
+				new ReadSet.Read(1, "role", ReadSet.Source.CONTEXT),
+				new ReadSet.Read(2, "role", ReadSet.Source.PARTY),
+				new ReadSet.Read(1, "name", ReadSet.Source.PARTY),
+				new ReadSet.Read(2, "type", ReadSet.Source.RESOURCE)),
+			snapshot.readSet().reads());
+		snapshot.clear();
+		snapshot.name(1, "role");
+		assertEquals(0, snapshot.readSet().size());
+	}
+
+	@Test
+	void shouldTreatNullNamesAsUndefined() {
+		assertNull(snapshot.name(1, (String) null));
+	}
+
+	@Test
+	void shouldRejectInvalidPartyIndexes() {
+		assertThatThrownBy(() -> snapshot.name(0, "name"))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> snapshot.name(3, "name"))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+}
@@ -0,0 +1,28 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class IntListTest {
+
+	@Test
+	void shouldGrowAndSortDistinctElements() {
+		var list = new IntList();
+		assertThat(list.toSortedDistinctArray()).isEmpty();
+		for (int i = 20; i > 0; i--) {
+			list.add(i % 10);
+		}
+		list.addAll(new int[] { 42, 3 });
+		assertEquals(22, list.size());
+		assertThat(list.toSortedDistinctArray()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 42);
+	}
+
+	@Test
+	void shouldKeepAlreadyDistinctElements() {
+		var list = new IntList();
+		list.addAll(new int[] { 3, 1, 2 });
+		assertThat(list.toSortedDistinctArray()).containsExactly(1, 2, 3);
+	}
+}
@@ -0,0 +1,62 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.IntervalTree.Interval;
+
+class IntervalTreeTest {
+
+	@Test
+	void shouldFindTheIntervalsContainingAPoint() {
+		var tree = new IntervalTree(List.of(
+			new Interval(0, 10, 1),
+			new Interval(5, 15, 2),
+			new Interval(20, 30, 3),
+			new Interval(Double.NEGATIVE_INFINITY, 0, 4),
+			new Interval(25, Double.POSITIVE_INFINITY, 5)));
+		assertThat(stab(tree, -100)).containsExactly(4);
+		assertThat(stab(tree, 0)).containsExactly(1, 4);
+		assertThat(stab(tree, 7)).containsExactly(1, 2);
+		assertThat(stab(tree, 15)).containsExactly(2);
+		assertThat(stab(tree, 17)).isEmpty();
+		assertThat(stab(tree, 26)).containsExactly(3, 5);
+		assertThat(stab(tree, 1000)).containsExactly(5);
+	}
+
+	@Test
+	void shouldWorkWhenEmpty() {
+		assertThat(stab(new IntervalTree(List.of()), 1)).isEmpty();
+	}
+
+	@Test
+	void shouldAgreeWithALinearScan() {
+		var random = new Random(42);
+		var intervals = new ArrayList<Interval>();
+		for (int i = 0; i < 200; i++) {
+			var low = random.nextInt(1000);
+			intervals.add(new Interval(low, low + random.nextInt(100), i));
+		}
+		var tree = new IntervalTree(intervals);
+		for (int point = -10; point < 1110; point += 3) {
+			var expected = new IntList();
+			for (var interval : intervals) {
+				if (interval.low() <= point && point <= interval.high()) {
+					expected.add(interval.id());
+				}
+			}
+			assertThat(stab(tree, point)).containsExactly(expected.toSortedDistinctArray());
+		}
+	}
+
+	private static int[] stab(IntervalTree tree, double point) {
+		var ids = new IntList();
+		tree.stab(point, ids);
+		return ids.toSortedDistinctArray();
+	}
+}
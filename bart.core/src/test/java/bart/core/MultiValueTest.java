@@ -0,0 +1,83 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MultiValueTest {
+
+	/**
+	 * Distinct values with the same hash code.
+	 */
+	private record Colliding(String value) {
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+	}
+
+	@Test
+	void shouldTestMembership() {
+		var cities = MultiValue.of("Lucca", "Pisa", "Siena");
+		assertAll(
+			() -> assertTrue(cities.contains("Lucca")),
+			() -> assertTrue(cities.contains("Siena")),
+			() -> assertFalse(cities.contains("Firenze")),
+			() -> assertFalse(cities.contains(null)),
+			() -> assertTrue(cities.test("Pisa")),
+			() -> assertFalse(cities.test("Firenze")),
+			() -> assertTrue(cities.test(MultiValue.of("Siena", "Lucca"))),
+			() -> assertTrue(cities.test(MultiValue.of())),
+			() -> assertFalse(cities.test(MultiValue.of("Siena", "Firenze"))),
+			() -> assertFalse(MultiValue.of(1, 2).contains(1L))
+		);
+	}
+
+	@Test
+	void shouldTestMembershipWithCollidingHashCodes() {
+		var values = MultiValue.of(new Colliding("a"), "b", new Colliding("c"), new Colliding("d"));
+		assertAll(
+			() -> assertTrue(values.contains(new Colliding("a"))),
+			() -> assertTrue(values.contains(new Colliding("c"))),
+			() -> assertTrue(values.contains(new Colliding("d"))),
+			() -> assertTrue(values.contains("b")),
+			() -> assertFalse(values.contains(new Colliding("e")))
+		);
+	}
+
+	@Test
+	void shouldIgnoreDuplicatesAndKeepTheInsertionOrder() {
+		var roles = MultiValue.of("User", "Admin", "User");
+		assertEquals(2, roles.size());
+		assertThat(roles.members()).containsExactly("User", "Admin");
+		assertEquals("{User, Admin}", roles.toString());
+		assertEquals("{}", MultiValue.of().toString());
+	}
+
+	@Test
+	void shouldRejectNullMembers() {
+		assertThatThrownBy(() -> MultiValue.of("User", null))
+			.isInstanceOf(NullPointerException.class)
+			.hasMessage("null member");
+	}
+
+	@Test
+	void shouldBeEqualWhenTheMembersAreTheSame() {
+		var roles = MultiValue.of("User", "Admin");
+		var same = MultiValue.of("Admin", "User");
+		assertEquals(roles, same);
+		assertEquals(roles.hashCode(), same.hashCode());
+		assertEquals(roles, roles);
+		assertNotEquals(roles, MultiValue.of("Admin"));
+		assertNotEquals(roles, MultiValue.of("Admin", "Guest"));
+		assertNotEquals(MultiValue.of("Admin"), roles);
+		assertNotEquals(roles, null);
+		assertNotEquals(roles, "User");
+	}
+}
@@ -0,0 +1,53 @@
+package bart.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+class NameHandleTest {
+
+	@Test
+	void shouldExposeNameAndType() {
+		var handle = NameHandle.of("time", Integer.class);
+		assertEquals("time", handle.name());
+		assertEquals(Integer.class, handle.type());
+		assertEquals("time", handle.toString());
+	}
+
+	@Test
+	void shouldShareSlotsBetweenHandlesWithTheSameName() {
+		var slots = new NameSlots();
+		var handle1 = NameHandle.of("shared/name", Integer.class);
+		var handle2 = NameHandle.of("shared/name", Long.class);
+		var other = NameHandle.of("other/name", Integer.class);
+		assertEquals(handle1.slotIn(slots), handle2.slotIn(slots));
+		assertEquals(handle1.slotIn(slots), slots.slotOf("shared/name"));
+		assertNotEquals(handle1.slotIn(slots), other.slotIn(slots));
+	}
+
+	@Test
+	void shouldAssignSlotsPerPolicies() {
+		var slots = new NameSlots();
+		var otherSlots = new NameSlots();
+		var handle = NameHandle.of("late/name", Integer.class);
+		slots.slotOf("first/name");
+		// the slots only grow with the names used with them
+		assertEquals(1, handle.slotIn(slots));
+		assertEquals(0, handle.slotIn(otherSlots));
+		assertEquals(1, handle.slotIn(slots));
+		assertEquals(1, slots.slotOf("late/name"));
+	}
+
+	@Test
+	void shouldBeEqualWhenNameAndTypeAreEqual() {
+		var handle = NameHandle.of("time", Integer.class);
+		assertEquals(handle, handle);
+		assertEquals(NameHandle.of("time", Integer.class), handle);
+		assertEquals(NameHandle.of("time", Integer.class).hashCode(), handle.hashCode());
+		assertNotEquals(NameHandle.of("time", Long.class), handle);
+		assertNotEquals(NameHandle.of("other", Integer.class), handle);
+		assertNotEquals(null, handle);
+		assertNotEquals("time", handle);
+	}
+}
@@ -4,6 +4,8 @@ import static bart.core.Participants.index;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -394,4 +396,129 @@ class NameResolverImplementationTest {
 			.isInstanceOf(UndefinedName.class)
 			.hasMessage("Undefined name: name");
 	}
+
+	@Test
+	void testResolversSharingASnapshotSeeTheSameLazyValue() throws UndefinedName {
+		var counter = new AtomicInteger();
+		contextHandler.add(1, "dynamic", counter::incrementAndGet);
+		var snapshot = new ContextSnapshot(contextHandler, policies);
+		var resolver1 = new NameResolverImplementation(request, snapshot);
+		var resolver2 = new NameResolverImplementation(
+			new Request(index(2), new Attributes(), index(1)), snapshot);
+		assertEquals(1, resolver1.nameFromRequester("dynamic"));
+		assertEquals(1, resolver2.name("dynamic"));
+		assertEquals(1, counter.get());
+	}
+
+	@Test
+	void testResourceAttributesAreNotCachedInTheSnapshot() throws UndefinedName {
+		var snapshot = new ContextSnapshot(contextHandler, policies);
+		var resolver1 = new NameResolverImplementation(
+			new Request(index(1), new Attributes().add("name", "fromResource"), index(2)), snapshot);
+		var resolver2 = new NameResolverImplementation(
+			new Request(index(1), new Attributes(), index(2)), snapshot);
+		assertEquals("fromResource", resolver1.name("name"));
+		assertEquals("Bob", resolver2.name("name"));
+	}
+
+	@Test
+	void testNameHandles() throws UndefinedName {
+		contextHandler
+			.add(1, "level", 3)
+			.add(2, "level", 5L)
+			.add(2, "ratio", 0.5);
+		var level = NameHandle.of("level", Number.class);
+		assertEquals(5L, resolver.get(level));
+		assertEquals(3, resolver.getFromRequester(level));
+		assertEquals(5, resolver.getInt(level));
+		assertEquals(5L, resolver.getLong(level));
+		assertEquals(0.5, resolver.getDouble(NameHandle.of("ratio", Double.class)));
+		assertEquals("printer", resolver.get(NameHandle.of("resource/type", String.class)));
+		assertEquals("Bob", resolver.get(NameHandle.of("name", String.class)));
+		policies.freeze();
+		assertEquals("Alice", resolver.getFromRequester(NameHandle.of("name", String.class)));
+	}
+
+	@Test
+	void testNumericNameHandlesOfFrozenPartyAttributes() throws UndefinedName {
+		var frozen = new Policies()
+			.add(new Policy(new Attributes().add("level", 7).add("ratio", 2.75f), new Rules()))
+			.add(new Policy(new Attributes().add("level", 1L << 40).add("ratio", 0.5).add("name", "Bob"),
+				new Rules()))
+			.freeze();
+		contextHandler.add(2, "ratio", 10);
+		var snapshot = new ContextSnapshot(contextHandler, frozen);
+		var fromFirst = new NameResolverImplementation(new Request(index(2), new Attributes(), index(1)), snapshot);
+		var fromSecond = new NameResolverImplementation(new Request(index(1), new Attributes(), index(2)), snapshot);
+		var level = NameHandle.of("level", Number.class);
+		var ratio = NameHandle.of("ratio", Number.class);
+		assertEquals(7, fromFirst.getInt(level));
+		assertEquals(7L, fromFirst.getLong(level));
+		assertEquals(7.0, fromFirst.getDouble(level));
+		assertEquals(2, fromFirst.getInt(ratio));
+		assertEquals(2.75, fromFirst.getDouble(ratio));
+		// the numbers read unboxed are the same as the boxed ones
+		assertEquals(7, fromFirst.get(level));
+		assertEquals(2.75f, fromFirst.get(ratio));
+		assertEquals(Long.valueOf(1L << 40).intValue(), fromSecond.getInt(level));
+		assertEquals(1L << 40, fromSecond.getLong(level));
+		// the context comes before the party attributes
+		assertEquals(10, fromSecond.getInt(ratio));
+		assertEquals(10.0, fromSecond.getDouble(ratio));
+		assertThatThrownBy(() -> fromSecond.getInt(NameHandle.of("name", Integer.class)))
+			.isInstanceOf(ClassCastException.class);
+		assertThatThrownBy(() -> fromSecond.getLong(NameHandle.of("nonexistent", Long.class)))
+			.isInstanceOf(UndefinedName.class);
+	}
+
+	@Test
+	void testNameHandlesUndefinedAndWrongType() {
+		assertThatThrownBy(() -> resolver.get(NameHandle.of("nonexistent", String.class)))
+			.isInstanceOf(UndefinedName.class)
+			.hasMessage("Undefined name: nonexistent");
+		assertThatThrownBy(() -> resolver.getFromRequester(NameHandle.of("nonexistent", String.class)))
+			.isInstanceOf(UndefinedName.class)
+			.hasMessage("Undefined name: nonexistent");
+		assertThatThrownBy(() -> resolver.getInt(NameHandle.of("name", Integer.class)))
+			.isInstanceOf(ClassCastException.class);
+	}
+
+	@Test
+	void testDefaultNameHandleMethodsDelegateToStringNames() throws UndefinedName {
+		NameResolver delegating = new NameResolver() {
+			@Override
+			public Object name(String name) throws UndefinedName {
+				return resolver.name(name);
+			}
+			@Override
+			public <T> T name(String name, Class<T> clazz) throws UndefinedName {
+				return resolver.name(name, clazz);
+			}
+			@Override
+			public Object nameFromRequester(String name) throws UndefinedName {
+				return resolver.nameFromRequester(name);
+			}
+			@Override
+			public <T> T nameFromRequester(String name, Class<T> clazz) throws UndefinedName {
+				return resolver.nameFromRequester(name, clazz);
+			}
+			@Override
+			public Object nameFromParty(String name, Attributes attributes) throws UndefinedName {
+				return resolver.nameFromParty(name, attributes);
+			}
+			@Override
+			public <T> T nameFromParty(String name, Attributes attributes, Class<T> clazz) throws UndefinedName {
+				return resolver.nameFromParty(name, attributes, clazz);
+			}
+		};
+		contextHandler.add(1, "level", 3).add(2, "level", 5);
+		var level = NameHandle.of("level", Integer.class);
+		assertEquals(5, delegating.get(level));
+		assertEquals(3, delegating.getFromRequester(level));
+		assertEquals(5, delegating.getInt(level));
+		assertEquals(5L, delegating.getLong(level));
+		assertEquals(5.0, delegating.getDouble(level));
+		assertThatThrownBy(() -> delegating.get(NameHandle.of("name", Integer.class)))
+			.isInstanceOf(ClassCastException.class);
+	}
 }
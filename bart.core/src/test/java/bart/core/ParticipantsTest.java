@@ -0,0 +1,32 @@
+package bart.core;
+
+import static bart.core.Participants.index;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class ParticipantsTest {
+
+	@Test
+	void shouldCacheIndexParticipants() {
+		assertSame(index(1), index(1));
+		assertEquals(1, index(1).getIndex());
+		// beyond the initial cache size
+		assertSame(index(1000), index(1000));
+		assertEquals(1000, index(1000).getIndex());
+		assertSame(index(65536), index(65536));
+		assertEquals(65536, index(65536).getIndex());
+		// indexes cached before growing are preserved
+		assertSame(index(1), index(1));
+	}
+
+	@Test
+	void shouldNotCacheIndexesOutOfRange() {
+		assertNotSame(index(65537), index(65537));
+		assertEquals(index(65537), index(65537));
+		assertNotSame(index(-1), index(-1));
+		assertEquals(-1, index(-1).getIndex());
+	}
+}
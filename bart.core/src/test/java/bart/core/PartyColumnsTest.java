@@ -0,0 +1,111 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PartyColumnsTest {
+
+	private PartyColumns columns;
+
+	@BeforeEach
+	void init() {
+		columns = new PartyColumns(List.of(
+			new Policy(new Attributes() // 1
+				.add("name", "Alice")
+				.addValues("city", "Lucca", "Pisa"), new Rules()),
+			new Policy(new Attributes() // 2
+				.add("name", "Bob")
+				.add("city", "Lucca"), new Rules()),
+			new Policy(new Attributes() // 3
+				.add("name", "Carol")
+				.add("city", AttributePattern.startsWith("Pi")), new Rules()),
+			new Policy(new Attributes() // 4
+				.add("name", "Dave")
+				.add("city", null), new Rules())));
+	}
+
+	@Test
+	void shouldSelectExactlyTheMatchingParties() {
+		assertThat(bits(columns.matching(new Attributes().add("city", "Lucca"))))
+			.containsExactly(1, 2);
+		assertThat(bits(columns.matching(new Attributes().add("city", "Pisa"))))
+			.containsExactly(1, 3);
+		assertThat(bits(columns.matching(new Attributes().add("city", "Siena"))))
+			.isEmpty();
+		assertThat(bits(columns.matching(new Attributes().addValues("city", "Pisa", "Lucca"))))
+			.containsExactly(1);
+		assertThat(bits(columns.matching(new Attributes()
+			.add("name", "Bob")
+			.add("city", "Lucca")))).containsExactly(2);
+		assertThat(bits(columns.matching(new Attributes().add("role", "Admin"))))
+			.isEmpty();
+	}
+
+	@Test
+	void shouldMatchNullValuesAndEmptySelectors() {
+		assertThat(bits(columns.matching(new Attributes())))
+			.containsExactly(1, 2, 3, 4);
+		assertThat(bits(columns.matching(new Attributes().add("city", null))))
+			.containsExactly(4);
+		assertThat(bits(columns.matching(new Attributes().add("role", null))))
+			.containsExactly(1, 2, 3, 4);
+		assertThat(bits(new PartyColumns(List.of()).matching(new Attributes())))
+			.isEmpty();
+	}
+
+	@Test
+	void shouldAgreeWithTheMatcher() {
+		var random = new Random(13);
+		var matcher = new AttributeMatcher();
+		// sizes around the 64 parties of a word
+		for (var size : new int[] { 1, 63, 64, 65, 127, 128, 300 }) {
+			var policies = new ArrayList<Policy>();
+			for (int i = 0; i < size; i++) {
+				var party = new Attributes();
+				switch (random.nextInt(4)) {
+				case 0 -> party.add("city", "c" + random.nextInt(8));
+				case 1 -> party.addValues("city", "c" + random.nextInt(8), "c" + random.nextInt(8));
+				case 2 -> party.add("city", AttributePattern.oneOf("c" + random.nextInt(8), "c" + random.nextInt(8)));
+				default -> { }
+				}
+				if (random.nextBoolean()) {
+					party.add("level", random.nextInt(3));
+				}
+				policies.add(new Policy(party, new Rules()));
+			}
+			var partyColumns = new PartyColumns(policies);
+			for (int i = 0; i < 100; i++) {
+				var selector = new Attributes();
+				switch (random.nextInt(4)) {
+				case 0 -> selector.add("city", "c" + random.nextInt(10));
+				case 1 -> selector.addValues("city", "c" + random.nextInt(10), "c" + random.nextInt(10));
+				case 2 -> selector.add("city", null);
+				default -> { }
+				}
+				if (random.nextBoolean()) {
+					selector.add("level", random.nextInt(4));
+				}
+				var expected = new BitSet();
+				for (int p = 1; p <= size; p++) {
+					if (matcher.match(selector, policies.get(p - 1).party())) {
+						expected.set(p);
+					}
+				}
+				assertThat(partyColumns.matching(selector))
+					.as("%s among %d parties", selector, size)
+					.isEqualTo(expected);
+			}
+		}
+	}
+
+	private static List<Integer> bits(BitSet bitSet) {
+		return bitSet.stream().boxed().toList();
+	}
+}
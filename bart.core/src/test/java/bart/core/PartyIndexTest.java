@@ -0,0 +1,116 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PartyIndexTest {
+
+	private PartyIndex index;
+
+	@BeforeEach
+	void init() {
+		index = new PartyIndex(List.of(
+			new Policy(new Attributes() // 1
+				.add("name", "Alice")
+				.addValues("city", "Lucca", "Pisa"), new Rules()),
+			new Policy(new Attributes() // 2
+				.add("name", "Bob")
+				.add("city", "Lucca"), new Rules()),
+			new Policy(new Attributes() // 3
+				.add("name", "Carol")
+				.add("city", AttributePattern.startsWith("Pi")), new Rules()),
+			new Policy(new Attributes() // 4
+				.add("name", "Dave"), new Rules())));
+	}
+
+	@Test
+	void shouldSelectThePartiesWithTheValueOrAMultiValueContainingIt() {
+		// patterns are always candidates
+		assertThat(bits(index.candidates(new Attributes().add("city", "Lucca"))))
+			.containsExactly(1, 2, 3);
+		assertThat(bits(index.candidates(new Attributes().add("city", "Pisa"))))
+			.containsExactly(1, 3);
+		assertThat(bits(index.candidates(new Attributes().add("city", "Siena"))))
+			.containsExactly(3);
+		assertThat(bits(index.candidates(new Attributes()
+			.add("name", "Bob")
+			.add("city", "Lucca")))).containsExactly(2);
+		assertThat(bits(index.candidates(new Attributes()
+			.add("name", "Dave")
+			.add("city", "Lucca")))).isEmpty();
+		assertThat(bits(index.candidates(new Attributes().add("role", "Admin"))))
+			.isEmpty();
+	}
+
+	@Test
+	void shouldSelectThePartiesWithAllTheMembers() {
+		assertThat(bits(index.candidates(new Attributes().addValues("city", "Pisa", "Lucca"))))
+			.containsExactly(1, 3);
+		assertThat(bits(index.candidates(new Attributes().addValues("city", "Lucca", "Siena"))))
+			.containsExactly(3);
+		assertThat(bits(index.candidates(new Attributes().addValues("name", "Alice", "Bob"))))
+			.isEmpty();
+	}
+
+	@Test
+	void shouldNotRestrictCandidatesForEmptySelectorsAndNullValues() {
+		assertNull(index.candidates(new Attributes()));
+		assertNull(index.candidates(new Attributes().add("city", null)));
+		assertNull(index.candidates(new Attributes().addValues("city")));
+		assertThat(bits(index.candidates(new Attributes()
+			.addValues("city")
+			.add("name", "Carol")))).containsExactly(3);
+	}
+
+	@Test
+	void shouldSelectAllTheMatchingParties() {
+		var random = new Random(11);
+		var policies = new ArrayList<Policy>();
+		for (int i = 0; i < 200; i++) {
+			var party = new Attributes();
+			switch (random.nextInt(3)) {
+			case 0 -> party.add("city", "c" + random.nextInt(8));
+			case 1 -> party.addValues("city", "c" + random.nextInt(8), "c" + random.nextInt(8));
+			default -> { }
+			}
+			if (random.nextBoolean()) {
+				party.add("role", "r" + random.nextInt(3));
+			}
+			policies.add(new Policy(party, new Rules()));
+		}
+		var partyIndex = new PartyIndex(policies);
+		var matcher = new AttributeMatcher();
+		for (int i = 0; i < 300; i++) {
+			var selector = new Attributes();
+			switch (random.nextInt(3)) {
+			case 0 -> selector.add("city", "c" + random.nextInt(10));
+			case 1 -> selector.addValues("city", "c" + random.nextInt(10), "c" + random.nextInt(10));
+			default -> { }
+			}
+			if (random.nextBoolean()) {
+				selector.add("role", "r" + random.nextInt(4));
+			}
+			var candidates = partyIndex.candidates(selector);
+			for (int p = 1; p <= policies.size(); p++) {
+				if (matcher.match(selector, policies.get(p - 1).party())) {
+					var party = p;
+					assertThat(candidates == null || candidates.get(party))
+						.as("party %d for %s", party, selector)
+						.isTrue();
+				}
+			}
+		}
+	}
+
+	private static List<Integer> bits(BitSet bitSet) {
+		return bitSet.stream().boxed().toList();
+	}
+}
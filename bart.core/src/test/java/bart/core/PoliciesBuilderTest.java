@@ -0,0 +1,109 @@
+package bart.core;
+
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.expressions.Expressions.owner;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.semantics.Semantics;
+
+class PoliciesBuilderTest {
+
+	@Test
+	void shouldBuildFrozenPoliciesInOrder() {
+		var policies = new PoliciesBuilder(2)
+			.add(new Policy(new Attributes().add("name", "Alice"), new Rules()))
+			.addAll(List.of(
+				new Policy(new Attributes().add("name", "Bob"), new Rules()),
+				new Policy(new Attributes().add("name", "Carol"), new Rules())))
+			.build();
+		assertTrue(policies.isFrozen());
+		assertEquals(3, policies.size());
+		assertEquals(new Attributes().add("name", "Bob"), policies.getByIndex(2).party());
+		assertEquals(3, policies.firstMatching(new Attributes().add("name", "Carol")));
+		assertEquals(0, new PoliciesBuilder().build().size());
+	}
+
+	@Test
+	void shouldShareEqualAttributesAndRules() {
+		var printer = new Rule(new Attributes().add("resource/type", "printer"));
+		var policies = new PoliciesBuilder()
+			.add(new Policy( // 1
+				new Attributes().add("role", "Provider").add("city", "Lucca"),
+				new Rules().add(printer)))
+			.add(new Policy( // 2
+				new Attributes().add("role", "Provider").add("city", "Lucca"),
+				new Rules().add(printer)))
+			.add(new Policy( // 3
+				new Attributes().add("city", "Lucca").add("role", "Provider"),
+				new Rules().add(new Rule(new Attributes().add("resource/type", "printer")))))
+			.build();
+		var party1 = policies.getByIndex(1).party();
+		var party3 = policies.getByIndex(3).party();
+		assertSame(party1, policies.getByIndex(2).party());
+		// the order matters
+		assertNotSame(party1, party3);
+		assertEquals("[(city : Lucca), (role : Provider)]", party3.toString());
+		// but names and values are shared
+		assertSame(party1.name("city"), party3.name("city"));
+		assertSame(policies.getByIndex(1).rules(), policies.getByIndex(2).rules());
+		var rule1 = policies.getByIndex(1).rules().getByIndex(1);
+		var rule3 = policies.getByIndex(3).rules().getByIndex(1);
+		// rules with different instances are not shared, but their resources are
+		assertNotSame(rule1, rule3);
+		assertSame(rule1.getResource(), rule3.getResource());
+		// the rule index of shared rules is built once
+		var resource = new Attributes().add("resource/type", "printer");
+		assertSame(policies.candidateRules(1, resource), policies.candidateRules(2, resource));
+		// shared attributes cannot be modified
+		assertThrows(UnsupportedOperationException.class, () -> party1.add("name", "Alice"));
+		assertThrows(UnsupportedOperationException.class,
+			() -> rule1.getResource().addValues("resource/color", "black"));
+		assertThrows(UnsupportedOperationException.class, () -> party1.names().remove("city"));
+		assertEquals("[(role : Provider), (city : Lucca)]", policies.getByIndex(2).party().toString());
+		// but their copies can
+		assertEquals("[(role : Provider), (city : Lucca), (name : Alice)]",
+			party1.copy().add("name", "Alice").toString());
+	}
+
+	@Test
+	void shouldEvaluateAsPoliciesBuiltOneAtATime() {
+		var loaded = new ArrayList<Policy>();
+		for (int i = 0; i < 200; i++) {
+			loaded.add(new Policy(
+				new Attributes()
+					.add("name", "p" + i)
+					.addValues("city", "c" + i % 7, "c" + i % 5),
+				new Rules()
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						owner("name").isEqualTo("p" + (i % 3 == 0 ? i : -1))))));
+		}
+		var added = new Policies();
+		loaded.forEach(added::add);
+		for (var built : List.of(
+				new PoliciesBuilder(loaded.size()).addAll(loaded).build(),
+				new PoliciesBuilder().addAll(loaded).columnar(true).build())) {
+			assertEquals(added.description(), built.description());
+			for (int i = 0; i < 7; i++) {
+				var request = new Request(
+					index(1),
+					new Attributes().add("resource/type", "printer"),
+					any(new Attributes().add("city", "c" + i)));
+				assertEquals(
+					new Semantics(added).evaluate(request).isPermitted(),
+					new Semantics(built).tracing(false).evaluate(request).isPermitted(),
+					request.toString());
+			}
+		}
+	}
+}
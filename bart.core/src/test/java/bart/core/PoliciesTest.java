@@ -0,0 +1,290 @@
+package bart.core;
+
+import static bart.core.expressions.Expressions.and;
+import static bart.core.expressions.Expressions.from;
+import static bart.core.expressions.Expressions.owner;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PoliciesTest {
+
+	private Policies policies;
+
+	@BeforeEach
+	void init() {
+		policies = new Policies()
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Alice")
+					.add("role", "Admin"),
+				new Rules()))
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Bob")
+					.add("role", "User"),
+				new Rules()))
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Carol")
+					.add("role", "User"),
+				new Rules()));
+	}
+
+	@Test
+	void shouldFindTheFirstMatchingParty() {
+		assertEquals(1, policies.firstMatching(new Attributes().add("role", "Admin")));
+		assertEquals(2, policies.firstMatching(new Attributes().add("role", "User")));
+		assertEquals(3, policies.firstMatching(new Attributes().add("name", "Carol")));
+		// the empty selector matches everything
+		assertEquals(1, policies.firstMatching(new Attributes()));
+	}
+
+	@Test
+	void shouldCacheTheFirstMatchingPartyOnlyOnceFrozen() {
+		var party = new Attributes().add("name", "Dave");
+		policies.add(new Policy(party, new Rules()));
+		var guest = new Attributes().add("role", "Guest");
+		assertEquals(0, policies.firstMatching(guest));
+		// the parties of policies not frozen yet may still change
+		party.add("role", "Guest");
+		assertEquals(4, policies.firstMatching(guest));
+		policies.freeze();
+		assertEquals(4, policies.firstMatching(guest));
+		// the cached outcome, for an equal selector
+		assertEquals(4, policies.firstMatching(new Attributes().add("role", "Guest")));
+		for (int i = 0; i < 2000; i++) {
+			assertEquals(0, policies.firstMatching(new Attributes().add("name", "Guest" + i)));
+		}
+		assertEquals(4, policies.firstMatching(guest));
+	}
+
+	@Test
+	void shouldReturnZeroWhenNoPartyMatches() {
+		assertEquals(0, policies.firstMatching(new Attributes().add("role", "Guest")));
+		assertEquals(0, policies.firstMatching(new Attributes()
+			.add("role", "Admin")
+			.add("name", "Bob")));
+		assertEquals(0, new Policies().firstMatching(new Attributes()));
+	}
+
+	@Test
+	void shouldServeEqualSelectorsFromTheCache() {
+		var selector = new Attributes().add("role", "User");
+		assertEquals(2, policies.firstMatching(selector));
+		// an equal, distinct selector
+		assertEquals(2, policies.firstMatching(new Attributes().add("role", "User")));
+		// changing the selector after the lookup does not corrupt the cache
+		selector.add("name", "Carol");
+		assertEquals(3, policies.firstMatching(selector));
+		assertEquals(2, policies.firstMatching(new Attributes().add("role", "User")));
+	}
+
+	@Test
+	void shouldInvalidateTheCacheWhenAPolicyIsAdded() {
+		var selector = new Attributes().add("role", "Guest");
+		assertEquals(0, policies.firstMatching(selector));
+		policies.add(new Policy(
+			new Attributes()
+				.add("role", "Guest"),
+			new Rules()));
+		assertEquals(4, policies.firstMatching(selector));
+	}
+
+	@Test
+	void shouldReportSizeAndIndexes() {
+		assertEquals(3, policies.size());
+		assertEquals("Bob", policies.getByIndex(2).party().name("name"));
+	}
+
+	@Test
+	void shouldRejectAdditionsWhenFrozen() {
+		assertFalse(policies.isFrozen());
+		assertSame(policies, policies.freeze());
+		assertTrue(policies.isFrozen());
+		assertSame(policies, policies.freeze());
+		assertThatThrownBy(() -> policies.add(new Policy(new Attributes(), new Rules())))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("policies are frozen");
+		assertEquals(3, policies.size());
+		// the frozen structures index the rules, which must not change
+		var rules = policies.getByIndex(1).rules();
+		var size = rules.size();
+		assertThatThrownBy(() -> rules.add(new Rule(new Attributes())))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("rules are frozen");
+		assertEquals(size, rules.size());
+	}
+
+	@Test
+	void shouldResolvePartyValuesBeforeAndAfterFreezing() {
+		var name = NameHandle.of("name", String.class);
+		var undefined = NameHandle.of("policies/test/undefined", String.class);
+		assertEquals("Bob", policies.partyValue(2, "name", policies.slotOf(name)));
+		assertNull(policies.partyValue(2, undefined.name(), policies.slotOf(undefined)));
+		policies.freeze();
+		assertEquals("Bob", policies.partyValue(2, "name", policies.slotOf(name)));
+		assertEquals("Admin", policies.partyValue(1, "role", policies.slotOf("role")));
+		assertNull(policies.partyValue(2, undefined.name(), policies.slotOf(undefined)));
+		// a name whose slot was assigned after freezing
+		var later = NameHandle.of("policies/test/later", String.class);
+		assertNull(policies.partyValue(3, later.name(), policies.slotOf(later)));
+		assertThatThrownBy(() -> policies.partyValue(0, "name", policies.slotOf(name)))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> policies.partyValue(4, "name", policies.slotOf(name)))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	void shouldCompileConditionsWhenFrozen() {
+		var opaque = new ExpressionWithDescription(c -> true, "opaque");
+		var expression = and(owner("role").isEqualTo("Guest"), from("time").lessThan(18));
+		var frozen = new Policies()
+			.add(new Policy(
+				new Attributes()
+					.add("role", "Guest"),
+				new Rules()
+					.add(new Rule(new Attributes(), opaque))
+					.add(new Rule(new Attributes(), expression))));
+		assertSame(opaque, frozen.conditionOf(1, 1));
+		assertSame(expression, frozen.conditionOf(1, 2));
+		assertNull(frozen.frozenRules(1));
+		frozen.freeze();
+		assertSame(opaque, frozen.conditionOf(1, 1));
+		assertEquals(from("time").lessThan(18), frozen.conditionOf(1, 2));
+		// the same structures, resolved once for the policy
+		var frozenRules = frozen.frozenRules(1);
+		assertSame(frozen.getByIndex(1).rules(), frozenRules.rules());
+		assertSame(frozen.conditionOf(1, 1), frozenRules.conditionOf(1));
+		assertSame(frozen.conditionOf(1, 2), frozenRules.conditionOf(2));
+		assertSame(frozen.candidateRules(1, new Attributes()), frozenRules.candidates(new Attributes()));
+		assertThatThrownBy(() -> frozenRules.conditionOf(3))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> frozen.frozenRules(2))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> frozen.conditionOf(1, 3))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> frozen.conditionOf(1, 0))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> frozen.conditionOf(2, 1))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	void shouldSelectCandidatePartiesOnlyWhenFrozen() {
+		policies.add(new Policy(
+			new Attributes()
+				.add("name", "Dave")
+				.addValues("role", "Admin", "User"),
+			new Rules()));
+		var admin = new Attributes().add("role", "Admin");
+		assertNull(policies.candidateParties(admin));
+		policies.freeze();
+		assertEquals(BitSet.valueOf(new long[] { 0b10010 }), policies.candidateParties(admin));
+		assertEquals(1, policies.firstMatching(admin));
+		assertEquals(4, policies.firstMatching(new Attributes().addValues("role", "User", "Admin")));
+		assertEquals(0, policies.firstMatching(new Attributes().add("role", "Guest")));
+		assertEquals(3, policies.firstMatching(new Attributes()
+			.add("name", "Carol")
+			.add("role", "User")));
+	}
+
+	@Test
+	void shouldSelectExactlyTheMatchingPartiesWhenColumnar() {
+		policies.add(new Policy(
+			new Attributes()
+				.add("name", "Dave")
+				.addValues("role", "Admin", "User"),
+			new Rules()));
+		var admin = new Attributes().add("role", "Admin");
+		policies.columnar(true).freeze();
+		assertEquals(BitSet.valueOf(new long[] { 0b10010 }), policies.candidateParties(admin));
+		assertEquals(BitSet.valueOf(new long[] { 0b10000 }),
+			policies.candidateParties(new Attributes().addValues("role", "User", "Admin")));
+		assertEquals(1, policies.firstMatching(admin));
+		assertEquals(0, policies.firstMatching(new Attributes().add("role", "Guest")));
+		assertThatThrownBy(() -> policies.columnar(false))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("policies are frozen");
+	}
+
+	@Test
+	void shouldShareTheRuleIndexOfSharedRulesWhenFrozen() {
+		var rules = new Rules().add(new Rule(new Attributes().add("resource/type", "printer")));
+		var resource = new Attributes().add("resource/type", "printer");
+		policies.add(new Policy(new Attributes().add("name", "Dave"), rules))
+			.add(new Policy(new Attributes().add("name", "Erin"), rules))
+			.freeze();
+		assertSame(policies.candidateRules(4, resource), policies.candidateRules(5, resource));
+		assertEquals(0, policies.candidateRules(1, resource).length);
+	}
+
+	@Test
+	void shouldLoadTheRulesOfProvidedPoliciesOnDemand() {
+		var loads = new ArrayList<Integer>();
+		var partyReads = new ArrayList<Integer>();
+		var provider = new PolicyProvider() {
+			@Override
+			public int size() {
+				return policies.size();
+			}
+
+			@Override
+			public Attributes party(int partyIndex) {
+				partyReads.add(partyIndex);
+				return policies.getByIndex(partyIndex).party();
+			}
+
+			@Override
+			public Rules rules(int partyIndex) {
+				loads.add(partyIndex);
+				return new Rules().add(new Rule(
+					new Attributes().add("resource/type", "printer"),
+					owner("role").isEqualTo("Admin")));
+			}
+		};
+		var provided = Policies.of(provider, 2);
+		assertTrue(provided.isFrozen());
+		assertEquals(3, provided.size());
+		assertEquals(2, provided.firstMatching(new Attributes().add("role", "User")));
+		assertEquals("Carol", provided.party(3).name("name"));
+		assertNull(provided.candidateParties(new Attributes().add("role", "User")));
+		assertThat(loads).isEmpty();
+		var resource = new Attributes().add("resource/type", "printer");
+		assertEquals("true", provided.conditionOf(1, 1).toString());
+		assertEquals("false", provided.conditionOf(2, 1).toString());
+		assertEquals(1, provided.candidateRules(2, resource).length);
+		assertEquals(List.of(1, 2), loads);
+		provided.getByIndex(1);
+		provided.getByIndex(3);
+		// party 2 is evicted, as the least recently used one
+		provided.getByIndex(2);
+		assertEquals(List.of(1, 2, 3, 2), loads);
+		// the party attributes are decoded once while they are kept, and
+		// party 3 is evicted, as the least recently read one
+		partyReads.clear();
+		assertEquals("Admin", provided.partyValue(1, "role", provided.slotOf("role")));
+		assertEquals("Bob", provided.party(2).name("name"));
+		assertEquals("Admin", provided.party(1).name("role"));
+		assertEquals("Carol", provided.party(3).name("name"));
+		assertEquals(List.of(1, 3), partyReads);
+		assertThatThrownBy(() -> provided.add(new Policy(new Attributes(), new Rules())))
+			.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> provided.party(4))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> Policies.of(provider, 0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("maxLoadedParties must be at least 1: 0");
+	}
+}
@@ -0,0 +1,220 @@
+package bart.core;
+
+import static bart.core.Participants.all;
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static bart.core.expressions.Expressions.from;
+import static bart.core.expressions.Expressions.not;
+import static bart.core.expressions.Expressions.or;
+import static bart.core.expressions.Expressions.owner;
+import static bart.core.expressions.Expressions.party;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bart.core.expressions.Expressions;
+import bart.core.semantics.Semantics;
+
+class PolicySnapshotTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void shouldOpenThePoliciesItWrote() throws IOException {
+		ExpressionCode workingHours = context -> true;
+		var policies = new Policies()
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Alice è")
+					.add("level", 3)
+					.add("id", 3000000000L)
+					.add("score", 2.5)
+					.add("active", true)
+					.add("banned", false)
+					.add("nickname", null)
+					.addValues("cities", "Lucca", "Pisa")
+					.add("prefix", AttributePattern.startsWith("doc/"))
+					.add("set", AttributePattern.oneOf("PDF", 1))
+					.add("range", AttributePattern.between(1, 3.5))
+					.add("low", AttributePattern.atMost(10)),
+				new Rules()
+					.add(new Rule(new Attributes().add("type", "addrInfo")))
+					.add(new Rule(
+						new Attributes().add("type", "stats"),
+						or(
+							Expressions.and(
+								Expressions.requester("level").greaterThanOrEqualTo(3),
+								not(from("busy").isEqualTo(true))),
+							owner("name").isNotEqualTo(null),
+							party(new Attributes().add("role", "Admin"), "d").isEqualTo(4)),
+						new AndExchange(
+							new SingleExchange(index(1), new Attributes().add("type", "addrInfo"),
+								any(new Attributes().add("service", "delivery"))),
+							new OrExchange(
+								new SingleExchange(me(), new Attributes(), requester()),
+								new SingleExchange(all(new Attributes().add("company", "Rabbit")),
+									new Attributes(), all(new Attributes()))))))
+					.add(new Rule(
+						new Attributes(),
+						new ExpressionWithDescription(workingHours, "in working hours"),
+						new SingleExchange(me(), new Attributes(), requester())))))
+			.add(new Policy(new Attributes().add("name", "Bob"), new Rules()));
+		var file = directory.resolve("policies.snapshot");
+		PolicySnapshot.write(policies, file);
+		var opened = new PolicySnapshot()
+			.condition("in working hours", workingHours)
+			.open(file);
+		assertTrue(opened.isFrozen());
+		assertEquals(policies.description(), opened.description());
+		var alice = opened.getByIndex(1);
+		assertSame(alice, opened.getByIndex(1));
+		assertNull(alice.party().name("nickname"));
+		assertTrue(alice.party().names().contains("nickname"));
+		assertEquals(3000000000L, alice.party().name("id"));
+		var rules = alice.rules();
+		assertTrue(rules.getByIndex(1).hasTrueCondition());
+		assertEquals(policies.getByIndex(1).rules().getByIndex(2).getCondition(), rules.getByIndex(2).getCondition());
+		assertEquals("in working hours", rules.getByIndex(3).getCondition().toString());
+		assertEquals(1, opened.firstMatching(new Attributes().add("cities", "Pisa")));
+		assertEquals(2, opened.firstMatching(new Attributes().add("name", "Bob")));
+	}
+
+	@Test
+	void shouldEvaluateAsTheWrittenPolicies() throws IOException {
+		var policies = new Policies();
+		for (int i = 0; i < 300; i++) {
+			var party = new Attributes()
+				.add("name", "p" + i)
+				.addValues("city", "c" + i % 7, "c" + i % 5);
+			if (i % 11 == 0) {
+				party.add("level", AttributePattern.atLeast(i % 4));
+			} else {
+				party.add("level", i % 4);
+			}
+			policies.add(new Policy(party,
+				new Rules()
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						owner("name").isEqualTo("p" + (i % 3 == 0 ? i : -1))))
+					.add(new Rule(
+						new Attributes().add("resource/type", "scanner"),
+						new SingleExchange(me(), new Attributes().add("resource/type", "printer"),
+							any(new Attributes().add("level", 2)))))));
+		}
+		var file = directory.resolve("policies.snapshot");
+		PolicySnapshot.write(policies, file);
+		var opened = new PolicySnapshot().open(file);
+		policies.freeze();
+		var selectors = List.of(
+			new Attributes().add("city", "c3"),
+			new Attributes().addValues("city", "c1", "c2"),
+			new Attributes().add("city", "c3").add("level", 2),
+			new Attributes().add("level", 1),
+			new Attributes().add("unknown", 1),
+			new Attributes().add("name", "p10").add("level", null),
+			new Attributes());
+		for (var selector : selectors) {
+			assertEquals(policies.candidateParties(selector), opened.candidateParties(selector), selector.toString());
+		}
+		var requests = new ArrayList<Request>();
+		for (var type : List.of("printer", "scanner")) {
+			for (int i = 0; i < 7; i++) {
+				requests.add(new Request(
+					index(1),
+					new Attributes().add("resource/type", type),
+					any(new Attributes().add("city", "c" + i))));
+			}
+		}
+		for (var request : requests) {
+			assertEquals(
+				new Semantics(policies).evaluate(request).isPermitted(),
+				new Semantics(opened).tracing(false).evaluate(request).isPermitted(),
+				request.toString());
+		}
+		assertEquals(policies.description(), opened.description());
+	}
+
+	@Test
+	void shouldProvideThePoliciesItWrote() throws IOException {
+		var policies = new Policies();
+		for (int i = 0; i < 100; i++) {
+			policies.add(new Policy(
+				new Attributes().add("name", "p" + i).add("city", "c" + i % 3),
+				new Rules().add(new Rule(
+					new Attributes().add("resource/type", "printer"),
+					owner("name").isEqualTo("p" + (i % 3 == 0 ? i : -1))))));
+		}
+		var file = directory.resolve("policies.snapshot");
+		PolicySnapshot.write(policies, file);
+		var provider = new PolicySnapshot().provider(file);
+		assertEquals(100, provider.size());
+		assertEquals(policies.getByIndex(42).party(), provider.party(42));
+		assertEquals(policies.getByIndex(42).rules().toString(), provider.rules(42).toString());
+		var selector = new Attributes().add("city", "c1");
+		assertEquals(policies.freeze().candidateParties(selector), provider.candidateParties(selector));
+		var semantics = new Semantics(provider, 10).tracing(false);
+		for (int i = 0; i < 3; i++) {
+			var request = new Request(
+				index(1),
+				new Attributes().add("resource/type", "printer"),
+				any(new Attributes().add("city", "c" + i)));
+			assertEquals(
+				new Semantics(policies).evaluate(request).isPermitted(),
+				semantics.evaluate(request).isPermitted(),
+				request.toString());
+		}
+	}
+
+	@Test
+	void shouldRejectWhatCannotBeStored() {
+		var file = directory.resolve("policies.snapshot");
+		assertThatThrownBy(() -> PolicySnapshot.write(new Policies()
+				.add(new Policy(new Attributes().add("date", List.of()), new Rules())), file))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("cannot store value '[]' of class java.util.ImmutableCollections$ListN");
+		assertThatThrownBy(() -> PolicySnapshot.write(new Policies()
+				.add(new Policy(new Attributes(), new Rules().add(new Rule(new Attributes(), context -> true)))), file))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageStartingWith("cannot store condition");
+	}
+
+	@Test
+	void shouldRejectInvalidFiles() throws IOException {
+		var file = directory.resolve("policies.snapshot");
+		Files.writeString(file, "policy []\n");
+		var snapshot = new PolicySnapshot();
+		assertThatThrownBy(() -> snapshot.open(file))
+			.isInstanceOf(IOException.class)
+			.hasMessage("not a policy snapshot: " + file);
+		PolicySnapshot.write(new Policies()
+			.add(new Policy(new Attributes(), new Rules()
+				.add(new Rule(new Attributes(), new ExpressionWithDescription(context -> true, "x"), null)))),
+			file);
+		assertThatThrownBy(() -> snapshot.open(file))
+			.isInstanceOf(IOException.class)
+			.hasMessage("unknown condition \"x\"");
+	}
+
+	@Test
+	void shouldOpenEmptyPolicies() throws IOException {
+		var file = directory.resolve("policies.snapshot");
+		PolicySnapshot.write(new Policies(), file);
+		var opened = new PolicySnapshot().open(file);
+		assertEquals(0, opened.size());
+		assertEquals(0, opened.firstMatching(new Attributes().add("name", "Alice")));
+	}
+}
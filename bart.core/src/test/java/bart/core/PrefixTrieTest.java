@@ -0,0 +1,35 @@
+package bart.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+	@Test
+	void shouldFindThePrefixesOfAString() {
+		var trie = new PrefixTrie();
+		trie.add("", 1);
+		trie.add("doc", 2);
+		trie.add("doc/", 3);
+		trie.add("doc/pdf", 4);
+		trie.add("image/", 5);
+		trie.add("doc/", 6);
+		assertThat(prefixesOf(trie, "doc/pdf/a")).containsExactly(1, 2, 3, 4, 6);
+		assertThat(prefixesOf(trie, "doc/odt")).containsExactly(1, 2, 3, 6);
+		assertThat(prefixesOf(trie, "do")).containsExactly(1);
+		assertThat(prefixesOf(trie, "")).containsExactly(1);
+		assertThat(prefixesOf(trie, "image/png")).containsExactly(1, 5);
+	}
+
+	@Test
+	void shouldWorkWhenEmpty() {
+		assertThat(prefixesOf(new PrefixTrie(), "doc")).isEmpty();
+	}
+
+	private static int[] prefixesOf(PrefixTrie trie, String string) {
+		var ids = new IntList();
+		trie.prefixesOf(string, ids);
+		return ids.toSortedDistinctArray();
+	}
+}
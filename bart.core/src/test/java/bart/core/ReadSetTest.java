@@ -0,0 +1,78 @@
+package bart.core;
+
+import static bart.core.Participants.index;
+import static bart.core.expressions.Expressions.and;
+import static bart.core.expressions.Expressions.from;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.ReadSet.Read;
+import bart.core.ReadSet.Source;
+import bart.core.expressions.Expressions;
+import bart.core.semantics.Semantics;
+
+class ReadSetTest {
+
+	private final ContextHandler contextHandler = new ContextHandler();
+	private final Semantics semantics = new Semantics(new Policies()
+			.add(new Policy(new Attributes().add("name", "Alice").add("level", 3), new Rules()))
+			.add(new Policy(
+				new Attributes().add("name", "Bob"),
+				new Rules().add(new Rule(
+					new Attributes().add("resource/type", "addrInfo").add("kind", "x"),
+					and(
+						Expressions.requester("level").greaterThanOrEqualTo(3),
+						from("open").isEqualTo(true),
+						from("kind").isEqualTo("x")))))))
+		.contextHandler(contextHandler);
+
+	private final Request request = new Request(index(1),
+		new Attributes().add("resource/type", "addrInfo").add("kind", "x"), index(2));
+
+	@Test
+	void shouldRecordTheReadsOfTheConditions() {
+		contextHandler.add(2, "open", true);
+		var result = semantics.recordingReads(true).evaluate(request);
+		assertTrue(result.isPermitted());
+		var readSet = result.getReadSet();
+		assertEquals(List.of(
+				new Read(1, "level", Source.PARTY),
+				new Read(2, "open", Source.CONTEXT),
+				new Read(2, "kind", Source.RESOURCE)),
+			readSet.reads());
+		assertTrue(readSet.dependsOnContext(2, "open"));
+		assertTrue(readSet.dependsOnContext(1, "level"));
+		assertFalse(readSet.dependsOnContext(2, "kind"));
+		assertFalse(readSet.dependsOnContext(2, "name"));
+		assertTrue(readSet.dependsOnContext(2));
+		assertFalse(readSet.dependsOnContext(3));
+		assertTrue(readSet.dependsOnParty(1));
+		assertFalse(readSet.dependsOnParty(2));
+	}
+
+	@Test
+	void shouldRecordTheReadsOfDeniedResults() {
+		var readSet = semantics.recordingReads(true).tracing(false).evaluate(request).getReadSet();
+		assertEquals(List.of(
+				new Read(1, "level", Source.PARTY),
+				new Read(2, "open", Source.PARTY)),
+			readSet.reads());
+		assertTrue(readSet.dependsOnContext(2, "open"));
+		assertFalse(semantics.evaluate(new Request(index(1), new Attributes().add("resource/type", "printer"), index(2)))
+			.getReadSet().dependsOnContext(2));
+	}
+
+	@Test
+	void shouldNotRecordTheReadsByDefault() {
+		contextHandler.add(2, "open", true);
+		assertNull(semantics.evaluate(request).getReadSet());
+		assertNull(semantics.evaluate(new Request(index(1), new Attributes().add("resource/type", "printer"), index(2)))
+			.getReadSet());
+	}
+}
@@ -0,0 +1,140 @@
+package bart.core;
+
+import static bart.core.AttributePattern.between;
+import static bart.core.AttributePattern.lessThan;
+import static bart.core.AttributePattern.oneOf;
+import static bart.core.AttributePattern.startsWith;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RuleIndexTest {
+
+	private RuleIndex index;
+
+	@BeforeEach
+	void init() {
+		index = new RuleIndex(new Rules()
+			.add(new Rule(new Attributes() // 1
+				.add("resource/type", "printer")))
+			.add(new Rule(new Attributes() // 2
+				.add("resource/type", startsWith("document/"))
+				.add("resource/size", lessThan(10))))
+			.add(new Rule(new Attributes() // 3
+				.add("resource/type", oneOf("printer", "scanner"))
+				.add("resource/size", between(5, 20))))
+			.add(new Rule(new Attributes() // 4
+				.add("resource/type", startsWith("document/pdf"))))
+			.add(new Rule())); // 5
+	}
+
+	@Test
+	void shouldSelectCandidatesOfTheMostSelectiveAttribute() {
+		assertThat(index.candidates(new Attributes()
+			.add("resource/type", "printer"))).containsExactly(1, 3);
+		assertThat(index.candidates(new Attributes()
+			.add("resource/type", "scanner"))).containsExactly(3);
+		assertThat(index.candidates(new Attributes()
+			.add("resource/type", "document/pdf/report"))).containsExactly(2, 4);
+		assertThat(index.candidates(new Attributes()
+			.add("resource/size", 7))).containsExactly(2, 3);
+		assertThat(index.candidates(new Attributes()
+			.add("resource/size", 21L))).isEmpty();
+		// candidates are a superset: range bounds are widened
+		assertThat(index.candidates(new Attributes()
+			.add("resource/size", 10L))).containsExactly(2, 3);
+		assertThat(index.candidates(new Attributes()
+			.add("resource/type", "printer")
+			.add("resource/size", 30))).isEmpty();
+		assertThat(index.candidates(new Attributes()
+			.add("resource/type", "document/odt")
+			.add("resource/size", 15))).containsExactly(2);
+	}
+
+	@Test
+	void shouldSelectNoCandidatesForUnknownNamesOrValues() {
+		assertThat(index.candidates(new Attributes()
+			.add("resource/color", "red"))).isEmpty();
+		assertThat(index.candidates(new Attributes()
+			.add("resource/type", "fax"))).isEmpty();
+		assertThat(index.candidates(new Attributes()
+			.add("resource/type", 3))).isEmpty();
+	}
+
+	@Test
+	void shouldNotRestrictCandidatesForEmptyResourcesAndNullValues() {
+		assertNull(index.candidates(new Attributes()));
+		assertNull(index.candidates(new Attributes().add("resource/type", null)));
+	}
+
+	@Test
+	void shouldSelectAllTheMatchingRules() {
+		var random = new Random(7);
+		var rules = new Rules();
+		for (int i = 0; i < 300; i++) {
+			var resource = new Attributes();
+			switch (random.nextInt(4)) {
+			case 0 -> resource.add("type", "t" + random.nextInt(10));
+			case 1 -> resource.add("type", startsWith("t" + random.nextInt(3)));
+			case 2 -> resource.add("type", oneOf("t" + random.nextInt(10), "t" + random.nextInt(10)));
+			default -> { }
+			}
+			if (random.nextBoolean()) {
+				var low = random.nextInt(100);
+				resource.add("size", random.nextBoolean() ? between(low, low + random.nextInt(30)) : low);
+			}
+			rules.add(new Rule(resource));
+		}
+		var ruleIndex = new RuleIndex(rules);
+		var matcher = new AttributeMatcher();
+		for (int i = 0; i < 500; i++) {
+			var requested = new Attributes();
+			if (random.nextBoolean()) {
+				requested.add("type", "t" + random.nextInt(12));
+			}
+			if (random.nextBoolean()) {
+				requested.add("size", random.nextBoolean() ? random.nextInt(130) : random.nextDouble() * 130);
+			}
+			var candidates = ruleIndex.candidates(requested);
+			var matching = new IntList();
+			for (int r = 1; r <= rules.size(); r++) {
+				if (matcher.match(requested, rules.getByIndex(r).getResource())) {
+					matching.add(r);
+				}
+			}
+			if (candidates == null) {
+				assertThat(requested.isEmpty()).isTrue();
+			} else {
+				assertThat(candidates).isSorted().doesNotHaveDuplicates();
+				for (var r : matching.toSortedDistinctArray()) {
+					assertThat(candidates).contains(r);
+				}
+			}
+		}
+	}
+
+	@Test
+	void shouldIndexMultiValues() {
+		var multiValueIndex = new RuleIndex(new Rules()
+			.add(new Rule(new Attributes() // 1
+				.addValues("resource/format", "PDF", "ODT")))
+			.add(new Rule(new Attributes() // 2
+				.add("resource/format", "PDF")))
+			.add(new Rule(new Attributes() // 3
+				.addValues("resource/format", "DOC"))));
+		assertThat(multiValueIndex.candidates(new Attributes()
+			.add("resource/format", "PDF"))).containsExactly(1, 2);
+		assertThat(multiValueIndex.candidates(new Attributes()
+			.addValues("resource/format", "ODT", "PDF"))).containsExactly(1);
+		assertThat(multiValueIndex.candidates(new Attributes()
+			.addValues("resource/format", "DOC", "RTF"))).containsExactly(3);
+		assertThat(multiValueIndex.candidates(new Attributes()
+			.addValues("resource/format", "RTF"))).isEmpty();
+		assertNull(multiValueIndex.candidates(new Attributes()
+			.addValues("resource/format")));
+	}
+}
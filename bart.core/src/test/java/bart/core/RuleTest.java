@@ -0,0 +1,35 @@
+package bart.core;
+
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RuleTest {
+
+	private static final Attributes RESOURCE = new Attributes().add("resource/type", "printer");
+
+	private static final SingleExchange EXCHANGE = new SingleExchange(me(),
+		new Attributes().add("resource/type", "paper"), requester());
+
+	@Test
+	void shouldRecognizeTrueCondition() {
+		assertTrue(new Rule().hasTrueCondition());
+		assertTrue(new Rule(RESOURCE).hasTrueCondition());
+		assertTrue(new Rule(RESOURCE, EXCHANGE).hasTrueCondition());
+		assertFalse(new Rule(RESOURCE, c -> true).hasTrueCondition());
+		assertFalse(new Rule(RESOURCE, new ExpressionWithDescription(c -> true, "true"), EXCHANGE)
+			.hasTrueCondition());
+	}
+
+	@Test
+	void shouldRecognizeExchange() {
+		assertFalse(new Rule().hasExchange());
+		assertFalse(new Rule(RESOURCE).hasExchange());
+		assertFalse(new Rule(RESOURCE, c -> true).hasExchange());
+		assertTrue(new Rule(RESOURCE, EXCHANGE).hasExchange());
+		assertTrue(new Rule(RESOURCE, c -> true, EXCHANGE).hasExchange());
+	}
+}
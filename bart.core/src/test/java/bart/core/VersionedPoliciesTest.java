@@ -0,0 +1,200 @@
+package bart.core;
+
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.semantics.Semantics;
+
+class VersionedPoliciesTest {
+
+	private static Policy provider(String name, String city) {
+		return new Policy(
+			new Attributes().add("name", name).add("city", city),
+			new Rules().add(new Rule(new Attributes().add("resource/type", "printer"))));
+	}
+
+	private static Policy closed(String name, String city) {
+		return new Policy(new Attributes().add("name", name).add("city", city), new Rules());
+	}
+
+	@Test
+	void shouldPublishNewVersionsWithoutChangingThePreviousOnes() {
+		var initial = new Policies()
+			.add(provider("Alice", "Lucca"))
+			.add(provider("Bob", "Pisa"));
+		var versions = new VersionedPolicies(initial);
+		var first = versions.current();
+		assertEquals(1, versions.version());
+		assertTrue(first.isFrozen());
+		assertFalse(initial.isFrozen());
+		var carol = provider("Carol", "Lucca");
+		var second = versions.add(carol);
+		assertSame(second, versions.current());
+		assertEquals(2, versions.version());
+		assertEquals(2, first.size());
+		assertEquals(3, second.size());
+		assertSame(carol, second.getByIndex(3));
+		var third = versions.replace(1, closed("Alice", "Pisa"));
+		assertEquals(3, versions.version());
+		assertEquals("Lucca", second.party(1).name("city"));
+		assertEquals("Pisa", third.party(1).name("city"));
+		// unchanged policies are shared
+		assertSame(second.getByIndex(2), third.getByIndex(2));
+		assertEquals(0, third.candidateRules(1, new Attributes().add("resource/type", "printer")).length);
+		assertThatThrownBy(() -> third.add(carol))
+			.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> versions.replace(4, carol))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+		assertEquals(3, versions.version());
+	}
+
+	@Test
+	void shouldSelectTheChangedParties() {
+		var initial = new Policies();
+		for (int i = 0; i < 50; i++) {
+			initial.add(provider("p" + i, "c" + i % 5));
+		}
+		var versions = new VersionedPolicies(initial);
+		for (int i = 0; i < 1100; i++) {
+			// enough changes to index all the parties again
+			versions.publish(Map.of(1 + i % 50, provider("q" + i, "c" + (i + 1) % 5)),
+				i % 100 == 0 ? List.of(provider("r" + i, "c0")) : List.of());
+			var current = versions.current();
+			for (int c = 0; c < 5; c++) {
+				var selector = new Attributes().add("city", "c" + c);
+				var expected = new BitSet();
+				for (int p = 1; p <= current.size(); p++) {
+					if (selector.name("city").equals(current.party(p).name("city"))) {
+						expected.set(p);
+					}
+				}
+				var candidates = current.candidateParties(selector);
+				var matching = new BitSet();
+				for (int p = candidates.nextSetBit(1); p >= 0; p = candidates.nextSetBit(p + 1)) {
+					if (new AttributeMatcher().match(selector, current.party(p))) {
+						matching.set(p);
+					}
+				}
+				assertEquals(expected, matching);
+			}
+		}
+	}
+
+	@Test
+	void shouldEvaluateWithTheVersionCurrentWhenTheEvaluationStarts() {
+		var versions = new VersionedPolicies(new Policies());
+		var published = new ArrayList<Integer>();
+		versions.publish(Map.of(), List.of(
+			new Policy(
+				new Attributes().add("name", "Alice"),
+				new Rules().add(new Rule(
+					new Attributes().add("resource/type", "printer"),
+					context -> {
+						// Bob closes while Alice's condition is evaluated
+						published.add(versions.replace(2, closed("Bob", "Lucca")).size());
+						return true;
+					},
+					new SingleExchange(Participants.me(), new Attributes().add("resource/type", "paper"),
+						any(new Attributes().add("city", "Lucca")))))),
+			new Policy(
+				new Attributes().add("name", "Bob").add("city", "Lucca"),
+				new Rules().add(new Rule(new Attributes().add("resource/type", "paper"))))));
+		var semantics = new Semantics(versions).tracing(false);
+		var request = new Request(index(2), new Attributes().add("resource/type", "printer"), index(1));
+		assertTrue(semantics.evaluate(request).isPermitted());
+		assertEquals(List.of(2), published);
+		// the next evaluation sees Bob closed
+		assertFalse(semantics.evaluate(request).isPermitted());
+	}
+
+	@Test
+	void shouldRemovePartiesKeepingTheIndexesOfTheOthers() {
+		var versions = new VersionedPolicies(new Policies()
+			.add(provider("Alice", "Lucca"))
+			.add(provider("Bob", "Lucca"))
+			.add(provider("Carol", "Lucca")));
+		var before = versions.current();
+		var after = versions.remove(2);
+		assertFalse(before.isRemoved(2));
+		assertTrue(after.isRemoved(2));
+		assertEquals(3, after.size());
+		assertEquals("Carol", after.party(3).name("name"));
+		var lucca = new Attributes().add("city", "Lucca");
+		var expected = new BitSet();
+		expected.set(1);
+		expected.set(3);
+		assertEquals(expected, after.candidateParties(lucca));
+		assertEquals(3, after.firstMatching(new Attributes().add("name", "Carol")));
+		assertEquals(0, after.firstMatching(new Attributes().add("name", "Bob")));
+		var printer = new Attributes().add("resource/type", "printer");
+		var semantics = new Semantics(versions);
+		assertFalse(semantics.evaluate(new Request(index(1), printer, index(2))).isPermitted());
+		// the removed party is not selected, even when tracing
+		var all = new Request(index(1), printer, Participants.all(lucca));
+		assertTrue(semantics.evaluate(all).isPermitted());
+		assertThat(semantics.getTrace().toString()).doesNotContain("policy 2:");
+		assertTrue(semantics.tracing(false).evaluate(all).isPermitted());
+		assertThatThrownBy(() -> versions.remove(2))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("party 2 has been removed");
+		assertThatThrownBy(() -> versions.replace(2, closed("Bob", "Pisa")))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("party 2 has been removed");
+		assertThatThrownBy(() -> versions.publish(Map.of(1, closed("Alice", "Pisa")), List.of(), List.of(1)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("party 1 is both replaced and removed");
+		assertThatThrownBy(() -> versions.publish(Map.of(), List.of(), List.of(3, 3)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("party 3 is removed more than once");
+		assertFalse(versions.current().isRemoved(3));
+		// new parties get new indexes
+		assertEquals(4, versions.add(provider("Dave", "Lucca")).firstMatching(new Attributes().add("name", "Dave")));
+	}
+
+	@Test
+	void shouldKeepTheColumnarChoice() {
+		var versions = new VersionedPolicies(new Policies()
+			.add(closed("Alice", "Lucca"))
+			.add(closed("Bob", "Pisa"))
+			.columnar(true));
+		var selector = new Attributes().add("city", "Pisa");
+		var expected = new BitSet();
+		expected.set(2);
+		assertEquals(expected, versions.current().candidateParties(selector));
+		versions.replace(1, closed("Alice", "Pisa"));
+		expected.set(1);
+		assertEquals(expected, versions.current().candidateParties(selector));
+	}
+
+	@Test
+	void shouldNotifyTheListenersOfTheChangedParties() {
+		var versions = new VersionedPolicies(new Policies()
+			.add(provider("Alice", "Lucca"))
+			.add(provider("Bob", "Pisa"))
+			.add(provider("Carol", "Pisa")));
+		var changes = new ArrayList<BitSet>();
+		VersionedPolicies.Listener listener = (previous, next, changedParties) -> {
+			assertSame(next, versions.current());
+			assertEquals(previous.size() + 1, next.size());
+			changes.add(changedParties);
+		};
+		versions.addListener(listener);
+		versions.publish(Map.of(1, closed("Alice", "Lucca")), List.of(provider("Dave", "Pisa")), List.of(3));
+		versions.removeListener(listener);
+		versions.add(provider("Erin", "Pisa"));
+		assertThat(changes).containsExactly(BitSet.valueOf(new long[] { 0b11010 }));
+	}
+}
@@ -0,0 +1,101 @@
+package bart.core.expressions;
+
+import static bart.core.expressions.Comparison.Operator.EQ;
+import static bart.core.expressions.Comparison.Operator.GE;
+import static bart.core.expressions.Comparison.Operator.GT;
+import static bart.core.expressions.Comparison.Operator.LE;
+import static bart.core.expressions.Comparison.Operator.LT;
+import static bart.core.expressions.Comparison.Operator.NE;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.Attributes;
+import bart.core.MultiValue;
+
+class ComparisonTest {
+
+	@Test
+	void shouldCompareNumbersByValue() {
+		assertAll(
+			() -> assertTrue(EQ.test(3, 3L)),
+			() -> assertTrue(EQ.test(3, 3.0)),
+			() -> assertTrue(EQ.test((short) 3, (byte) 3)),
+			() -> assertFalse(EQ.test(3, 4L)),
+			() -> assertTrue(NE.test(3, 4.5)),
+			() -> assertFalse(NE.test(3L, 3)),
+			() -> assertTrue(LT.test(3, 4L)),
+			() -> assertFalse(LT.test(4, 4L)),
+			() -> assertTrue(LT.test(3.5, 4)),
+			() -> assertTrue(LE.test(4, 4.0)),
+			() -> assertFalse(LE.test(5, 4.0)),
+			() -> assertTrue(GT.test(5L, 4)),
+			() -> assertFalse(GT.test(4L, 4)),
+			() -> assertTrue(GE.test(4L, 4)),
+			() -> assertFalse(GE.test(3.9, 4)),
+			// no precision loss with large longs
+			() -> assertTrue(LT.test(Long.MAX_VALUE - 1, Long.MAX_VALUE))
+		);
+	}
+
+	@Test
+	void shouldCompareOtherValues() {
+		var morning = LocalTime.of(9, 0);
+		var evening = LocalTime.of(19, 0);
+		assertAll(
+			() -> assertTrue(EQ.test("a", "a")),
+			() -> assertFalse(EQ.test("a", "b")),
+			() -> assertFalse(EQ.test("1", 1)),
+			() -> assertTrue(NE.test("1", 1)),
+			() -> assertTrue(LT.test("a", "b")),
+			() -> assertTrue(LT.test(morning, evening)),
+			() -> assertFalse(GT.test(morning, evening)),
+			() -> assertTrue(GE.test(evening, evening)),
+			() -> assertTrue(LE.test(morning, morning)),
+			// not ordered: all the ordering operators are false
+			() -> assertFalse(LT.test("a", 1)),
+			() -> assertFalse(GE.test("a", 1)),
+			() -> assertFalse(LT.test(new Object(), new Object())),
+			() -> assertFalse(GT.test(morning, "b"))
+		);
+	}
+
+	@Test
+	void shouldFoldConstantComparisons() {
+		var attributes = new Attributes();
+		assertEquals(BooleanConstant.TRUE,
+			new Comparison(new Constant(1), LT, new Constant(2)).fold(attributes));
+		assertEquals(BooleanConstant.FALSE,
+			new Comparison(new Constant(1), GT, new Constant(2)).fold(attributes));
+		assertEquals(BooleanConstant.FALSE,
+			new Comparison(Constant.UNDEFINED, NE, new Constant(2)).fold(attributes));
+		assertEquals(BooleanConstant.FALSE,
+			new Comparison(new Constant(2), NE, Constant.UNDEFINED).fold(attributes));
+	}
+
+	@Test
+	void shouldDescribeOperators() {
+		assertEquals("= != < <= > >=",
+			String.join(" ", EQ.toString(), NE.toString(), LT.toString(),
+				LE.toString(), GT.toString(), GE.toString()));
+	}
+
+	@Test
+	void shouldTestTheMembershipOfMultiValues() {
+		var cities = MultiValue.of("Lucca", "Pisa");
+		assertAll(
+			() -> assertTrue(EQ.test(cities, "Lucca")),
+			() -> assertTrue(EQ.test("Pisa", cities)),
+			() -> assertFalse(EQ.test(cities, "Siena")),
+			() -> assertTrue(NE.test(cities, "Siena")),
+			() -> assertTrue(EQ.test(cities, MultiValue.of("Pisa", "Lucca"))),
+			() -> assertFalse(EQ.test(cities, MultiValue.of("Lucca"))),
+			() -> assertFalse(LT.test(cities, "Lucca"))
+		);
+	}
+}
@@ -0,0 +1,206 @@
+package bart.core.expressions;
+
+import static bart.core.Participants.index;
+import static bart.core.expressions.Expressions.and;
+import static bart.core.expressions.Expressions.from;
+import static bart.core.expressions.Expressions.not;
+import static bart.core.expressions.Expressions.or;
+import static bart.core.expressions.Expressions.owner;
+import static bart.core.expressions.Expressions.party;
+import static bart.core.expressions.Expressions.requester;
+import static bart.core.expressions.Expressions.value;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bart.core.Attributes;
+import bart.core.ContextHandler;
+import bart.core.ExpressionCode;
+import bart.core.NameResolverImplementation;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Rules;
+import bart.core.expressions.Comparison.Operator;
+import bart.core.semantics.UndefinedName;
+
+class ExpressionsTest {
+
+	private Attributes bob;
+	private NameResolverImplementation resolver;
+
+	@BeforeEach
+	void init() {
+		bob = new Attributes()
+			.add("name", "Bob")
+			.add("role", "Provider")
+			.add("level", 2);
+		var policies = new Policies()
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Alice")
+					.add("city", "Roma"),
+				new Rules()))
+			.add(new Policy(bob, new Rules()));
+		var contextHandler = new ContextHandler()
+			.add(2, "time", 10)
+			.add(2, "role", "Busy");
+		var request = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			index(2));
+		resolver = new NameResolverImplementation(request, contextHandler, policies);
+	}
+
+	@Test
+	void shouldResolveOperandsInTheirScopes() throws UndefinedName {
+		assertEquals(10, from("time").value(resolver));
+		assertEquals("printer", from("resource/type").value(resolver));
+		// the context shadows the party attributes...
+		assertEquals("Busy", from("role").value(resolver));
+		// ...but not for the owner scope
+		assertEquals("Provider", owner("role").value(resolver));
+		assertEquals("Roma", requester("city").value(resolver));
+		assertEquals("Alice", party(new Attributes().add("city", "Roma"), "name").value(resolver));
+		assertEquals(3, value(3).value(resolver));
+		assertThatThrownBy(() -> owner("time").value(resolver))
+			.isInstanceOf(UndefinedName.class)
+			.hasMessage("Undefined name: time");
+		assertThatThrownBy(() -> Constant.UNDEFINED.value(resolver))
+			.isInstanceOf(UndefinedName.class)
+			.hasMessage("Undefined name: undefined");
+	}
+
+	@Test
+	void shouldEvaluateComparisons() {
+		assertTrue(from("time").lessThan(18).evaluate(resolver));
+		assertFalse(from("time").greaterThan(18).evaluate(resolver));
+		assertTrue(from("time").isEqualTo(10L).evaluate(resolver));
+		assertTrue(from("time").isNotEqualTo(11).evaluate(resolver));
+		assertTrue(from("time").lessThanOrEqualTo(10).evaluate(resolver));
+		assertTrue(from("time").greaterThanOrEqualTo(10.0).evaluate(resolver));
+		assertTrue(owner("level").lessThan(from("time")).evaluate(resolver));
+		assertTrue(requester("city").isEqualTo("Roma").evaluate(resolver));
+	}
+
+	@Test
+	void shouldBuildComparisonsFluently() {
+		var time = from("time");
+		assertEquals(new Comparison(time, Operator.EQ, new Constant(1)), time.isEqualTo(1));
+		assertEquals(new Comparison(time, Operator.NE, new Constant(1)), time.isNotEqualTo(1));
+		assertEquals(new Comparison(time, Operator.LT, new Constant(1)), time.lessThan(1));
+		assertEquals(new Comparison(time, Operator.LE, new Constant(1)), time.lessThanOrEqualTo(1));
+		assertEquals(new Comparison(time, Operator.GT, new Constant(1)), time.greaterThan(1));
+		assertEquals(new Comparison(time, Operator.GE, new Constant(1)), time.greaterThanOrEqualTo(1));
+		// operands are not wrapped
+		assertSame(time, value(1).isEqualTo(time).right());
+	}
+
+	@Test
+	void undefinedNamesMakeComparisonsFalse() {
+		assertFalse(from("undefined").isEqualTo(1).evaluate(resolver));
+		assertFalse(from("undefined").isNotEqualTo(1).evaluate(resolver));
+		assertTrue(not(from("undefined").isEqualTo(1)).evaluate(resolver));
+		// so that the order of operands does not matter
+		assertTrue(or(from("undefined").isEqualTo(1), from("time").isEqualTo(10)).evaluate(resolver));
+		assertTrue(or(from("time").isEqualTo(10), from("undefined").isEqualTo(1)).evaluate(resolver));
+	}
+
+	@Test
+	void shouldEvaluateConnectives() {
+		var t = from("time").isEqualTo(10);
+		var f = from("time").isEqualTo(11);
+		assertTrue(and(t, t).evaluate(resolver));
+		assertFalse(and(t, f).evaluate(resolver));
+		assertFalse(and(f, t).evaluate(resolver));
+		assertTrue(and().evaluate(resolver));
+		assertTrue(or(f, t).evaluate(resolver));
+		assertTrue(or(t, f).evaluate(resolver));
+		assertFalse(or(f, f).evaluate(resolver));
+		assertFalse(or().evaluate(resolver));
+		assertFalse(not(t).evaluate(resolver));
+		assertTrue(BooleanConstant.TRUE.evaluate(resolver));
+		assertFalse(BooleanConstant.FALSE.evaluate(resolver));
+	}
+
+	@Test
+	void shouldDescribeExpressions() {
+		assertEquals(
+			"((time < 18 or requester.city = 'Roma') and not owner.level = 2 and party[(role : Admin)].name != true)",
+			and(
+				or(from("time").lessThan(18), requester("city").isEqualTo("Roma")),
+				not(owner("level").isEqualTo(2)),
+				party(new Attributes().add("role", "Admin"), "name").isNotEqualTo(BooleanConstant.TRUE.value()))
+			.toString());
+		assertEquals("undefined", Constant.UNDEFINED.toString());
+		assertEquals("false", BooleanConstant.FALSE.toString());
+	}
+
+	@Test
+	void shouldFoldOwnerAttributes() {
+		assertEquals(BooleanConstant.TRUE, owner("role").isEqualTo("Provider").fold(bob));
+		assertEquals(BooleanConstant.FALSE, owner("role").isEqualTo("Admin").fold(bob));
+		// undefined owner attributes make the comparison false
+		assertEquals(BooleanConstant.FALSE, owner("time").isNotEqualTo(1).fold(bob));
+		assertEquals(BooleanConstant.FALSE, from("time").isNotEqualTo(owner("time")).fold(bob));
+		assertEquals(from("time").lessThan(new Constant(2)), from("time").lessThan(owner("level")).fold(bob));
+		assertEquals(from("time").lessThan(2), from("time").lessThan(2).fold(bob));
+	}
+
+	@Test
+	void shouldFoldConnectives() {
+		var cheap = from("time").lessThan(18);
+		var expensive = party(new Attributes().add("role", "Admin"), "level").greaterThan(1);
+		var ownerTrue = owner("role").isEqualTo("Provider");
+		var ownerFalse = owner("role").isEqualTo("Admin");
+		assertEquals(BooleanConstant.FALSE, and(cheap, ownerFalse).fold(bob));
+		assertEquals(BooleanConstant.TRUE, and(ownerTrue, ownerTrue).fold(bob));
+		assertEquals(cheap, and(ownerTrue, cheap).fold(bob));
+		assertEquals(BooleanConstant.TRUE, or(cheap, ownerTrue).fold(bob));
+		assertEquals(BooleanConstant.FALSE, or(ownerFalse, ownerFalse).fold(bob));
+		assertEquals(cheap, or(ownerFalse, cheap).fold(bob));
+		// cheaper operands first, nested connectives of the same kind flattened
+		assertEquals(new And(List.of(cheap, cheap, expensive)),
+			and(expensive, and(cheap, ownerTrue, cheap)).fold(bob));
+		assertEquals(new Or(List.of(cheap, expensive, and(cheap, expensive))),
+			or(expensive, or(and(expensive, cheap), cheap)).fold(bob));
+	}
+
+	@Test
+	void shouldFoldNegations() {
+		var cheap = from("time").lessThan(18);
+		assertEquals(BooleanConstant.FALSE, not(owner("role").isEqualTo("Provider")).fold(bob));
+		assertEquals(BooleanConstant.TRUE, not(owner("role").isEqualTo("Admin")).fold(bob));
+		assertEquals(cheap, not(not(cheap)).fold(bob));
+		assertEquals(not(cheap), not(cheap).fold(bob));
+		assertEquals(cheap.cost(), not(cheap).cost());
+	}
+
+	@Test
+	void shouldEstimateCosts() {
+		assertEquals(0, value(1).cost());
+		assertEquals(0, BooleanConstant.TRUE.cost());
+		assertEquals(1, owner("a").cost());
+		assertEquals(2, from("a").cost());
+		assertEquals(2, requester("a").cost());
+		assertEquals(4, party(new Attributes(), "a").cost());
+		assertEquals(3, owner("a").isEqualTo(from("b")).cost());
+		assertEquals(6, and(from("a").isEqualTo(1), party(new Attributes(), "a").isEqualTo(1)).cost());
+		assertEquals(6, or(from("a").isEqualTo(1), party(new Attributes(), "a").isEqualTo(1)).cost());
+	}
+
+	@Test
+	void shouldCompileOnlyExpressions() {
+		ExpressionCode opaque = c -> true;
+		assertSame(opaque, Expressions.compile(opaque, bob));
+		assertEquals(BooleanConstant.TRUE, Expressions.compile(owner("name").isEqualTo("Bob"), bob));
+	}
+}
@@ -0,0 +1,249 @@
+package bart.core.io;
+
+import static bart.core.Participants.all;
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static bart.core.expressions.Expressions.from;
+import static bart.core.expressions.Expressions.not;
+import static bart.core.expressions.Expressions.or;
+import static bart.core.expressions.Expressions.owner;
+import static bart.core.expressions.Expressions.party;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.AndExchange;
+import bart.core.AttributePattern;
+import bart.core.Attributes;
+import bart.core.MultiValue;
+import bart.core.OrExchange;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+import bart.core.expressions.Expressions;
+import bart.core.semantics.Semantics;
+
+class PolicyParserTest {
+
+	private final PolicyParser parser = new PolicyParser();
+
+	@Test
+	void shouldParsePoliciesAsBuiltInJava() throws IOException {
+		var parsed = parse("""
+			# couriers
+			policy [service: "delivery", company: "RabbitService"]
+			rule [type: "addrInfo", city: "Lucca"]
+
+			policy [service: "delivery", company: 'FastAndFurious']
+			  rule [type: "addrInfo", city: "Prato"] requires or(exchange(me, [type: "addrInfo", city: "Pistoia"], requester), exchange(me, [type: "addrInfo", city: "Lucca"], requester))
+			rule [type: "stats"] requires and(exchange(1, [type: "addrInfo"], any[service: "delivery"]), exchange(all[company: "RabbitService"], [], all[service: "delivery"])) # trailing comment
+			""");
+		var expected = new Policies()
+			.add(new Policy(
+				new Attributes()
+					.add("service", "delivery")
+					.add("company", "RabbitService"),
+				new Rules()
+					.add(new Rule(new Attributes()
+						.add("type", "addrInfo")
+						.add("city", "Lucca")))))
+			.add(new Policy(
+				new Attributes()
+					.add("service", "delivery")
+					.add("company", "FastAndFurious"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("type", "addrInfo")
+							.add("city", "Prato"),
+						new OrExchange(
+							new SingleExchange(me(),
+								new Attributes().add("type", "addrInfo").add("city", "Pistoia"),
+								requester()),
+							new SingleExchange(me(),
+								new Attributes().add("type", "addrInfo").add("city", "Lucca"),
+								requester()))))
+					.add(new Rule(
+						new Attributes().add("type", "stats"),
+						new AndExchange(
+							new SingleExchange(index(1),
+								new Attributes().add("type", "addrInfo"),
+								any(new Attributes().add("service", "delivery"))),
+							new SingleExchange(all(new Attributes().add("company", "RabbitService")),
+								new Attributes(),
+								all(new Attributes().add("service", "delivery"))))))));
+		assertEquals(expected.description(), parsed.description());
+		assertTrue(parsed.getByIndex(1).rules().getByIndex(1).hasTrueCondition());
+		var request = new Request(
+			index(1),
+			new Attributes().add("type", "addrInfo").add("city", "Prato"),
+			any(new Attributes().add("company", "FastAndFurious")));
+		assertTrue(new Semantics(parsed).evaluate(request).isPermitted());
+	}
+
+	@Test
+	void shouldParseValuesAndPatterns() throws IOException {
+		var party = parse("""
+			policy [s: "a \\"b\\"\\n", i: -3, l: 3L, big: 3000000000, d: 2.5, e: 1e3, t: true, f: false, n: null, "odd name": 1, cities: {"Lucca", "Pisa"}, empty: {}, prefix: startsWith("doc/"), set: oneOf("PDF", 1), closed: [1, 3], open: (1.5, 3), low: (-inf, 10], high: [0, +inf)]
+			""").getByIndex(1).party();
+		assertEquals("a \"b\"\n", party.name("s"));
+		assertEquals(-3, party.name("i"));
+		assertEquals(3L, party.name("l"));
+		assertEquals(3000000000L, party.name("big"));
+		assertEquals(2.5, party.name("d"));
+		assertEquals(1000.0, party.name("e"));
+		assertEquals(true, party.name("t"));
+		assertEquals(false, party.name("f"));
+		assertNull(party.name("n"));
+		assertTrue(party.names().contains("n"));
+		assertEquals(1, party.name("odd name"));
+		assertEquals(MultiValue.of("Lucca", "Pisa"), party.name("cities"));
+		assertEquals(MultiValue.of(), party.name("empty"));
+		assertEquals(AttributePattern.startsWith("doc/"), party.name("prefix"));
+		assertEquals(AttributePattern.oneOf("PDF", 1), party.name("set"));
+		assertEquals(AttributePattern.between(1, 3), party.name("closed"));
+		assertEquals(new AttributePattern.Range(1.5, false, 3, false), party.name("open"));
+		assertEquals(AttributePattern.atMost(10), party.name("low"));
+		assertEquals(AttributePattern.atLeast(0), party.name("high"));
+	}
+
+	@Test
+	void shouldParseConditions() throws IOException {
+		var rules = parse("""
+			policy [name: "Alice"]
+			rule [] when requester.level >= 3 and not from.busy = true or owner."odd name" != 'x'
+			rule [] when (from.a < 1 or from.b <= 2) and (from.c > 3 or party[role: "Admin"].d = 4)
+			rule [] when true
+			rule [] when not false
+			rule [] when true = from.flag
+			rule [] when described "in working hours"
+			""", new PolicyParser()
+				.condition("in working hours", context -> true)).getByIndex(1).rules();
+		assertEquals(
+			or(
+				Expressions.and(
+					Expressions.requester("level").greaterThanOrEqualTo(3),
+					not(from("busy").isEqualTo(true))),
+				owner("odd name").isNotEqualTo("x")),
+			rules.getByIndex(1).getCondition());
+		assertEquals(
+			Expressions.and(
+				or(from("a").lessThan(1), from("b").lessThanOrEqualTo(2)),
+				or(from("c").greaterThan(3), party(new Attributes().add("role", "Admin"), "d").isEqualTo(4))),
+			rules.getByIndex(2).getCondition());
+		assertEquals("true", rules.getByIndex(3).getCondition().toString());
+		assertFalse(rules.getByIndex(3).hasTrueCondition());
+		assertEquals("not false", rules.getByIndex(4).getCondition().toString());
+		assertEquals("true = flag", rules.getByIndex(5).getCondition().toString());
+		assertEquals("in working hours", rules.getByIndex(6).getCondition().toString());
+	}
+
+	@Test
+	void shouldReportErrorsWithTheirPosition() {
+		assertError("rule []", "line 1, column 1: expected 'policy' but found 'rule'");
+		assertError("policy [a: 1, a: 2]", "line 1, column 15: duplicate name 'a'");
+		assertError("\n# c\npolicy []\n\nrule [a 1]", "line 5, column 9: expected ':' but found '1'");
+		assertError("policy [a: \"x]", "line 1, column 12: unterminated string");
+		assertError("policy [a: \"\\x\"]", "line 1, column 13: invalid escape '\\x'");
+		assertError("policy [a: 1e]", "line 1, column 12: invalid number '1e'");
+		assertError("policy [a: 99999999999999999999]", "line 1, column 12: invalid number '99999999999999999999'");
+		assertError("policy [a: 1] ;", "line 1, column 15: unexpected character ';'");
+		assertError("policy [a: 1] b", "line 1, column 15: expected end of line but found 'b'");
+		assertError("policy [a: b]", "line 1, column 12: expected a value but found 'b'");
+		assertError("policy [a: ,]", "line 1, column 12: expected a value but found ','");
+		assertError("policy [1: 1]", "line 1, column 9: expected a name but found '1'");
+		assertError("policy [a: {null}]", "line 1, column 12: null member");
+		assertError("policy [a: startsWith(1)]", "line 1, column 23: expected a string but found '1'");
+		assertError("policy [a: [x, 1]]", "line 1, column 13: expected a number but found 'x'");
+		assertError("policy [a: [1, 2}]", "line 1, column 17: expected ')' but found '}'");
+		assertError("policy []\nrule [] when described \"x\"", "line 2, column 24: unknown condition \"x\"");
+		assertError("policy []\nrule [] when described x", "line 2, column 24: expected a description but found 'x'");
+		assertError("policy []\nrule [] when from.a", "line 2, column 20: expected a comparison operator but found end of line");
+		assertError("policy []\nrule [] when other.a = 1", "line 2, column 14: expected from, requester, owner or party but found 'other'");
+		assertError("policy []\nrule [] when (from.a = 1", "line 2, column 25: expected ')' but found end of line");
+		assertError("policy []\nrule [] requires give()", "line 2, column 18: expected exchange, and or or but found 'give'");
+		assertError("policy []\nrule [] requires exchange(requester, [], me)", "line 2, column 27: expected me, a party index, any or all but found 'requester'");
+		assertError("policy []\nrule [] requires exchange(me, [], 1)", "line 2, column 35: expected requester, any or all but found '1'");
+		assertError("policy []\nrule [] requires exchange(0, [], requester)", "line 2, column 27: expected me, a party index, any or all but found '0'");
+	}
+
+	@Test
+	void shouldParseInParallelInOrder() throws IOException {
+		var text = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			text.append("policy [id: ").append(i).append(", city: {\"c").append(i % 7).append("\"}]\n");
+			for (int j = 0; j < i % 4; j++) {
+				text.append("rule [type: \"t").append(j).append("\"] when requester.level >= ").append(j)
+					.append(" requires exchange(me, [type: \"paper\"], any[city: \"c").append(j).append("\"])\n");
+			}
+		}
+		var sequential = parser.parse(new StringReader(text.toString()));
+		var parallel = new ArrayList<Policy>();
+		new PolicyParser().parallelism(3).parse(new StringReader(text.toString()), parallel::add);
+		assertEquals(2000, parallel.size());
+		var parallelPolicies = new Policies();
+		parallel.forEach(parallelPolicies::add);
+		assertEquals(sequential.description(), parallelPolicies.description());
+		var out = new StringWriter();
+		PolicyWriter.write(sequential, out);
+		assertEquals(text.toString(), out.toString());
+	}
+
+	@Test
+	void shouldReportErrorsWhenParsingInParallel() {
+		var text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			text.append("policy [id: ").append(i).append("]\n");
+		}
+		text.append("policy [id: x]\n");
+		assertThatThrownBy(() -> new PolicyParser().parallelism(2).parse(new StringReader(text.toString())))
+			.isInstanceOf(PolicyFormatException.class)
+			.hasMessage("line 1001, column 13: expected a value but found 'x'")
+			.extracting(e -> ((PolicyFormatException) e).getLineNumber())
+			.isEqualTo(1001);
+	}
+
+	@Test
+	void shouldRejectInvalidParallelism() {
+		assertThatThrownBy(() -> parser.parallelism(0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("parallelism must be at least 1: 0");
+	}
+
+	@Test
+	void shouldParseEmptyTexts() throws IOException {
+		assertEquals(0, parse("").size());
+		assertEquals(0, parse("# nothing\n\n").size());
+		assertThat(parse("policy []").getByIndex(1).party().isEmpty()).isTrue();
+		assertError("policy", "line 1, column 7: expected '[' but found end of line");
+	}
+
+	private Policies parse(String text) throws IOException {
+		return parse(text, parser);
+	}
+
+	private static Policies parse(String text, PolicyParser policyParser) throws IOException {
+		return policyParser.parse(new StringReader(text));
+	}
+
+	private void assertError(String text, String expectedMessage) {
+		assertThatThrownBy(() -> parse(text))
+			.isInstanceOf(PolicyFormatException.class)
+			.hasMessage(expectedMessage);
+	}
+}
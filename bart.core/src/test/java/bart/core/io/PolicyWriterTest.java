@@ -0,0 +1,129 @@
+package bart.core.io;
+
+import static bart.core.Participants.all;
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static bart.core.expressions.Expressions.and;
+import static bart.core.expressions.Expressions.from;
+import static bart.core.expressions.Expressions.not;
+import static bart.core.expressions.Expressions.or;
+import static bart.core.expressions.Expressions.owner;
+import static bart.core.expressions.Expressions.party;
+import static bart.core.expressions.Expressions.value;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.AndExchange;
+import bart.core.AttributePattern;
+import bart.core.ExchangeToParticipant;
+import bart.core.Attributes;
+import bart.core.ExpressionWithDescription;
+import bart.core.OrExchange;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+import bart.core.expressions.BooleanConstant;
+import bart.core.expressions.Expressions;
+
+class PolicyWriterTest {
+
+	@Test
+	void shouldWriteWhatTheParserReads() throws IOException {
+		var policies = new Policies()
+			.add(new Policy(
+				new Attributes()
+					.add("name", "Alice \"A\"\n\t\r\\")
+					.add("odd name", 1)
+					.add("size", 3000000000L)
+					.add("ratio", 0.5)
+					.add("admin", true)
+					.add("nothing", null)
+					.addValues("cities", "Lucca", "Pisa")
+					.add("formats", AttributePattern.oneOf("PDF", 2))
+					.add("type", AttributePattern.startsWith("doc/"))
+					.add("closed", AttributePattern.between(1, 3))
+					.add("open", new AttributePattern.Range(1L, false, 2.5, false))
+					.add("low", AttributePattern.lessThan(10))
+					.add("high", AttributePattern.atLeast(0)),
+				new Rules()
+					.add(new Rule())
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						or(
+							and(Expressions.requester("level").greaterThanOrEqualTo(3), not(from("busy").isEqualTo(true))),
+							owner("odd name").isNotEqualTo(value(null)),
+							party(new Attributes().add("role", "Admin"), "level").lessThan(2)),
+						new AndExchange(
+							new SingleExchange(me(), new Attributes().add("type", "paper"), requester()),
+							new OrExchange(
+								new SingleExchange(index(2), new Attributes(), any(new Attributes().add("role", "Admin"))),
+								new SingleExchange(all(new Attributes().add("role", "User")), new Attributes(),
+									all(new Attributes()))))))
+					.add(new Rule(new Attributes(), BooleanConstant.TRUE))
+					.add(new Rule(new Attributes(), BooleanConstant.FALSE))
+					.add(new Rule(new Attributes(), new ExpressionWithDescription(c -> true, "always")))))
+			.add(new Policy(new Attributes(), new Rules()));
+		var text = new StringBuilder();
+		PolicyWriter.write(policies, text);
+		assertEquals("""
+			policy [name: "Alice \\"A\\"\\n\\t\\r\\\\", "odd name": 1, size: 3000000000L, ratio: 0.5, admin: true, nothing: null, cities: {"Lucca", "Pisa"}, formats: oneOf("PDF", 2), type: startsWith("doc/"), closed: [1, 3], open: (1L, 2.5), low: (-inf, 10), high: [0, +inf)]
+			rule []
+			rule [resource/type: "printer"] when ((requester.level >= 3 and not from.busy = true) or owner."odd name" != null or party[role: "Admin"].level < 2) requires and(exchange(me, [type: "paper"], requester), or(exchange(2, [], any[role: "Admin"]), exchange(all[role: "User"], [], all[])))
+			rule [] when true
+			rule [] when false
+			rule [] when described "always"
+			policy []
+			""", text.toString());
+		var parsed = new PolicyParser()
+			.condition("always", c -> true)
+			.parse(new StringReader(text.toString()));
+		assertEquals(policies.description(), parsed.description());
+		var written = new StringBuilder();
+		PolicyWriter.write(parsed, written);
+		assertEquals(text.toString(), written.toString());
+	}
+
+	@Test
+	void shouldWriteEmptyConnectivesAsConstants() throws IOException {
+		var text = new StringBuilder();
+		PolicyWriter.write(new Policy(new Attributes(), new Rules()
+			.add(new Rule(new Attributes(), and()))
+			.add(new Rule(new Attributes(), or()))), text);
+		assertEquals("""
+			policy []
+			rule [] when true
+			rule [] when false
+			""", text.toString());
+	}
+
+	@Test
+	void shouldRejectWhatCannotBeWritten() {
+		assertThatThrownBy(() -> write(new Attributes().add("time", LocalTime.NOON), new Rule()))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("cannot write value '12:00' of class java.time.LocalTime");
+		assertThatThrownBy(() -> write(new Attributes().add("ratio", Double.NaN), new Rule()))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("cannot write value 'NaN' of class java.lang.Double");
+		assertThatThrownBy(() -> write(new Attributes(), new Rule(new Attributes(), c -> true)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageStartingWith("cannot write condition");
+		assertThatThrownBy(() -> write(new Attributes(), new Rule(new Attributes(),
+				new SingleExchange(new ExchangeToParticipant() { }, new Attributes(), requester()))))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageStartingWith("cannot write participant");
+	}
+
+	private static void write(Attributes party, Rule rule) throws IOException {
+		PolicyWriter.write(new Policy(party, new Rules().add(rule)), new StringBuilder());
+	}
+}
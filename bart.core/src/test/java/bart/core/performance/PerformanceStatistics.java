@@ -6,8 +6,10 @@ import static bart.core.Participants.me;
 import static bart.core.Participants.requester;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.DoubleSummaryStatistics;
+import java.util.HashSet;
 import java.util.List;
 
 import bart.core.AndExchange;
@@ -31,6 +33,10 @@ import bart.core.semantics.Semantics;
  * - Number of exchanges (AND chain width)
  * - Depth of exchange chains (recursive depth)
  * 
+ * It also measures the bytes allocated per evaluation, with and without tracing,
+ * and the throughput of batches of requests evaluated with
+ * {@link Semantics#evaluateAll(List)}.
+ * 
  * Each metric is measured independently with other factors held constant.
  * 
  * @author Lorenzo Bettini
@@ -102,6 +108,12 @@ public class PerformanceStatistics {
 		tests.testExponentialTreePerformance();
 		System.out.println();
 		
+		tests.testAllocationPerEvaluation();
+		System.out.println();
+		
+		tests.testBatchThroughput();
+		System.out.println();
+		
 		System.out.println("=".repeat(80));
 		System.out.println("Performance tests completed.");
 		System.out.println("=".repeat(80));
@@ -744,6 +756,69 @@ public class PerformanceStatistics {
 		);
 	}
 	
+	public void testAllocationPerEvaluation() {
+		System.out.println("-".repeat(80));
+		System.out.println("Allocation Test: Bytes Allocated per Evaluation");
+		System.out.println("-".repeat(80));
+		System.out.println("Configuration:");
+		System.out.println("  - Each scenario is evaluated with tracing enabled and disabled");
+		System.out.println("  - Repetitions: " + repetitions);
+		System.out.println();
+		
+		System.out.println(String.format("%-40s %-20s %-20s",
+			"Scenario", "Tracing (bytes)", "No tracing (bytes)"));
+		System.out.println("-".repeat(80));
+		
+		measureAllocation("Policies: " + POLICIES_MIN,
+			createPoliciesForPolicyTest(POLICIES_MIN, BASELINE_NUM_ATTRIBUTES),
+			createRequestForPolicyTest());
+		measureAllocation("Exchanges: " + EXCHANGES_MIN,
+			createPoliciesForExchangeTest(BASELINE_NUM_POLICIES, EXCHANGES_MIN),
+			createRequestForExchangeTest());
+		measureAllocation("Exchange chain depth: " + EXCHANGE_DEPTH_MIN,
+			createPoliciesForExchangeDepthTest(EXCHANGE_DEPTH_MIN),
+			createRequestForExchangeDepthTest());
+		measureAllocation("Exponential tree depth: " + TREE_DEPTH_MIN,
+			createPoliciesForTreeDepthTest(TREE_DEPTH_MIN),
+			createRequestForTreeDepthTest());
+		
+		System.out.println("-".repeat(80));
+	}
+	
+	private void measureAllocation(String scenario, Policies policies, Request request) {
+		Semantics semantics = new Semantics(policies);
+		long withTracing = measureAllocatedBytes(semantics, request);
+		semantics.tracing(false);
+		long withoutTracing = measureAllocatedBytes(semantics, request);
+		System.out.println(String.format("%-40s %-20d %-20d",
+			scenario, withTracing, withoutTracing));
+	}
+	
+	/**
+	 * Returns the average number of bytes allocated by the current thread
+	 * for a single evaluation, after a warm-up.
+	 */
+	private long measureAllocatedBytes(Semantics semantics, Request request) {
+		var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+		
+		// Verify once that the scenario works
+		Result testResult = semantics.evaluate(request);
+		assertTrue(testResult.isPermitted(), "Request should be permitted");
+		
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			semantics.evaluate(request);
+		}
+		
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int rep = 0; rep < repetitions; rep++) {
+			semantics.evaluate(request);
+		}
+		long after = threadBean.getThreadAllocatedBytes(threadId);
+		
+		return (after - before) / repetitions;
+	}
+	
 	/**
 	 * Creates a chain of AND exchanges.
 	 * Each exchange requests a simple resource from the requester.
@@ -780,6 +855,58 @@ public class PerformanceStatistics {
 		return current;
 	}
 	
+	public void testBatchThroughput() {
+		System.out.println("-".repeat(80));
+		System.out.println("Batch Test: Independent Evaluations vs evaluateAll");
+		System.out.println("-".repeat(80));
+		int batchSize = 500;
+		System.out.println("Configuration:");
+		System.out.println("  - Policies: " + POLICIES_MIN + ", tracing disabled");
+		Policies policies = createPoliciesForPolicyTest(POLICIES_MIN, BASELINE_NUM_ATTRIBUTES);
+		policies.freeze();
+		List<Request> batch = new ArrayList<>();
+		for (int i = 0; i < batchSize; i++) {
+			batch.add(new Request(
+				index(1),
+				new Attributes().add("resource/type", "target"),
+				any(new Attributes()
+					.add("role", i % 10 == 0 ? "TargetProvider" : "NonTargetProvider")
+					.add("attr" + (i % 3), "value" + (i % 3)))));
+		}
+		
+		System.out.println("  - Batch: " + batchSize + " requests, " + new HashSet<>(batch).size() + " distinct ones");
+		System.out.println("  - Repetitions: " + repetitions);
+		System.out.println();
+		
+		Semantics semantics = new Semantics(policies).tracing(false);
+		long independent = measureBatch(() -> batch.forEach(semantics::evaluate));
+		long sequential = measureBatch(() -> semantics.evaluateAll(batch));
+		semantics.parallelism(4);
+		long parallel = measureBatch(() -> semantics.evaluateAll(batch));
+		
+		System.out.println(String.format("%-40s %-20s", "Mode", "Avg Time (ms)"));
+		System.out.println("-".repeat(80));
+		System.out.println(String.format("%-40s %-20.3f", "Independent evaluate calls", independent / 1_000_000.0));
+		System.out.println(String.format("%-40s %-20.3f", "evaluateAll", sequential / 1_000_000.0));
+		System.out.println(String.format("%-40s %-20.3f", "evaluateAll, parallelism 4", parallel / 1_000_000.0));
+		System.out.println("-".repeat(80));
+	}
+	
+	/**
+	 * Returns the average time, in nanoseconds, of the given batch, after a
+	 * warm-up.
+	 */
+	private long measureBatch(Runnable batch) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			batch.run();
+		}
+		long start = System.nanoTime();
+		for (int rep = 0; rep < repetitions; rep++) {
+			batch.run();
+		}
+		return (System.nanoTime() - start) / repetitions;
+	}
+	
 	private void printTableHeader() {
 		System.out.println(String.format("%-15s %-20s %-20s %-20s %-20s",
 			"Metric Value", "Avg Time (ms)", "Min Time (ms)", "Max Time (ms)", "Std Dev (ms)"));
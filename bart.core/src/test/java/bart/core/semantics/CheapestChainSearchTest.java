@@ -0,0 +1,85 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.AndExchange;
+import bart.core.AttributeMatcher;
+import bart.core.Attributes;
+import bart.core.ContextHandler;
+import bart.core.ContextSnapshot;
+import bart.core.DefaultRequestComply;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+import bart.core.semantics.Derivations.Goal;
+import bart.core.semantics.Derivations.Path;
+
+class CheapestChainSearchTest {
+
+	private static final Attributes PRINTER = resource("printer");
+	private static final Attributes PAPER = resource("paper");
+	private static final Attributes TONER = resource("toner");
+	private static final Attributes INK = resource("ink");
+
+	private static Attributes resource(String type) {
+		return new Attributes().add("resource/type", type);
+	}
+
+	private static Derivations derivations(Policies policies) {
+		var matcher = new AttributeMatcher();
+		return new Derivations(policies, matcher, new DefaultRequestComply(matcher),
+			new ContextSnapshot(new ContextHandler(), policies), null);
+	}
+
+	@Test
+	void shouldRecordTheGoalsThatFail() {
+		var paperProvider = new Attributes().add("role", "PaperProvider");
+		var policies = new Policies()
+			.add(new Policy( // index 1
+				new Attributes().add("name", "Alice"),
+				new Rules().add(new Rule(PRINTER,
+					new AndExchange(
+						new SingleExchange(me(), PAPER, any(paperProvider)),
+						new SingleExchange(me(), TONER, any(new Attributes().add("name", "Dan"))))))))
+			.add(new Policy( // index 2
+				new Attributes().add("name", "Bob"),
+				new Rules()));
+		for (int i = 0; i < 3; i++) {
+			policies.add(new Policy( // index 3 to 5
+				paperProvider,
+				new Rules().add(new Rule(PAPER))));
+		}
+		policies
+			.add(new Policy( // index 6
+				new Attributes().add("name", "Dan"),
+				new Rules().add(new Rule(TONER,
+					new SingleExchange(me(), INK, any(new Attributes().add("name", "Eve")))))))
+			.add(new Policy( // index 7, gives nothing
+				new Attributes().add("name", "Eve"),
+				new Rules()));
+		var derivations = derivations(policies);
+		var request = new Request(index(2), PRINTER, index(1));
+		// the paper from 4 and 5 is expensive, so toner from Dan is first
+		// expanded after the paper from 3
+		assertNull(new CheapestChainSearch(derivations,
+			r -> r.from().getIndex() == 4 || r.from().getIndex() == 5 ? 10 : 1).search(request));
+		var toner = new Goal(new Request(index(1), TONER, index(6)), new Path(request, null));
+		var ink = new Goal(new Request(index(6), INK, index(7)), new Path(toner.request(), toner.path()));
+		assertTrue(derivations.isKnownUnsatisfiable(ink));
+		// the failures propagate up one goal each time the ink is needed again:
+		// after the paper from 4 to ink from any Eve, after the paper from 5
+		// to toner from Dan
+		assertTrue(derivations.isKnownUnsatisfiable(toner));
+		assertFalse(derivations.chains(new Goal(request, null)).hasNext());
+	}
+}
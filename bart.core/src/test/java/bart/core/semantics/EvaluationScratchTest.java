@@ -0,0 +1,69 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.index;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bart.core.Attributes;
+import bart.core.Request;
+
+class EvaluationScratchTest {
+
+	private EvaluationScratch scratch;
+
+	@BeforeEach
+	void init() {
+		scratch = new EvaluationScratch();
+	}
+
+	@Test
+	void shouldPushAndReleaseNestedIndexes() {
+		var outer = scratch.mark();
+		for (int i = 0; i < 100; i++) {
+			scratch.push(i);
+		}
+		var inner = scratch.mark();
+		assertEquals(100, inner - outer);
+		scratch.push(1000);
+		assertEquals(1000, scratch.get(inner));
+		scratch.release(inner);
+		assertEquals(inner, scratch.mark());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, scratch.get(outer + i));
+		}
+		scratch.release(outer);
+		assertEquals(0, scratch.mark());
+	}
+
+	@Test
+	void shouldReuseRequestBuffers() {
+		var buffer = scratch.borrowRequestBuffer();
+		buffer.add(new Request(index(1), new Attributes(), index(2)));
+		// a nested borrow gets a different buffer
+		var nested = scratch.borrowRequestBuffer();
+		assertThat(nested).isNotSameAs(buffer).isEmpty();
+		scratch.returnRequestBuffer(nested);
+		scratch.returnRequestBuffer(buffer);
+		assertThat(buffer).isEmpty();
+		assertSame(buffer, scratch.borrowRequestBuffer());
+		assertSame(nested, scratch.borrowRequestBuffer());
+	}
+
+	@Test
+	void shouldBeAcquiredOnlyOnce() {
+		assertTrue(scratch.acquire());
+		assertFalse(scratch.acquire());
+		scratch.push(1);
+		scratch.requests.add(new Request(index(1), new Attributes(), index(2)));
+		scratch.releaseAll();
+		assertEquals(0, scratch.mark());
+		assertThat(scratch.requests).isEmpty();
+		assertTrue(scratch.acquire());
+	}
+}
@@ -0,0 +1,196 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.all;
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static bart.core.expressions.Expressions.requester;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.AndExchange;
+import bart.core.Attributes;
+import bart.core.ContextHandler;
+import bart.core.Exchange;
+import bart.core.OrExchange;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+
+class FixpointSemanticsTest {
+
+	private static final String[] TYPES = { "printer", "paper", "ink", "toner" };
+	private static final String[] ROLES = { "PrinterProvider", "PaperProvider", "InkProvider" };
+
+	private static Attributes resource(String type) {
+		return new Attributes().add("resource/type", type);
+	}
+
+	private static Attributes role(String role) {
+		return new Attributes().add("role", role);
+	}
+
+	@Test
+	void shouldPermitMutualExchanges() {
+		// Alice gives printer provided the requester gives paper
+		// Bob gives paper provided the requester gives printer
+		// Carl gives paper provided the requester gives ink, which nobody gives
+		var policies = new Policies()
+			.add(new Policy(role("PrinterProvider"),
+				new Rules().add(new Rule(resource("printer"),
+					new SingleExchange(me(), resource("paper"), requester())))))
+			.add(new Policy(role("PaperProvider"),
+				new Rules().add(new Rule(resource("paper"),
+					new SingleExchange(me(), resource("printer"), requester())))))
+			.add(new Policy(role("PaperProvider"),
+				new Rules().add(new Rule(resource("paper"),
+					new SingleExchange(me(), resource("ink"), requester())))));
+		var matrix = new FixpointSemantics(policies).accessMatrix();
+		assertEquals(3, matrix.parties());
+		assertTrue(matrix.isPermitted(2, resource("printer"), 1));
+		assertTrue(matrix.isPermitted(1, resource("paper"), 2));
+		assertFalse(matrix.isPermitted(1, resource("paper"), 3));
+		assertFalse(matrix.isPermitted(3, resource("printer"), 1));
+		assertFalse(matrix.isPermitted(1, resource("ink"), 3));
+		assertEquals(2, matrix.count());
+		assertTrue(matrix.isPermitted(new Request(index(2), resource("printer"), any(role("PrinterProvider")))));
+		assertTrue(matrix.isPermitted(new Request(index(1), resource("paper"), any(role("PaperProvider")))));
+		assertFalse(matrix.isPermitted(new Request(index(1), resource("paper"), all(role("PaperProvider")))));
+		assertFalse(matrix.isPermitted(new Request(index(1), resource("paper"), all(role("Nobody")))));
+	}
+
+	@Test
+	void shouldEvaluateTheConditionsAgainstTheContext() {
+		var contextHandler = new ContextHandler();
+		var policies = new Policies()
+			.add(new Policy(role("PrinterProvider"), new Rules()))
+			.add(new Policy(role("PaperProvider"),
+				new Rules().add(new Rule(resource("paper"), resolver -> resolver.name("open").equals(true)))));
+		var fixpoint = new FixpointSemantics(policies).contextHandler(contextHandler)
+			.resource(resource("toner"));
+		assertFalse(fixpoint.accessMatrix().isPermitted(1, resource("paper"), 2));
+		contextHandler.add(2, "open", true);
+		var matrix = fixpoint.accessMatrix();
+		assertTrue(matrix.isPermitted(1, resource("paper"), 2));
+		assertFalse(matrix.isPermitted(1, resource("toner"), 2));
+		assertThatThrownBy(() -> matrix.isPermitted(1, resource("ink"), 2))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("resource not in the matrix: [(resource/type : ink)]");
+		assertThatThrownBy(() -> matrix.isPermitted(1, resource("paper"), 3))
+			.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	void shouldAgreeWithTheSemantics() {
+		var random = new Random(42);
+		var contextHandler = new ContextHandler();
+		var policies = new Policies();
+		for (int i = 1; i <= 14; i++) {
+			var rules = new Rules();
+			for (int r = random.nextInt(3); r >= 0; r--) {
+				var type = TYPES[random.nextInt(TYPES.length)];
+				rules.add(random.nextInt(4) == 0
+					? new Rule(resource(type), resolver -> resolver.name("open").equals(true), exchange(random))
+					: new Rule(resource(type), exchange(random)));
+			}
+			policies.add(new Policy(role(ROLES[random.nextInt(ROLES.length)]), rules));
+			if (random.nextBoolean()) {
+				contextHandler.add(i, "open", true);
+			}
+		}
+		var semantics = new Semantics(policies).contextHandler(contextHandler).tracing(false);
+		var matrix = new FixpointSemantics(policies).contextHandler(contextHandler).accessMatrix();
+		var parallelMatrix = new FixpointSemantics(policies).contextHandler(contextHandler)
+			.parallelism(4).accessMatrix();
+		assertTrue(matrix.count() > 0);
+		assertEquals(matrix.count(), parallelMatrix.count());
+		for (var type : TYPES) {
+			for (int requester = 1; requester <= policies.size(); requester++) {
+				for (int provider = 1; provider <= policies.size(); provider++) {
+					if (provider != requester) {
+						var request = new Request(index(requester), resource(type), index(provider));
+						var expected = semantics.evaluate(request).isPermitted();
+						assertEquals(expected, matrix.isPermitted(requester, resource(type), provider), request::toString);
+						assertEquals(expected, parallelMatrix.isPermitted(request), request::toString);
+					}
+				}
+				for (var role : ROLES) {
+					for (var request : new Request[] {
+							new Request(index(requester), resource(type), any(role(role))),
+							new Request(index(requester), resource(type), all(role(role))) }) {
+						assertEquals(semantics.evaluate(request).isPermitted(), matrix.isPermitted(request),
+							request::toString);
+					}
+				}
+			}
+		}
+	}
+
+	private Exchange exchange(Random random) {
+		return switch (random.nextInt(6)) {
+		case 0 -> null;
+		case 1 -> new OrExchange(single(random), single(random));
+		case 2 -> new AndExchange(single(random), single(random));
+		default -> single(random);
+		};
+	}
+
+	private SingleExchange single(Random random) {
+		var type = resource(TYPES[random.nextInt(TYPES.length)]);
+		var role = role(ROLES[random.nextInt(ROLES.length)]);
+		return switch (random.nextInt(5)) {
+		case 0 -> new SingleExchange(me(), type, any(role));
+		case 1 -> new SingleExchange(me(), type, all(role));
+		case 2 -> new SingleExchange(any(role), type, requester());
+		default -> new SingleExchange(me(), type, requester());
+		};
+	}
+
+	@Test
+	void shouldRemoveTriplesRoundAfterRound() {
+		// party i gives r<i> to anyone, provided it gets r<i + 1> from party
+		// i + 1; party 8 gives r8 only to party 1, so the removals go back one
+		// party per round
+		var policies = new Policies();
+		for (int i = 1; i <= 8; i++) {
+			var rule = i == 8
+				? new Rule(resource("r8"), requester("level").isEqualTo(1))
+				: new Rule(resource("r" + i),
+					new SingleExchange(me(), resource("r" + (i + 1)), any(new Attributes().add("level", i + 1))));
+			policies.add(new Policy(new Attributes().add("level", i), new Rules().add(rule)));
+		}
+		var matrix = new FixpointSemantics(policies).parallelism(3).accessMatrix();
+		var semantics = new Semantics(policies).tracing(false);
+		for (int i = 1; i <= 8; i++) {
+			for (int requester = 1; requester <= 8; requester++) {
+				if (requester != i) {
+					var request = new Request(index(requester), resource("r" + i), index(i));
+					assertEquals(semantics.evaluate(request).isPermitted(), matrix.isPermitted(request),
+						request::toString);
+				}
+			}
+		}
+		assertTrue(matrix.isPermitted(1, resource("r8"), 8));
+		assertFalse(matrix.isPermitted(7, resource("r8"), 8));
+		assertFalse(matrix.isPermitted(2, resource("r1"), 1));
+		assertEquals(1, matrix.count());
+	}
+
+	@Test
+	void shouldRejectInvalidParallelism() {
+		var fixpoint = new FixpointSemantics(new Policies());
+		assertThatThrownBy(() -> fixpoint.parallelism(0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("parallelism must be at least 1: 0");
+	}
+}
@@ -0,0 +1,171 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bart.core.AndExchange;
+import bart.core.Attributes;
+import bart.core.OrExchange;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+import bart.core.semantics.FlameGraphRecorder.Weight;
+
+class FlameGraphRecorderTest {
+
+	private FlameGraphRecorder recorder;
+	private long time;
+
+	@BeforeEach
+	void init() {
+		time = 0;
+		// each reading of the clock advances the time by 1 microsecond
+		recorder = new FlameGraphRecorder(() -> time += 1000);
+	}
+
+	@Test
+	void shouldExportFoldedStacks() {
+		recorder.enter("a");
+		recorder.enter("b");
+		recorder.exit();
+		recorder.enter("b");
+		recorder.enter("c;d");
+		recorder.exit();
+		recorder.exit();
+		recorder.exit();
+		assertEquals("""
+			a 1
+			a;b 2
+			a;b;c,d 1
+			""", recorder.toFolded(Weight.STEPS));
+		// a: 1000..8000, first b: 2000..3000, second b: 4000..7000, c: 5000..6000
+		assertEquals("""
+			a 3000
+			a;b 3000
+			a;b;c,d 1000
+			""", recorder.toFolded(Weight.WALL_TIME));
+	}
+
+	@Test
+	void shouldExportChromeTraceJson() {
+		recorder.enter("a \"quoted\"\\\n\t");
+		recorder.enter("b");
+		recorder.exit();
+		recorder.exit();
+		assertEquals("""
+			{"traceEvents":[
+			{"name":"a \\"quoted\\"\\\\\\n\\u0009","ph":"X","ts":0.000,"dur":3.000,"pid":1,"tid":1,"args":{"depth":0}},
+			{"name":"b","ph":"X","ts":1.000,"dur":1.000,"pid":1,"tid":1,"args":{"depth":1}}
+			]}
+			""", recorder.toChromeTraceJson());
+	}
+
+	@Test
+	void shouldExportEmptyRecording() {
+		assertEquals("", recorder.toFolded(Weight.STEPS));
+		assertEquals("""
+			{"traceEvents":[
+			]}
+			""", recorder.toChromeTraceJson());
+	}
+
+	@Test
+	void shouldCapChromeEventsButStillAggregateFoldedStacks() {
+		recorder.maxEvents(2);
+		recorder.enter("a");
+		for (int i = 0; i < 3; i++) {
+			recorder.enter("b");
+			recorder.exit();
+		}
+		recorder.exit();
+		assertEquals("""
+			a 1
+			a;b 3
+			""", recorder.toFolded(Weight.STEPS));
+		assertEquals("""
+			{"traceEvents":[
+			{"name":"a","ph":"X","ts":0.000,"dur":7.000,"pid":1,"tid":1,"args":{"depth":0}},
+			{"name":"b","ph":"X","ts":1.000,"dur":1.000,"pid":1,"tid":1,"args":{"depth":1}}
+			]}
+			""", recorder.toChromeTraceJson());
+		assertEquals(2, recorder.droppedEvents());
+		assertThatThrownBy(() -> recorder.maxEvents(-1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("max events must not be negative: -1");
+	}
+
+	@Test
+	void shouldReset() {
+		recorder.enter("a");
+		recorder.reset();
+		recorder.enter("b");
+		recorder.exit();
+		assertEquals("b 1\n", recorder.toFolded(Weight.STEPS));
+	}
+
+	@Test
+	void shouldRecordSemanticsFrames() {
+		var policies = new Policies()
+			.add(new Policy( // index 1
+				new Attributes().add("name", "Alice"),
+				new Rules()
+					.add(new Rule(new Attributes().add("resource/type", "paper")))
+					.add(new Rule(new Attributes().add("resource/type", "ink")))))
+			.add(new Policy( // index 2
+				new Attributes().add("name", "Bob"),
+				new Rules()
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						new AndExchange(
+							new OrExchange(
+								new SingleExchange(me(),
+									new Attributes().add("resource/type", "toner"),
+									requester()),
+								new SingleExchange(me(),
+									new Attributes().add("resource/type", "ink"),
+									requester())),
+							new SingleExchange(me(),
+								new Attributes().add("resource/type", "paper"),
+								requester()))))));
+		var semantics = new Semantics(policies).flameGraphRecorder(recorder);
+		assertTrue(semantics.evaluate(new Request(index(1),
+			new Attributes().add("resource/type", "printer"),
+			index(2))).isPermitted());
+		var printer = "request 1 from 2 [(resource/type : printer)];policy 2;rule 2.1;AND";
+		assertEquals(
+			"request 1 from 2 [(resource/type : printer)] 1\n" +
+			"request 1 from 2 [(resource/type : printer)];policy 2 1\n" +
+			"request 1 from 2 [(resource/type : printer)];policy 2;rule 2.1 1\n" +
+			printer + " 1\n" +
+			printer + ";OR 1\n" +
+			printer + ";OR;exchange [(resource/type : toner)] 1\n" +
+			printer + ";OR;exchange [(resource/type : toner)];request 2 from 1 [(resource/type : toner)] 1\n" +
+			printer + ";OR;exchange [(resource/type : toner)];request 2 from 1 [(resource/type : toner)];policy 1 1\n" +
+			printer + ";OR;exchange [(resource/type : toner)];request 2 from 1 [(resource/type : toner)];policy 1;rule 1.1 1\n" +
+			printer + ";OR;exchange [(resource/type : toner)];request 2 from 1 [(resource/type : toner)];policy 1;rule 1.2 1\n" +
+			printer + ";OR;exchange [(resource/type : ink)] 1\n" +
+			printer + ";OR;exchange [(resource/type : ink)];request 2 from 1 [(resource/type : ink)] 1\n" +
+			printer + ";OR;exchange [(resource/type : ink)];request 2 from 1 [(resource/type : ink)];policy 1 1\n" +
+			printer + ";OR;exchange [(resource/type : ink)];request 2 from 1 [(resource/type : ink)];policy 1;rule 1.1 1\n" +
+			printer + ";OR;exchange [(resource/type : ink)];request 2 from 1 [(resource/type : ink)];policy 1;rule 1.2 1\n" +
+			printer + ";exchange [(resource/type : paper)] 1\n" +
+			printer + ";exchange [(resource/type : paper)];request 2 from 1 [(resource/type : paper)] 1\n" +
+			printer + ";exchange [(resource/type : paper)];request 2 from 1 [(resource/type : paper)];policy 1 1\n" +
+			printer + ";exchange [(resource/type : paper)];request 2 from 1 [(resource/type : paper)];policy 1;rule 1.1 1\n",
+			recorder.toFolded(Weight.STEPS));
+		// the recording is balanced: the root frame spans the whole evaluation
+		assertThat(recorder.toChromeTraceJson())
+			.startsWith("{\"traceEvents\":[\n{\"name\":\"request 1 from 2 [(resource/type : printer)]\",\"ph\":\"X\",\"ts\":0.000,\"dur\":37.000,");
+	}
+}
@@ -0,0 +1,142 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bart.core.Attributes;
+import bart.core.ExpressionWithDescription;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+import bart.core.semantics.RuleProfiler.RuleStatistics;
+
+class RuleProfilerTest {
+
+	private Policies policies;
+	private RuleProfiler profiler;
+	private Semantics semantics;
+
+	@BeforeEach
+	void init() {
+		policies = new Policies()
+			.add(new Policy( // index 1
+				new Attributes().add("name", "Alice"),
+				new Rules()
+					.add(new Rule(new Attributes().add("resource/type", "paper")))))
+			.add(new Policy( // index 2
+				new Attributes().add("role", "Provider"),
+				new Rules()
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						new ExpressionWithDescription(c -> {
+							Thread.sleep(1);
+							return false;
+						}, "slow false")))
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						new SingleExchange(me(),
+							new Attributes().add("resource/type", "paper"),
+							requester())))
+					.add(new Rule(
+						new Attributes().add("resource/type", "never")))));
+		profiler = new RuleProfiler();
+		semantics = new Semantics(policies).ruleProfiler(profiler);
+	}
+
+	@Test
+	void shouldAccumulateStatisticsPerRule() {
+		var request = new Request(index(1),
+			new Attributes().add("resource/type", "printer"),
+			any(new Attributes().add("role", "Provider")));
+		assertTrue(semantics.evaluate(request).isPermitted());
+		assertTrue(semantics.evaluate(request).isPermitted());
+		assertStatistics(profiler.getStatistics(2, 1), 2, 2, 2, 0, 0);
+		assertThat(profiler.getStatistics(2, 1).getConditionNanos())
+			.isGreaterThanOrEqualTo(2_000_000L);
+		// constant true conditions are never evaluated
+		assertStatistics(profiler.getStatistics(2, 2), 2, 2, 0, 2, 2);
+		// the sub-request for paper is served by Alice
+		assertStatistics(profiler.getStatistics(1, 1), 2, 2, 0, 0, 2);
+		assertEquals(0L, profiler.getStatistics(1, 1).getConditionNanos());
+		// the third rule is never reached
+		assertNull(profiler.getStatistics(2, 3));
+	}
+
+	@Test
+	void shouldCountFailedResourceTests() {
+		assertFalse(semantics.evaluate(new Request(index(1),
+			new Attributes().add("resource/type", "scanner"),
+			index(2))).isPermitted());
+		assertStatistics(profiler.getStatistics(2, 1), 1, 0, 0, 0, 0);
+		assertStatistics(profiler.getStatistics(2, 2), 1, 0, 0, 0, 0);
+		assertStatistics(profiler.getStatistics(2, 3), 1, 0, 0, 0, 0);
+		assertEquals(0L, profiler.getStatistics(2, 3).getConditionNanos());
+	}
+
+	@Test
+	void shouldSortHottestRulesFirst() {
+		semantics.evaluate(new Request(index(1),
+			new Attributes().add("resource/type", "printer"),
+			index(2)));
+		semantics.evaluate(new Request(index(1),
+			new Attributes().add("resource/type", "scanner"),
+			index(2)));
+		assertThat(profiler.getStatistics())
+			.extracting(s -> s.getPolicyIndex() + "." + s.getRuleIndex())
+			// 2.1 has the slow condition; then by number of tests, then by position
+			.containsExactly("2.1", "2.2", "1.1", "2.3");
+		var report = profiler.report().split("\n");
+		assertThat(report).hasSize(5);
+		assertThat(report[0]).isEqualTo(
+			"rule              tests    matches conditions condition (ms)  exchanges    permits");
+		assertThat(report[1]).startsWith("2.1                   2          1          1");
+		assertThat(report[2]).matches("2\\.2 +2 +1 +0 +\\S+ +1 +1");
+		assertThat(report[3]).matches("1\\.1 +1 +1 +0 +\\S+ +0 +1");
+		assertThat(report[4]).matches("2\\.3 +1 +0 +0 +\\S+ +0 +0");
+	}
+
+	@Test
+	void shouldReset() {
+		semantics.evaluate(new Request(index(1),
+			new Attributes().add("resource/type", "printer"),
+			index(2)));
+		profiler.reset();
+		assertThat(profiler.getStatistics()).isEmpty();
+		assertNull(profiler.getStatistics(2, 1));
+	}
+
+	@Test
+	void shouldNotProfileWhenDisabled() {
+		semantics.ruleProfiler(null);
+		assertTrue(semantics.evaluate(new Request(index(1),
+			new Attributes().add("resource/type", "printer"),
+			index(2))).isPermitted());
+		assertThat(profiler.getStatistics()).isEmpty();
+	}
+
+	private void assertStatistics(RuleStatistics statistics,
+			long resourceTests, long matches, long conditionEvaluations,
+			long exchangeExpansions, long permits) {
+		assertThat(statistics)
+			.extracting(RuleStatistics::getResourceTests,
+				RuleStatistics::getMatches,
+				RuleStatistics::getConditionEvaluations,
+				RuleStatistics::getExchangeExpansions,
+				RuleStatistics::getPermits)
+			.containsExactly(resourceTests, matches, conditionEvaluations,
+				exchangeExpansions, permits);
+	}
+}
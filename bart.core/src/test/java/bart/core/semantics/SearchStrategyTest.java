@@ -0,0 +1,198 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static bart.core.Participants.me;
+import static bart.core.Participants.requester;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bart.core.AndExchange;
+import bart.core.Attributes;
+import bart.core.OrExchange;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Result;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.SingleExchange;
+
+class SearchStrategyTest {
+
+	private static final int LEVELS = 6;
+	private static final int PARTIES_PER_LEVEL = 3;
+
+	private static final Attributes PRINTER = resource("printer");
+	private static final Attributes PAPER = resource("paper");
+	private static final Request PAPER_REQUEST = new Request(index(1), PAPER, index(2));
+
+	private final AtomicInteger deepRequests = new AtomicInteger();
+	private final Policies policies = new Policies();
+	private final Semantics semantics = new Semantics(policies);
+	private final Request request = new Request(index(2), PRINTER, index(1));
+
+	private static Attributes resource(String type) {
+		return new Attributes().add("resource/type", type);
+	}
+
+	private static Attributes level(int level) {
+		return new Attributes().add("level", level);
+	}
+
+	@BeforeEach
+	void init() {
+		// Alice gives printer provided she gets, from the deep parties, a
+		// chain of resources that eventually fails, or paper from the requester
+		policies.add(new Policy(new Attributes().add("name", "Alice"),
+				new Rules().add(new Rule(PRINTER,
+					new OrExchange(
+						new SingleExchange(me(), resource("deep1"), any(level(1))),
+						new SingleExchange(me(), PAPER, requester()))))))
+			.add(new Policy(new Attributes().add("name", "Bob"),
+				new Rules().add(new Rule(PAPER))));
+		for (int level = 1; level <= LEVELS; level++) {
+			var last = level == LEVELS;
+			for (int i = 0; i < PARTIES_PER_LEVEL; i++) {
+				policies.add(new Policy(level(level),
+					new Rules().add(new Rule(resource("deep" + level),
+						context -> deepRequests.incrementAndGet() > 0 && !last,
+						new SingleExchange(me(), resource("deep" + (level + 1)), any(level(level + 1)))))));
+			}
+		}
+	}
+
+	@Test
+	void shouldSearchDepthFirstByDefault() {
+		var result = semantics.evaluate(request);
+		var depthFirst = new Semantics(policies).searchStrategy(SearchStrategy.DEPTH_FIRST);
+		var explicit = depthFirst.evaluate(request);
+		assertEquals(List.copyOf(result.getRequests()), List.copyOf(explicit.getRequests()));
+		assertEquals(semantics.getTrace().toString(), depthFirst.getTrace().toString());
+		assertChain(result);
+		// the whole failing left branch is explored
+		assertThat(deepRequests.get()).isGreaterThan(1000);
+	}
+
+	@Test
+	void shouldFindShortChainsBreadthFirst() {
+		assertChain(semantics.searchStrategy(SearchStrategy.BREADTH_FIRST).evaluate(request));
+		assertEquals(PARTIES_PER_LEVEL, deepRequests.get());
+		assertFalse(semantics.evaluate(new Request(index(2), resource("deep1"), any(level(1)))).isPermitted());
+	}
+
+	@Test
+	void shouldFindShortChainsByIterativeDeepening() {
+		semantics.searchStrategy(SearchStrategy.ITERATIVE_DEEPENING);
+		assertChain(semantics.evaluate(request));
+		assertEquals(PARTIES_PER_LEVEL, deepRequests.get());
+		// the trace has both searches, each after its own line
+		var trace = semantics.getTrace().toString();
+		assertThat(trace)
+			.startsWith("iterative deepening: maximum depth 0\n")
+			.contains("\niterative deepening: maximum depth 1\n")
+			.doesNotContain("maximum depth 2");
+		assertThat(trace.indexOf("maximum depth 1")).isGreaterThan(trace.indexOf("rule 1.1: not evaluated"));
+		deepRequests.set(0);
+		// no request is cut off at the maximum depth of the space
+		assertFalse(semantics.evaluate(new Request(index(2), resource("deep1"), any(level(1)))).isPermitted());
+		assertThat(deepRequests.get()).isGreaterThan(PARTIES_PER_LEVEL * LEVELS);
+	}
+
+	@Test
+	void shouldDenyTheRequestsDeeperThanTheMaximumDepth() {
+		assertFalse(semantics.maxDepth(0).evaluate(request).isPermitted());
+		assertThat(semantics.getTrace().toString())
+			.contains("rule 1.1: not evaluated: maximum depth 0 reached "
+				+ "Request[requester=1, resource=[(resource/type : paper)], from=2]");
+		assertChain(semantics.maxDepth(1).evaluate(request));
+		assertEquals(PARTIES_PER_LEVEL, deepRequests.get());
+		assertFalse(semantics.maxDepth(0).searchStrategy(SearchStrategy.BREADTH_FIRST).evaluate(request)
+			.isPermitted());
+		assertFalse(semantics.searchStrategy(SearchStrategy.ITERATIVE_DEEPENING).evaluate(request).isPermitted());
+		// a strategy cannot search deeper than the maximum depth
+		var cutOff = new boolean[1];
+		semantics.maxDepth(0).searchStrategy((request, space) -> {
+			var result = space.depthFirst(request, 10);
+			cutOff[0] = space.isCutOff();
+			return result;
+		});
+		assertFalse(semantics.evaluate(request).isPermitted());
+		assertTrue(cutOff[0]);
+		assertThatThrownBy(() -> semantics.maxDepth(-1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("max depth must not be negative: -1");
+	}
+
+	@Test
+	void shouldUseCustomStrategies() {
+		var depths = new StringBuilder();
+		semantics.searchStrategy((request, space) -> {
+			var partialChain = space.start(request);
+			// always the last alternative
+			while (!partialChain.isComplete()) {
+				var expanded = space.expand(partialChain);
+				partialChain = expanded.get(expanded.size() - 1);
+				depths.append(partialChain.depth());
+			}
+			var complete = partialChain;
+			assertThatThrownBy(() -> space.expand(complete))
+				.isInstanceOf(IllegalArgumentException.class);
+			return Result.permitted().addAll(partialChain.requests());
+		});
+		assertChain(semantics.evaluate(request));
+		assertEquals("01", depths.toString());
+		assertEquals(0, deepRequests.get());
+	}
+
+	@Test
+	void shouldNotExpandAgainTheGoalsThatFail() {
+		var toner = resource("toner");
+		var paperProvider = new Attributes().add("role", "PaperProvider");
+		var otherPolicies = new Policies()
+			.add(new Policy(new Attributes().add("name", "Alice"),
+				new Rules().add(new Rule(PRINTER,
+					new AndExchange(
+						new SingleExchange(me(), PAPER, any(paperProvider)),
+						new SingleExchange(me(), toner, any(new Attributes().add("name", "Dan"))))))))
+			.add(new Policy(new Attributes().add("name", "Bob"), new Rules()))
+			.add(new Policy(paperProvider, new Rules().add(new Rule(PAPER))))
+			.add(new Policy(paperProvider, new Rules().add(new Rule(PAPER))))
+			.add(new Policy(paperProvider, new Rules().add(new Rule(PAPER))))
+			.add(new Policy(new Attributes().add("name", "Dan"),
+				new Rules().add(new Rule(toner,
+					new SingleExchange(me(), resource("ink"), any(new Attributes().add("name", "Eve")))))))
+			// Eve gives no ink
+			.add(new Policy(new Attributes().add("name", "Eve"), new Rules()));
+		var expansions = new ArrayList<List<PartialChain>>();
+		var otherSemantics = new Semantics(otherPolicies).searchStrategy((request, space) -> {
+			// paper from one of the providers and toner from Dan
+			var papers = space.expand(space.start(request));
+			// toner from Dan needs ink from Eve, which fails
+			var firstToner = space.expand(space.expand(papers.get(0)).get(0));
+			expansions.add(space.expand(firstToner.get(0)));
+			// its only alternative needs the failed ink, so toner from Dan fails
+			expansions.add(space.expand(space.expand(papers.get(1)).get(0)));
+			// and the chains still pending it are discarded
+			expansions.add(space.expand(papers.get(2)));
+			return new Result(false);
+		});
+		assertFalse(otherSemantics.evaluate(request).isPermitted());
+		assertThat(expansions).hasSize(3).allMatch(List::isEmpty);
+	}
+
+	private void assertChain(Result result) {
+		assertTrue(result.isPermitted());
+		assertEquals(List.of(request, PAPER_REQUEST), List.copyOf(result.getRequests()));
+	}
+}
@@ -5,18 +5,30 @@ import static bart.core.Participants.any;
 import static bart.core.Participants.index;
 import static bart.core.Participants.me;
 import static bart.core.Participants.requester;
+import static bart.core.expressions.Expressions.and;
+import static bart.core.expressions.Expressions.from;
+import static bart.core.expressions.Expressions.owner;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import bart.core.AndExchange;
+import bart.core.AttributePattern;
 import bart.core.Attributes;
 import bart.core.ContextHandler;
 import bart.core.ExpressionWithDescription;
@@ -24,9 +36,12 @@ import bart.core.OrExchange;
 import bart.core.Policies;
 import bart.core.Policy;
 import bart.core.Request;
+import bart.core.RequestCost;
+import bart.core.Result;
 import bart.core.Rule;
 import bart.core.Rules;
 import bart.core.SingleExchange;
+import bart.core.expressions.Expressions;
 
 class SemanticsTest {
 
@@ -46,7 +61,10 @@ class SemanticsTest {
 	void fluentApi() {
 		var result = semantics
 			.contextHandler(new ContextHandler())
-			.requestComply(null);
+			.requestComply(null)
+			.ruleProfiler(new RuleProfiler())
+			.flameGraphRecorder(new FlameGraphRecorder())
+			.tracing(true);
 		assertThat(result)
 			.isNotNull()
 			.isSameAs(semantics);
@@ -2033,6 +2051,754 @@ class SemanticsTest {
 		);
 	}
 
+	@Test
+	void shouldNotRecordTraceWhenTracingDisabled() {
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "paper")))))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.add("name", "Bob"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						new SingleExchange(me(),
+							new Attributes()
+								.add("resource/type", "paper"),
+							requester())))));
+		var request = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			any(new Attributes()
+				.add("name", "Bob")));
+		semantics.evaluate(request);
+		var expectedTrace = semantics.getTrace().toString();
+		semantics.tracing(false);
+		var result = semantics.evaluate(request);
+		assertAll(
+			() -> assertTrue(result.isPermitted()),
+			() -> assertEquals(
+				"Request[requester=1, resource=[(resource/type : printer)], from=2]\n" +
+				"Request[requester=2, resource=[(resource/type : paper)], from=1]",
+				result.getRequests().stream().map(Object::toString).collect(Collectors.joining("\n"))),
+			// the trace of the previous evaluation is left untouched
+			() -> assertEquals(expectedTrace, semantics.getTrace().toString())
+		);
+		assertFalse(semantics.evaluate(new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "scanner"),
+			any(new Attributes()))).isPermitted());
+		assertEquals(expectedTrace, semantics.getTrace().toString());
+	}
+
+	@Test
+	void shouldSupportReentrantEvaluation() {
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "paper")))))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.add("name", "Bob"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						// the condition performs a nested evaluation
+						new ExpressionWithDescription(
+							c -> semantics.evaluate(new Request(
+								index(2),
+								new Attributes()
+									.add("resource/type", "paper"),
+								index(1))).isPermitted(),
+							"Alice gives paper to Bob"),
+						new SingleExchange(me(),
+							new Attributes()
+								.add("resource/type", "paper"),
+							requester())))));
+		semantics.tracing(false);
+		var result = semantics.evaluate(new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			index(2)));
+		assertTrue(result.isPermitted());
+		assertEquals(
+			"Request[requester=1, resource=[(resource/type : printer)], from=2]\n" +
+			"Request[requester=2, resource=[(resource/type : paper)], from=1]",
+			result.getRequests().stream().map(Object::toString).collect(Collectors.joining("\n")));
+	}
+
+	@Test
+	void shouldBeUsableFromSeveralThreadsWhenTracingDisabled() throws InterruptedException {
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "paper")))))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.add("role", "Provider"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						new SingleExchange(me(),
+							new Attributes()
+								.add("resource/type", "paper"),
+							requester())))))
+		.add(
+			new Policy( // index 3
+				new Attributes()
+					.add("role", "Provider"),
+				new Rules()))
+		.add(
+			new Policy( // index 4
+				new Attributes()
+					.add("role", "Provider"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						// reads the context of the provider and of the requester
+						and(from("open").isEqualTo(true), Expressions.requester("open").isEqualTo(true))))));
+		// the context of party 1 is read but never written
+		semantics.contextHandler(new ContextHandler().add(4, "open", true)).tracing(false);
+		// policy 3 has no rules, so not all providers give the printer
+		var fromAllProviders = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			all(new Attributes()
+				.add("role", "Provider")));
+		var fromAnyProvider = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			any(new Attributes()
+				.add("role", "Provider")));
+		var failures = new AtomicInteger();
+		var threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < 500; i++) {
+					if (semantics.evaluate(fromAllProviders).isPermitted()
+							|| !semantics.evaluate(fromAnyProvider).isPermitted()
+							|| semantics.evaluate(fromAnyProvider.withFrom(4)).isPermitted()) {
+						failures.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (var thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, failures.get());
+	}
+
+	@Test
+	void shouldNotBeKeptReachableByTheThreadsThatUsedIt() throws InterruptedException {
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "paper")))));
+		var reference = evaluateWithDiscardedSemantics();
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+	}
+
+	private WeakReference<Semantics> evaluateWithDiscardedSemantics() {
+		var discarded = new Semantics(policies).tracing(false);
+		assertTrue(discarded.evaluate(new Request(
+			index(2),
+			new Attributes()
+				.add("resource/type", "paper"),
+			index(1))).isPermitted());
+		return new WeakReference<>(discarded);
+	}
+
+	@Test
+	void shouldReadLazyContextAttributesOncePerEvaluation() {
+		var reads = new AtomicInteger();
+		semantics.contextHandler(new ContextHandler()
+			.add(1, "ticket", reads::incrementAndGet));
+		var sameTicketTwice = new ExpressionWithDescription(
+			c -> c.nameFromRequester("ticket").equals(c.nameFromRequester("ticket")),
+			"same ticket");
+		var firstTicket = new ExpressionWithDescription(
+			c -> c.nameFromRequester("ticket").equals(1),
+			"first ticket");
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.add("role", "Provider"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						sameTicketTwice))))
+		.add(
+			new Policy( // index 3
+				new Attributes()
+					.add("role", "Provider"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						firstTicket))));
+		var request = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			all(new Attributes()
+				.add("role", "Provider")));
+		// three reads in two conditions, but a single supplier call
+		assertTrue(semantics.evaluate(request).isPermitted());
+		assertEquals(1, reads.get());
+		// the next top-level evaluation sees a fresh value
+		assertFalse(semantics.evaluate(request).isPermitted());
+		assertEquals(2, reads.get());
+	}
+
+	@Test
+	void shouldEvaluateExpressionConditionsBeforeAndAfterFreezing() {
+		semantics.contextHandler(new ContextHandler()
+			.add(2, "time", 10));
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.add("role", "Provider"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						and(owner("role").isEqualTo("Admin"), from("time").lessThan(18))))
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						and(from("time").lessThan(18), owner("role").isEqualTo("Provider"))))));
+		var request = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			index(2));
+		var expectedTrace = """
+			evaluating Request[requester=1, resource=[(resource/type : printer)], from=2]
+			  policy 2: evaluating Request[requester=1, resource=[(resource/type : printer)], from=2]
+			    rule 2.1: resource match([(resource/type : printer)], [(resource/type : printer)]) -> true
+			    rule 2.1: condition (owner.role = 'Admin' and time < 18) -> false
+			  policy 2: evaluating Request[requester=1, resource=[(resource/type : printer)], from=2]
+			    rule 2.2: resource match([(resource/type : printer)], [(resource/type : printer)]) -> true
+			    rule 2.2: condition (time < 18 and owner.role = 'Provider') -> true
+			result: true
+			""";
+		assertResultTrue(request, expectedTrace,
+			"Request[requester=1, resource=[(resource/type : printer)], from=2]");
+		var profiler = new RuleProfiler();
+		semantics.ruleProfiler(profiler);
+		policies.freeze();
+		// same outcome and trace, but the first condition is folded to false
+		assertResultTrue(request, expectedTrace,
+			"Request[requester=1, resource=[(resource/type : printer)], from=2]");
+		assertEquals(0, profiler.getStatistics(2, 1).getConditionEvaluations());
+		assertEquals(1, profiler.getStatistics(2, 2).getConditionEvaluations());
+	}
+
+	@Test
+	void shouldSelectRulesWithPatternsThroughTheIndexWhenTracingDisabled() {
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.add("role", "Provider"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer")))
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", AttributePattern.startsWith("document/"))
+							.add("resource/size", AttributePattern.lessThan(10))))
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", AttributePattern.oneOf("document/pdf", "scanner"))))));
+		var smallDocument = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "document/pdf")
+				.add("resource/size", 5),
+			index(2));
+		var largeDocument = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "document/pdf")
+				.add("resource/size", 50),
+			index(2));
+		var scanner = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "scanner"),
+			index(2));
+		assertTrue(semantics.evaluate(smallDocument).isPermitted());
+		assertFalse(semantics.evaluate(largeDocument).isPermitted());
+		assertTrue(semantics.evaluate(scanner).isPermitted());
+		var profiler = new RuleProfiler();
+		semantics.ruleProfiler(profiler).tracing(false);
+		policies.freeze();
+		assertTrue(semantics.evaluate(smallDocument).isPermitted());
+		assertFalse(semantics.evaluate(largeDocument).isPermitted());
+		var result = semantics.evaluate(scanner);
+		assertTrue(result.isPermitted());
+		assertEquals("Request[requester=1, resource=[(resource/type : scanner)], from=2]",
+			result.getRequests().stream().map(Object::toString).collect(Collectors.joining("\n")));
+		// the printer rule is never a candidate, the large document has none
+		// (no rule accepts its size), the others are tested only once
+		assertEquals(null, profiler.getStatistics(2, 1));
+		assertEquals(1, profiler.getStatistics(2, 2).getResourceTests());
+		assertEquals(1, profiler.getStatistics(2, 3).getResourceTests());
+	}
+
+	@Test
+	void shouldSelectMultiValuedPartiesThroughThePartyIndexWhenTracingDisabled() {
+		assertMultiValuedPartiesSelection(false);
+	}
+
+	@Test
+	void shouldSelectMultiValuedPartiesThroughThePartyColumnsWhenTracingDisabled() {
+		assertMultiValuedPartiesSelection(true);
+	}
+
+	private void assertMultiValuedPartiesSelection(boolean columnar) {
+		policies.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice")
+					.addValues("role", "Employee", "Manager"),
+				new Rules()))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.addValues("city", "Lucca", "Pisa"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						Expressions.requester("role").isEqualTo("Manager")))))
+		.add(
+			new Policy( // index 3
+				new Attributes()
+					.add("city", "Siena"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer")))))
+		.add(
+			new Policy( // index 4
+				new Attributes()
+					.addValues("city", "Pisa", "Lucca"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "scanner")))));
+		var anyInLucca = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			any(new Attributes()
+				.add("city", "Lucca")));
+		var allInLuccaAndPisa = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			all(new Attributes()
+				.addValues("city", "Pisa", "Lucca")));
+		assertTrue(semantics.evaluate(anyInLucca).isPermitted());
+		assertFalse(semantics.evaluate(allInLuccaAndPisa).isPermitted());
+		var profiler = new RuleProfiler();
+		semantics.ruleProfiler(profiler).tracing(false);
+		policies.columnar(columnar).freeze();
+		var result = semantics.evaluate(anyInLucca);
+		assertTrue(result.isPermitted());
+		assertEquals("Request[requester=1, resource=[(resource/type : printer)], from=2]",
+			result.getRequests().stream().map(Object::toString).collect(Collectors.joining("\n")));
+		assertFalse(semantics.evaluate(allInLuccaAndPisa).isPermitted());
+		// the party in Siena is never a candidate
+		assertEquals(null, profiler.getStatistics(3, 1));
+	}
+
+	@Test
+	void shouldSelectTheExchangePartiesThroughThePartyIndexWhenTracingDisabled() {
+		var selectors = new ArrayList<Attributes>();
+		var indexed = new Policies() {
+			@Override
+			public BitSet candidateParties(Attributes selector) {
+				selectors.add(selector);
+				return super.candidateParties(selector);
+			}
+		};
+		var inLucca = new Attributes()
+			.add("city", "Lucca");
+		indexed.add(
+			new Policy( // index 1
+				new Attributes()
+					.add("name", "Alice"),
+				new Rules()))
+		.add(
+			new Policy( // index 2
+				new Attributes()
+					.add("name", "Bob"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "printer"),
+						new SingleExchange(me(),
+							new Attributes()
+								.add("resource/type", "paper"),
+							any(inLucca))))))
+		.add(
+			new Policy( // index 3
+				new Attributes()
+					.add("city", "Siena"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "paper")))))
+		.add(
+			new Policy( // index 4
+				new Attributes()
+					.addValues("city", "Pisa", "Lucca"),
+				new Rules()
+					.add(new Rule(
+						new Attributes()
+							.add("resource/type", "paper")))))
+		.freeze();
+		var indexedSemantics = new Semantics(indexed);
+		var request = new Request(
+			index(1),
+			new Attributes()
+				.add("resource/type", "printer"),
+			index(2));
+		var expected = "Request[requester=1, resource=[(resource/type : printer)], from=2]\n"
+			+ "Request[requester=2, resource=[(resource/type : paper)], from=4]";
+		// the trace reports every party, so the index is not used
+		assertEquals(expected, indexedSemantics.evaluate(request).getRequests().stream()
+			.map(Object::toString).collect(Collectors.joining("\n")));
+		assertThat(indexedSemantics.getTrace().toString())
+			.contains("policy 3: from match([(city : Lucca)], [(city : Siena)]) -> false");
+		assertThat(selectors).isEmpty();
+		indexedSemantics.tracing(false);
+		assertEquals(expected, indexedSemantics.evaluate(request).getRequests().stream()
+			.map(Object::toString).collect(Collectors.joining("\n")));
+		assertThat(selectors).containsExactly(inLucca);
+	}
+
+	@Test
+	void shouldEvaluateAllTheRequestsInOrder() {
+		for (int i = 0; i < 30; i++) {
+			policies.add(new Policy(
+				new Attributes().add("name", "p" + i).add("city", "c" + i % 3),
+				new Rules()
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						from("level").isEqualTo(i % 4)))
+					.add(new Rule(
+						new Attributes().add("resource/type", "scanner"),
+						new SingleExchange(me(), new Attributes().add("resource/type", "printer"),
+							any(new Attributes().add("city", "c" + (i + 1) % 3)))))));
+		}
+		var contextHandler = new ContextHandler();
+		var counter = new AtomicInteger();
+		for (int i = 1; i <= 30; i++) {
+			contextHandler.add(i, "level", i % 5 == 0 ? counter::incrementAndGet : () -> 0);
+		}
+		semantics.contextHandler(contextHandler).tracing(false);
+		policies.freeze();
+		var requests = new ArrayList<Request>();
+		for (int i = 0; i < 60; i++) {
+			requests.add(new Request(
+				index(1 + i % 4),
+				new Attributes().add("resource/type", i % 2 == 0 ? "printer" : "scanner"),
+				i % 3 == 0 ? index(5 + i % 7) : any(new Attributes().add("city", "c" + i % 3))));
+		}
+		var expected = requests.stream().map(r -> semantics.evaluate(r).isPermitted()).toList();
+		assertTrue(expected.contains(true));
+		assertTrue(expected.contains(false));
+		counter.set(0);
+		var results = semantics.evaluateAll(requests);
+		assertEquals(expected, results.stream().map(r -> r.isPermitted()).toList());
+		// all the conditions see the same context values
+		assertThat(counter.get()).isLessThanOrEqualTo(6);
+		// equal requests have equal results, which are not shared
+		assertThat(results.get(13)).isNotSameAs(results.get(1));
+		assertEquals(results.get(1).getRequests(), results.get(13).getRequests());
+		var parallel = semantics.parallelism(3).evaluateAll(requests);
+		assertEquals(expected, parallel.stream().map(r -> r.isPermitted()).toList());
+		for (int i = 0; i < requests.size(); i++) {
+			assertEquals(results.get(i).getRequests(), parallel.get(i).getRequests());
+		}
+		assertThat(semantics.recordingReads(true).evaluateAll(requests).get(0).getReadSet()).isNotNull();
+		assertThat(semantics.evaluateAll(new ArrayList<>())).isEmpty();
+	}
+
+	@Test
+	void shouldReuseTheThreadsOfParallelEvaluations() throws InterruptedException {
+		var threads = ConcurrentHashMap.<Thread>newKeySet();
+		for (int i = 0; i < 10; i++) {
+			policies.add(new Policy(
+				new Attributes().add("name", "p" + i),
+				new Rules()
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						new ExpressionWithDescription(context -> threads.add(Thread.currentThread()) || true,
+							"records the thread")))));
+		}
+		var requests = new ArrayList<Request>();
+		for (int i = 1; i <= 10; i++) {
+			requests.add(new Request(index(i), new Attributes().add("resource/type", "printer"),
+				any(new Attributes())));
+		}
+		semantics.tracing(false).parallelism(2);
+		for (int i = 0; i < 5; i++) {
+			assertThat(semantics.evaluateAll(requests)).allMatch(Result::isPermitted);
+		}
+		// the same two threads, at most, for all the evaluations
+		assertThat(threads).hasSizeLessThanOrEqualTo(2)
+			.noneMatch(thread -> thread == Thread.currentThread());
+		semantics.close();
+		assertThat(semantics.evaluateAll(requests)).allMatch(Result::isPermitted);
+		semantics.close();
+		// a caller-supplied executor
+		var executed = new AtomicInteger();
+		var executor = Executors.newFixedThreadPool(2);
+		try {
+			threads.clear();
+			semantics.executor(task -> {
+				executed.incrementAndGet();
+				executor.execute(task);
+			});
+			assertThat(semantics.evaluateAll(requests)).allMatch(Result::isPermitted);
+			assertThat(executed.get()).isPositive();
+			assertThat(threads).allMatch(thread -> !thread.getName().equals("bart-semantics"));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void shouldRejectInvalidParallelism() {
+		assertThatThrownBy(() -> semantics.parallelism(0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("parallelism must be at least 1: 0");
+	}
+
+	@Test
+	void shouldEnumerateTheDistinctChainsOnDemand() {
+		var inkRequests = new AtomicInteger();
+		var paper = new Attributes().add("resource/type", "paper");
+		var ink = new Attributes().add("resource/type", "ink");
+		var inkProvider = new Attributes().add("role", "InkProvider");
+		policies.add(
+			new Policy( // index 1
+				new Attributes().add("name", "Alice"),
+				new Rules()
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						new OrExchange(
+							new SingleExchange(me(), paper, requester()),
+							new SingleExchange(me(), ink, any(inkProvider)))))
+					// the same chain as the first branch
+					.add(new Rule(
+						new Attributes().add("resource/type", "printer"),
+						new SingleExchange(me(), paper, requester())))))
+		.add(new Policy( // index 2
+				new Attributes().add("name", "Bob"),
+				new Rules().add(new Rule(paper))))
+		.add(new Policy( // index 3
+				new Attributes().add("name", "Carl").add("role", "InkProvider"),
+				new Rules().add(new Rule(ink))))
+		.add(new Policy( // index 4
+				new Attributes().add("name", "Dan").add("role", "InkProvider"),
+				new Rules().add(new Rule(ink, FALSE))))
+		.add(new Policy( // index 5
+				new Attributes().add("name", "Eve").add("role", "InkProvider"),
+				new Rules().add(new Rule(ink, context -> inkRequests.incrementAndGet() > 0))));
+		var request = new Request(index(2), new Attributes().add("resource/type", "printer"), index(1));
+		var first = semantics.enumerate(request).limit(2).toList();
+		assertEquals(0, inkRequests.get());
+		assertEquals(new ArrayList<>(semantics.evaluate(request).getRequests()),
+			new ArrayList<>(first.get(0).getRequests()));
+		assertThat(semantics.enumerate(request).map(r -> r.getRequests().toString()))
+			.containsExactly(
+				"[Request[requester=2, resource=[(resource/type : printer)], from=1], "
+					+ "Request[requester=1, resource=[(resource/type : paper)], from=2]]",
+				"[Request[requester=2, resource=[(resource/type : printer)], from=1], "
+					+ "Request[requester=1, resource=[(resource/type : ink)], from=3]]",
+				"[Request[requester=2, resource=[(resource/type : printer)], from=1], "
+					+ "Request[requester=1, resource=[(resource/type : ink)], from=5]]");
+		assertEquals(1, inkRequests.get());
+		assertThat(semantics.enumerate(new Request(index(2), ink, all(inkProvider)))).isEmpty();
+		assertThat(semantics.enumerate(new Request(index(1), ink, any(inkProvider))))
+			.allMatch(Result::isPermitted)
+			.hasSize(2);
+	}
+
+	@Test
+	void shouldFindTheCheapestChain() {
+		var inkRequests = new AtomicInteger();
+		var paper = new Attributes().add("resource/type", "paper");
+		var ink = new Attributes().add("resource/type", "ink");
+		var printer = new Attributes().add("resource/type", "printer");
+		policies.add(
+			new Policy( // index 1
+				new Attributes().add("name", "Alice"),
+				new Rules()
+					.add(new Rule(printer,
+						new AndExchange(
+							new SingleExchange(me(), paper, requester()),
+							new SingleExchange(me(), ink, any(new Attributes().add("role", "InkProvider"))))))
+					.add(new Rule(printer,
+						new SingleExchange(me(), paper, any(new Attributes().add("role", "PaperProvider")))))))
+		.add(new Policy( // index 2
+				new Attributes().add("name", "Bob"),
+				new Rules().add(new Rule(paper))))
+		.add(new Policy( // index 3
+				new Attributes().add("name", "Carl").add("role", "PaperProvider"),
+				new Rules().add(new Rule(paper))));
+		for (int i = 0; i < 5; i++) {
+			policies.add(new Policy( // index 4 to 8
+				new Attributes().add("name", "Ink" + i).add("role", "InkProvider"),
+				new Rules().add(new Rule(ink, context -> inkRequests.incrementAndGet() > 0))));
+		}
+		var request = new Request(index(2), printer, index(1));
+		assertEquals(3, semantics.evaluate(request).getRequests().size());
+		inkRequests.set(0);
+		var cheapest = semantics.cheapest(request);
+		assertTrue(cheapest.isPermitted());
+		assertEquals("[Request[requester=2, resource=[(resource/type : printer)], from=1], "
+				+ "Request[requester=1, resource=[(resource/type : paper)], from=3]]",
+			cheapest.getRequests().toString());
+		// the costlier chains through the ink providers are not expanded
+		assertEquals(0, inkRequests.get());
+		assertEquals(6, semantics.enumerate(request).count());
+		assertEquals(5, inkRequests.get());
+		// requests from Carl are expensive
+		cheapest = semantics.cheapest(request, r -> r.from().getIndex() == 3 ? 10 : 1);
+		assertEquals(3, cheapest.getRequests().size());
+		assertThat(cheapest.getRequests()).contains(new Request(index(1), paper, index(2)));
+		assertFalse(semantics.cheapest(new Request(index(1), ink, index(2))).isPermitted());
+		assertThatThrownBy(() -> semantics.cheapest(request, r -> -1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageStartingWith("cost must not be negative: -1.0 for Request");
+	}
+
+	@Test
+	void shouldPreferTheFirstChainAmongTheCheapestOnes() {
+		var printer = new Attributes().add("resource/type", "printer");
+		var paper = new Attributes().add("resource/type", "paper");
+		var ink = new Attributes().add("resource/type", "ink");
+		var toner = new Attributes().add("resource/type", "toner");
+		policies.add(new Policy( // index 1
+				new Attributes().add("name", "Alice"),
+				new Rules()))
+		.add(new Policy( // index 2
+				new Attributes().add("name", "Bob"),
+				new Rules()
+					.add(new Rule(printer, new SingleExchange(me(), paper, any(new Attributes().add("name", "Carl")))))
+					.add(new Rule(printer, new SingleExchange(me(), toner, any(new Attributes().add("name", "Ed")))))))
+		.add(new Policy( // index 3
+				new Attributes().add("name", "Carl"),
+				new Rules().add(new Rule(paper, new SingleExchange(me(), ink, any(new Attributes().add("name", "Dan")))))))
+		.add(new Policy( // index 4
+				new Attributes().add("name", "Dan"),
+				new Rules().add(new Rule(ink))))
+		.add(new Policy( // index 5
+				new Attributes().add("name", "Ed"),
+				new Rules().add(new Rule(toner))));
+		var request = new Request(index(1), printer, index(2));
+		RequestCost tonerIsExpensive = r -> r.resource().equals(toner) ? 2 : 1;
+		// both chains cost 3: printer, paper and ink, or printer and toner
+		var expected = "[Request[requester=1, resource=[(resource/type : printer)], from=2], "
+			+ "Request[requester=2, resource=[(resource/type : paper)], from=3], "
+			+ "Request[requester=3, resource=[(resource/type : ink)], from=4]]";
+		assertEquals(expected, semantics.evaluate(request).getRequests().toString());
+		assertEquals(expected, semantics.cheapest(request, tonerIsExpensive).getRequests().toString());
+		assertEquals("[Request[requester=1, resource=[(resource/type : printer)], from=2], "
+				+ "Request[requester=2, resource=[(resource/type : toner)], from=5]]",
+			semantics.cheapest(request).getRequests().toString());
+	}
+
+	@Test
+	void shouldFailConjunctionsAsSoonAsAMemberIsUnsatisfiable() {
+		var conditions = new AtomicInteger();
+		var paper = new Attributes().add("resource/type", "paper");
+		var printer = new Attributes().add("resource/type", "printer");
+		var provider = new Attributes().add("role", "Provider");
+		var consumer = new Attributes().add("role", "Consumer");
+		policies.add(new Policy( // index 1
+				new Attributes().add("name", "Alice"),
+				new Rules()
+					// each of the 7 providers gives paper to any of the 7 consumers
+					.add(new Rule(printer, new SingleExchange(any(consumer), paper, all(provider))))));
+		for (int i = 0; i < 6; i++) {
+			policies.add(new Policy( // index 2 to 7
+				new Attributes().add("name", "Provider" + i).add("role", "Provider"),
+				new Rules().add(new Rule(paper, context -> conditions.incrementAndGet() > 0))));
+		}
+		policies.add(new Policy( // index 8, the last provider, gives nothing
+				new Attributes().add("name", "Provider6").add("role", "Provider"),
+				new Rules()));
+		for (int i = 0; i < 7; i++) {
+			policies.add(new Policy( // index 9 to 15
+				new Attributes().add("name", "Consumer" + i).add("role", "Consumer"),
+				new Rules()));
+		}
+		var request = new Request(index(9), printer, index(1));
+		// without failing early, the 7^7 conjunctions would be backtracked over
+		assertThat(semantics.enumerate(request)).isEmpty();
+		assertFalse(semantics.cheapest(request).isPermitted());
+		// each condition is evaluated at most once per consumer and derivations
+		assertThat(conditions.get()).isLessThanOrEqualTo(2 * 6 * 7);
+	}
+
 	private void assertPolicies(String expected) {
 		assertEquals(expected, policies.description());
 	}
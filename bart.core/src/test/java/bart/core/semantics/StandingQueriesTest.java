@@ -0,0 +1,98 @@
+package bart.core.semantics;
+
+import static bart.core.Participants.any;
+import static bart.core.Participants.index;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import bart.core.Attributes;
+import bart.core.ContextHandler;
+import bart.core.Policies;
+import bart.core.Policy;
+import bart.core.Request;
+import bart.core.Rule;
+import bart.core.Rules;
+import bart.core.VersionedPolicies;
+
+class StandingQueriesTest {
+
+	private static final Attributes ADDRESS = new Attributes().add("resource/type", "addrInfo");
+
+	private final int[] evaluations = new int[5];
+	private final List<String> flips = new ArrayList<>();
+
+	private Policy courier(int index, String city) {
+		return new Policy(
+			new Attributes().add("service", "delivery").add("city", city),
+			new Rules().add(new Rule(ADDRESS, resolver -> {
+				evaluations[index]++;
+				return resolver.name("open").equals(true);
+			})));
+	}
+
+	private Request from(String city) {
+		return new Request(index(1), ADDRESS, any(new Attributes().add("city", city)));
+	}
+
+	@Test
+	void shouldReevaluateOnlyTheQueriesAffectedByAChange() {
+		var versions = new VersionedPolicies(new Policies()
+			.add(new Policy(new Attributes().add("name", "Alice"), new Rules()))
+			.add(courier(2, "Lucca"))
+			.add(courier(3, "Pisa")));
+		var contextHandler = new ContextHandler();
+		var queries = new StandingQueries(new Semantics(versions).contextHandler(contextHandler));
+		var lucca = queries.register(from("Lucca"), q -> flips.add("Lucca " + q.result().isPermitted()));
+		var carol = queries.register(new Request(index(1), ADDRESS, index(3)),
+			q -> flips.add("Carol " + q.result().isPermitted()));
+		assertFalse(lucca.result().isPermitted());
+		assertFalse(carol.result().isPermitted());
+		assertEquals(1, evaluations[2]);
+		assertEquals(1, evaluations[3]);
+		contextHandler.add(3, "open", true);
+		assertTrue(carol.result().isPermitted());
+		assertEquals(1, evaluations[2]);
+		contextHandler.add(2, "open", true);
+		assertTrue(lucca.result().isPermitted());
+		assertEquals(2, evaluations[3]);
+		// no condition read it
+		contextHandler.add(2, "busy", true);
+		assertEquals(2, evaluations[2]);
+		// Bob moves to Pisa: Carol's decision does not depend on him
+		versions.replace(2, courier(2, "Pisa"));
+		assertFalse(lucca.result().isPermitted());
+		assertEquals(2, evaluations[3]);
+		// a new courier in Lucca is selected
+		versions.add(new Policy(new Attributes().add("city", "Lucca"), new Rules().add(new Rule(ADDRESS))));
+		assertTrue(lucca.result().isPermitted());
+		assertEquals(2, evaluations[3]);
+		assertThat(flips).containsExactly("Carol true", "Lucca true", "Lucca false", "Lucca true");
+	}
+
+	@Test
+	void shouldStopUpdatingCancelledQueries() {
+		var contextHandler = new ContextHandler();
+		var queries = new StandingQueries(new Semantics(new Policies()
+				.add(new Policy(new Attributes().add("name", "Alice"), new Rules()))
+				.add(courier(2, "Lucca")))
+			.contextHandler(contextHandler));
+		var query = queries.register(from("Lucca"), q -> flips.add("Lucca " + q.result().isPermitted()));
+		contextHandler.add(2, "open", true);
+		query.cancel();
+		assertEquals(0, queries.size());
+		contextHandler.remove(2);
+		assertTrue(query.result().isPermitted());
+		queries.register(from("Lucca"), q -> flips.add("again " + q.result().isPermitted()));
+		queries.close();
+		contextHandler.add(2, "open", true);
+		assertThat(flips).containsExactly("Lucca true");
+		assertEquals(3, evaluations[2]);
+	}
+}